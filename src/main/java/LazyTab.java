@@ -0,0 +1,112 @@
+import java.awt.BorderLayout;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTabbedPane;
+import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+
+import utils.CachedTab;
+import utils.TabRevalidator;
+
+// A main tab that is built when it is first selected. Until then a placeholder holds its place in
+// the tabbed pane; on selection the prefetch runs on a background thread, then the panel is built
+// on the EDT and swapped in. The first tab goes through the startup pipeline instead, using the
+// same prefetch and build steps.
+public class LazyTab {
+    private static final Logger LOGGER = Logger.getLogger(LazyTab.class.getName());
+
+    private final String title;
+    private final StartupPipeline.Step prefetch;
+    private final StartupPipeline.Work<? extends JPanel> builder;
+    private final JPanel placeholder = new JPanel(new BorderLayout());
+    private final JLabel placeholderLabel = new JLabel("Loading...", SwingConstants.CENTER);
+    private volatile String fileStamp;
+    private boolean loading;
+    private boolean installed;
+
+    public LazyTab(String title, StartupPipeline.Step prefetch, StartupPipeline.Work<? extends JPanel> builder) {
+        this.title = title;
+        this.prefetch = prefetch;
+        this.builder = builder;
+        placeholder.add(placeholderLabel, BorderLayout.CENTER);
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public JPanel getPlaceholder() {
+        return placeholder;
+    }
+
+    // Database work done before the panel is built; runs off the EDT.
+    public void prefetch() throws Exception {
+        fileStamp = TabRevalidator.databaseFileStamp();
+        if (prefetch != null) {
+            prefetch.run();
+        }
+    }
+
+    // Builds the panel; runs on the EDT after prefetch().
+    public JPanel build() throws Exception {
+        if (fileStamp == null) {
+            fileStamp = TabRevalidator.databaseFileStamp();
+        }
+        JPanel panel = builder.run();
+        if (panel instanceof CachedTab) {
+            TabRevalidator.loaded((CachedTab) panel, fileStamp);
+        }
+        return panel;
+    }
+
+    public void install(JTabbedPane tabbedPane, JPanel panel) {
+        int index = tabbedPane.indexOfComponent(placeholder);
+        if (index < 0 || installed) {
+            return;
+        }
+        installed = true;
+        tabbedPane.setComponentAt(index, panel);
+    }
+
+    public void showError(Throwable error) {
+        placeholderLabel.setText("Error loading tab: " + error.getMessage());
+    }
+
+    // Called when the placeholder is selected. A failed load is tried again on the next selection.
+    public void load(JTabbedPane tabbedPane) {
+        if (loading || installed) {
+            return;
+        }
+        loading = true;
+        placeholderLabel.setText("Loading...");
+        long start = System.currentTimeMillis();
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                prefetch();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                loading = false;
+                try {
+                    get();
+                    install(tabbedPane, build());
+                    LOGGER.log(Level.INFO, "Loaded tab {0} in {1} ms", new Object[]{title, System.currentTimeMillis() - start});
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    LOGGER.log(Level.SEVERE, "Error loading tab {0}: {1}", new Object[]{title, cause.getMessage()});
+                    showError(cause);
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "Error building tab {0}: {1}", new Object[]{title, e.getMessage()});
+                    showError(e);
+                }
+            }
+        }.execute();
+    }
+}
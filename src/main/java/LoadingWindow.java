@@ -19,6 +19,8 @@ public class LoadingWindow extends JFrame {
     private final JProgressBar progressBar;
     private final JTextArea logArea;
     private final Handler logHandler;
+    private int phaseCount;
+    private int finishedPhases;
 
     public LoadingWindow() {
         setTitle("Inventory Management - Initializing");
@@ -38,9 +40,11 @@ public class LoadingWindow extends JFrame {
         loadingLabel.setForeground(new Color(200, 200, 200)); // Light text for contrast
         mainPanel.add(loadingLabel, BorderLayout.NORTH);
 
-        // Progress bar (indeterminate)
+        // Progress bar, indeterminate until the number of startup phases is known
         progressBar = new JProgressBar();
         progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
         progressBar.setPreferredSize(new Dimension(550, 25));
         progressBar.setForeground(new Color(0, 120, 215)); // Blue progress bar for visual pop
         progressBar.setBackground(new Color(50, 50, 50));
@@ -96,6 +100,27 @@ public class LoadingWindow extends JFrame {
         });
     }
 
+    // Switches the progress bar to count startup phases; see StartupPipeline.
+    public void setPhaseCount(int count) {
+        SwingUtilities.invokeLater(() -> {
+            phaseCount = count;
+            progressBar.setIndeterminate(false);
+            progressBar.setMaximum(count);
+            progressBar.setValue(finishedPhases);
+            progressBar.setString(finishedPhases + " / " + phaseCount);
+        });
+    }
+
+    public void phaseFinished(String phase, long millis) {
+        SwingUtilities.invokeLater(() -> {
+            finishedPhases++;
+            progressBar.setValue(finishedPhases);
+            progressBar.setString(finishedPhases + " / " + phaseCount + " - " + phase + " (" + millis + " ms)");
+            logArea.append(String.format("%s finished in %d ms%n", phase, millis));
+            logArea.setCaretPosition(logArea.getDocument().getLength());
+        });
+    }
+
     public void close() {
         // Remove the custom logging handler
         java.util.logging.Logger.getLogger("").removeHandler(logHandler);
@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+// Startup as a set of named phases. A phase starts once the phases it depends on have finished:
+// database work runs on a small worker pool, building Swing components runs on the EDT. Every
+// phase is timed and counted on the LoadingWindow's progress bar, and a failed phase fails the
+// phases that depend on it. Nothing runs before start(), so the phase count is known up front.
+public class StartupPipeline {
+    private static final Logger LOGGER = Logger.getLogger(StartupPipeline.class.getName());
+    private static final int WORKER_THREADS = 4;
+
+    @FunctionalInterface
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws Exception;
+    }
+
+    private final LoadingWindow loadingWindow;
+    private final ExecutorService workers;
+    private final CompletableFuture<Void> started = new CompletableFuture<>();
+    private final List<CompletableFuture<?>> phases = new ArrayList<>();
+    private long startTime;
+
+    public StartupPipeline(LoadingWindow loadingWindow) {
+        this.loadingWindow = loadingWindow;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(WORKER_THREADS, r -> {
+            Thread thread = new Thread(r, "startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // A phase that talks to the database, run on the worker pool.
+    public CompletableFuture<Void> background(String name, Step step, CompletableFuture<?>... after) {
+        return add(name, () -> {
+            step.run();
+            return null;
+        }, workers, after);
+    }
+
+    // A phase that builds Swing components, run on the EDT.
+    public <T> CompletableFuture<T> onEdt(String name, Work<T> work, CompletableFuture<?>... after) {
+        return add(name, work, SwingUtilities::invokeLater, after);
+    }
+
+    public void start() {
+        startTime = System.currentTimeMillis();
+        loadingWindow.setPhaseCount(phases.size());
+        CompletableFuture.allOf(phases.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            workers.shutdown();
+            LOGGER.log(Level.INFO, "Startup finished in {0} ms{1}",
+                    new Object[]{System.currentTimeMillis() - startTime, error != null ? " with errors" : ""});
+        });
+        started.complete(null);
+    }
+
+    // The exception a phase failed with, without the wrapping added by CompletableFuture.
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private <T> CompletableFuture<T> add(String name, Work<T> work, Executor executor, CompletableFuture<?>... after) {
+        CompletableFuture<Void> ready = after.length == 0 ? started : CompletableFuture.allOf(after);
+        CompletableFuture<T> phase = ready.thenApplyAsync(ignored -> {
+            long phaseStart = System.currentTimeMillis();
+            try {
+                T result = work.run();
+                long millis = System.currentTimeMillis() - phaseStart;
+                LOGGER.log(Level.INFO, "Startup phase {0} finished in {1} ms", new Object[]{name, millis});
+                loadingWindow.phaseFinished(name, millis);
+                return result;
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Startup phase {0} failed: {1}", new Object[]{name, e.getMessage()});
+                throw new CompletionException(e);
+            }
+        }, executor);
+        phases.add(phase);
+        return phase;
+    }
+}
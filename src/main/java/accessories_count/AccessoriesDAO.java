@@ -1,23 +1,41 @@
 package accessories_count;
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import utils.ChangeBus;
 import utils.DatabaseUtils;
+import utils.LocationTree;
+import utils.SchemaMigrations;
+import utils.StockDeltaBuffer;
+import utils.TabRevalidator;
 
 public class AccessoriesDAO {
     private static final Logger LOGGER = Logger.getLogger(AccessoriesDAO.class.getName());
     private static final String DATATYPE_ACCESSORY = "Accessory";
+    // Loaded on first use and kept current by the write methods below; see getLocationTree().
+    private static LocationTree locationTree;
+    // Writes made outside this class drop the tree; the write methods below keep it current themselves.
+    private static final ChangeBus.Listener CHANGE_LISTENER = change -> {
+        if (change.getSource() != AccessoriesDAO.class && change.affects("Accessories")) {
+            invalidateLocationTree();
+        }
+    };
+
+    static {
+        ChangeBus.subscribe(CHANGE_LISTENER);
+    }
 
     public static class AccessoryEntry {
         public final String accessoryType;
@@ -29,180 +47,78 @@ public class AccessoriesDAO {
         }
     }
 
+    // The table itself is created and cleaned up by the schema migrations; see SchemaMigrations.
     public static void ensureSchema() throws SQLException {
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            boolean tableExists = false;
-            try (ResultSet rs = metaData.getTables(null, null, "Accessories", new String[]{"TABLE"})) {
-                if (rs.next()) {
-                    tableExists = true;
-                    LOGGER.log(Level.INFO, "Accessories table found: {0}", rs.getString("TABLE_NAME"));
-                } else {
-                    LOGGER.log(Level.INFO, "Accessories table does not exist");
-                }
-            }
+        SchemaMigrations.migrate();
+        invalidateLocationTree();
+    }
 
-            if (!tableExists) {
-                String createTableSQL = "CREATE TABLE Accessories (Id COUNTER PRIMARY KEY, Accessory_Type VARCHAR(255), Count INTEGER, Location VARCHAR(255), UNIQUE(Accessory_Type, Location))";
-                try (PreparedStatement stmt = conn.prepareStatement(createTableSQL)) {
-                    stmt.executeUpdate();
-                    LOGGER.log(Level.INFO, "Created Accessories table");
-                }
-            } else {
-                LOGGER.log(Level.INFO, "Accessories table already exists");
-                try (ResultSet rs = metaData.getColumns(null, null, "Accessories", "Parent_Location")) {
-                    if (rs.next()) {
-                        String alterTableSQL = "ALTER TABLE Accessories DROP COLUMN Parent_Location";
-                        try (PreparedStatement stmt = conn.prepareStatement(alterTableSQL)) {
-                            stmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Dropped Parent_Location column from Accessories table");
-                        }
-                    }
-                }
-            }
+    // Startup work of LogAccessoriesTab that does not need the EDT, run by mainFile before the tab is built:
+    // the schema, the clean-up of stray unassigned sub-locations and the location tree.
+    public static void prefetch() throws SQLException {
+        ensureSchema();
+        cleanUpUnassignedSublocations();
+        getLocationTree();
+    }
 
-            String selectOldPlaceholders = "SELECT DISTINCT Location FROM Accessories WHERE Accessory_Type LIKE 'Placeholder_%'";
-            try (PreparedStatement selStmt = conn.prepareStatement(selectOldPlaceholders);
-                 PreparedStatement insStmt = conn.prepareStatement("INSERT INTO Locations (Datatype, Location) VALUES (?, ?)");
-                 PreparedStatement delStmt = conn.prepareStatement("DELETE FROM Accessories WHERE Accessory_Type LIKE 'Placeholder_%' AND Location = ?")) {
-                try (ResultSet rs = selStmt.executeQuery()) {
-                    while (rs.next()) {
-                        String loc = rs.getString("Location");
-                        insStmt.setString(1, DATATYPE_ACCESSORY);
-                        insStmt.setString(2, loc);
-                        insStmt.executeUpdate();
-                        delStmt.setString(1, loc);
-                        delStmt.executeUpdate();
-                        LOGGER.log(Level.INFO, "Migrated placeholder location: {0}", loc);
-                    }
-                }
-            }
+    public static boolean locationExists(String location) throws SQLException {
+        if (location == null || location.isEmpty()) return false;
+        return getLocationTree().exists(location);
+    }
 
-            try (ResultSet rs = metaData.getIndexInfo(null, null, "Accessories", false, false)) {
-                boolean indexExists = false;
-                while (rs.next()) {
-                    if ("idx_accessories_location".equals(rs.getString("INDEX_NAME"))) {
-                        indexExists = true;
-                        break;
-                    }
-                }
-                if (!indexExists) {
-                    try {
-                        String createIndexSQL = "CREATE INDEX idx_accessories_location ON Accessories(Location)";
-                        try (PreparedStatement stmt = conn.prepareStatement(createIndexSQL)) {
-                            stmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Created index idx_accessories_location on Accessories table");
-                        }
-                    } catch (SQLException e) {
-                        LOGGER.log(Level.WARNING, "Failed to create index idx_accessories_location: {0}", e.getMessage());
-                    }
-                }
-            }
-        }
+    public static List<String> getSubLocations(String parentLocation) throws SQLException {
+        return getLocationTree().getSubLocations(parentLocation);
     }
 
-    private static boolean locationExistsInLocations(String location) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Locations WHERE Datatype = ? AND Location = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, DATATYPE_ACCESSORY);
-            stmt.setString(2, location);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
-        }
-        return false;
+    public static List<String> getAllLocations() throws SQLException {
+        return getLocationTree().getLocations();
     }
 
-    private static boolean locationExistsInAccessories(String location) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Accessories WHERE Location = ? AND Accessory_Type NOT LIKE 'Placeholder_%'";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, location);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
+    // Every location and the accessories stored at each. Read with two queries the first time it is
+    // needed; after that the write methods below update it, so LogAccessoriesTab can rebuild its tree
+    // and summaries without querying.
+    public static synchronized LocationTree getLocationTree() throws SQLException {
+        if (locationTree == null) {
+            locationTree = loadLocationTree();
         }
-        return false;
+        return locationTree;
     }
 
-    public static boolean locationExists(String location) throws SQLException {
-        if (location == null || location.isEmpty()) return false;
-        return locationExistsInLocations(location) || locationExistsInAccessories(location);
+    // Drops the cached tree so that the next call re-reads it, e.g. after another user changed the file.
+    public static synchronized void invalidateLocationTree() {
+        locationTree = null;
     }
 
-    public static List<String> getSubLocations(String parentLocation) throws SQLException {
-        Set<String> subLocations = new HashSet<>();
-        String locSql;
-        if (parentLocation == null) {
-            locSql = "SELECT Location FROM Locations WHERE Datatype = ? AND Location NOT LIKE '%/%'";
-        } else {
-            locSql = "SELECT Location FROM Locations WHERE Datatype = ? AND Location LIKE ? || '/%'";
-        }
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(locSql)) {
-            stmt.setString(1, DATATYPE_ACCESSORY);
-            if (parentLocation != null) {
-                stmt.setString(2, parentLocation);
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String fullLoc = rs.getString("Location");
-                    String subLoc = (parentLocation == null) ? fullLoc : fullLoc.substring(parentLocation.length() + 1);
-                    int sepIdx = subLoc.indexOf(LogAccessoriesTab.getPathSeparator());
-                    if (sepIdx != -1) {
-                        subLoc = subLoc.substring(0, sepIdx);
-                    }
-                    subLocations.add(subLoc);
-                }
-            }
-        }
+    // Changes whenever accessories or their locations are added, removed, recounted or moved, here
+    // or by another copy of the application.
+    public static String getChangeToken() throws SQLException {
+        return TabRevalidator.queryToken("SELECT COUNT(*), SUM([Count]), SUM(CAST([Count] AS BIGINT) * Id) FROM Accessories")
+                + TabRevalidator.queryToken("SELECT COUNT(*), MAX(Id) FROM Locations WHERE Datatype = '" + DATATYPE_ACCESSORY + "'");
+    }
 
-        String cabSql;
-        if (parentLocation == null) {
-            cabSql = "SELECT DISTINCT Location FROM Accessories WHERE Accessory_Type NOT LIKE 'Placeholder_%' AND Location NOT LIKE '%/%'";
-        } else {
-            cabSql = "SELECT DISTINCT Location FROM Accessories WHERE Accessory_Type NOT LIKE 'Placeholder_%' AND Location LIKE ? || '/%'";
-        }
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(cabSql)) {
-            if (parentLocation != null) {
-                stmt.setString(1, parentLocation);
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String fullLoc = rs.getString("Location");
-                    String subLoc = (parentLocation == null) ? fullLoc : fullLoc.substring(parentLocation.length() + 1);
-                    int sepIdx = subLoc.indexOf(LogAccessoriesTab.getPathSeparator());
-                    if (sepIdx != -1) {
-                        subLoc = subLoc.substring(0, sepIdx);
+    private static synchronized LocationTree cachedLocationTree() {
+        return locationTree;
+    }
+
+    private static LocationTree loadLocationTree() throws SQLException {
+        LocationTree tree = new LocationTree(LogAccessoriesTab.getPathSeparator());
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT Location FROM Locations WHERE Datatype = ?")) {
+                stmt.setString(1, DATATYPE_ACCESSORY);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        tree.addLocation(rs.getString("Location"));
                     }
-                    subLocations.add(subLoc);
                 }
             }
-        }
-
-        List<String> result = new ArrayList<>(subLocations);
-        Collections.sort(result);
-        return result;
-    }
-
-    public static List<String> getAllLocations() throws SQLException {
-        List<String> locations = new ArrayList<>();
-        String sql = "SELECT DISTINCT Location FROM Accessories WHERE Accessory_Type NOT LIKE 'Placeholder_%' UNION SELECT Location FROM Locations WHERE Datatype = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, DATATYPE_ACCESSORY);
-            try (ResultSet rs = stmt.executeQuery()) {
+            String sql = "SELECT Location, Accessory_Type, Count FROM Accessories WHERE Accessory_Type NOT LIKE 'Placeholder_%'";
+            try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    String loc = rs.getString("Location");
-                    if (loc != null && !loc.isEmpty()) {
-                        locations.add(loc);
-                    }
+                    tree.addItems(rs.getString("Location"), rs.getString("Accessory_Type"), rs.getInt("Count"));
                 }
             }
         }
-        Collections.sort(locations);
-        return locations;
+        return tree;
     }
 
     public static void createLocation(String fullPath, String parentLocation) throws SQLException {
@@ -222,6 +138,11 @@ public class AccessoriesDAO {
             stmt.executeUpdate();
             LOGGER.log(Level.INFO, "Created location: {0}", fullPath);
         }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            tree.addLocation(fullPath);
+        }
+        publish(ChangeBus.Change.inserted("Locations", "Location", Collections.singletonList(fullPath)));
     }
 
     public static void addAccessory(String accessoryType, int count, String location) throws SQLException {
@@ -260,6 +181,13 @@ public class AccessoriesDAO {
                 }
             }
             LOGGER.log(Level.INFO, "Added {0} accessories of type {1} to {2}", new Object[]{count, accessoryType, location});
+            publish(accessoryId != -1
+                    ? ChangeBus.Change.updated("Accessories", "Accessory_Type", Collections.singletonList(accessoryType), Collections.singletonList("Count"))
+                    : ChangeBus.Change.inserted("Accessories", "Accessory_Type", Collections.singletonList(accessoryType)));
+        }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            tree.addItems(location, accessoryType, count);
         }
     }
 
@@ -267,32 +195,128 @@ public class AccessoriesDAO {
         if (count <= 0) {
             throw new SQLException("Count to remove must be positive");
         }
-        String selectSql = "SELECT Count FROM Accessories WHERE Id = ?";
         String updateSql = "UPDATE Accessories SET Count = Count - ? WHERE Id = ?";
         try (Connection conn = DatabaseUtils.getConnection()) {
-            int currentCount = 0;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                selectStmt.setInt(1, accessoryId);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        currentCount = rs.getInt("Count");
+            conn.setAutoCommit(false);
+            try {
+                AccessoryRow row = selectAccessory(conn, accessoryId);
+                if (row.count < count) {
+                    throw new SQLException("Not enough accessories to remove: " + row.count + " available, " + count + " requested");
+                }
+                if (row.count == count) {
+                    deleteAccessoryRow(conn, accessoryId);
+                } else {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                        updateStmt.setInt(1, count);
+                        updateStmt.setInt(2, accessoryId);
+                        updateStmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                LocationTree tree = cachedLocationTree();
+                if (tree != null) {
+                    if (row.count == count) {
+                        tree.removeItems(row.location, row.accessoryType);
                     } else {
-                        throw new SQLException("Accessory ID not found: " + accessoryId);
+                        tree.addItems(row.location, row.accessoryType, -count);
                     }
                 }
+                LOGGER.log(Level.INFO, "Removed {0} accessories with ID: {1}", new Object[]{count, accessoryId});
+                publish(row.count == count
+                        ? ChangeBus.Change.deleted("Accessories", "Accessory_Type", Collections.singletonList(row.accessoryType))
+                        : ChangeBus.Change.updated("Accessories", "Accessory_Type", Collections.singletonList(row.accessoryType), Collections.singletonList("Count")));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (currentCount < count) {
-                throw new SQLException("Not enough accessories to remove: " + currentCount + " available, " + count + " requested");
-            }
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                updateStmt.setInt(1, count);
-                updateStmt.setInt(2, accessoryId);
-                updateStmt.executeUpdate();
+        }
+    }
+
+    // Applies the net +/- counts collected by LogAccessoriesTab's storage buffer in one transaction.
+    // Rows that reach zero are deleted, as removeAccessory does.
+    public static void applyStorageChanges(Map<StockDeltaBuffer.Key, Integer> changes) throws SQLException {
+        String selectSql = "SELECT Id, Accessory_Type, Location, Count FROM Accessories WHERE Accessory_Type = ? AND Location = ?";
+        String updateSql = "UPDATE Accessories SET Count = ? WHERE Id = ?";
+        String insertSql = "INSERT INTO Accessories (Accessory_Type, Count, Location) VALUES (?, ?, ?)";
+        // Rows as stored, which may differ in case from the clicked type and location
+        Map<StockDeltaBuffer.Key, StockDeltaBuffer.Key> storedKeys = new LinkedHashMap<>();
+        Map<StockDeltaBuffer.Key, Integer> newCounts = new LinkedHashMap<>();
+        List<String> insertedTypes = new ArrayList<>();
+        List<String> updatedTypes = new ArrayList<>();
+        List<String> deletedTypes = new ArrayList<>();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql);
+                 PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+                 PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                for (Map.Entry<StockDeltaBuffer.Key, Integer> change : changes.entrySet()) {
+                    StockDeltaBuffer.Key key = change.getKey();
+                    int accessoryId = -1;
+                    int currentCount = 0;
+                    StockDeltaBuffer.Key storedKey = key;
+                    selectStmt.setString(1, key.itemType);
+                    selectStmt.setString(2, key.location);
+                    try (ResultSet rs = selectStmt.executeQuery()) {
+                        if (rs.next()) {
+                            accessoryId = rs.getInt("Id");
+                            currentCount = rs.getInt("Count");
+                            storedKey = new StockDeltaBuffer.Key(rs.getString("Accessory_Type"), rs.getString("Location"));
+                        }
+                    }
+                    int newCount = currentCount + change.getValue();
+                    if (newCount < 0) {
+                        throw new SQLException("Not enough accessories of type " + key.itemType + " at " + key.location
+                                + ": " + currentCount + " available, " + -change.getValue() + " requested");
+                    }
+                    if (accessoryId == -1) {
+                        insertStmt.setString(1, key.itemType);
+                        insertStmt.setInt(2, newCount);
+                        insertStmt.setString(3, key.location);
+                        insertStmt.executeUpdate();
+                        insertedTypes.add(key.itemType);
+                    } else if (newCount == 0) {
+                        deleteAccessoryRow(conn, accessoryId);
+                        deletedTypes.add(storedKey.itemType);
+                    } else {
+                        updateStmt.setInt(1, newCount);
+                        updateStmt.setInt(2, accessoryId);
+                        updateStmt.executeUpdate();
+                        updatedTypes.add(storedKey.itemType);
+                    }
+                    storedKeys.put(key, storedKey);
+                    newCounts.put(key, newCount);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (currentCount - count == 0) {
-                deleteAccessory(accessoryId);
+        }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            for (Map.Entry<StockDeltaBuffer.Key, Integer> change : changes.entrySet()) {
+                StockDeltaBuffer.Key key = storedKeys.get(change.getKey());
+                if (newCounts.get(change.getKey()) == 0) {
+                    tree.removeItems(key.location, key.itemType);
+                } else {
+                    tree.addItems(key.location, key.itemType, change.getValue());
+                }
             }
         }
+        LOGGER.log(Level.INFO, "Applied {0} storage count changes", changes.size());
+        if (!insertedTypes.isEmpty()) {
+            publish(ChangeBus.Change.inserted("Accessories", "Accessory_Type", insertedTypes));
+        }
+        if (!updatedTypes.isEmpty()) {
+            publish(ChangeBus.Change.updated("Accessories", "Accessory_Type", updatedTypes, Collections.singletonList("Count")));
+        }
+        if (!deletedTypes.isEmpty()) {
+            publish(ChangeBus.Change.deleted("Accessories", "Accessory_Type", deletedTypes));
+        }
     }
 
     public static boolean canRemoveAccessory(int accessoryId) throws SQLException {
@@ -353,29 +377,22 @@ public class AccessoriesDAO {
 
     public static List<AccessoryEntry> getAccessoriesSummary(String parentLocation) throws SQLException {
         List<AccessoryEntry> accessories = new ArrayList<>();
-        String sql = "SELECT Accessory_Type, SUM(Count) as TotalCount FROM Accessories WHERE Accessory_Type NOT LIKE 'Placeholder_%' AND (Location = ? OR Location LIKE ? || ?) GROUP BY Accessory_Type";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, parentLocation);
-            stmt.setString(2, parentLocation);
-            stmt.setString(3, LogAccessoriesTab.getPathSeparator() + "%");
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    accessories.add(new AccessoryEntry(
-                            rs.getString("Accessory_Type"),
-                            rs.getInt("TotalCount")
-                    ));
-                }
-            }
+        for (Map.Entry<String, Integer> total : getLocationTree().getSubtreeTotals(parentLocation).entrySet()) {
+            accessories.add(new AccessoryEntry(total.getKey(), total.getValue()));
         }
         return accessories;
     }
 
     public static void deleteAccessory(int accessoryId) throws SQLException {
-        String sql = "DELETE FROM Accessories WHERE Id = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, accessoryId);
-            stmt.executeUpdate();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            AccessoryRow row = selectAccessory(conn, accessoryId);
+            deleteAccessoryRow(conn, accessoryId);
             LOGGER.log(Level.INFO, "Deleted accessory with ID {0}", accessoryId);
+            publish(ChangeBus.Change.deleted("Accessories", "Accessory_Type", Collections.singletonList(row.accessoryType)));
+            LocationTree tree = cachedLocationTree();
+            if (tree != null) {
+                tree.removeItems(row.location, row.accessoryType);
+            }
         }
     }
 
@@ -389,39 +406,53 @@ public class AccessoriesDAO {
 
         String parentPath = getParentPath(fullPath);
         String targetLocation = (parentPath != null) ? parentPath : LogAccessoriesTab.getUnassignedLocation();
+        String subtreeSql = "SELECT Accessory_Type, Count FROM Accessories WHERE Accessory_Type NOT LIKE 'Placeholder_%' AND (Location = ? OR Location LIKE ? || ?)";
+        String targetSql = "SELECT Id, Accessory_Type FROM Accessories WHERE Location = ?";
+        String updateSql = "UPDATE Accessories SET Count = Count + ? WHERE Id = ?";
+        String insertSql = "INSERT INTO Accessories (Accessory_Type, Count, Location) VALUES (?, ?, ?)";
+        String deleteAccessoriesSql = "DELETE FROM Accessories WHERE Location = ? OR Location LIKE ? || ?";
+        String deleteLocationSql = "DELETE FROM Locations WHERE Datatype = ? AND (Location = ? OR Location LIKE ? || ?)";
 
-        List<AccessoryEntry> accessoriesToMove = new ArrayList<>();
         try (Connection conn = DatabaseUtils.getConnection()) {
-            accessoriesToMove.addAll(getAccessoriesByLocation(fullPath));
+            conn.setAutoCommit(false);
+            try {
+                // Totals per type across the subtree; types are matched case-insensitively like
+                // the UNIQUE(Accessory_Type, Location) constraint does.
+                Map<String, AccessoryEntry> accessoriesToMove = new LinkedHashMap<>();
+                try (PreparedStatement subStmt = conn.prepareStatement(subtreeSql)) {
+                    subStmt.setString(1, fullPath);
+                    subStmt.setString(2, fullPath);
+                    subStmt.setString(3, LogAccessoriesTab.getPathSeparator() + "%");
+                    try (ResultSet rs = subStmt.executeQuery()) {
+                        while (rs.next()) {
+                            String accessoryType = rs.getString("Accessory_Type");
+                            AccessoryEntry entry = new AccessoryEntry(accessoryType, rs.getInt("Count"));
+                            accessoriesToMove.merge(accessoryType.toUpperCase(), entry,
+                                    (a, b) -> new AccessoryEntry(a.accessoryType, a.count + b.count));
+                        }
+                    }
+                }
 
-            String subLocationSql = "SELECT Accessory_Type, Count, Location FROM Accessories WHERE Accessory_Type NOT LIKE 'Placeholder_%' AND Location LIKE ? || ?";
-            try (PreparedStatement subStmt = conn.prepareStatement(subLocationSql)) {
-                subStmt.setString(1, fullPath);
-                subStmt.setString(2, LogAccessoriesTab.getPathSeparator() + "%");
-                try (ResultSet rs = subStmt.executeQuery()) {
-                    while (rs.next()) {
-                        accessoriesToMove.add(new AccessoryEntry(
-                                rs.getString("Accessory_Type"),
-                                rs.getInt("Count")
-                        ));
+                Map<String, Integer> targetIds = new HashMap<>();
+                try (PreparedStatement targetStmt = conn.prepareStatement(targetSql)) {
+                    targetStmt.setString(1, targetLocation);
+                    try (ResultSet rs = targetStmt.executeQuery()) {
+                        while (rs.next()) {
+                            targetIds.put(rs.getString("Accessory_Type").toUpperCase(), rs.getInt("Id"));
+                        }
                     }
                 }
-            }
 
-            conn.setAutoCommit(false);
-            try {
-                for (AccessoryEntry ae : accessoriesToMove) {
-                    int targetId = getAccessoryId(ae.accessoryType, targetLocation);
-                    if (targetId != -1) {
-                        String updateSql = "UPDATE Accessories SET Count = Count + ? WHERE Id = ?";
-                        try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+                     PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                    for (Map.Entry<String, AccessoryEntry> move : accessoriesToMove.entrySet()) {
+                        AccessoryEntry ae = move.getValue();
+                        Integer targetId = targetIds.get(move.getKey());
+                        if (targetId != null) {
                             updateStmt.setInt(1, ae.count);
                             updateStmt.setInt(2, targetId);
                             updateStmt.executeUpdate();
-                        }
-                    } else {
-                        String insertSql = "INSERT INTO Accessories (Accessory_Type, Count, Location) VALUES (?, ?, ?)";
-                        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                        } else {
                             insertStmt.setString(1, ae.accessoryType);
                             insertStmt.setInt(2, ae.count);
                             insertStmt.setString(3, targetLocation);
@@ -430,7 +461,6 @@ public class AccessoriesDAO {
                     }
                 }
 
-                String deleteAccessoriesSql = "DELETE FROM Accessories WHERE Location = ? OR Location LIKE ? || ?";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteAccessoriesSql)) {
                     deleteStmt.setString(1, fullPath);
                     deleteStmt.setString(2, fullPath);
@@ -438,7 +468,6 @@ public class AccessoriesDAO {
                     deleteStmt.executeUpdate();
                 }
 
-                String deleteLocationSql = "DELETE FROM Locations WHERE Datatype = ? AND (Location = ? OR Location LIKE ? || ?)";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteLocationSql)) {
                     deleteStmt.setString(1, DATATYPE_ACCESSORY);
                     deleteStmt.setString(2, fullPath);
@@ -449,11 +478,15 @@ public class AccessoriesDAO {
 
                 conn.commit();
                 LOGGER.log(Level.INFO, "Deleted location {0} and moved accessories to {1}", new Object[]{fullPath, targetLocation});
+                publish(ChangeBus.Change.rowsChanged("Accessories"));
+                publish(ChangeBus.Change.deleted("Locations", "Location", null));
             } catch (SQLException ex) {
                 conn.rollback();
                 throw ex;
             } finally {
                 conn.setAutoCommit(true);
+                // Reloaded on next use rather than re-parenting a whole subtree in memory.
+                invalidateLocationTree();
             }
         }
     }
@@ -466,70 +499,108 @@ public class AccessoriesDAO {
             throw new SQLException("Target location does not exist: " + targetLocation);
         }
 
-        String selectSql = "SELECT Accessory_Type, Count, Location FROM Accessories WHERE Id = ?";
         String updateSourceSql = "UPDATE Accessories SET Count = Count - ? WHERE Id = ?";
         String selectTargetSql = "SELECT Id FROM Accessories WHERE Accessory_Type = ? AND Location = ?";
         String updateTargetSql = "UPDATE Accessories SET Count = Count + ? WHERE Id = ?";
         String insertTargetSql = "INSERT INTO Accessories (Accessory_Type, Count, Location) VALUES (?, ?, ?)";
 
         try (Connection conn = DatabaseUtils.getConnection()) {
-            String accessoryType = null;
-            int currentCount = 0;
-            String sourceLocation = null;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                selectStmt.setInt(1, accessoryId);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        accessoryType = rs.getString("Accessory_Type");
-                        currentCount = rs.getInt("Count");
-                        sourceLocation = rs.getString("Location");
-                    } else {
-                        throw new SQLException("Accessory ID not found: " + accessoryId);
-                    }
+            conn.setAutoCommit(false);
+            try {
+                AccessoryRow source = selectAccessory(conn, accessoryId);
+                if (source.count < countToMove) {
+                    throw new SQLException("Not enough accessories to move: " + source.count + " available, " + countToMove + " requested");
                 }
-            }
 
-            if (currentCount < countToMove) {
-                throw new SQLException("Not enough accessories to move: " + currentCount + " available, " + countToMove + " requested");
-            }
-
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSourceSql)) {
-                updateStmt.setInt(1, countToMove);
-                updateStmt.setInt(2, accessoryId);
-                updateStmt.executeUpdate();
-            }
+                int targetAccessoryId = -1;
+                try (PreparedStatement selectStmt = conn.prepareStatement(selectTargetSql)) {
+                    selectStmt.setString(1, source.accessoryType);
+                    selectStmt.setString(2, targetLocation);
+                    try (ResultSet rs = selectStmt.executeQuery()) {
+                        if (rs.next()) {
+                            targetAccessoryId = rs.getInt("Id");
+                        }
+                    }
+                }
+                if (targetAccessoryId == accessoryId) {
+                    throw new SQLException("Accessories are already in " + targetLocation);
+                }
 
-            int targetAccessoryId = -1;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectTargetSql)) {
-                selectStmt.setString(1, accessoryType);
-                selectStmt.setString(2, targetLocation);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        targetAccessoryId = rs.getInt("Id");
+                if (source.count == countToMove) {
+                    deleteAccessoryRow(conn, accessoryId);
+                } else {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSourceSql)) {
+                        updateStmt.setInt(1, countToMove);
+                        updateStmt.setInt(2, accessoryId);
+                        updateStmt.executeUpdate();
                     }
                 }
-            }
 
-            if (targetAccessoryId != -1) {
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateTargetSql)) {
-                    updateStmt.setInt(1, countToMove);
-                    updateStmt.setInt(2, targetAccessoryId);
-                    updateStmt.executeUpdate();
+                if (targetAccessoryId != -1) {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateTargetSql)) {
+                        updateStmt.setInt(1, countToMove);
+                        updateStmt.setInt(2, targetAccessoryId);
+                        updateStmt.executeUpdate();
+                    }
+                } else {
+                    try (PreparedStatement insertStmt = conn.prepareStatement(insertTargetSql)) {
+                        insertStmt.setString(1, source.accessoryType);
+                        insertStmt.setInt(2, countToMove);
+                        insertStmt.setString(3, targetLocation);
+                        insertStmt.executeUpdate();
+                    }
                 }
-            } else {
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertTargetSql)) {
-                    insertStmt.setString(1, accessoryType);
-                    insertStmt.setInt(2, countToMove);
-                    insertStmt.setString(3, targetLocation);
-                    insertStmt.executeUpdate();
+
+                conn.commit();
+                LocationTree tree = cachedLocationTree();
+                if (tree != null) {
+                    if (source.count == countToMove) {
+                        tree.removeItems(source.location, source.accessoryType);
+                    } else {
+                        tree.addItems(source.location, source.accessoryType, -countToMove);
+                    }
+                    tree.addItems(targetLocation, source.accessoryType, countToMove);
                 }
+                LOGGER.log(Level.INFO, "Moved {0} accessories of type {1} from {2} to {3}", new Object[]{countToMove, source.accessoryType, source.location, targetLocation});
+                publish(ChangeBus.Change.updated("Accessories", "Accessory_Type", Collections.singletonList(source.accessoryType), Arrays.asList("Count", "Location")));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        }
+    }
+
+    private static class AccessoryRow {
+        private final String accessoryType;
+        private final int count;
+        private final String location;
+
+        AccessoryRow(String accessoryType, int count, String location) {
+            this.accessoryType = accessoryType;
+            this.count = count;
+            this.location = location;
+        }
+    }
 
-            if (currentCount == countToMove) {
-                deleteAccessory(accessoryId);
+    private static AccessoryRow selectAccessory(Connection conn, int accessoryId) throws SQLException {
+        String sql = "SELECT Accessory_Type, Count, Location FROM Accessories WHERE Id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, accessoryId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new AccessoryRow(rs.getString("Accessory_Type"), rs.getInt("Count"), rs.getString("Location"));
+                }
             }
+        }
+        throw new SQLException("Accessory ID not found: " + accessoryId);
+    }
 
-            LOGGER.log(Level.INFO, "Moved {0} accessories of type {1} from {2} to {3}", new Object[]{countToMove, accessoryType, sourceLocation, targetLocation});
+    private static void deleteAccessoryRow(Connection conn, int accessoryId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM Accessories WHERE Id = ?")) {
+            stmt.setInt(1, accessoryId);
+            stmt.executeUpdate();
         }
     }
 
@@ -550,7 +621,14 @@ public class AccessoriesDAO {
             stmt.setString(1, LogAccessoriesTab.getUnassignedLocation());
             stmt.setString(2, "%");
             stmt.setString(3, LogAccessoriesTab.getPathSeparator() + LogAccessoriesTab.getUnassignedLocation());
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() > 0) {
+                publish(ChangeBus.Change.updated("Accessories", null, null, Collections.singletonList("Location")));
+            }
         }
+        invalidateLocationTree();
+    }
+
+    private static void publish(ChangeBus.Change change) {
+        ChangeBus.publish(change.from(AccessoriesDAO.class));
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package accessories_count;
 
 import java.awt.BorderLayout;
 import java.awt.Font;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
@@ -15,6 +16,7 @@ import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
@@ -35,9 +37,12 @@ import accessories_count.actions.DeleteLocationAction;
 import accessories_count.actions.MoveAccessoryAction;
 import accessories_count.actions.NewLocationDialog;
 import accessories_count.actions.RemoveFromStorageAction;
+import utils.CachedTab;
+import utils.LocationTree;
+import utils.StockDeltaBuffer;
 import utils.UIComponentUtils;
 
-public final class LogAccessoriesTab extends JPanel {
+public final class LogAccessoriesTab extends JPanel implements CachedTab {
 
     private final JTree locationTree;
     private final JTable accessoryTable;
@@ -57,14 +62,16 @@ public final class LogAccessoriesTab extends JPanel {
     private final JTextField searchField;
     private final JLabel titleLabel;
     private List<AccessoriesDAO.AccessoryEntry> currentAccessories; // To store the current Accessory list for filtering
+    // +1/-1 clicks not yet written to the database
+    private final StockDeltaBuffer storageChanges;
 
-    public LogAccessoriesTab() throws SQLException {
+    public LogAccessoriesTab() {
         setLayout(new BorderLayout(10, 10));
 
         statusLabel = UIComponentUtils.createAlignedLabel("");
 
-        AccessoriesDAO.ensureSchema();
-        AccessoriesDAO.cleanUpUnassignedSublocations();
+        storageChanges = new StockDeltaBuffer("Accessories", AccessoriesDAO::applyStorageChanges);
+        storageChanges.setListener(this::storageChangesFlushed);
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
         splitPane.setResizeWeight(0.3);
@@ -102,7 +109,7 @@ public final class LogAccessoriesTab extends JPanel {
         });
         treePopup.add(addSubLocationItem);
         JMenuItem deleteLocationItem = new JMenuItem("Delete Location");
-        deleteLocationItem.addActionListener(new DeleteLocationAction(this));
+        deleteLocationItem.addActionListener(afterSavingStorageChanges(new DeleteLocationAction(this)));
         treePopup.add(deleteLocationItem);
 
         locationTree.addMouseListener(new MouseAdapter() {
@@ -144,11 +151,11 @@ public final class LogAccessoriesTab extends JPanel {
 
         JPanel topButtonPanel = new JPanel(new java.awt.FlowLayout(java.awt.FlowLayout.RIGHT));
         addAccessoryButton = UIComponentUtils.createFormattedButton("Add Accessory");
-        addAccessoryButton.addActionListener(new AddAccessoryAction(this));
+        addAccessoryButton.addActionListener(afterSavingStorageChanges(new AddAccessoryAction(this)));
         moveAccessoryButton = UIComponentUtils.createFormattedButton("Move Accessories");
-        moveAccessoryButton.addActionListener(new MoveAccessoryAction(this));
+        moveAccessoryButton.addActionListener(afterSavingStorageChanges(new MoveAccessoryAction(this)));
         deleteAccessoryButton = UIComponentUtils.createFormattedButton("Delete Accessory Type");
-        deleteAccessoryButton.addActionListener(new DeleteAccessoryAction(this));
+        deleteAccessoryButton.addActionListener(afterSavingStorageChanges(new DeleteAccessoryAction(this)));
         topButtonPanel.add(addAccessoryButton);
         topButtonPanel.add(moveAccessoryButton);
         topButtonPanel.add(deleteAccessoryButton);
@@ -178,10 +185,10 @@ public final class LogAccessoriesTab extends JPanel {
         removeFromStorageItem.addActionListener(new RemoveFromStorageAction(this));
         tablePopup.add(removeFromStorageItem);
         JMenuItem moveAccessoryItem = new JMenuItem("Move Accessories");
-        moveAccessoryItem.addActionListener(new MoveAccessoryAction(this));
+        moveAccessoryItem.addActionListener(afterSavingStorageChanges(new MoveAccessoryAction(this)));
         tablePopup.add(moveAccessoryItem);
         JMenuItem deleteAccessoryItem = new JMenuItem("Delete Accessory Type");
-        deleteAccessoryItem.addActionListener(new DeleteAccessoryAction(this));
+        deleteAccessoryItem.addActionListener(afterSavingStorageChanges(new DeleteAccessoryAction(this)));
         tablePopup.add(deleteAccessoryItem);
 
         accessoryTable.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -226,23 +233,15 @@ public final class LogAccessoriesTab extends JPanel {
     private void buildTree() {
         try {
             DefaultMutableTreeNode root = new DefaultMutableTreeNode("Root");
+            LocationTree locations = AccessoriesDAO.getLocationTree();
 
-            List<AccessoriesDAO.AccessoryEntry> unassignedAccessories = AccessoriesDAO.getAccessoriesByLocation(UNASSIGNED_LOCATION);
-            boolean hasUnassignedAccessories = false;
-            for (AccessoriesDAO.AccessoryEntry accessory : unassignedAccessories) {
-                if (!accessory.accessoryType.startsWith("Placeholder_")) {
-                    hasUnassignedAccessories = true;
-                    break;
-                }
-            }
-            if (hasUnassignedAccessories) {
+            if (locations.hasDirectItems(UNASSIGNED_LOCATION)) {
                 root.add(new DefaultMutableTreeNode(UNASSIGNED_LOCATION));
             }
 
-            List<String> allLocations = AccessoriesDAO.getAllLocations();
-            for (String location : allLocations) {
+            for (String location : locations.getLocations()) {
                 if (!location.equals(UNASSIGNED_LOCATION)) {
-                    addLocationToTree(root, location);
+                    addLocationToTree(root, location, locations);
                 }
             }
 
@@ -257,7 +256,7 @@ public final class LogAccessoriesTab extends JPanel {
         }
     }
 
-    private void addLocationToTree(DefaultMutableTreeNode parentNode, String fullPath) throws SQLException {
+    private void addLocationToTree(DefaultMutableTreeNode parentNode, String fullPath, LocationTree locations) {
         if (fullPath == null || fullPath.isEmpty()) {
             return;
         }
@@ -291,18 +290,7 @@ public final class LogAccessoriesTab extends JPanel {
         }
 
         String fullPathStr = currentPath.toString();
-        List<AccessoriesDAO.AccessoryEntry> directAccessories = AccessoriesDAO.getAccessoriesByLocation(fullPathStr);
-        List<String> subLocations = AccessoriesDAO.getSubLocations(fullPathStr);
-
-        boolean hasDirectAccessories = false;
-        for (AccessoriesDAO.AccessoryEntry accessory : directAccessories) {
-            if (!accessory.accessoryType.startsWith("Placeholder_")) {
-                hasDirectAccessories = true;
-                break;
-            }
-        }
-
-        if (hasDirectAccessories && !subLocations.isEmpty() && !fullPathStr.equals(UNASSIGNED_LOCATION)) {
+        if (locations.hasDirectItems(fullPathStr) && locations.hasSubLocations(fullPathStr) && !fullPathStr.equals(UNASSIGNED_LOCATION)) {
             boolean hasUnassignedNode = false;
             for (int i = 0; i < currentNode.getChildCount(); i++) {
                 DefaultMutableTreeNode child = (DefaultMutableTreeNode) currentNode.getChildAt(i);
@@ -355,6 +343,7 @@ public final class LogAccessoriesTab extends JPanel {
     }
 
     public void refresh() {
+        storageChanges.flush();
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) locationTree.getLastSelectedPathComponent();
         if (node == null) {
             refreshTable(UNASSIGNED_LOCATION, false);
@@ -380,10 +369,97 @@ public final class LogAccessoriesTab extends JPanel {
         updateButtonStates();
     }
 
+    // Records a storage click for the accessory in the given table row. The table shows the new count
+    // at once; the database is updated by storageChanges shortly after.
+    public void changeStorageCount(int row, String location, int delta) {
+        String accessoryType = (String) tableModel.getValueAt(row, 0);
+        int newCount = ((Number) tableModel.getValueAt(row, 1)).intValue() + delta;
+        storageChanges.add(accessoryType, location, delta);
+        tableModel.setValueAt(newCount, row, 1);
+        if (currentAccessories != null) {
+            for (int i = 0; i < currentAccessories.size(); i++) {
+                if (currentAccessories.get(i).accessoryType.equals(accessoryType)) {
+                    currentAccessories.set(i, new AccessoriesDAO.AccessoryEntry(accessoryType, newCount));
+                }
+            }
+        }
+    }
+
+    public int getUnsavedStorageChanges() {
+        return storageChanges.getPendingCount();
+    }
+
+    private ActionListener afterSavingStorageChanges(ActionListener action) {
+        return e -> {
+            if (storageChanges.flush()) {
+                action.actionPerformed(e);
+            }
+        };
+    }
+
+    private void storageChangesFlushed(int changeCount, SQLException error) {
+        if (error != null) {
+            statusLabel.setText("Error saving storage changes: " + error.getMessage());
+            JOptionPane.showMessageDialog(this, "Error saving storage changes, they were not saved: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        int selectedRow = accessoryTable.getSelectedRow();
+        String selectedType = selectedRow >= 0 ? (String) tableModel.getValueAt(selectedRow, 0) : null;
+        refresh();
+        for (int i = 0; selectedType != null && i < tableModel.getRowCount(); i++) {
+            if (selectedType.equals(tableModel.getValueAt(i, 0))) {
+                accessoryTable.setRowSelectionInterval(i, i);
+                break;
+            }
+        }
+        if (error == null) {
+            statusLabel.setText("Saved " + changeCount + " storage change(s)");
+        }
+    }
+
     public void refreshTree() {
         buildTree();
     }
 
+    @Override
+    public String computeChangeToken() throws SQLException {
+        return AccessoriesDAO.getChangeToken();
+    }
+
+    // Re-reads the locations, which may have been changed by another user, and selects the same
+    // location again if it still exists.
+    @Override
+    public void reload() {
+        storageChanges.flush();
+        TreePath selected = locationTree.getSelectionPath();
+        AccessoriesDAO.invalidateLocationTree();
+        buildTree();
+        TreePath restored = selected != null ? findPath(selected.getPath()) : null;
+        if (restored != null) {
+            locationTree.setSelectionPath(restored);
+            locationTree.scrollPathToVisible(restored);
+        } else {
+            refresh();
+        }
+    }
+
+    // The node of the rebuilt tree with the same names as the given path, or null.
+    private TreePath findPath(Object[] oldPath) {
+        DefaultMutableTreeNode node = (DefaultMutableTreeNode) locationTree.getModel().getRoot();
+        for (int i = 1; i < oldPath.length && node != null; i++) {
+            Object name = ((DefaultMutableTreeNode) oldPath[i]).getUserObject();
+            DefaultMutableTreeNode match = null;
+            for (int c = 0; c < node.getChildCount(); c++) {
+                DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.getChildAt(c);
+                if (name.equals(child.getUserObject())) {
+                    match = child;
+                    break;
+                }
+            }
+            node = match;
+        }
+        return node != null && oldPath.length > 1 ? new TreePath(node.getPath()) : null;
+    }
+
     public void setStatus(String message) {
         statusLabel.setText(message);
     }
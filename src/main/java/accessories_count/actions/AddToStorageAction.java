@@ -2,15 +2,12 @@ package accessories_count.actions;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
-import javax.swing.JTable;
 import javax.swing.tree.DefaultMutableTreeNode;
 
-import accessories_count.AccessoriesDAO;
 import accessories_count.LogAccessoriesTab;
 
 public class AddToStorageAction implements ActionListener {
@@ -31,7 +28,6 @@ public class AddToStorageAction implements ActionListener {
         }
 
         String accessoryType = (String) tab.getTableModel().getValueAt(selectedRow, 0);
-        final String selectedAccessoryType = accessoryType; // Save for reselection, declared final
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) tab.getLocationTree().getLastSelectedPathComponent();
         if (node == null) {
             tab.setStatus("Error: Select a location first");
@@ -47,34 +43,9 @@ public class AddToStorageAction implements ActionListener {
             location = buildPathFromNode(node);
         }
 
-        try {
-            AccessoriesDAO.addAccessory(accessoryType, 1, location); // Add 1 accessory
-            tab.setStatus("Added 1 " + accessoryType + " to " + location);
-            LOGGER.log(Level.INFO, "Added accessory: {0} at {1}", new Object[]{accessoryType, location});
-            // Refresh the table and restore selection
-            tab.refresh();
-            if (selectedAccessoryType != null) {
-                JTable table = tab.getAccessoryTable();
-                LOGGER.log(Level.INFO, "Attempting to restore selection for accessory type: {0}", selectedAccessoryType);
-                boolean selectionRestored = false;
-                for (int i = 0; i < table.getRowCount(); i++) {
-                    Object value = table.getValueAt(i, 0);
-                    if (value != null && selectedAccessoryType.equals(value.toString())) {
-                        table.setRowSelectionInterval(i, i);
-                        selectionRestored = true;
-                        LOGGER.log(Level.INFO, "Selection restored for accessory type: {0} at row {1}", new Object[]{selectedAccessoryType, i});
-                        break;
-                    }
-                }
-                if (!selectionRestored) {
-                    LOGGER.log(Level.WARNING, "Could not restore selection for accessory type: {0}", selectedAccessoryType);
-                }
-            }
-        } catch (SQLException ex) {
-            LOGGER.log(Level.SEVERE, "Error adding to storage: {0}", ex.getMessage());
-            tab.setStatus("Error adding to storage: " + ex.getMessage());
-            JOptionPane.showMessageDialog(null, "Error adding to storage: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        tab.changeStorageCount(selectedRow, location, 1);
+        tab.setStatus("Added 1 " + accessoryType + " to " + location + " (" + tab.getUnsavedStorageChanges() + " unsaved change(s))");
+        LOGGER.log(Level.INFO, "Added accessory: {0} at {1}", new Object[]{accessoryType, location});
     }
 
     private String buildPathFromNode(DefaultMutableTreeNode node) {
@@ -2,15 +2,12 @@ package accessories_count.actions;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
-import javax.swing.JTable;
 import javax.swing.tree.DefaultMutableTreeNode;
 
-import accessories_count.AccessoriesDAO;
 import accessories_count.LogAccessoriesTab;
 
 public class RemoveFromStorageAction implements ActionListener {
@@ -35,7 +32,6 @@ public class RemoveFromStorageAction implements ActionListener {
         }
 
         String accessoryType = (String) tab.getTableModel().getValueAt(selectedRow, 0);
-        final String selectedAccessoryType = accessoryType; // Save for reselection, declared final
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) tab.getLocationTree().getLastSelectedPathComponent();
         if (node == null) {
             tab.setStatus("Error: Select a location first");
@@ -51,36 +47,15 @@ public class RemoveFromStorageAction implements ActionListener {
             location = buildPathFromNode(node);
         }
 
-        try {
-            int accessoryId = AccessoriesDAO.getAccessoryId(accessoryType, location);
-            if (accessoryId == -1) {
-                tab.setStatus("Error: Accessory type '" + accessoryType + "' not found at " + location);
-                JOptionPane.showMessageDialog(null, "Accessory not found", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            if (!AccessoriesDAO.canRemoveAccessory(accessoryId)) {
-                tab.setStatus("Error: No accessories of type '" + accessoryType + "' available to remove at " + location);
-                JOptionPane.showMessageDialog(null, "No accessories available to remove", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            AccessoriesDAO.removeAccessory(accessoryId, 1); // Remove 1 accessory
-            tab.setStatus("Removed 1 " + accessoryType + " from " + location);
-            // Refresh the table and restore selection
-            tab.refresh();
-            if (selectedAccessoryType != null) {
-                JTable table = tab.getAccessoryTable();
-                for (int i = 0; i < table.getRowCount(); i++) {
-                    if (selectedAccessoryType.equals(table.getValueAt(i, 0))) {
-                        table.setRowSelectionInterval(i, i);
-                        break;
-                    }
-                }
-            }
-        } catch (SQLException ex) {
-            LOGGER.log(Level.SEVERE, "Error removing from storage: {0}", ex.getMessage());
-            tab.setStatus("Error removing from storage: " + ex.getMessage());
-            JOptionPane.showMessageDialog(null, "Error removing from storage: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        int count = ((Number) tab.getTableModel().getValueAt(selectedRow, 1)).intValue();
+        if (count <= 0) {
+            tab.setStatus("Error: No accessories of type '" + accessoryType + "' available to remove at " + location);
+            JOptionPane.showMessageDialog(null, "No accessories available to remove", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        tab.changeStorageCount(selectedRow, location, -1);
+        tab.setStatus("Removed 1 " + accessoryType + " from " + location + " (" + tab.getUnsavedStorageChanges() + " unsaved change(s))");
+        LOGGER.log(Level.INFO, "Removed accessory: {0} at {1}", new Object[]{accessoryType, location});
     }
 
     private String buildPathFromNode(DefaultMutableTreeNode node) {
@@ -3,11 +3,7 @@ package database_creator;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.io.File;
-import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
@@ -19,6 +15,7 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 
 import database_creator.Table_Editor.TableEditor;
 import utils.DatabaseUtils;
+import utils.SchemaMigrations;
 import utils.UIComponentUtils;
 
 public class DatabaseCreatorTab extends JPanel {
@@ -38,7 +35,7 @@ public class DatabaseCreatorTab extends JPanel {
         JButton createButton = UIComponentUtils.createFormattedButton("Create Tables");
         createButton.addActionListener(e -> {
             try {
-                createDefaultTables();
+                SchemaMigrations.createDefaultTables();
             } catch (SQLException ex) {
                 statusLabel.setText("Error: " + ex.getMessage());
                 JOptionPane.showMessageDialog(this, "Error creating tables: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -67,7 +64,7 @@ public class DatabaseCreatorTab extends JPanel {
         if (validateDatabasePath()) {
             DatabaseUtils.setDatabasePath(dbPathField.getText().trim());
             try {
-                createDefaultTables();
+                SchemaMigrations.migrate();
                 statusLabel.setText("Database initialized successfully.");
             } catch (SQLException e) {
                 statusLabel.setText("Error: " + e.getMessage());
@@ -98,135 +95,6 @@ public class DatabaseCreatorTab extends JPanel {
         }
     }
 
-    private boolean tableExists(DatabaseMetaData metaData, String tableName) throws SQLException {
-        try (ResultSet rs = metaData.getTables(null, null, tableName, null)) {
-            return rs.next();
-        }
-    }
-
-    private void createDefaultTables() throws SQLException {
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            createAccessoriesTable(conn, metaData);
-            createCablesTable(conn, metaData);
-            createChargersTable(conn, metaData);
-            createAdaptersTable(conn, metaData);
-            createTemplatesTable(conn, metaData);
-            createTableInformationTable(conn, metaData);
-            createLicenseKeyRulesTable(conn, metaData);
-            createLocationsTable(conn, metaData); // Added call to create Locations table
-        }
-    }
-
-    private void createTableInformationTable(Connection conn, DatabaseMetaData metaData) throws SQLException {
-        if (!tableExists(metaData, "TableInformation")) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(
-                        "CREATE TABLE TableInformation ("
-                        + "ID INTEGER PRIMARY KEY, "
-                        + "InventoryTables TEXT, "
-                        + "SoftwareTables TEXT)"
-                );
-            }
-        }
-    }
-
-    private void createAccessoriesTable(Connection conn, DatabaseMetaData metaData) throws SQLException {
-        if (!tableExists(metaData, "Accessories")) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(
-                        "CREATE TABLE Accessories ("
-                        + "ID AUTOINCREMENT PRIMARY KEY, "
-                        + "Accessory_Type VARCHAR(255), "
-                        + "[Count] INTEGER, "
-                        + "Location VARCHAR(255), "
-                        + "Previous_Location VARCHAR(255))"
-                );
-            }
-        }
-    }
-
-    private void createCablesTable(Connection conn, DatabaseMetaData metaData) throws SQLException {
-        if (!tableExists(metaData, "Cables")) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(
-                        "CREATE TABLE Cables ("
-                        + "ID AUTOINCREMENT PRIMARY KEY, "
-                        + "Cable_Type VARCHAR(255), "
-                        + "[Count] INTEGER, "
-                        + "Location VARCHAR(255), "
-                        + "Previous_Location VARCHAR(255))"
-                );
-            }
-        }
-    }
-
-    private void createChargersTable(Connection conn, DatabaseMetaData metaData) throws SQLException {
-        if (!tableExists(metaData, "Chargers")) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(
-                        "CREATE TABLE Chargers ("
-                        + "ID AUTOINCREMENT PRIMARY KEY, "
-                        + "Charger_Type VARCHAR(255), "
-                        + "[Count] INTEGER, "
-                        + "Location VARCHAR(255), "
-                        + "Previous_Location VARCHAR(255))"
-                );
-            }
-        }
-    }
-
-    private void createAdaptersTable(Connection conn, DatabaseMetaData metaData) throws SQLException {
-        if (!tableExists(metaData, "Adapters")) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(
-                        "CREATE TABLE Adapters ("
-                        + "ID AUTOINCREMENT PRIMARY KEY, "
-                        + "Adapter_Type VARCHAR(255), "
-                        + "[Count] INTEGER, "
-                        + "Location VARCHAR(255), "
-                        + "Previous_Location VARCHAR(255))"
-                );
-            }
-        }
-    }
-
-    private void createTemplatesTable(Connection conn, DatabaseMetaData metaData) throws SQLException {
-        if (!tableExists(metaData, "Templates")) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(
-                        "CREATE TABLE Templates ("
-                        + "Template_Name TEXT PRIMARY KEY)"
-                );
-            }
-        }
-    }
-
-    private void createLicenseKeyRulesTable(Connection conn, DatabaseMetaData metaData) throws SQLException {
-        if (!tableExists(metaData, "LicenseKeyRules")) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(
-                        "CREATE TABLE LicenseKeyRules ("
-                        + "TableName VARCHAR(255) PRIMARY KEY, "
-                        + "UsageLimit INTEGER)"
-                );
-            }
-        }
-    }
-
-    private void createLocationsTable(Connection conn, DatabaseMetaData metaData) throws SQLException {
-        if (!tableExists(metaData, "Locations")) {
-            try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(
-                        "CREATE TABLE Locations ("
-                        + "ID AUTOINCREMENT PRIMARY KEY, "
-                        + "Datatype VARCHAR(255), "
-                        + "Location VARCHAR(255))"
-                );
-            }
-        }
-    }
-
     public void designDatabase() {
         TableEditor editor = new TableEditor();
         JOptionPane.showMessageDialog(this, editor, "Table Editor", JOptionPane.PLAIN_MESSAGE);
@@ -16,6 +16,7 @@ import javax.swing.JTextField;
 import javax.swing.table.DefaultTableModel;
 
 import utils.DatabaseUtils;
+import utils.SchemaCache;
 
 public class TableOperationHandler {
     private final TableEditor editor;
@@ -153,6 +154,7 @@ public class TableOperationHandler {
             sql.append(")");
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql.toString());
+                SchemaCache.invalidate(tableName);
                 editor.showMessageDialog("Success", "Table '" + tableName + "' created successfully.", 1);
                 schemaManager.loadTableList();
                 tableComboBox.setSelectedItem(tableName);
@@ -194,6 +196,7 @@ public class TableOperationHandler {
             }
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(tableName);
                 Map<String, String> newField = new HashMap<>();
                 newField.put("name", fieldName);
                 newField.put("type", fieldType);
@@ -291,6 +294,8 @@ public class TableOperationHandler {
             String sql = String.format("ALTER TABLE %s RENAME TO %s", oldTableName, newTableName);
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(oldTableName);
+                SchemaCache.invalidate(newTableName);
                 editor.showMessageDialog("Success", "Table renamed successfully.", 1);
                 schemaManager.loadTableList();
                 tableComboBox.setSelectedItem(newTableName);
@@ -321,6 +326,7 @@ public class TableOperationHandler {
             String sql = String.format("DROP TABLE %s", tableName);
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(tableName);
                 editor.showMessageDialog("Success", "Table deleted successfully.", 1);
                 schemaManager.loadTableList();
                 fields.clear();
@@ -352,6 +358,7 @@ public class TableOperationHandler {
             String sql = String.format("ALTER TABLE %s RENAME COLUMN %s TO %s", tableName, oldColumnName, newColumnName);
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(tableName);
                 fields.get(selectedRow).put("name", newColumnName);
                 tableModel.setValueAt(newColumnName, selectedRow, 0);
                 editor.showMessageDialog("Success", "Column renamed successfully.", 1);
@@ -383,6 +390,7 @@ public class TableOperationHandler {
             String sql = String.format("ALTER TABLE %s ALTER COLUMN %s %s", tableName, columnName, newType);
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(tableName);
                 fields.get(selectedRow).put("type", newType);
                 tableModel.setValueAt(newType, selectedRow, 1);
                 editor.showMessageDialog("Success", "Column type changed successfully.", 1);
@@ -442,6 +450,7 @@ public class TableOperationHandler {
             String sql = String.format("ALTER TABLE %s ADD CONSTRAINT PK_%s PRIMARY KEY (%s)", tableName, tableName, columnName);
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(tableName);
                 fields.get(selectedRow).put("primaryKey", "Yes");
                 tableModel.setValueAt("Yes", selectedRow, 2);
                 editor.showMessageDialog("Success", "Primary key set successfully.", 1);
@@ -480,6 +489,7 @@ public class TableOperationHandler {
             String sql = String.format("ALTER TABLE %s DROP CONSTRAINT %s", tableName, pkName);
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(tableName);
                 fields.get(selectedRow).put("primaryKey", "No");
                 tableModel.setValueAt("No", selectedRow, 2);
                 editor.showMessageDialog("Success", "Primary key removed successfully.", 1);
@@ -512,6 +522,7 @@ public class TableOperationHandler {
             try (Connection conn = DatabaseUtils.getConnection();
                  Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(tableName);
                 fields.remove(selectedRow);
                 tableModel.removeRow(selectedRow);
                 editor.showMessageDialog("Success", "Column deleted successfully.", 1);
@@ -1,23 +1,41 @@
 package log_adapters;
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import utils.ChangeBus;
 import utils.DatabaseUtils;
+import utils.LocationTree;
+import utils.SchemaMigrations;
+import utils.StockDeltaBuffer;
+import utils.TabRevalidator;
 
 public class AdaptersDAO {
     private static final Logger LOGGER = Logger.getLogger(AdaptersDAO.class.getName());
     private static final String DATATYPE_ADAPTER = "Adapter";
+    // Loaded on first use and kept current by the write methods below; see getLocationTree().
+    private static LocationTree locationTree;
+    // Writes made outside this class drop the tree; the write methods below keep it current themselves.
+    private static final ChangeBus.Listener CHANGE_LISTENER = change -> {
+        if (change.getSource() != AdaptersDAO.class && change.affects("Adapters")) {
+            invalidateLocationTree();
+        }
+    };
+
+    static {
+        ChangeBus.subscribe(CHANGE_LISTENER);
+    }
 
     public static class AdapterEntry {
         public final String adapterType;
@@ -29,180 +47,78 @@ public class AdaptersDAO {
         }
     }
 
+    // The table itself is created and cleaned up by the schema migrations; see SchemaMigrations.
     public static void ensureSchema() throws SQLException {
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            boolean tableExists = false;
-            try (ResultSet rs = metaData.getTables(null, null, "Adapters", new String[]{"TABLE"})) {
-                if (rs.next()) {
-                    tableExists = true;
-                    LOGGER.log(Level.INFO, "Adapters table found: {0}", rs.getString("TABLE_NAME"));
-                } else {
-                    LOGGER.log(Level.INFO, "Adapters table does not exist");
-                }
-            }
+        SchemaMigrations.migrate();
+        invalidateLocationTree();
+    }
 
-            if (!tableExists) {
-                String createTableSQL = "CREATE TABLE Adapters (Id COUNTER PRIMARY KEY, Adapter_Type VARCHAR(255), Count INTEGER, Location VARCHAR(255), UNIQUE(Adapter_Type, Location))";
-                try (PreparedStatement stmt = conn.prepareStatement(createTableSQL)) {
-                    stmt.executeUpdate();
-                    LOGGER.log(Level.INFO, "Created Adapters table");
-                }
-            } else {
-                LOGGER.log(Level.INFO, "Adapters table already exists");
-                try (ResultSet rs = metaData.getColumns(null, null, "Adapters", "Parent_Location")) {
-                    if (rs.next()) {
-                        String alterTableSQL = "ALTER TABLE Adapters DROP COLUMN Parent_Location";
-                        try (PreparedStatement stmt = conn.prepareStatement(alterTableSQL)) {
-                            stmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Dropped Parent_Location column from Adapters table");
-                        }
-                    }
-                }
-            }
+    // Startup work of LogAdaptersTab that does not need the EDT, run by mainFile before the tab is built:
+    // the schema, the clean-up of stray unassigned sub-locations and the location tree.
+    public static void prefetch() throws SQLException {
+        ensureSchema();
+        cleanUpUnassignedSublocations();
+        getLocationTree();
+    }
 
-            String selectOldPlaceholders = "SELECT DISTINCT Location FROM Adapters WHERE Adapter_Type LIKE 'Placeholder_%'";
-            try (PreparedStatement selStmt = conn.prepareStatement(selectOldPlaceholders);
-                 PreparedStatement insStmt = conn.prepareStatement("INSERT INTO Locations (Datatype, Location) VALUES (?, ?)");
-                 PreparedStatement delStmt = conn.prepareStatement("DELETE FROM Adapters WHERE Adapter_Type LIKE 'Placeholder_%' AND Location = ?")) {
-                try (ResultSet rs = selStmt.executeQuery()) {
-                    while (rs.next()) {
-                        String loc = rs.getString("Location");
-                        insStmt.setString(1, DATATYPE_ADAPTER);
-                        insStmt.setString(2, loc);
-                        insStmt.executeUpdate();
-                        delStmt.setString(1, loc);
-                        delStmt.executeUpdate();
-                        LOGGER.log(Level.INFO, "Migrated placeholder location: {0}", loc);
-                    }
-                }
-            }
+    public static boolean locationExists(String location) throws SQLException {
+        if (location == null || location.isEmpty()) return false;
+        return getLocationTree().exists(location);
+    }
 
-            try (ResultSet rs = metaData.getIndexInfo(null, null, "Adapters", false, false)) {
-                boolean indexExists = false;
-                while (rs.next()) {
-                    if ("idx_adapters_location".equals(rs.getString("INDEX_NAME"))) {
-                        indexExists = true;
-                        break;
-                    }
-                }
-                if (!indexExists) {
-                    try {
-                        String createIndexSQL = "CREATE INDEX idx_adapters_location ON Adapters(Location)";
-                        try (PreparedStatement stmt = conn.prepareStatement(createIndexSQL)) {
-                            stmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Created index idx_adapters_location on Adapters table");
-                        }
-                    } catch (SQLException e) {
-                        LOGGER.log(Level.WARNING, "Failed to create index idx_adapters_location: {0}", e.getMessage());
-                    }
-                }
-            }
-        }
+    public static List<String> getSubLocations(String parentLocation) throws SQLException {
+        return getLocationTree().getSubLocations(parentLocation);
     }
 
-    private static boolean locationExistsInLocations(String location) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Locations WHERE Datatype = ? AND Location = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, DATATYPE_ADAPTER);
-            stmt.setString(2, location);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
-        }
-        return false;
+    public static List<String> getAllLocations() throws SQLException {
+        return getLocationTree().getLocations();
     }
 
-    private static boolean locationExistsInAdapters(String location) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Adapters WHERE Location = ? AND Adapter_Type NOT LIKE 'Placeholder_%'";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, location);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
+    // Every location and the adapters stored at each. Read with two queries the first time it is
+    // needed; after that the write methods below update it, so LogAdaptersTab can rebuild its tree
+    // and summaries without querying.
+    public static synchronized LocationTree getLocationTree() throws SQLException {
+        if (locationTree == null) {
+            locationTree = loadLocationTree();
         }
-        return false;
+        return locationTree;
     }
 
-    public static boolean locationExists(String location) throws SQLException {
-        if (location == null || location.isEmpty()) return false;
-        return locationExistsInLocations(location) || locationExistsInAdapters(location);
+    // Drops the cached tree so that the next call re-reads it, e.g. after another user changed the file.
+    public static synchronized void invalidateLocationTree() {
+        locationTree = null;
     }
 
-    public static List<String> getSubLocations(String parentLocation) throws SQLException {
-        Set<String> subLocations = new HashSet<>();
-        String locSql;
-        if (parentLocation == null) {
-            locSql = "SELECT Location FROM Locations WHERE Datatype = ? AND Location NOT LIKE '%/%'";
-        } else {
-            locSql = "SELECT Location FROM Locations WHERE Datatype = ? AND Location LIKE ? || '/%'";
-        }
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(locSql)) {
-            stmt.setString(1, DATATYPE_ADAPTER);
-            if (parentLocation != null) {
-                stmt.setString(2, parentLocation);
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String fullLoc = rs.getString("Location");
-                    String subLoc = (parentLocation == null) ? fullLoc : fullLoc.substring(parentLocation.length() + 1);
-                    int sepIdx = subLoc.indexOf(LogAdaptersTab.getPathSeparator());
-                    if (sepIdx != -1) {
-                        subLoc = subLoc.substring(0, sepIdx);
-                    }
-                    subLocations.add(subLoc);
-                }
-            }
-        }
+    // Changes whenever adapters or their locations are added, removed, recounted or moved, here
+    // or by another copy of the application.
+    public static String getChangeToken() throws SQLException {
+        return TabRevalidator.queryToken("SELECT COUNT(*), SUM([Count]), SUM(CAST([Count] AS BIGINT) * Id) FROM Adapters")
+                + TabRevalidator.queryToken("SELECT COUNT(*), MAX(Id) FROM Locations WHERE Datatype = '" + DATATYPE_ADAPTER + "'");
+    }
 
-        String cabSql;
-        if (parentLocation == null) {
-            cabSql = "SELECT DISTINCT Location FROM Adapters WHERE Adapter_Type NOT LIKE 'Placeholder_%' AND Location NOT LIKE '%/%'";
-        } else {
-            cabSql = "SELECT DISTINCT Location FROM Adapters WHERE Adapter_Type NOT LIKE 'Placeholder_%' AND Location LIKE ? || '/%'";
-        }
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(cabSql)) {
-            if (parentLocation != null) {
-                stmt.setString(1, parentLocation);
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String fullLoc = rs.getString("Location");
-                    String subLoc = (parentLocation == null) ? fullLoc : fullLoc.substring(parentLocation.length() + 1);
-                    int sepIdx = subLoc.indexOf(LogAdaptersTab.getPathSeparator());
-                    if (sepIdx != -1) {
-                        subLoc = subLoc.substring(0, sepIdx);
+    private static synchronized LocationTree cachedLocationTree() {
+        return locationTree;
+    }
+
+    private static LocationTree loadLocationTree() throws SQLException {
+        LocationTree tree = new LocationTree(LogAdaptersTab.getPathSeparator());
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT Location FROM Locations WHERE Datatype = ?")) {
+                stmt.setString(1, DATATYPE_ADAPTER);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        tree.addLocation(rs.getString("Location"));
                     }
-                    subLocations.add(subLoc);
                 }
             }
-        }
-
-        List<String> result = new ArrayList<>(subLocations);
-        Collections.sort(result);
-        return result;
-    }
-
-    public static List<String> getAllLocations() throws SQLException {
-        List<String> locations = new ArrayList<>();
-        String sql = "SELECT DISTINCT Location FROM Adapters WHERE Adapter_Type NOT LIKE 'Placeholder_%' UNION SELECT Location FROM Locations WHERE Datatype = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, DATATYPE_ADAPTER);
-            try (ResultSet rs = stmt.executeQuery()) {
+            String sql = "SELECT Location, Adapter_Type, Count FROM Adapters WHERE Adapter_Type NOT LIKE 'Placeholder_%'";
+            try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    String loc = rs.getString("Location");
-                    if (loc != null && !loc.isEmpty()) {
-                        locations.add(loc);
-                    }
+                    tree.addItems(rs.getString("Location"), rs.getString("Adapter_Type"), rs.getInt("Count"));
                 }
             }
         }
-        Collections.sort(locations);
-        return locations;
+        return tree;
     }
 
     public static void createLocation(String fullPath, String parentLocation) throws SQLException {
@@ -222,6 +138,11 @@ public class AdaptersDAO {
             stmt.executeUpdate();
             LOGGER.log(Level.INFO, "Created location: {0}", fullPath);
         }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            tree.addLocation(fullPath);
+        }
+        publish(ChangeBus.Change.inserted("Locations", "Location", Collections.singletonList(fullPath)));
     }
 
     public static void addAdapter(String adapterType, int count, String location) throws SQLException {
@@ -260,6 +181,13 @@ public class AdaptersDAO {
                 }
             }
             LOGGER.log(Level.INFO, "Added {0} adapters of type {1} to {2}", new Object[]{count, adapterType, location});
+            publish(adapterId != -1
+                    ? ChangeBus.Change.updated("Adapters", "Adapter_Type", Collections.singletonList(adapterType), Collections.singletonList("Count"))
+                    : ChangeBus.Change.inserted("Adapters", "Adapter_Type", Collections.singletonList(adapterType)));
+        }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            tree.addItems(location, adapterType, count);
         }
     }
 
@@ -267,32 +195,127 @@ public class AdaptersDAO {
         if (count <= 0) {
             throw new SQLException("Count to remove must be positive");
         }
-        String selectSql = "SELECT Count FROM Adapters WHERE Id = ?";
         String updateSql = "UPDATE Adapters SET Count = Count - ? WHERE Id = ?";
         try (Connection conn = DatabaseUtils.getConnection()) {
-            int currentCount = 0;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                selectStmt.setInt(1, adapterId);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        currentCount = rs.getInt("Count");
+            conn.setAutoCommit(false);
+            try {
+                AdapterRow row = selectAdapter(conn, adapterId);
+                if (row.count < count) {
+                    throw new SQLException("Not enough adapters to remove: " + row.count + " available, " + count + " requested");
+                }
+                if (row.count == count) {
+                    deleteAdapterRow(conn, adapterId);
+                } else {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                        updateStmt.setInt(1, count);
+                        updateStmt.setInt(2, adapterId);
+                        updateStmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                LocationTree tree = cachedLocationTree();
+                if (tree != null) {
+                    if (row.count == count) {
+                        tree.removeItems(row.location, row.adapterType);
                     } else {
-                        throw new SQLException("Adapter ID not found: " + adapterId);
+                        tree.addItems(row.location, row.adapterType, -count);
                     }
                 }
+                LOGGER.log(Level.INFO, "Removed {0} adapters with ID: {1}", new Object[]{count, adapterId});
+                publish(row.count == count
+                        ? ChangeBus.Change.deleted("Adapters", "Adapter_Type", Collections.singletonList(row.adapterType))
+                        : ChangeBus.Change.updated("Adapters", "Adapter_Type", Collections.singletonList(row.adapterType), Collections.singletonList("Count")));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (currentCount < count) {
-                throw new SQLException("Not enough adapters to remove: " + currentCount + " available, " + count + " requested");
-            }
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                updateStmt.setInt(1, count);
-                updateStmt.setInt(2, adapterId);
-                updateStmt.executeUpdate();
+        }
+    }
+
+    // Applies the net +/- counts collected by LogAdaptersTab's storage buffer in one transaction.
+    // Rows that reach zero are deleted, as removeAdapter does.
+    public static void applyStorageChanges(Map<StockDeltaBuffer.Key, Integer> changes) throws SQLException {
+        String selectSql = "SELECT Id, Adapter_Type, Location, Count FROM Adapters WHERE Adapter_Type = ? AND Location = ?";
+        String updateSql = "UPDATE Adapters SET Count = ? WHERE Id = ?";
+        String insertSql = "INSERT INTO Adapters (Adapter_Type, Count, Location) VALUES (?, ?, ?)";
+        // Rows as stored, which may differ in case from the clicked type and location
+        Map<StockDeltaBuffer.Key, StockDeltaBuffer.Key> storedKeys = new LinkedHashMap<>();
+        Map<StockDeltaBuffer.Key, Integer> newCounts = new LinkedHashMap<>();
+        List<String> insertedTypes = new ArrayList<>();
+        List<String> updatedTypes = new ArrayList<>();
+        List<String> deletedTypes = new ArrayList<>();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql);
+                 PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+                 PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                for (Map.Entry<StockDeltaBuffer.Key, Integer> change : changes.entrySet()) {
+                    StockDeltaBuffer.Key key = change.getKey();
+                    int adapterId = -1;
+                    int currentCount = 0;
+                    StockDeltaBuffer.Key storedKey = key;
+                    selectStmt.setString(1, key.itemType);
+                    selectStmt.setString(2, key.location);
+                    try (ResultSet rs = selectStmt.executeQuery()) {
+                        if (rs.next()) {
+                            adapterId = rs.getInt("Id");
+                            currentCount = rs.getInt("Count");
+                            storedKey = new StockDeltaBuffer.Key(rs.getString("Adapter_Type"), rs.getString("Location"));
+                        }
+                    }
+                    int newCount = currentCount + change.getValue();
+                    if (newCount < 0) {
+                        throw new SQLException("Not enough adapters of type " + key.itemType + " at " + key.location
+                                + ": " + currentCount + " available, " + -change.getValue() + " requested");
+                    }
+                    if (adapterId == -1) {
+                        insertStmt.setString(1, key.itemType);
+                        insertStmt.setInt(2, newCount);
+                        insertStmt.setString(3, key.location);
+                        insertStmt.executeUpdate();
+                        insertedTypes.add(key.itemType);
+                    } else if (newCount == 0) {
+                        deleteAdapterRow(conn, adapterId);
+                        deletedTypes.add(storedKey.itemType);
+                    } else {
+                        updateStmt.setInt(1, newCount);
+                        updateStmt.setInt(2, adapterId);
+                        updateStmt.executeUpdate();
+                        updatedTypes.add(storedKey.itemType);
+                    }
+                    storedKeys.put(key, storedKey);
+                    newCounts.put(key, newCount);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (currentCount - count == 0) {
-                deleteAdapter(adapterId);
+        }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            for (Map.Entry<StockDeltaBuffer.Key, Integer> change : changes.entrySet()) {
+                StockDeltaBuffer.Key key = storedKeys.get(change.getKey());
+                if (newCounts.get(change.getKey()) == 0) {
+                    tree.removeItems(key.location, key.itemType);
+                } else {
+                    tree.addItems(key.location, key.itemType, change.getValue());
+                }
             }
-            LOGGER.log(Level.INFO, "Removed {0} adapters with ID: {1}", new Object[]{count, adapterId});
+        }
+        LOGGER.log(Level.INFO, "Applied {0} storage count changes", changes.size());
+        if (!insertedTypes.isEmpty()) {
+            publish(ChangeBus.Change.inserted("Adapters", "Adapter_Type", insertedTypes));
+        }
+        if (!updatedTypes.isEmpty()) {
+            publish(ChangeBus.Change.updated("Adapters", "Adapter_Type", updatedTypes, Collections.singletonList("Count")));
+        }
+        if (!deletedTypes.isEmpty()) {
+            publish(ChangeBus.Change.deleted("Adapters", "Adapter_Type", deletedTypes));
         }
     }
 
@@ -354,29 +377,22 @@ public class AdaptersDAO {
 
     public static List<AdapterEntry> getAdaptersSummary(String parentLocation) throws SQLException {
         List<AdapterEntry> adapters = new ArrayList<>();
-        String sql = "SELECT Adapter_Type, SUM(Count) as TotalCount FROM Adapters WHERE Adapter_Type NOT LIKE 'Placeholder_%' AND (Location = ? OR Location LIKE ? || ?) GROUP BY Adapter_Type";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, parentLocation);
-            stmt.setString(2, parentLocation);
-            stmt.setString(3, LogAdaptersTab.getPathSeparator() + "%");
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    adapters.add(new AdapterEntry(
-                            rs.getString("Adapter_Type"),
-                            rs.getInt("TotalCount")
-                    ));
-                }
-            }
+        for (Map.Entry<String, Integer> total : getLocationTree().getSubtreeTotals(parentLocation).entrySet()) {
+            adapters.add(new AdapterEntry(total.getKey(), total.getValue()));
         }
         return adapters;
     }
 
     public static void deleteAdapter(int adapterId) throws SQLException {
-        String sql = "DELETE FROM Adapters WHERE Id = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, adapterId);
-            stmt.executeUpdate();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            AdapterRow row = selectAdapter(conn, adapterId);
+            deleteAdapterRow(conn, adapterId);
             LOGGER.log(Level.INFO, "Deleted adapter with ID {0}", adapterId);
+            publish(ChangeBus.Change.deleted("Adapters", "Adapter_Type", Collections.singletonList(row.adapterType)));
+            LocationTree tree = cachedLocationTree();
+            if (tree != null) {
+                tree.removeItems(row.location, row.adapterType);
+            }
         }
     }
 
@@ -390,39 +406,53 @@ public class AdaptersDAO {
 
         String parentPath = getParentPath(fullPath);
         String targetLocation = (parentPath != null) ? parentPath : LogAdaptersTab.getUnassignedLocation();
+        String subtreeSql = "SELECT Adapter_Type, Count FROM Adapters WHERE Adapter_Type NOT LIKE 'Placeholder_%' AND (Location = ? OR Location LIKE ? || ?)";
+        String targetSql = "SELECT Id, Adapter_Type FROM Adapters WHERE Location = ?";
+        String updateSql = "UPDATE Adapters SET Count = Count + ? WHERE Id = ?";
+        String insertSql = "INSERT INTO Adapters (Adapter_Type, Count, Location) VALUES (?, ?, ?)";
+        String deleteAdaptersSql = "DELETE FROM Adapters WHERE Location = ? OR Location LIKE ? || ?";
+        String deleteLocationSql = "DELETE FROM Locations WHERE Datatype = ? AND (Location = ? OR Location LIKE ? || ?)";
 
-        List<AdapterEntry> adaptersToMove = new ArrayList<>();
         try (Connection conn = DatabaseUtils.getConnection()) {
-            adaptersToMove.addAll(getAdaptersByLocation(fullPath));
+            conn.setAutoCommit(false);
+            try {
+                // Totals per type across the subtree; types are matched case-insensitively like
+                // the UNIQUE(Adapter_Type, Location) constraint does.
+                Map<String, AdapterEntry> adaptersToMove = new LinkedHashMap<>();
+                try (PreparedStatement subStmt = conn.prepareStatement(subtreeSql)) {
+                    subStmt.setString(1, fullPath);
+                    subStmt.setString(2, fullPath);
+                    subStmt.setString(3, LogAdaptersTab.getPathSeparator() + "%");
+                    try (ResultSet rs = subStmt.executeQuery()) {
+                        while (rs.next()) {
+                            String adapterType = rs.getString("Adapter_Type");
+                            AdapterEntry entry = new AdapterEntry(adapterType, rs.getInt("Count"));
+                            adaptersToMove.merge(adapterType.toUpperCase(), entry,
+                                    (a, b) -> new AdapterEntry(a.adapterType, a.count + b.count));
+                        }
+                    }
+                }
 
-            String subLocationSql = "SELECT Adapter_Type, Count, Location FROM Adapters WHERE Adapter_Type NOT LIKE 'Placeholder_%' AND Location LIKE ? || ?";
-            try (PreparedStatement subStmt = conn.prepareStatement(subLocationSql)) {
-                subStmt.setString(1, fullPath);
-                subStmt.setString(2, LogAdaptersTab.getPathSeparator() + "%");
-                try (ResultSet rs = subStmt.executeQuery()) {
-                    while (rs.next()) {
-                        adaptersToMove.add(new AdapterEntry(
-                                rs.getString("Adapter_Type"),
-                                rs.getInt("Count")
-                        ));
+                Map<String, Integer> targetIds = new HashMap<>();
+                try (PreparedStatement targetStmt = conn.prepareStatement(targetSql)) {
+                    targetStmt.setString(1, targetLocation);
+                    try (ResultSet rs = targetStmt.executeQuery()) {
+                        while (rs.next()) {
+                            targetIds.put(rs.getString("Adapter_Type").toUpperCase(), rs.getInt("Id"));
+                        }
                     }
                 }
-            }
 
-            conn.setAutoCommit(false);
-            try {
-                for (AdapterEntry ae : adaptersToMove) {
-                    int targetId = getAdapterId(ae.adapterType, targetLocation);
-                    if (targetId != -1) {
-                        String updateSql = "UPDATE Adapters SET Count = Count + ? WHERE Id = ?";
-                        try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+                     PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                    for (Map.Entry<String, AdapterEntry> move : adaptersToMove.entrySet()) {
+                        AdapterEntry ae = move.getValue();
+                        Integer targetId = targetIds.get(move.getKey());
+                        if (targetId != null) {
                             updateStmt.setInt(1, ae.count);
                             updateStmt.setInt(2, targetId);
                             updateStmt.executeUpdate();
-                        }
-                    } else {
-                        String insertSql = "INSERT INTO Adapters (Adapter_Type, Count, Location) VALUES (?, ?, ?)";
-                        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                        } else {
                             insertStmt.setString(1, ae.adapterType);
                             insertStmt.setInt(2, ae.count);
                             insertStmt.setString(3, targetLocation);
@@ -431,7 +461,6 @@ public class AdaptersDAO {
                     }
                 }
 
-                String deleteAdaptersSql = "DELETE FROM Adapters WHERE Location = ? OR Location LIKE ? || ?";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteAdaptersSql)) {
                     deleteStmt.setString(1, fullPath);
                     deleteStmt.setString(2, fullPath);
@@ -439,7 +468,6 @@ public class AdaptersDAO {
                     deleteStmt.executeUpdate();
                 }
 
-                String deleteLocationSql = "DELETE FROM Locations WHERE Datatype = ? AND (Location = ? OR Location LIKE ? || ?)";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteLocationSql)) {
                     deleteStmt.setString(1, DATATYPE_ADAPTER);
                     deleteStmt.setString(2, fullPath);
@@ -450,11 +478,15 @@ public class AdaptersDAO {
 
                 conn.commit();
                 LOGGER.log(Level.INFO, "Deleted location {0} and moved adapters to {1}", new Object[]{fullPath, targetLocation});
+                publish(ChangeBus.Change.rowsChanged("Adapters"));
+                publish(ChangeBus.Change.deleted("Locations", "Location", null));
             } catch (SQLException ex) {
                 conn.rollback();
                 throw ex;
             } finally {
                 conn.setAutoCommit(true);
+                // Reloaded on next use rather than re-parenting a whole subtree in memory.
+                invalidateLocationTree();
             }
         }
     }
@@ -467,70 +499,108 @@ public class AdaptersDAO {
             throw new SQLException("Target location does not exist: " + targetLocation);
         }
 
-        String selectSql = "SELECT Adapter_Type, Count, Location FROM Adapters WHERE Id = ?";
         String updateSourceSql = "UPDATE Adapters SET Count = Count - ? WHERE Id = ?";
         String selectTargetSql = "SELECT Id FROM Adapters WHERE Adapter_Type = ? AND Location = ?";
         String updateTargetSql = "UPDATE Adapters SET Count = Count + ? WHERE Id = ?";
         String insertTargetSql = "INSERT INTO Adapters (Adapter_Type, Count, Location) VALUES (?, ?, ?)";
 
         try (Connection conn = DatabaseUtils.getConnection()) {
-            String adapterType = null;
-            int currentCount = 0;
-            String sourceLocation = null;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                selectStmt.setInt(1, adapterId);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        adapterType = rs.getString("Adapter_Type");
-                        currentCount = rs.getInt("Count");
-                        sourceLocation = rs.getString("Location");
-                    } else {
-                        throw new SQLException("Adapter ID not found: " + adapterId);
-                    }
+            conn.setAutoCommit(false);
+            try {
+                AdapterRow source = selectAdapter(conn, adapterId);
+                if (source.count < countToMove) {
+                    throw new SQLException("Not enough adapters to move: " + source.count + " available, " + countToMove + " requested");
                 }
-            }
 
-            if (currentCount < countToMove) {
-                throw new SQLException("Not enough adapters to move: " + currentCount + " available, " + countToMove + " requested");
-            }
-
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSourceSql)) {
-                updateStmt.setInt(1, countToMove);
-                updateStmt.setInt(2, adapterId);
-                updateStmt.executeUpdate();
-            }
+                int targetAdapterId = -1;
+                try (PreparedStatement selectStmt = conn.prepareStatement(selectTargetSql)) {
+                    selectStmt.setString(1, source.adapterType);
+                    selectStmt.setString(2, targetLocation);
+                    try (ResultSet rs = selectStmt.executeQuery()) {
+                        if (rs.next()) {
+                            targetAdapterId = rs.getInt("Id");
+                        }
+                    }
+                }
+                if (targetAdapterId == adapterId) {
+                    throw new SQLException("Adapters are already in " + targetLocation);
+                }
 
-            int targetAdapterId = -1;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectTargetSql)) {
-                selectStmt.setString(1, adapterType);
-                selectStmt.setString(2, targetLocation);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        targetAdapterId = rs.getInt("Id");
+                if (source.count == countToMove) {
+                    deleteAdapterRow(conn, adapterId);
+                } else {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSourceSql)) {
+                        updateStmt.setInt(1, countToMove);
+                        updateStmt.setInt(2, adapterId);
+                        updateStmt.executeUpdate();
                     }
                 }
-            }
 
-            if (targetAdapterId != -1) {
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateTargetSql)) {
-                    updateStmt.setInt(1, countToMove);
-                    updateStmt.setInt(2, targetAdapterId);
-                    updateStmt.executeUpdate();
+                if (targetAdapterId != -1) {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateTargetSql)) {
+                        updateStmt.setInt(1, countToMove);
+                        updateStmt.setInt(2, targetAdapterId);
+                        updateStmt.executeUpdate();
+                    }
+                } else {
+                    try (PreparedStatement insertStmt = conn.prepareStatement(insertTargetSql)) {
+                        insertStmt.setString(1, source.adapterType);
+                        insertStmt.setInt(2, countToMove);
+                        insertStmt.setString(3, targetLocation);
+                        insertStmt.executeUpdate();
+                    }
                 }
-            } else {
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertTargetSql)) {
-                    insertStmt.setString(1, adapterType);
-                    insertStmt.setInt(2, countToMove);
-                    insertStmt.setString(3, targetLocation);
-                    insertStmt.executeUpdate();
+
+                conn.commit();
+                LocationTree tree = cachedLocationTree();
+                if (tree != null) {
+                    if (source.count == countToMove) {
+                        tree.removeItems(source.location, source.adapterType);
+                    } else {
+                        tree.addItems(source.location, source.adapterType, -countToMove);
+                    }
+                    tree.addItems(targetLocation, source.adapterType, countToMove);
                 }
+                LOGGER.log(Level.INFO, "Moved {0} adapters of type {1} from {2} to {3}", new Object[]{countToMove, source.adapterType, source.location, targetLocation});
+                publish(ChangeBus.Change.updated("Adapters", "Adapter_Type", Collections.singletonList(source.adapterType), Arrays.asList("Count", "Location")));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        }
+    }
+
+    private static class AdapterRow {
+        private final String adapterType;
+        private final int count;
+        private final String location;
+
+        AdapterRow(String adapterType, int count, String location) {
+            this.adapterType = adapterType;
+            this.count = count;
+            this.location = location;
+        }
+    }
 
-            if (currentCount == countToMove) {
-                deleteAdapter(adapterId);
+    private static AdapterRow selectAdapter(Connection conn, int adapterId) throws SQLException {
+        String sql = "SELECT Adapter_Type, Count, Location FROM Adapters WHERE Id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, adapterId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new AdapterRow(rs.getString("Adapter_Type"), rs.getInt("Count"), rs.getString("Location"));
+                }
             }
+        }
+        throw new SQLException("Adapter ID not found: " + adapterId);
+    }
 
-            LOGGER.log(Level.INFO, "Moved {0} adapters of type {1} from {2} to {3}", new Object[]{countToMove, adapterType, sourceLocation, targetLocation});
+    private static void deleteAdapterRow(Connection conn, int adapterId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM Adapters WHERE Id = ?")) {
+            stmt.setInt(1, adapterId);
+            stmt.executeUpdate();
         }
     }
 
@@ -551,7 +621,14 @@ public class AdaptersDAO {
             stmt.setString(1, LogAdaptersTab.getUnassignedLocation());
             stmt.setString(2, "%");
             stmt.setString(3, LogAdaptersTab.getPathSeparator() + LogAdaptersTab.getUnassignedLocation());
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() > 0) {
+                publish(ChangeBus.Change.updated("Adapters", null, null, Collections.singletonList("Location")));
+            }
         }
+        invalidateLocationTree();
+    }
+
+    private static void publish(ChangeBus.Change change) {
+        ChangeBus.publish(change.from(AdaptersDAO.class));
     }
 }
\ No newline at end of file
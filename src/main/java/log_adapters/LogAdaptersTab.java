@@ -2,6 +2,7 @@ package log_adapters;
 
 import java.awt.BorderLayout;
 import java.awt.Font;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
@@ -15,6 +16,7 @@ import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
@@ -35,9 +37,12 @@ import log_adapters.actions.DeleteLocationAction;
 import log_adapters.actions.MoveAdapterAction;
 import log_adapters.actions.NewLocationDialog;
 import log_adapters.actions.RemoveFromStorageAction;
+import utils.CachedTab;
+import utils.LocationTree;
+import utils.StockDeltaBuffer;
 import utils.UIComponentUtils;
 
-public final class LogAdaptersTab extends JPanel {
+public final class LogAdaptersTab extends JPanel implements CachedTab {
 
     private final JTree locationTree;
     private final JTable adapterTable;
@@ -57,14 +62,16 @@ public final class LogAdaptersTab extends JPanel {
     private final JTextField searchField;
     private final JLabel titleLabel;
     private List<AdaptersDAO.AdapterEntry> currentAdapters; // To store the current adapter list for filtering
+    // +1/-1 clicks not yet written to the database
+    private final StockDeltaBuffer storageChanges;
 
-    public LogAdaptersTab() throws SQLException {
+    public LogAdaptersTab() {
         setLayout(new BorderLayout(10, 10));
 
         statusLabel = UIComponentUtils.createAlignedLabel("");
 
-        AdaptersDAO.ensureSchema();
-        AdaptersDAO.cleanUpUnassignedSublocations();
+        storageChanges = new StockDeltaBuffer("Adapters", AdaptersDAO::applyStorageChanges);
+        storageChanges.setListener(this::storageChangesFlushed);
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
         splitPane.setResizeWeight(0.3);
@@ -102,7 +109,7 @@ public final class LogAdaptersTab extends JPanel {
         });
         treePopup.add(addSubLocationItem);
         JMenuItem deleteLocationItem = new JMenuItem("Delete Location");
-        deleteLocationItem.addActionListener(new DeleteLocationAction(this));
+        deleteLocationItem.addActionListener(afterSavingStorageChanges(new DeleteLocationAction(this)));
         treePopup.add(deleteLocationItem);
 
         locationTree.addMouseListener(new MouseAdapter() {
@@ -144,11 +151,11 @@ public final class LogAdaptersTab extends JPanel {
 
         JPanel topButtonPanel = new JPanel(new java.awt.FlowLayout(java.awt.FlowLayout.RIGHT));
         addAdapterButton = UIComponentUtils.createFormattedButton("Add Adapter");
-        addAdapterButton.addActionListener(new AddAdapterAction(this));
+        addAdapterButton.addActionListener(afterSavingStorageChanges(new AddAdapterAction(this)));
         moveAdapterButton = UIComponentUtils.createFormattedButton("Move Adapters");
-        moveAdapterButton.addActionListener(new MoveAdapterAction(this));
+        moveAdapterButton.addActionListener(afterSavingStorageChanges(new MoveAdapterAction(this)));
         deleteAdapterButton = UIComponentUtils.createFormattedButton("Delete Adapter Type");
-        deleteAdapterButton.addActionListener(new DeleteAdapterAction(this));
+        deleteAdapterButton.addActionListener(afterSavingStorageChanges(new DeleteAdapterAction(this)));
         topButtonPanel.add(addAdapterButton);
         topButtonPanel.add(moveAdapterButton);
         topButtonPanel.add(deleteAdapterButton);
@@ -179,10 +186,10 @@ public final class LogAdaptersTab extends JPanel {
         removeFromStorageItem.addActionListener(new RemoveFromStorageAction(this));
         tablePopup.add(removeFromStorageItem);
         JMenuItem moveAdapterItem = new JMenuItem("Move Adapter");
-        moveAdapterItem.addActionListener(new MoveAdapterAction(this));
+        moveAdapterItem.addActionListener(afterSavingStorageChanges(new MoveAdapterAction(this)));
         tablePopup.add(moveAdapterItem);
         JMenuItem deleteAdapterItem = new JMenuItem("Delete Adapter Type");
-        deleteAdapterItem.addActionListener(new DeleteAdapterAction(this));
+        deleteAdapterItem.addActionListener(afterSavingStorageChanges(new DeleteAdapterAction(this)));
         tablePopup.add(deleteAdapterItem);
 
         adapterTable.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -227,23 +234,15 @@ public final class LogAdaptersTab extends JPanel {
     private void buildTree() {
         try {
             DefaultMutableTreeNode root = new DefaultMutableTreeNode("Root");
+            LocationTree locations = AdaptersDAO.getLocationTree();
 
-            List<AdaptersDAO.AdapterEntry> unassignedAdapters = AdaptersDAO.getAdaptersByLocation(UNASSIGNED_LOCATION);
-            boolean hasUnassignedAdapters = false;
-            for (AdaptersDAO.AdapterEntry adapter : unassignedAdapters) {
-                if (!adapter.adapterType.startsWith("Placeholder_")) {
-                    hasUnassignedAdapters = true;
-                    break;
-                }
-            }
-            if (hasUnassignedAdapters) {
+            if (locations.hasDirectItems(UNASSIGNED_LOCATION)) {
                 root.add(new DefaultMutableTreeNode(UNASSIGNED_LOCATION));
             }
 
-            List<String> allLocations = AdaptersDAO.getAllLocations();
-            for (String location : allLocations) {
+            for (String location : locations.getLocations()) {
                 if (!location.equals(UNASSIGNED_LOCATION)) {
-                    addLocationToTree(root, location);
+                    addLocationToTree(root, location, locations);
                 }
             }
 
@@ -258,7 +257,7 @@ public final class LogAdaptersTab extends JPanel {
         }
     }
 
-    private void addLocationToTree(DefaultMutableTreeNode parentNode, String fullPath) throws SQLException {
+    private void addLocationToTree(DefaultMutableTreeNode parentNode, String fullPath, LocationTree locations) {
         if (fullPath == null || fullPath.isEmpty()) {
             return;
         }
@@ -292,18 +291,7 @@ public final class LogAdaptersTab extends JPanel {
         }
 
         String fullPathStr = currentPath.toString();
-        List<AdaptersDAO.AdapterEntry> directAdapters = AdaptersDAO.getAdaptersByLocation(fullPathStr);
-        List<String> subLocations = AdaptersDAO.getSubLocations(fullPathStr);
-
-        boolean hasDirectAdapters = false;
-        for (AdaptersDAO.AdapterEntry adapter : directAdapters) {
-            if (!adapter.adapterType.startsWith("Placeholder_")) {
-                hasDirectAdapters = true;
-                break;
-            }
-        }
-
-        if (hasDirectAdapters && !subLocations.isEmpty() && !fullPathStr.equals(UNASSIGNED_LOCATION)) {
+        if (locations.hasDirectItems(fullPathStr) && locations.hasSubLocations(fullPathStr) && !fullPathStr.equals(UNASSIGNED_LOCATION)) {
             boolean hasUnassignedNode = false;
             for (int i = 0; i < currentNode.getChildCount(); i++) {
                 DefaultMutableTreeNode child = (DefaultMutableTreeNode) currentNode.getChildAt(i);
@@ -356,6 +344,7 @@ public final class LogAdaptersTab extends JPanel {
     }
 
     public void refresh() {
+        storageChanges.flush();
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) locationTree.getLastSelectedPathComponent();
         if (node == null) {
             refreshTable(UNASSIGNED_LOCATION, false);
@@ -381,10 +370,97 @@ public final class LogAdaptersTab extends JPanel {
         updateButtonStates();
     }
 
+    // Records a storage click for the adapter in the given table row. The table shows the new count
+    // at once; the database is updated by storageChanges shortly after.
+    public void changeStorageCount(int row, String location, int delta) {
+        String adapterType = (String) tableModel.getValueAt(row, 0);
+        int newCount = ((Number) tableModel.getValueAt(row, 1)).intValue() + delta;
+        storageChanges.add(adapterType, location, delta);
+        tableModel.setValueAt(newCount, row, 1);
+        if (currentAdapters != null) {
+            for (int i = 0; i < currentAdapters.size(); i++) {
+                if (currentAdapters.get(i).adapterType.equals(adapterType)) {
+                    currentAdapters.set(i, new AdaptersDAO.AdapterEntry(adapterType, newCount));
+                }
+            }
+        }
+    }
+
+    public int getUnsavedStorageChanges() {
+        return storageChanges.getPendingCount();
+    }
+
+    private ActionListener afterSavingStorageChanges(ActionListener action) {
+        return e -> {
+            if (storageChanges.flush()) {
+                action.actionPerformed(e);
+            }
+        };
+    }
+
+    private void storageChangesFlushed(int changeCount, SQLException error) {
+        if (error != null) {
+            statusLabel.setText("Error saving storage changes: " + error.getMessage());
+            JOptionPane.showMessageDialog(this, "Error saving storage changes, they were not saved: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        int selectedRow = adapterTable.getSelectedRow();
+        String selectedType = selectedRow >= 0 ? (String) tableModel.getValueAt(selectedRow, 0) : null;
+        refresh();
+        for (int i = 0; selectedType != null && i < tableModel.getRowCount(); i++) {
+            if (selectedType.equals(tableModel.getValueAt(i, 0))) {
+                adapterTable.setRowSelectionInterval(i, i);
+                break;
+            }
+        }
+        if (error == null) {
+            statusLabel.setText("Saved " + changeCount + " storage change(s)");
+        }
+    }
+
     public void refreshTree() {
         buildTree();
     }
 
+    @Override
+    public String computeChangeToken() throws SQLException {
+        return AdaptersDAO.getChangeToken();
+    }
+
+    // Re-reads the locations, which may have been changed by another user, and selects the same
+    // location again if it still exists.
+    @Override
+    public void reload() {
+        storageChanges.flush();
+        TreePath selected = locationTree.getSelectionPath();
+        AdaptersDAO.invalidateLocationTree();
+        buildTree();
+        TreePath restored = selected != null ? findPath(selected.getPath()) : null;
+        if (restored != null) {
+            locationTree.setSelectionPath(restored);
+            locationTree.scrollPathToVisible(restored);
+        } else {
+            refresh();
+        }
+    }
+
+    // The node of the rebuilt tree with the same names as the given path, or null.
+    private TreePath findPath(Object[] oldPath) {
+        DefaultMutableTreeNode node = (DefaultMutableTreeNode) locationTree.getModel().getRoot();
+        for (int i = 1; i < oldPath.length && node != null; i++) {
+            Object name = ((DefaultMutableTreeNode) oldPath[i]).getUserObject();
+            DefaultMutableTreeNode match = null;
+            for (int c = 0; c < node.getChildCount(); c++) {
+                DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.getChildAt(c);
+                if (name.equals(child.getUserObject())) {
+                    match = child;
+                    break;
+                }
+            }
+            node = match;
+        }
+        return node != null && oldPath.length > 1 ? new TreePath(node.getPath()) : null;
+    }
+
     public void setStatus(String message) {
         statusLabel.setText(message);
     }
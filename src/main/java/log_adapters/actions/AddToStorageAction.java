@@ -2,15 +2,12 @@ package log_adapters.actions;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
-import javax.swing.JTable;
 import javax.swing.tree.DefaultMutableTreeNode;
 
-import log_adapters.AdaptersDAO;
 import log_adapters.LogAdaptersTab;
 
 public class AddToStorageAction implements ActionListener {
@@ -31,7 +28,6 @@ public class AddToStorageAction implements ActionListener {
         }
 
         String adapterType = (String) tab.getTableModel().getValueAt(selectedRow, 0);
-        final String selectedAdapterType = adapterType; // Save for reselection, declared final
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) tab.getLocationTree().getLastSelectedPathComponent();
         if (node == null) {
             tab.setStatus("Error: Select a location first");
@@ -47,34 +43,9 @@ public class AddToStorageAction implements ActionListener {
             location = buildPathFromNode(node);
         }
 
-        try {
-            AdaptersDAO.addAdapter(adapterType, 1, location); // Add 1 adapter
-            tab.setStatus("Added 1 " + adapterType + " to " + location);
-            LOGGER.log(Level.INFO, "Added adapter: {0} at {1}", new Object[]{adapterType, location});
-            // Refresh the table and restore selection
-            tab.refresh();
-            if (selectedAdapterType != null) {
-                JTable table = tab.getAdapterTable();
-                LOGGER.log(Level.INFO, "Attempting to restore selection for adapter type: {0}", selectedAdapterType);
-                boolean selectionRestored = false;
-                for (int i = 0; i < table.getRowCount(); i++) {
-                    Object value = table.getValueAt(i, 0);
-                    if (value != null && selectedAdapterType.equals(value.toString())) {
-                        table.setRowSelectionInterval(i, i);
-                        selectionRestored = true;
-                        LOGGER.log(Level.INFO, "Selection restored for adapter type: {0} at row {1}", new Object[]{selectedAdapterType, i});
-                        break;
-                    }
-                }
-                if (!selectionRestored) {
-                    LOGGER.log(Level.WARNING, "Could not restore selection for adapter type: {0}", selectedAdapterType);
-                }
-            }
-        } catch (SQLException ex) {
-            LOGGER.log(Level.SEVERE, "Error adding to storage: {0}", ex.getMessage());
-            tab.setStatus("Error adding to storage: " + ex.getMessage());
-            JOptionPane.showMessageDialog(null, "Error adding to storage: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        tab.changeStorageCount(selectedRow, location, 1);
+        tab.setStatus("Added 1 " + adapterType + " to " + location + " (" + tab.getUnsavedStorageChanges() + " unsaved change(s))");
+        LOGGER.log(Level.INFO, "Added adapter: {0} at {1}", new Object[]{adapterType, location});
     }
 
     private String buildPathFromNode(DefaultMutableTreeNode node) {
@@ -2,15 +2,12 @@ package log_adapters.actions;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
-import javax.swing.JTable;
 import javax.swing.tree.DefaultMutableTreeNode;
 
-import log_adapters.AdaptersDAO;
 import log_adapters.LogAdaptersTab;
 
 public class RemoveFromStorageAction implements ActionListener {
@@ -35,7 +32,6 @@ public class RemoveFromStorageAction implements ActionListener {
         }
 
         String adapterType = (String) tab.getTableModel().getValueAt(selectedRow, 0);
-        final String selectedAdapterType = adapterType; // Save for reselection, declared final
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) tab.getLocationTree().getLastSelectedPathComponent();
         if (node == null) {
             tab.setStatus("Error: Select a location first");
@@ -51,36 +47,15 @@ public class RemoveFromStorageAction implements ActionListener {
             location = buildPathFromNode(node);
         }
 
-        try {
-            int adapterId = AdaptersDAO.getAdapterId(adapterType, location);
-            if (adapterId == -1) {
-                tab.setStatus("Error: Adapter type '" + adapterType + "' not found at " + location);
-                JOptionPane.showMessageDialog(null, "Adapter not found", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            if (!AdaptersDAO.canRemoveAdapter(adapterId)) {
-                tab.setStatus("Error: No adapters of type '" + adapterType + "' available to remove at " + location);
-                JOptionPane.showMessageDialog(null, "No adapters available to remove", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            AdaptersDAO.removeAdapter(adapterId, 1); // Remove 1 adapter
-            tab.setStatus("Removed 1 " + adapterType + " from " + location);
-            // Refresh the table and restore selection
-            tab.refresh();
-            if (selectedAdapterType != null) {
-                JTable table = tab.getAdapterTable();
-                for (int i = 0; i < table.getRowCount(); i++) {
-                    if (selectedAdapterType.equals(table.getValueAt(i, 0))) {
-                        table.setRowSelectionInterval(i, i);
-                        break;
-                    }
-                }
-            }
-        } catch (SQLException ex) {
-            LOGGER.log(Level.SEVERE, "Error removing from storage: {0}", ex.getMessage());
-            tab.setStatus("Error removing from storage: " + ex.getMessage());
-            JOptionPane.showMessageDialog(null, "Error removing from storage: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        int count = ((Number) tab.getTableModel().getValueAt(selectedRow, 1)).intValue();
+        if (count <= 0) {
+            tab.setStatus("Error: No adapters of type '" + adapterType + "' available to remove at " + location);
+            JOptionPane.showMessageDialog(null, "No adapters available to remove", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        tab.changeStorageCount(selectedRow, location, -1);
+        tab.setStatus("Removed 1 " + adapterType + " from " + location + " (" + tab.getUnsavedStorageChanges() + " unsaved change(s))");
+        LOGGER.log(Level.INFO, "Removed adapter: {0} at {1}", new Object[]{adapterType, location});
     }
 
     private String buildPathFromNode(DefaultMutableTreeNode node) {
@@ -1,23 +1,41 @@
 package log_cables;
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import utils.ChangeBus;
 import utils.DatabaseUtils;
+import utils.LocationTree;
+import utils.SchemaMigrations;
+import utils.StockDeltaBuffer;
+import utils.TabRevalidator;
 
 public class CablesDAO {
     private static final Logger LOGGER = Logger.getLogger(CablesDAO.class.getName());
     private static final String DATATYPE_CABLE = "Cable";
+    // Loaded on first use and kept current by the write methods below; see getLocationTree().
+    private static LocationTree locationTree;
+    // Writes made outside this class drop the tree; the write methods below keep it current themselves.
+    private static final ChangeBus.Listener CHANGE_LISTENER = change -> {
+        if (change.getSource() != CablesDAO.class && change.affects("Cables")) {
+            invalidateLocationTree();
+        }
+    };
+
+    static {
+        ChangeBus.subscribe(CHANGE_LISTENER);
+    }
 
     public static class CableEntry {
         public final String cableType;
@@ -29,180 +47,78 @@ public class CablesDAO {
         }
     }
 
+    // The table itself is created and cleaned up by the schema migrations; see SchemaMigrations.
     public static void ensureSchema() throws SQLException {
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            boolean tableExists = false;
-            try (ResultSet rs = metaData.getTables(null, null, "Cables", new String[]{"TABLE"})) {
-                if (rs.next()) {
-                    tableExists = true;
-                    LOGGER.log(Level.INFO, "Cables table found: {0}", rs.getString("TABLE_NAME"));
-                } else {
-                    LOGGER.log(Level.INFO, "Cables table does not exist");
-                }
-            }
+        SchemaMigrations.migrate();
+        invalidateLocationTree();
+    }
 
-            if (!tableExists) {
-                String createTableSQL = "CREATE TABLE Cables (Id COUNTER PRIMARY KEY, Cable_Type VARCHAR(255), Count INTEGER, Location VARCHAR(255), UNIQUE(Cable_Type, Location))";
-                try (PreparedStatement stmt = conn.prepareStatement(createTableSQL)) {
-                    stmt.executeUpdate();
-                    LOGGER.log(Level.INFO, "Created Cables table");
-                }
-            } else {
-                LOGGER.log(Level.INFO, "Cables table already exists");
-                try (ResultSet rs = metaData.getColumns(null, null, "Cables", "Parent_Location")) {
-                    if (rs.next()) {
-                        String alterTableSQL = "ALTER TABLE Cables DROP COLUMN Parent_Location";
-                        try (PreparedStatement stmt = conn.prepareStatement(alterTableSQL)) {
-                            stmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Dropped Parent_Location column from Cables table");
-                        }
-                    }
-                }
-            }
+    // Startup work of LogCablesTab that does not need the EDT, run by mainFile before the tab is built:
+    // the schema, the clean-up of stray unassigned sub-locations and the location tree.
+    public static void prefetch() throws SQLException {
+        ensureSchema();
+        cleanUpUnassignedSublocations();
+        getLocationTree();
+    }
 
-            String selectOldPlaceholders = "SELECT DISTINCT Location FROM Cables WHERE Cable_Type LIKE 'Placeholder_%'";
-            try (PreparedStatement selStmt = conn.prepareStatement(selectOldPlaceholders);
-                 PreparedStatement insStmt = conn.prepareStatement("INSERT INTO Locations (Datatype, Location) VALUES (?, ?)");
-                 PreparedStatement delStmt = conn.prepareStatement("DELETE FROM Cables WHERE Cable_Type LIKE 'Placeholder_%' AND Location = ?")) {
-                try (ResultSet rs = selStmt.executeQuery()) {
-                    while (rs.next()) {
-                        String loc = rs.getString("Location");
-                        insStmt.setString(1, DATATYPE_CABLE);
-                        insStmt.setString(2, loc);
-                        insStmt.executeUpdate();
-                        delStmt.setString(1, loc);
-                        delStmt.executeUpdate();
-                        LOGGER.log(Level.INFO, "Migrated placeholder location: {0}", loc);
-                    }
-                }
-            }
+    public static boolean locationExists(String location) throws SQLException {
+        if (location == null || location.isEmpty()) return false;
+        return getLocationTree().exists(location);
+    }
 
-            try (ResultSet rs = metaData.getIndexInfo(null, null, "Cables", false, false)) {
-                boolean indexExists = false;
-                while (rs.next()) {
-                    if ("idx_cables_location".equals(rs.getString("INDEX_NAME"))) {
-                        indexExists = true;
-                        break;
-                    }
-                }
-                if (!indexExists) {
-                    try {
-                        String createIndexSQL = "CREATE INDEX idx_cables_location ON Cables(Location)";
-                        try (PreparedStatement stmt = conn.prepareStatement(createIndexSQL)) {
-                            stmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Created index idx_cables_location on Cables table");
-                        }
-                    } catch (SQLException e) {
-                        LOGGER.log(Level.WARNING, "Failed to create index idx_cables_location: {0}", e.getMessage());
-                    }
-                }
-            }
-        }
+    public static List<String> getSubLocations(String parentLocation) throws SQLException {
+        return getLocationTree().getSubLocations(parentLocation);
     }
 
-    private static boolean locationExistsInLocations(String location) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Locations WHERE Datatype = ? AND Location = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, DATATYPE_CABLE);
-            stmt.setString(2, location);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
-        }
-        return false;
+    public static List<String> getAllLocations() throws SQLException {
+        return getLocationTree().getLocations();
     }
 
-    private static boolean locationExistsInCables(String location) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Cables WHERE Location = ? AND Cable_Type NOT LIKE 'Placeholder_%'";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, location);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
+    // Every location and the cables stored at each. Read with two queries the first time it is
+    // needed; after that the write methods below update it, so LogCablesTab can rebuild its tree
+    // and summaries without querying.
+    public static synchronized LocationTree getLocationTree() throws SQLException {
+        if (locationTree == null) {
+            locationTree = loadLocationTree();
         }
-        return false;
+        return locationTree;
     }
 
-    public static boolean locationExists(String location) throws SQLException {
-        if (location == null || location.isEmpty()) return false;
-        return locationExistsInLocations(location) || locationExistsInCables(location);
+    // Drops the cached tree so that the next call re-reads it, e.g. after another user changed the file.
+    public static synchronized void invalidateLocationTree() {
+        locationTree = null;
     }
 
-    public static List<String> getSubLocations(String parentLocation) throws SQLException {
-        Set<String> subLocations = new HashSet<>();
-        String locSql;
-        if (parentLocation == null) {
-            locSql = "SELECT Location FROM Locations WHERE Datatype = ? AND Location NOT LIKE '%/%'";
-        } else {
-            locSql = "SELECT Location FROM Locations WHERE Datatype = ? AND Location LIKE ? || '/%'";
-        }
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(locSql)) {
-            stmt.setString(1, DATATYPE_CABLE);
-            if (parentLocation != null) {
-                stmt.setString(2, parentLocation);
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String fullLoc = rs.getString("Location");
-                    String subLoc = (parentLocation == null) ? fullLoc : fullLoc.substring(parentLocation.length() + 1);
-                    int sepIdx = subLoc.indexOf(LogCablesTab.getPathSeparator());
-                    if (sepIdx != -1) {
-                        subLoc = subLoc.substring(0, sepIdx);
-                    }
-                    subLocations.add(subLoc);
-                }
-            }
-        }
+    // Changes whenever cables or their locations are added, removed, recounted or moved, here
+    // or by another copy of the application.
+    public static String getChangeToken() throws SQLException {
+        return TabRevalidator.queryToken("SELECT COUNT(*), SUM([Count]), SUM(CAST([Count] AS BIGINT) * Id) FROM Cables")
+                + TabRevalidator.queryToken("SELECT COUNT(*), MAX(Id) FROM Locations WHERE Datatype = '" + DATATYPE_CABLE + "'");
+    }
 
-        String cabSql;
-        if (parentLocation == null) {
-            cabSql = "SELECT DISTINCT Location FROM Cables WHERE Cable_Type NOT LIKE 'Placeholder_%' AND Location NOT LIKE '%/%'";
-        } else {
-            cabSql = "SELECT DISTINCT Location FROM Cables WHERE Cable_Type NOT LIKE 'Placeholder_%' AND Location LIKE ? || '/%'";
-        }
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(cabSql)) {
-            if (parentLocation != null) {
-                stmt.setString(1, parentLocation);
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String fullLoc = rs.getString("Location");
-                    String subLoc = (parentLocation == null) ? fullLoc : fullLoc.substring(parentLocation.length() + 1);
-                    int sepIdx = subLoc.indexOf(LogCablesTab.getPathSeparator());
-                    if (sepIdx != -1) {
-                        subLoc = subLoc.substring(0, sepIdx);
+    private static synchronized LocationTree cachedLocationTree() {
+        return locationTree;
+    }
+
+    private static LocationTree loadLocationTree() throws SQLException {
+        LocationTree tree = new LocationTree(LogCablesTab.getPathSeparator());
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT Location FROM Locations WHERE Datatype = ?")) {
+                stmt.setString(1, DATATYPE_CABLE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        tree.addLocation(rs.getString("Location"));
                     }
-                    subLocations.add(subLoc);
                 }
             }
-        }
-
-        List<String> result = new ArrayList<>(subLocations);
-        Collections.sort(result);
-        return result;
-    }
-
-    public static List<String> getAllLocations() throws SQLException {
-        List<String> locations = new ArrayList<>();
-        String sql = "SELECT DISTINCT Location FROM Cables WHERE Cable_Type NOT LIKE 'Placeholder_%' UNION SELECT Location FROM Locations WHERE Datatype = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, DATATYPE_CABLE);
-            try (ResultSet rs = stmt.executeQuery()) {
+            String sql = "SELECT Location, Cable_Type, Count FROM Cables WHERE Cable_Type NOT LIKE 'Placeholder_%'";
+            try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    String loc = rs.getString("Location");
-                    if (loc != null && !loc.isEmpty()) {
-                        locations.add(loc);
-                    }
+                    tree.addItems(rs.getString("Location"), rs.getString("Cable_Type"), rs.getInt("Count"));
                 }
             }
         }
-        Collections.sort(locations);
-        return locations;
+        return tree;
     }
 
     public static void createLocation(String fullPath, String parentLocation) throws SQLException {
@@ -222,6 +138,11 @@ public class CablesDAO {
             stmt.executeUpdate();
             LOGGER.log(Level.INFO, "Created location: {0}", fullPath);
         }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            tree.addLocation(fullPath);
+        }
+        publish(ChangeBus.Change.inserted("Locations", "Location", Collections.singletonList(fullPath)));
     }
 
     public static void addCable(String cableType, int count, String location) throws SQLException {
@@ -260,6 +181,13 @@ public class CablesDAO {
                 }
             }
             LOGGER.log(Level.INFO, "Added {0} cables of type {1} to {2}", new Object[]{count, cableType, location});
+            publish(cableId != -1
+                    ? ChangeBus.Change.updated("Cables", "Cable_Type", Collections.singletonList(cableType), Collections.singletonList("Count"))
+                    : ChangeBus.Change.inserted("Cables", "Cable_Type", Collections.singletonList(cableType)));
+        }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            tree.addItems(location, cableType, count);
         }
     }
 
@@ -267,32 +195,128 @@ public class CablesDAO {
         if (count <= 0) {
             throw new SQLException("Count to remove must be positive");
         }
-        String selectSql = "SELECT Count FROM Cables WHERE Id = ?";
         String updateSql = "UPDATE Cables SET Count = Count - ? WHERE Id = ?";
         try (Connection conn = DatabaseUtils.getConnection()) {
-            int currentCount = 0;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                selectStmt.setInt(1, cableId);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        currentCount = rs.getInt("Count");
+            conn.setAutoCommit(false);
+            try {
+                CableRow row = selectCable(conn, cableId);
+                if (row.count < count) {
+                    throw new SQLException("Not enough cables to remove: " + row.count + " available, " + count + " requested");
+                }
+                if (row.count == count) {
+                    deleteCableRow(conn, cableId);
+                } else {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                        updateStmt.setInt(1, count);
+                        updateStmt.setInt(2, cableId);
+                        updateStmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                LocationTree tree = cachedLocationTree();
+                if (tree != null) {
+                    if (row.count == count) {
+                        tree.removeItems(row.location, row.cableType);
                     } else {
-                        throw new SQLException("Cable ID not found: " + cableId);
+                        tree.addItems(row.location, row.cableType, -count);
                     }
                 }
+                LOGGER.log(Level.INFO, "Removed {0} cables with ID: {1}", new Object[]{count, cableId});
+                publish(row.count == count
+                        ? ChangeBus.Change.deleted("Cables", "Cable_Type", Collections.singletonList(row.cableType))
+                        : ChangeBus.Change.updated("Cables", "Cable_Type", Collections.singletonList(row.cableType), Collections.singletonList("Count")));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (currentCount < count) {
-                throw new SQLException("Not enough cables to remove: " + currentCount + " available, " + count + " requested");
-            }
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                updateStmt.setInt(1, count);
-                updateStmt.setInt(2, cableId);
-                updateStmt.executeUpdate();
+        }
+    }
+
+    // Applies the net +/- counts collected by LogCablesTab's storage buffer in one transaction.
+    // Rows that reach zero are deleted, as removeCable does.
+    public static void applyStorageChanges(Map<StockDeltaBuffer.Key, Integer> changes) throws SQLException {
+        String selectSql = "SELECT Id, Cable_Type, Location, Count FROM Cables WHERE Cable_Type = ? AND Location = ?";
+        String updateSql = "UPDATE Cables SET Count = ? WHERE Id = ?";
+        String insertSql = "INSERT INTO Cables (Cable_Type, Count, Location) VALUES (?, ?, ?)";
+        // Rows as stored, which may differ in case from the clicked type and location
+        Map<StockDeltaBuffer.Key, StockDeltaBuffer.Key> storedKeys = new LinkedHashMap<>();
+        Map<StockDeltaBuffer.Key, Integer> newCounts = new LinkedHashMap<>();
+        List<String> insertedTypes = new ArrayList<>();
+        List<String> updatedTypes = new ArrayList<>();
+        List<String> deletedTypes = new ArrayList<>();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql);
+                 PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+                 PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                for (Map.Entry<StockDeltaBuffer.Key, Integer> change : changes.entrySet()) {
+                    StockDeltaBuffer.Key key = change.getKey();
+                    int cableId = -1;
+                    int currentCount = 0;
+                    StockDeltaBuffer.Key storedKey = key;
+                    selectStmt.setString(1, key.itemType);
+                    selectStmt.setString(2, key.location);
+                    try (ResultSet rs = selectStmt.executeQuery()) {
+                        if (rs.next()) {
+                            cableId = rs.getInt("Id");
+                            currentCount = rs.getInt("Count");
+                            storedKey = new StockDeltaBuffer.Key(rs.getString("Cable_Type"), rs.getString("Location"));
+                        }
+                    }
+                    int newCount = currentCount + change.getValue();
+                    if (newCount < 0) {
+                        throw new SQLException("Not enough cables of type " + key.itemType + " at " + key.location
+                                + ": " + currentCount + " available, " + -change.getValue() + " requested");
+                    }
+                    if (cableId == -1) {
+                        insertStmt.setString(1, key.itemType);
+                        insertStmt.setInt(2, newCount);
+                        insertStmt.setString(3, key.location);
+                        insertStmt.executeUpdate();
+                        insertedTypes.add(key.itemType);
+                    } else if (newCount == 0) {
+                        deleteCableRow(conn, cableId);
+                        deletedTypes.add(storedKey.itemType);
+                    } else {
+                        updateStmt.setInt(1, newCount);
+                        updateStmt.setInt(2, cableId);
+                        updateStmt.executeUpdate();
+                        updatedTypes.add(storedKey.itemType);
+                    }
+                    storedKeys.put(key, storedKey);
+                    newCounts.put(key, newCount);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (currentCount - count == 0) {
-                deleteCable(cableId);
+        }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            for (Map.Entry<StockDeltaBuffer.Key, Integer> change : changes.entrySet()) {
+                StockDeltaBuffer.Key key = storedKeys.get(change.getKey());
+                if (newCounts.get(change.getKey()) == 0) {
+                    tree.removeItems(key.location, key.itemType);
+                } else {
+                    tree.addItems(key.location, key.itemType, change.getValue());
+                }
             }
         }
+        LOGGER.log(Level.INFO, "Applied {0} storage count changes", changes.size());
+        if (!insertedTypes.isEmpty()) {
+            publish(ChangeBus.Change.inserted("Cables", "Cable_Type", insertedTypes));
+        }
+        if (!updatedTypes.isEmpty()) {
+            publish(ChangeBus.Change.updated("Cables", "Cable_Type", updatedTypes, Collections.singletonList("Count")));
+        }
+        if (!deletedTypes.isEmpty()) {
+            publish(ChangeBus.Change.deleted("Cables", "Cable_Type", deletedTypes));
+        }
     }
 
     public static boolean canRemoveCable(int cableId) throws SQLException {
@@ -353,29 +377,22 @@ public class CablesDAO {
 
     public static List<CableEntry> getCablesSummary(String parentLocation) throws SQLException {
         List<CableEntry> cables = new ArrayList<>();
-        String sql = "SELECT Cable_Type, SUM(Count) as TotalCount FROM Cables WHERE Cable_Type NOT LIKE 'Placeholder_%' AND (Location = ? OR Location LIKE ? || ?) GROUP BY Cable_Type";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, parentLocation);
-            stmt.setString(2, parentLocation);
-            stmt.setString(3, LogCablesTab.getPathSeparator() + "%");
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    cables.add(new CableEntry(
-                            rs.getString("Cable_Type"),
-                            rs.getInt("TotalCount")
-                    ));
-                }
-            }
+        for (Map.Entry<String, Integer> total : getLocationTree().getSubtreeTotals(parentLocation).entrySet()) {
+            cables.add(new CableEntry(total.getKey(), total.getValue()));
         }
         return cables;
     }
 
     public static void deleteCable(int cableId) throws SQLException {
-        String sql = "DELETE FROM Cables WHERE Id = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, cableId);
-            stmt.executeUpdate();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            CableRow row = selectCable(conn, cableId);
+            deleteCableRow(conn, cableId);
             LOGGER.log(Level.INFO, "Deleted cable with ID {0}", cableId);
+            publish(ChangeBus.Change.deleted("Cables", "Cable_Type", Collections.singletonList(row.cableType)));
+            LocationTree tree = cachedLocationTree();
+            if (tree != null) {
+                tree.removeItems(row.location, row.cableType);
+            }
         }
     }
 
@@ -389,39 +406,53 @@ public class CablesDAO {
 
         String parentPath = getParentPath(fullPath);
         String targetLocation = (parentPath != null) ? parentPath : LogCablesTab.getUnassignedLocation();
+        String subtreeSql = "SELECT Cable_Type, Count FROM Cables WHERE Cable_Type NOT LIKE 'Placeholder_%' AND (Location = ? OR Location LIKE ? || ?)";
+        String targetSql = "SELECT Id, Cable_Type FROM Cables WHERE Location = ?";
+        String updateSql = "UPDATE Cables SET Count = Count + ? WHERE Id = ?";
+        String insertSql = "INSERT INTO Cables (Cable_Type, Count, Location) VALUES (?, ?, ?)";
+        String deleteCablesSql = "DELETE FROM Cables WHERE Location = ? OR Location LIKE ? || ?";
+        String deleteLocationSql = "DELETE FROM Locations WHERE Datatype = ? AND (Location = ? OR Location LIKE ? || ?)";
 
-        List<CableEntry> cablesToMove = new ArrayList<>();
         try (Connection conn = DatabaseUtils.getConnection()) {
-            cablesToMove.addAll(getCablesByLocation(fullPath));
+            conn.setAutoCommit(false);
+            try {
+                // Totals per type across the subtree; types are matched case-insensitively like
+                // the UNIQUE(Cable_Type, Location) constraint does.
+                Map<String, CableEntry> cablesToMove = new LinkedHashMap<>();
+                try (PreparedStatement subStmt = conn.prepareStatement(subtreeSql)) {
+                    subStmt.setString(1, fullPath);
+                    subStmt.setString(2, fullPath);
+                    subStmt.setString(3, LogCablesTab.getPathSeparator() + "%");
+                    try (ResultSet rs = subStmt.executeQuery()) {
+                        while (rs.next()) {
+                            String cableType = rs.getString("Cable_Type");
+                            CableEntry entry = new CableEntry(cableType, rs.getInt("Count"));
+                            cablesToMove.merge(cableType.toUpperCase(), entry,
+                                    (a, b) -> new CableEntry(a.cableType, a.count + b.count));
+                        }
+                    }
+                }
 
-            String subLocationSql = "SELECT Cable_Type, Count, Location FROM Cables WHERE Cable_Type NOT LIKE 'Placeholder_%' AND Location LIKE ? || ?";
-            try (PreparedStatement subStmt = conn.prepareStatement(subLocationSql)) {
-                subStmt.setString(1, fullPath);
-                subStmt.setString(2, LogCablesTab.getPathSeparator() + "%");
-                try (ResultSet rs = subStmt.executeQuery()) {
-                    while (rs.next()) {
-                        cablesToMove.add(new CableEntry(
-                                rs.getString("Cable_Type"),
-                                rs.getInt("Count")
-                        ));
+                Map<String, Integer> targetIds = new HashMap<>();
+                try (PreparedStatement targetStmt = conn.prepareStatement(targetSql)) {
+                    targetStmt.setString(1, targetLocation);
+                    try (ResultSet rs = targetStmt.executeQuery()) {
+                        while (rs.next()) {
+                            targetIds.put(rs.getString("Cable_Type").toUpperCase(), rs.getInt("Id"));
+                        }
                     }
                 }
-            }
 
-            conn.setAutoCommit(false);
-            try {
-                for (CableEntry ce : cablesToMove) {
-                    int targetId = getCableId(ce.cableType, targetLocation);
-                    if (targetId != -1) {
-                        String updateSql = "UPDATE Cables SET Count = Count + ? WHERE Id = ?";
-                        try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+                     PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                    for (Map.Entry<String, CableEntry> move : cablesToMove.entrySet()) {
+                        CableEntry ce = move.getValue();
+                        Integer targetId = targetIds.get(move.getKey());
+                        if (targetId != null) {
                             updateStmt.setInt(1, ce.count);
                             updateStmt.setInt(2, targetId);
                             updateStmt.executeUpdate();
-                        }
-                    } else {
-                        String insertSql = "INSERT INTO Cables (Cable_Type, Count, Location) VALUES (?, ?, ?)";
-                        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                        } else {
                             insertStmt.setString(1, ce.cableType);
                             insertStmt.setInt(2, ce.count);
                             insertStmt.setString(3, targetLocation);
@@ -430,7 +461,6 @@ public class CablesDAO {
                     }
                 }
 
-                String deleteCablesSql = "DELETE FROM Cables WHERE Location = ? OR Location LIKE ? || ?";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteCablesSql)) {
                     deleteStmt.setString(1, fullPath);
                     deleteStmt.setString(2, fullPath);
@@ -438,7 +468,6 @@ public class CablesDAO {
                     deleteStmt.executeUpdate();
                 }
 
-                String deleteLocationSql = "DELETE FROM Locations WHERE Datatype = ? AND (Location = ? OR Location LIKE ? || ?)";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteLocationSql)) {
                     deleteStmt.setString(1, DATATYPE_CABLE);
                     deleteStmt.setString(2, fullPath);
@@ -449,11 +478,15 @@ public class CablesDAO {
 
                 conn.commit();
                 LOGGER.log(Level.INFO, "Deleted location {0} and moved cables to {1}", new Object[]{fullPath, targetLocation});
+                publish(ChangeBus.Change.rowsChanged("Cables"));
+                publish(ChangeBus.Change.deleted("Locations", "Location", null));
             } catch (SQLException ex) {
                 conn.rollback();
                 throw ex;
             } finally {
                 conn.setAutoCommit(true);
+                // Reloaded on next use rather than re-parenting a whole subtree in memory.
+                invalidateLocationTree();
             }
         }
     }
@@ -466,70 +499,108 @@ public class CablesDAO {
             throw new SQLException("Target location does not exist: " + targetLocation);
         }
 
-        String selectSql = "SELECT Cable_Type, Count, Location FROM Cables WHERE Id = ?";
         String updateSourceSql = "UPDATE Cables SET Count = Count - ? WHERE Id = ?";
         String selectTargetSql = "SELECT Id FROM Cables WHERE Cable_Type = ? AND Location = ?";
         String updateTargetSql = "UPDATE Cables SET Count = Count + ? WHERE Id = ?";
         String insertTargetSql = "INSERT INTO Cables (Cable_Type, Count, Location) VALUES (?, ?, ?)";
 
         try (Connection conn = DatabaseUtils.getConnection()) {
-            String cableType = null;
-            int currentCount = 0;
-            String sourceLocation = null;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                selectStmt.setInt(1, cableId);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        cableType = rs.getString("Cable_Type");
-                        currentCount = rs.getInt("Count");
-                        sourceLocation = rs.getString("Location");
-                    } else {
-                        throw new SQLException("Cable ID not found: " + cableId);
-                    }
+            conn.setAutoCommit(false);
+            try {
+                CableRow source = selectCable(conn, cableId);
+                if (source.count < countToMove) {
+                    throw new SQLException("Not enough cables to move: " + source.count + " available, " + countToMove + " requested");
                 }
-            }
 
-            if (currentCount < countToMove) {
-                throw new SQLException("Not enough cables to move: " + currentCount + " available, " + countToMove + " requested");
-            }
-
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSourceSql)) {
-                updateStmt.setInt(1, countToMove);
-                updateStmt.setInt(2, cableId);
-                updateStmt.executeUpdate();
-            }
+                int targetCableId = -1;
+                try (PreparedStatement selectStmt = conn.prepareStatement(selectTargetSql)) {
+                    selectStmt.setString(1, source.cableType);
+                    selectStmt.setString(2, targetLocation);
+                    try (ResultSet rs = selectStmt.executeQuery()) {
+                        if (rs.next()) {
+                            targetCableId = rs.getInt("Id");
+                        }
+                    }
+                }
+                if (targetCableId == cableId) {
+                    throw new SQLException("Cables are already in " + targetLocation);
+                }
 
-            int targetCableId = -1;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectTargetSql)) {
-                selectStmt.setString(1, cableType);
-                selectStmt.setString(2, targetLocation);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        targetCableId = rs.getInt("Id");
+                if (source.count == countToMove) {
+                    deleteCableRow(conn, cableId);
+                } else {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSourceSql)) {
+                        updateStmt.setInt(1, countToMove);
+                        updateStmt.setInt(2, cableId);
+                        updateStmt.executeUpdate();
                     }
                 }
-            }
 
-            if (targetCableId != -1) {
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateTargetSql)) {
-                    updateStmt.setInt(1, countToMove);
-                    updateStmt.setInt(2, targetCableId);
-                    updateStmt.executeUpdate();
+                if (targetCableId != -1) {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateTargetSql)) {
+                        updateStmt.setInt(1, countToMove);
+                        updateStmt.setInt(2, targetCableId);
+                        updateStmt.executeUpdate();
+                    }
+                } else {
+                    try (PreparedStatement insertStmt = conn.prepareStatement(insertTargetSql)) {
+                        insertStmt.setString(1, source.cableType);
+                        insertStmt.setInt(2, countToMove);
+                        insertStmt.setString(3, targetLocation);
+                        insertStmt.executeUpdate();
+                    }
                 }
-            } else {
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertTargetSql)) {
-                    insertStmt.setString(1, cableType);
-                    insertStmt.setInt(2, countToMove);
-                    insertStmt.setString(3, targetLocation);
-                    insertStmt.executeUpdate();
+
+                conn.commit();
+                LocationTree tree = cachedLocationTree();
+                if (tree != null) {
+                    if (source.count == countToMove) {
+                        tree.removeItems(source.location, source.cableType);
+                    } else {
+                        tree.addItems(source.location, source.cableType, -countToMove);
+                    }
+                    tree.addItems(targetLocation, source.cableType, countToMove);
                 }
+                LOGGER.log(Level.INFO, "Moved {0} cables of type {1} from {2} to {3}", new Object[]{countToMove, source.cableType, source.location, targetLocation});
+                publish(ChangeBus.Change.updated("Cables", "Cable_Type", Collections.singletonList(source.cableType), Arrays.asList("Count", "Location")));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        }
+    }
+
+    private static class CableRow {
+        private final String cableType;
+        private final int count;
+        private final String location;
+
+        CableRow(String cableType, int count, String location) {
+            this.cableType = cableType;
+            this.count = count;
+            this.location = location;
+        }
+    }
 
-            if (currentCount == countToMove) {
-                deleteCable(cableId);
+    private static CableRow selectCable(Connection conn, int cableId) throws SQLException {
+        String sql = "SELECT Cable_Type, Count, Location FROM Cables WHERE Id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, cableId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new CableRow(rs.getString("Cable_Type"), rs.getInt("Count"), rs.getString("Location"));
+                }
             }
+        }
+        throw new SQLException("Cable ID not found: " + cableId);
+    }
 
-            LOGGER.log(Level.INFO, "Moved {0} cables of type {1} from {2} to {3}", new Object[]{countToMove, cableType, sourceLocation, targetLocation});
+    private static void deleteCableRow(Connection conn, int cableId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM Cables WHERE Id = ?")) {
+            stmt.setInt(1, cableId);
+            stmt.executeUpdate();
         }
     }
 
@@ -550,7 +621,14 @@ public class CablesDAO {
             stmt.setString(1, LogCablesTab.getUnassignedLocation());
             stmt.setString(2, "%");
             stmt.setString(3, LogCablesTab.getPathSeparator() + LogCablesTab.getUnassignedLocation());
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() > 0) {
+                publish(ChangeBus.Change.updated("Cables", null, null, Collections.singletonList("Location")));
+            }
         }
+        invalidateLocationTree();
+    }
+
+    private static void publish(ChangeBus.Change change) {
+        ChangeBus.publish(change.from(CablesDAO.class));
     }
 }
\ No newline at end of file
@@ -2,15 +2,12 @@ package log_cables.actions;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
-import javax.swing.JTable;
 import javax.swing.tree.DefaultMutableTreeNode;
 
-import log_cables.CablesDAO;
 import log_cables.LogCablesTab;
 
 public class RemoveFromStorageAction implements ActionListener {
@@ -35,7 +32,6 @@ public class RemoveFromStorageAction implements ActionListener {
         }
 
         String cableType = (String) tab.getTableModel().getValueAt(selectedRow, 0);
-        final String selectedCableType = cableType; // Save for reselection, declared final
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) tab.getLocationTree().getLastSelectedPathComponent();
         if (node == null) {
             tab.setStatus("Error: Select a location first");
@@ -51,36 +47,15 @@ public class RemoveFromStorageAction implements ActionListener {
             location = buildPathFromNode(node);
         }
 
-        try {
-            int cableId = CablesDAO.getCableId(cableType, location);
-            if (cableId == -1) {
-                tab.setStatus("Error: Cable type '" + cableType + "' not found at " + location);
-                JOptionPane.showMessageDialog(null, "Cable not found", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            if (!CablesDAO.canRemoveCable(cableId)) {
-                tab.setStatus("Error: No cables of type '" + cableType + "' available to remove at " + location);
-                JOptionPane.showMessageDialog(null, "No cables available to remove", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            CablesDAO.removeCable(cableId, 1); // Remove 1 cable
-            tab.setStatus("Removed 1 " + cableType + " from " + location);
-            // Refresh the table and restore selection
-            tab.refresh();
-            if (selectedCableType != null) {
-                JTable table = tab.getCableTable();
-                for (int i = 0; i < table.getRowCount(); i++) {
-                    if (selectedCableType.equals(table.getValueAt(i, 0))) {
-                        table.setRowSelectionInterval(i, i);
-                        break;
-                    }
-                }
-            }
-        } catch (SQLException ex) {
-            LOGGER.log(Level.SEVERE, "Error removing from storage: {0}", ex.getMessage());
-            tab.setStatus("Error removing from storage: " + ex.getMessage());
-            JOptionPane.showMessageDialog(null, "Error removing from storage: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        int count = ((Number) tab.getTableModel().getValueAt(selectedRow, 1)).intValue();
+        if (count <= 0) {
+            tab.setStatus("Error: No cables of type '" + cableType + "' available to remove at " + location);
+            JOptionPane.showMessageDialog(null, "No cables available to remove", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        tab.changeStorageCount(selectedRow, location, -1);
+        tab.setStatus("Removed 1 " + cableType + " from " + location + " (" + tab.getUnsavedStorageChanges() + " unsaved change(s))");
+        LOGGER.log(Level.INFO, "Removed cable: {0} at {1}", new Object[]{cableType, location});
     }
 
     private String buildPathFromNode(DefaultMutableTreeNode node) {
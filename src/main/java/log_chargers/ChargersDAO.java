@@ -1,23 +1,41 @@
 package log_chargers;
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import utils.ChangeBus;
 import utils.DatabaseUtils;
+import utils.LocationTree;
+import utils.SchemaMigrations;
+import utils.StockDeltaBuffer;
+import utils.TabRevalidator;
 
 public class ChargersDAO {
     private static final Logger LOGGER = Logger.getLogger(ChargersDAO.class.getName());
     private static final String DATATYPE_CHARGER = "Charger";
+    // Loaded on first use and kept current by the write methods below; see getLocationTree().
+    private static LocationTree locationTree;
+    // Writes made outside this class drop the tree; the write methods below keep it current themselves.
+    private static final ChangeBus.Listener CHANGE_LISTENER = change -> {
+        if (change.getSource() != ChargersDAO.class && change.affects("Chargers")) {
+            invalidateLocationTree();
+        }
+    };
+
+    static {
+        ChangeBus.subscribe(CHANGE_LISTENER);
+    }
 
     public static class ChargerEntry {
         public final String chargerType;
@@ -29,180 +47,78 @@ public class ChargersDAO {
         }
     }
 
+    // The table itself is created and cleaned up by the schema migrations; see SchemaMigrations.
     public static void ensureSchema() throws SQLException {
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            boolean tableExists = false;
-            try (ResultSet rs = metaData.getTables(null, null, "Chargers", new String[]{"TABLE"})) {
-                if (rs.next()) {
-                    tableExists = true;
-                    LOGGER.log(Level.INFO, "Chargers table found: {0}", rs.getString("TABLE_NAME"));
-                } else {
-                    LOGGER.log(Level.INFO, "Chargers table does not exist");
-                }
-            }
+        SchemaMigrations.migrate();
+        invalidateLocationTree();
+    }
 
-            if (!tableExists) {
-                String createTableSQL = "CREATE TABLE Chargers (Id COUNTER PRIMARY KEY, Charger_Type VARCHAR(255), Count INTEGER, Location VARCHAR(255), UNIQUE(Charger_Type, Location))";
-                try (PreparedStatement stmt = conn.prepareStatement(createTableSQL)) {
-                    stmt.executeUpdate();
-                    LOGGER.log(Level.INFO, "Created Chargers table");
-                }
-            } else {
-                LOGGER.log(Level.INFO, "Chargers table already exists");
-                try (ResultSet rs = metaData.getColumns(null, null, "Chargers", "Parent_Location")) {
-                    if (rs.next()) {
-                        String alterTableSQL = "ALTER TABLE Chargers DROP COLUMN Parent_Location";
-                        try (PreparedStatement stmt = conn.prepareStatement(alterTableSQL)) {
-                            stmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Dropped Parent_Location column from Chargers table");
-                        }
-                    }
-                }
-            }
+    // Startup work of LogChargersTab that does not need the EDT, run by mainFile before the tab is built:
+    // the schema, the clean-up of stray unassigned sub-locations and the location tree.
+    public static void prefetch() throws SQLException {
+        ensureSchema();
+        cleanUpUnassignedSublocations();
+        getLocationTree();
+    }
 
-            String selectOldPlaceholders = "SELECT DISTINCT Location FROM Chargers WHERE Charger_Type LIKE 'Placeholder_%'";
-            try (PreparedStatement selStmt = conn.prepareStatement(selectOldPlaceholders);
-                 PreparedStatement insStmt = conn.prepareStatement("INSERT INTO Locations (Datatype, Location) VALUES (?, ?)");
-                 PreparedStatement delStmt = conn.prepareStatement("DELETE FROM Chargers WHERE Charger_Type LIKE 'Placeholder_%' AND Location = ?")) {
-                try (ResultSet rs = selStmt.executeQuery()) {
-                    while (rs.next()) {
-                        String loc = rs.getString("Location");
-                        insStmt.setString(1, DATATYPE_CHARGER);
-                        insStmt.setString(2, loc);
-                        insStmt.executeUpdate();
-                        delStmt.setString(1, loc);
-                        delStmt.executeUpdate();
-                        LOGGER.log(Level.INFO, "Migrated placeholder location: {0}", loc);
-                    }
-                }
-            }
+    public static boolean locationExists(String location) throws SQLException {
+        if (location == null || location.isEmpty()) return false;
+        return getLocationTree().exists(location);
+    }
 
-            try (ResultSet rs = metaData.getIndexInfo(null, null, "Chargers", false, false)) {
-                boolean indexExists = false;
-                while (rs.next()) {
-                    if ("idx_chargers_location".equals(rs.getString("INDEX_NAME"))) {
-                        indexExists = true;
-                        break;
-                    }
-                }
-                if (!indexExists) {
-                    try {
-                        String createIndexSQL = "CREATE INDEX idx_chargers_location ON Chargers(Location)";
-                        try (PreparedStatement stmt = conn.prepareStatement(createIndexSQL)) {
-                            stmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Created index idx_chargers_location on Chargers table");
-                        }
-                    } catch (SQLException e) {
-                        LOGGER.log(Level.WARNING, "Failed to create index idx_chargers_location: {0}", e.getMessage());
-                    }
-                }
-            }
-        }
+    public static List<String> getSubLocations(String parentLocation) throws SQLException {
+        return getLocationTree().getSubLocations(parentLocation);
     }
 
-    private static boolean locationExistsInLocations(String location) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Locations WHERE Datatype = ? AND Location = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, DATATYPE_CHARGER);
-            stmt.setString(2, location);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
-        }
-        return false;
+    public static List<String> getAllLocations() throws SQLException {
+        return getLocationTree().getLocations();
     }
 
-    private static boolean locationExistsInChargers(String location) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Chargers WHERE Location = ? AND Charger_Type NOT LIKE 'Placeholder_%'";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, location);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
+    // Every location and the chargers stored at each. Read with two queries the first time it is
+    // needed; after that the write methods below update it, so LogChargersTab can rebuild its tree
+    // and summaries without querying.
+    public static synchronized LocationTree getLocationTree() throws SQLException {
+        if (locationTree == null) {
+            locationTree = loadLocationTree();
         }
-        return false;
+        return locationTree;
     }
 
-    public static boolean locationExists(String location) throws SQLException {
-        if (location == null || location.isEmpty()) return false;
-        return locationExistsInLocations(location) || locationExistsInChargers(location);
+    // Drops the cached tree so that the next call re-reads it, e.g. after another user changed the file.
+    public static synchronized void invalidateLocationTree() {
+        locationTree = null;
     }
 
-    public static List<String> getSubLocations(String parentLocation) throws SQLException {
-        Set<String> subLocations = new HashSet<>();
-        String locSql;
-        if (parentLocation == null) {
-            locSql = "SELECT Location FROM Locations WHERE Datatype = ? AND Location NOT LIKE '%/%'";
-        } else {
-            locSql = "SELECT Location FROM Locations WHERE Datatype = ? AND Location LIKE ? || '/%'";
-        }
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(locSql)) {
-            stmt.setString(1, DATATYPE_CHARGER);
-            if (parentLocation != null) {
-                stmt.setString(2, parentLocation);
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String fullLoc = rs.getString("Location");
-                    String subLoc = (parentLocation == null) ? fullLoc : fullLoc.substring(parentLocation.length() + 1);
-                    int sepIdx = subLoc.indexOf(LogChargersTab.getPathSeparator());
-                    if (sepIdx != -1) {
-                        subLoc = subLoc.substring(0, sepIdx);
-                    }
-                    subLocations.add(subLoc);
-                }
-            }
-        }
+    // Changes whenever chargers or their locations are added, removed, recounted or moved, here
+    // or by another copy of the application.
+    public static String getChangeToken() throws SQLException {
+        return TabRevalidator.queryToken("SELECT COUNT(*), SUM([Count]), SUM(CAST([Count] AS BIGINT) * Id) FROM Chargers")
+                + TabRevalidator.queryToken("SELECT COUNT(*), MAX(Id) FROM Locations WHERE Datatype = '" + DATATYPE_CHARGER + "'");
+    }
 
-        String cabSql;
-        if (parentLocation == null) {
-            cabSql = "SELECT DISTINCT Location FROM Chargers WHERE Charger_Type NOT LIKE 'Placeholder_%' AND Location NOT LIKE '%/%'";
-        } else {
-            cabSql = "SELECT DISTINCT Location FROM Chargers WHERE Charger_Type NOT LIKE 'Placeholder_%' AND Location LIKE ? || '/%'";
-        }
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(cabSql)) {
-            if (parentLocation != null) {
-                stmt.setString(1, parentLocation);
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    String fullLoc = rs.getString("Location");
-                    String subLoc = (parentLocation == null) ? fullLoc : fullLoc.substring(parentLocation.length() + 1);
-                    int sepIdx = subLoc.indexOf(LogChargersTab.getPathSeparator());
-                    if (sepIdx != -1) {
-                        subLoc = subLoc.substring(0, sepIdx);
+    private static synchronized LocationTree cachedLocationTree() {
+        return locationTree;
+    }
+
+    private static LocationTree loadLocationTree() throws SQLException {
+        LocationTree tree = new LocationTree(LogChargersTab.getPathSeparator());
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT Location FROM Locations WHERE Datatype = ?")) {
+                stmt.setString(1, DATATYPE_CHARGER);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        tree.addLocation(rs.getString("Location"));
                     }
-                    subLocations.add(subLoc);
                 }
             }
-        }
-
-        List<String> result = new ArrayList<>(subLocations);
-        Collections.sort(result);
-        return result;
-    }
-
-    public static List<String> getAllLocations() throws SQLException {
-        List<String> locations = new ArrayList<>();
-        String sql = "SELECT DISTINCT Location FROM Chargers WHERE Charger_Type NOT LIKE 'Placeholder_%' UNION SELECT Location FROM Locations WHERE Datatype = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, DATATYPE_CHARGER);
-            try (ResultSet rs = stmt.executeQuery()) {
+            String sql = "SELECT Location, Charger_Type, Count FROM Chargers WHERE Charger_Type NOT LIKE 'Placeholder_%'";
+            try (PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    String loc = rs.getString("Location");
-                    if (loc != null && !loc.isEmpty()) {
-                        locations.add(loc);
-                    }
+                    tree.addItems(rs.getString("Location"), rs.getString("Charger_Type"), rs.getInt("Count"));
                 }
             }
         }
-        Collections.sort(locations);
-        return locations;
+        return tree;
     }
 
     public static void createLocation(String fullPath, String parentLocation) throws SQLException {
@@ -222,6 +138,11 @@ public class ChargersDAO {
             stmt.executeUpdate();
             LOGGER.log(Level.INFO, "Created location: {0}", fullPath);
         }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            tree.addLocation(fullPath);
+        }
+        publish(ChangeBus.Change.inserted("Locations", "Location", Collections.singletonList(fullPath)));
     }
 
     public static void addCharger(String chargerType, int count, String location) throws SQLException {
@@ -260,6 +181,13 @@ public class ChargersDAO {
                 }
             }
             LOGGER.log(Level.INFO, "Added {0} chargers of type {1} to {2}", new Object[]{count, chargerType, location});
+            publish(chargerId != -1
+                    ? ChangeBus.Change.updated("Chargers", "Charger_Type", Collections.singletonList(chargerType), Collections.singletonList("Count"))
+                    : ChangeBus.Change.inserted("Chargers", "Charger_Type", Collections.singletonList(chargerType)));
+        }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            tree.addItems(location, chargerType, count);
         }
     }
 
@@ -267,32 +195,128 @@ public class ChargersDAO {
         if (count <= 0) {
             throw new SQLException("Count to remove must be positive");
         }
-        String selectSql = "SELECT Count FROM Chargers WHERE Id = ?";
         String updateSql = "UPDATE Chargers SET Count = Count - ? WHERE Id = ?";
         try (Connection conn = DatabaseUtils.getConnection()) {
-            int currentCount = 0;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                selectStmt.setInt(1, chargerId);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        currentCount = rs.getInt("Count");
+            conn.setAutoCommit(false);
+            try {
+                ChargerRow row = selectCharger(conn, chargerId);
+                if (row.count < count) {
+                    throw new SQLException("Not enough chargers to remove: " + row.count + " available, " + count + " requested");
+                }
+                if (row.count == count) {
+                    deleteChargerRow(conn, chargerId);
+                } else {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                        updateStmt.setInt(1, count);
+                        updateStmt.setInt(2, chargerId);
+                        updateStmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                LocationTree tree = cachedLocationTree();
+                if (tree != null) {
+                    if (row.count == count) {
+                        tree.removeItems(row.location, row.chargerType);
                     } else {
-                        throw new SQLException("Charger ID not found: " + chargerId);
+                        tree.addItems(row.location, row.chargerType, -count);
                     }
                 }
+                LOGGER.log(Level.INFO, "Removed {0} chargers with ID: {1}", new Object[]{count, chargerId});
+                publish(row.count == count
+                        ? ChangeBus.Change.deleted("Chargers", "Charger_Type", Collections.singletonList(row.chargerType))
+                        : ChangeBus.Change.updated("Chargers", "Charger_Type", Collections.singletonList(row.chargerType), Collections.singletonList("Count")));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (currentCount < count) {
-                throw new SQLException("Not enough chargers to remove: " + currentCount + " available, " + count + " requested");
-            }
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                updateStmt.setInt(1, count);
-                updateStmt.setInt(2, chargerId);
-                updateStmt.executeUpdate();
+        }
+    }
+
+    // Applies the net +/- counts collected by LogChargersTab's storage buffer in one transaction.
+    // Rows that reach zero are deleted, as removeCharger does.
+    public static void applyStorageChanges(Map<StockDeltaBuffer.Key, Integer> changes) throws SQLException {
+        String selectSql = "SELECT Id, Charger_Type, Location, Count FROM Chargers WHERE Charger_Type = ? AND Location = ?";
+        String updateSql = "UPDATE Chargers SET Count = ? WHERE Id = ?";
+        String insertSql = "INSERT INTO Chargers (Charger_Type, Count, Location) VALUES (?, ?, ?)";
+        // Rows as stored, which may differ in case from the clicked type and location
+        Map<StockDeltaBuffer.Key, StockDeltaBuffer.Key> storedKeys = new LinkedHashMap<>();
+        Map<StockDeltaBuffer.Key, Integer> newCounts = new LinkedHashMap<>();
+        List<String> insertedTypes = new ArrayList<>();
+        List<String> updatedTypes = new ArrayList<>();
+        List<String> deletedTypes = new ArrayList<>();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql);
+                 PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+                 PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                for (Map.Entry<StockDeltaBuffer.Key, Integer> change : changes.entrySet()) {
+                    StockDeltaBuffer.Key key = change.getKey();
+                    int chargerId = -1;
+                    int currentCount = 0;
+                    StockDeltaBuffer.Key storedKey = key;
+                    selectStmt.setString(1, key.itemType);
+                    selectStmt.setString(2, key.location);
+                    try (ResultSet rs = selectStmt.executeQuery()) {
+                        if (rs.next()) {
+                            chargerId = rs.getInt("Id");
+                            currentCount = rs.getInt("Count");
+                            storedKey = new StockDeltaBuffer.Key(rs.getString("Charger_Type"), rs.getString("Location"));
+                        }
+                    }
+                    int newCount = currentCount + change.getValue();
+                    if (newCount < 0) {
+                        throw new SQLException("Not enough chargers of type " + key.itemType + " at " + key.location
+                                + ": " + currentCount + " available, " + -change.getValue() + " requested");
+                    }
+                    if (chargerId == -1) {
+                        insertStmt.setString(1, key.itemType);
+                        insertStmt.setInt(2, newCount);
+                        insertStmt.setString(3, key.location);
+                        insertStmt.executeUpdate();
+                        insertedTypes.add(key.itemType);
+                    } else if (newCount == 0) {
+                        deleteChargerRow(conn, chargerId);
+                        deletedTypes.add(storedKey.itemType);
+                    } else {
+                        updateStmt.setInt(1, newCount);
+                        updateStmt.setInt(2, chargerId);
+                        updateStmt.executeUpdate();
+                        updatedTypes.add(storedKey.itemType);
+                    }
+                    storedKeys.put(key, storedKey);
+                    newCounts.put(key, newCount);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            if (currentCount - count == 0) {
-                deleteCharger(chargerId);
+        }
+        LocationTree tree = cachedLocationTree();
+        if (tree != null) {
+            for (Map.Entry<StockDeltaBuffer.Key, Integer> change : changes.entrySet()) {
+                StockDeltaBuffer.Key key = storedKeys.get(change.getKey());
+                if (newCounts.get(change.getKey()) == 0) {
+                    tree.removeItems(key.location, key.itemType);
+                } else {
+                    tree.addItems(key.location, key.itemType, change.getValue());
+                }
             }
         }
+        LOGGER.log(Level.INFO, "Applied {0} storage count changes", changes.size());
+        if (!insertedTypes.isEmpty()) {
+            publish(ChangeBus.Change.inserted("Chargers", "Charger_Type", insertedTypes));
+        }
+        if (!updatedTypes.isEmpty()) {
+            publish(ChangeBus.Change.updated("Chargers", "Charger_Type", updatedTypes, Collections.singletonList("Count")));
+        }
+        if (!deletedTypes.isEmpty()) {
+            publish(ChangeBus.Change.deleted("Chargers", "Charger_Type", deletedTypes));
+        }
     }
 
     public static boolean canRemoveCharger(int chargerId) throws SQLException {
@@ -353,29 +377,22 @@ public class ChargersDAO {
 
     public static List<ChargerEntry> getChargersSummary(String parentLocation) throws SQLException {
         List<ChargerEntry> chargers = new ArrayList<>();
-        String sql = "SELECT Charger_Type, SUM(Count) as TotalCount FROM Chargers WHERE Charger_Type NOT LIKE 'Placeholder_%' AND (Location = ? OR Location LIKE ? || ?) GROUP BY Charger_Type";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, parentLocation);
-            stmt.setString(2, parentLocation);
-            stmt.setString(3, LogChargersTab.getPathSeparator() + "%");
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    chargers.add(new ChargerEntry(
-                            rs.getString("Charger_Type"),
-                            rs.getInt("TotalCount")
-                    ));
-                }
-            }
+        for (Map.Entry<String, Integer> total : getLocationTree().getSubtreeTotals(parentLocation).entrySet()) {
+            chargers.add(new ChargerEntry(total.getKey(), total.getValue()));
         }
         return chargers;
     }
 
     public static void deleteCharger(int chargerId) throws SQLException {
-        String sql = "DELETE FROM Chargers WHERE Id = ?";
-        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, chargerId);
-            stmt.executeUpdate();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            ChargerRow row = selectCharger(conn, chargerId);
+            deleteChargerRow(conn, chargerId);
             LOGGER.log(Level.INFO, "Deleted charger with ID {0}", chargerId);
+            publish(ChangeBus.Change.deleted("Chargers", "Charger_Type", Collections.singletonList(row.chargerType)));
+            LocationTree tree = cachedLocationTree();
+            if (tree != null) {
+                tree.removeItems(row.location, row.chargerType);
+            }
         }
     }
 
@@ -389,39 +406,53 @@ public class ChargersDAO {
 
         String parentPath = getParentPath(fullPath);
         String targetLocation = (parentPath != null) ? parentPath : LogChargersTab.getUnassignedLocation();
+        String subtreeSql = "SELECT Charger_Type, Count FROM Chargers WHERE Charger_Type NOT LIKE 'Placeholder_%' AND (Location = ? OR Location LIKE ? || ?)";
+        String targetSql = "SELECT Id, Charger_Type FROM Chargers WHERE Location = ?";
+        String updateSql = "UPDATE Chargers SET Count = Count + ? WHERE Id = ?";
+        String insertSql = "INSERT INTO Chargers (Charger_Type, Count, Location) VALUES (?, ?, ?)";
+        String deleteChargersSql = "DELETE FROM Chargers WHERE Location = ? OR Location LIKE ? || ?";
+        String deleteLocationSql = "DELETE FROM Locations WHERE Datatype = ? AND (Location = ? OR Location LIKE ? || ?)";
 
-        List<ChargerEntry> chargersToMove = new ArrayList<>();
         try (Connection conn = DatabaseUtils.getConnection()) {
-            chargersToMove.addAll(getChargersByLocation(fullPath));
+            conn.setAutoCommit(false);
+            try {
+                // Totals per type across the subtree; types are matched case-insensitively like
+                // the UNIQUE(Charger_Type, Location) constraint does.
+                Map<String, ChargerEntry> chargersToMove = new LinkedHashMap<>();
+                try (PreparedStatement subStmt = conn.prepareStatement(subtreeSql)) {
+                    subStmt.setString(1, fullPath);
+                    subStmt.setString(2, fullPath);
+                    subStmt.setString(3, LogChargersTab.getPathSeparator() + "%");
+                    try (ResultSet rs = subStmt.executeQuery()) {
+                        while (rs.next()) {
+                            String chargerType = rs.getString("Charger_Type");
+                            ChargerEntry entry = new ChargerEntry(chargerType, rs.getInt("Count"));
+                            chargersToMove.merge(chargerType.toUpperCase(), entry,
+                                    (a, b) -> new ChargerEntry(a.chargerType, a.count + b.count));
+                        }
+                    }
+                }
 
-            String subLocationSql = "SELECT Charger_Type, Count, Location FROM Chargers WHERE Charger_Type NOT LIKE 'Placeholder_%' AND Location LIKE ? || ?";
-            try (PreparedStatement subStmt = conn.prepareStatement(subLocationSql)) {
-                subStmt.setString(1, fullPath);
-                subStmt.setString(2, LogChargersTab.getPathSeparator() + "%");
-                try (ResultSet rs = subStmt.executeQuery()) {
-                    while (rs.next()) {
-                        chargersToMove.add(new ChargerEntry(
-                                rs.getString("Charger_Type"),
-                                rs.getInt("Count")
-                        ));
+                Map<String, Integer> targetIds = new HashMap<>();
+                try (PreparedStatement targetStmt = conn.prepareStatement(targetSql)) {
+                    targetStmt.setString(1, targetLocation);
+                    try (ResultSet rs = targetStmt.executeQuery()) {
+                        while (rs.next()) {
+                            targetIds.put(rs.getString("Charger_Type").toUpperCase(), rs.getInt("Id"));
+                        }
                     }
                 }
-            }
 
-            conn.setAutoCommit(false);
-            try {
-                for (ChargerEntry ce : chargersToMove) {
-                    int targetId = getChargerId(ce.chargerType, targetLocation);
-                    if (targetId != -1) {
-                        String updateSql = "UPDATE Chargers SET Count = Count + ? WHERE Id = ?";
-                        try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql);
+                     PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                    for (Map.Entry<String, ChargerEntry> move : chargersToMove.entrySet()) {
+                        ChargerEntry ce = move.getValue();
+                        Integer targetId = targetIds.get(move.getKey());
+                        if (targetId != null) {
                             updateStmt.setInt(1, ce.count);
                             updateStmt.setInt(2, targetId);
                             updateStmt.executeUpdate();
-                        }
-                    } else {
-                        String insertSql = "INSERT INTO Chargers (Charger_Type, Count, Location) VALUES (?, ?, ?)";
-                        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                        } else {
                             insertStmt.setString(1, ce.chargerType);
                             insertStmt.setInt(2, ce.count);
                             insertStmt.setString(3, targetLocation);
@@ -430,7 +461,6 @@ public class ChargersDAO {
                     }
                 }
 
-                String deleteChargersSql = "DELETE FROM Chargers WHERE Location = ? OR Location LIKE ? || ?";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteChargersSql)) {
                     deleteStmt.setString(1, fullPath);
                     deleteStmt.setString(2, fullPath);
@@ -438,7 +468,6 @@ public class ChargersDAO {
                     deleteStmt.executeUpdate();
                 }
 
-                String deleteLocationSql = "DELETE FROM Locations WHERE Datatype = ? AND (Location = ? OR Location LIKE ? || ?)";
                 try (PreparedStatement deleteStmt = conn.prepareStatement(deleteLocationSql)) {
                     deleteStmt.setString(1, DATATYPE_CHARGER);
                     deleteStmt.setString(2, fullPath);
@@ -449,11 +478,15 @@ public class ChargersDAO {
 
                 conn.commit();
                 LOGGER.log(Level.INFO, "Deleted location {0} and moved chargers to {1}", new Object[]{fullPath, targetLocation});
+                publish(ChangeBus.Change.rowsChanged("Chargers"));
+                publish(ChangeBus.Change.deleted("Locations", "Location", null));
             } catch (SQLException ex) {
                 conn.rollback();
                 throw ex;
             } finally {
                 conn.setAutoCommit(true);
+                // Reloaded on next use rather than re-parenting a whole subtree in memory.
+                invalidateLocationTree();
             }
         }
     }
@@ -466,70 +499,108 @@ public class ChargersDAO {
             throw new SQLException("Target location does not exist: " + targetLocation);
         }
 
-        String selectSql = "SELECT Charger_Type, Count, Location FROM Chargers WHERE Id = ?";
         String updateSourceSql = "UPDATE Chargers SET Count = Count - ? WHERE Id = ?";
         String selectTargetSql = "SELECT Id FROM Chargers WHERE Charger_Type = ? AND Location = ?";
         String updateTargetSql = "UPDATE Chargers SET Count = Count + ? WHERE Id = ?";
         String insertTargetSql = "INSERT INTO Chargers (Charger_Type, Count, Location) VALUES (?, ?, ?)";
 
         try (Connection conn = DatabaseUtils.getConnection()) {
-            String chargerType = null;
-            int currentCount = 0;
-            String sourceLocation = null;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                selectStmt.setInt(1, chargerId);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        chargerType = rs.getString("Charger_Type");
-                        currentCount = rs.getInt("Count");
-                        sourceLocation = rs.getString("Location");
-                    } else {
-                        throw new SQLException("Charger ID not found: " + chargerId);
-                    }
+            conn.setAutoCommit(false);
+            try {
+                ChargerRow source = selectCharger(conn, chargerId);
+                if (source.count < countToMove) {
+                    throw new SQLException("Not enough chargers to move: " + source.count + " available, " + countToMove + " requested");
                 }
-            }
 
-            if (currentCount < countToMove) {
-                throw new SQLException("Not enough chargers to move: " + currentCount + " available, " + countToMove + " requested");
-            }
-
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSourceSql)) {
-                updateStmt.setInt(1, countToMove);
-                updateStmt.setInt(2, chargerId);
-                updateStmt.executeUpdate();
-            }
+                int targetChargerId = -1;
+                try (PreparedStatement selectStmt = conn.prepareStatement(selectTargetSql)) {
+                    selectStmt.setString(1, source.chargerType);
+                    selectStmt.setString(2, targetLocation);
+                    try (ResultSet rs = selectStmt.executeQuery()) {
+                        if (rs.next()) {
+                            targetChargerId = rs.getInt("Id");
+                        }
+                    }
+                }
+                if (targetChargerId == chargerId) {
+                    throw new SQLException("Chargers are already in " + targetLocation);
+                }
 
-            int targetChargerId = -1;
-            try (PreparedStatement selectStmt = conn.prepareStatement(selectTargetSql)) {
-                selectStmt.setString(1, chargerType);
-                selectStmt.setString(2, targetLocation);
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    if (rs.next()) {
-                        targetChargerId = rs.getInt("Id");
+                if (source.count == countToMove) {
+                    deleteChargerRow(conn, chargerId);
+                } else {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSourceSql)) {
+                        updateStmt.setInt(1, countToMove);
+                        updateStmt.setInt(2, chargerId);
+                        updateStmt.executeUpdate();
                     }
                 }
-            }
 
-            if (targetChargerId != -1) {
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateTargetSql)) {
-                    updateStmt.setInt(1, countToMove);
-                    updateStmt.setInt(2, targetChargerId);
-                    updateStmt.executeUpdate();
+                if (targetChargerId != -1) {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateTargetSql)) {
+                        updateStmt.setInt(1, countToMove);
+                        updateStmt.setInt(2, targetChargerId);
+                        updateStmt.executeUpdate();
+                    }
+                } else {
+                    try (PreparedStatement insertStmt = conn.prepareStatement(insertTargetSql)) {
+                        insertStmt.setString(1, source.chargerType);
+                        insertStmt.setInt(2, countToMove);
+                        insertStmt.setString(3, targetLocation);
+                        insertStmt.executeUpdate();
+                    }
                 }
-            } else {
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertTargetSql)) {
-                    insertStmt.setString(1, chargerType);
-                    insertStmt.setInt(2, countToMove);
-                    insertStmt.setString(3, targetLocation);
-                    insertStmt.executeUpdate();
+
+                conn.commit();
+                LocationTree tree = cachedLocationTree();
+                if (tree != null) {
+                    if (source.count == countToMove) {
+                        tree.removeItems(source.location, source.chargerType);
+                    } else {
+                        tree.addItems(source.location, source.chargerType, -countToMove);
+                    }
+                    tree.addItems(targetLocation, source.chargerType, countToMove);
                 }
+                LOGGER.log(Level.INFO, "Moved {0} chargers of type {1} from {2} to {3}", new Object[]{countToMove, source.chargerType, source.location, targetLocation});
+                publish(ChangeBus.Change.updated("Chargers", "Charger_Type", Collections.singletonList(source.chargerType), Arrays.asList("Count", "Location")));
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        }
+    }
+
+    private static class ChargerRow {
+        private final String chargerType;
+        private final int count;
+        private final String location;
+
+        ChargerRow(String chargerType, int count, String location) {
+            this.chargerType = chargerType;
+            this.count = count;
+            this.location = location;
+        }
+    }
 
-            if (currentCount == countToMove) {
-                deleteCharger(chargerId);
+    private static ChargerRow selectCharger(Connection conn, int chargerId) throws SQLException {
+        String sql = "SELECT Charger_Type, Count, Location FROM Chargers WHERE Id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, chargerId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new ChargerRow(rs.getString("Charger_Type"), rs.getInt("Count"), rs.getString("Location"));
+                }
             }
+        }
+        throw new SQLException("Charger ID not found: " + chargerId);
+    }
 
-            LOGGER.log(Level.INFO, "Moved {0} chargers of type {1} from {2} to {3}", new Object[]{countToMove, chargerType, sourceLocation, targetLocation});
+    private static void deleteChargerRow(Connection conn, int chargerId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM Chargers WHERE Id = ?")) {
+            stmt.setInt(1, chargerId);
+            stmt.executeUpdate();
         }
     }
 
@@ -550,7 +621,14 @@ public class ChargersDAO {
             stmt.setString(1, LogChargersTab.getUnassignedLocation());
             stmt.setString(2, "%");
             stmt.setString(3, LogChargersTab.getPathSeparator() + LogChargersTab.getUnassignedLocation());
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() > 0) {
+                publish(ChangeBus.Change.updated("Chargers", null, null, Collections.singletonList("Location")));
+            }
         }
+        invalidateLocationTree();
+    }
+
+    private static void publish(ChangeBus.Change change) {
+        ChangeBus.publish(change.from(ChargersDAO.class));
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package log_chargers;
 
 import java.awt.BorderLayout;
 import java.awt.Font;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
@@ -15,6 +16,7 @@ import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
@@ -35,9 +37,12 @@ import log_chargers.actions.DeleteLocationAction;
 import log_chargers.actions.MoveChargersAction;
 import log_chargers.actions.NewLocationDialog;
 import log_chargers.actions.RemoveFromStorageAction;
+import utils.CachedTab;
+import utils.LocationTree;
+import utils.StockDeltaBuffer;
 import utils.UIComponentUtils;
 
-public final class LogChargersTab extends JPanel {
+public final class LogChargersTab extends JPanel implements CachedTab {
 
     private final JTree locationTree;
     private final JTable chargerTable;
@@ -57,14 +62,16 @@ public final class LogChargersTab extends JPanel {
     private final JTextField searchField;
     private final JLabel titleLabel;
     private List<ChargersDAO.ChargerEntry> currentChargers; // To store the current charger list for filtering
+    // +1/-1 clicks not yet written to the database
+    private final StockDeltaBuffer storageChanges;
 
-    public LogChargersTab() throws SQLException {
+    public LogChargersTab() {
         setLayout(new BorderLayout(10, 10));
 
         statusLabel = UIComponentUtils.createAlignedLabel("");
 
-        ChargersDAO.ensureSchema();
-        ChargersDAO.cleanUpUnassignedSublocations();
+        storageChanges = new StockDeltaBuffer("Chargers", ChargersDAO::applyStorageChanges);
+        storageChanges.setListener(this::storageChangesFlushed);
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
         splitPane.setResizeWeight(0.3);
@@ -102,7 +109,7 @@ public final class LogChargersTab extends JPanel {
         });
         treePopup.add(addSubLocationItem);
         JMenuItem deleteLocationItem = new JMenuItem("Delete Location");
-        deleteLocationItem.addActionListener(new DeleteLocationAction(this));
+        deleteLocationItem.addActionListener(afterSavingStorageChanges(new DeleteLocationAction(this)));
         treePopup.add(deleteLocationItem);
 
         locationTree.addMouseListener(new MouseAdapter() {
@@ -144,11 +151,11 @@ public final class LogChargersTab extends JPanel {
 
         JPanel topButtonPanel = new JPanel(new java.awt.FlowLayout(java.awt.FlowLayout.RIGHT));
         addChargerButton = UIComponentUtils.createFormattedButton("Add Charger");
-        addChargerButton.addActionListener(new AddChargersAction(this));
+        addChargerButton.addActionListener(afterSavingStorageChanges(new AddChargersAction(this)));
         moveChargerButton = UIComponentUtils.createFormattedButton("Move Charger");
-        moveChargerButton.addActionListener(new MoveChargersAction(this));
+        moveChargerButton.addActionListener(afterSavingStorageChanges(new MoveChargersAction(this)));
         deleteChargerButton = UIComponentUtils.createFormattedButton("Delete Charger Type");
-        deleteChargerButton.addActionListener(new DeleteChargersAction(this));
+        deleteChargerButton.addActionListener(afterSavingStorageChanges(new DeleteChargersAction(this)));
         topButtonPanel.add(addChargerButton);
         topButtonPanel.add(moveChargerButton);
         topButtonPanel.add(deleteChargerButton);
@@ -178,10 +185,10 @@ public final class LogChargersTab extends JPanel {
         removeFromStorageItem.addActionListener(new RemoveFromStorageAction(this));
         tablePopup.add(removeFromStorageItem);
         JMenuItem moveChargerItem = new JMenuItem("Move Charger");
-        moveChargerItem.addActionListener(new MoveChargersAction(this));
+        moveChargerItem.addActionListener(afterSavingStorageChanges(new MoveChargersAction(this)));
         tablePopup.add(moveChargerItem);
         JMenuItem deleteChargerItem = new JMenuItem("Delete Charger Type");
-        deleteChargerItem.addActionListener(new DeleteChargersAction(this));
+        deleteChargerItem.addActionListener(afterSavingStorageChanges(new DeleteChargersAction(this)));
         tablePopup.add(deleteChargerItem);
 
         chargerTable.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -226,23 +233,15 @@ public final class LogChargersTab extends JPanel {
     private void buildTree() {
         try {
             DefaultMutableTreeNode root = new DefaultMutableTreeNode("Root");
+            LocationTree locations = ChargersDAO.getLocationTree();
 
-            List<ChargersDAO.ChargerEntry> unassignedChargers = ChargersDAO.getChargersByLocation(UNASSIGNED_LOCATION);
-            boolean hasUnassignedChargers = false;
-            for (ChargersDAO.ChargerEntry charger : unassignedChargers) {
-                if (!charger.chargerType.startsWith("Placeholder_")) {
-                    hasUnassignedChargers = true;
-                    break;
-                }
-            }
-            if (hasUnassignedChargers) {
+            if (locations.hasDirectItems(UNASSIGNED_LOCATION)) {
                 root.add(new DefaultMutableTreeNode(UNASSIGNED_LOCATION));
             }
 
-            List<String> allLocations = ChargersDAO.getAllLocations();
-            for (String location : allLocations) {
+            for (String location : locations.getLocations()) {
                 if (!location.equals(UNASSIGNED_LOCATION)) {
-                    addLocationToTree(root, location);
+                    addLocationToTree(root, location, locations);
                 }
             }
 
@@ -257,7 +256,7 @@ public final class LogChargersTab extends JPanel {
         }
     }
 
-    private void addLocationToTree(DefaultMutableTreeNode parentNode, String fullPath) throws SQLException {
+    private void addLocationToTree(DefaultMutableTreeNode parentNode, String fullPath, LocationTree locations) {
         if (fullPath == null || fullPath.isEmpty()) {
             return;
         }
@@ -291,18 +290,7 @@ public final class LogChargersTab extends JPanel {
         }
 
         String fullPathStr = currentPath.toString();
-        List<ChargersDAO.ChargerEntry> directChargers = ChargersDAO.getChargersByLocation(fullPathStr);
-        List<String> subLocations = ChargersDAO.getSubLocations(fullPathStr);
-
-        boolean hasDirectChargers = false;
-        for (ChargersDAO.ChargerEntry charger : directChargers) {
-            if (!charger.chargerType.startsWith("Placeholder_")) {
-                hasDirectChargers = true;
-                break;
-            }
-        }
-
-        if (hasDirectChargers && !subLocations.isEmpty() && !fullPathStr.equals(UNASSIGNED_LOCATION)) {
+        if (locations.hasDirectItems(fullPathStr) && locations.hasSubLocations(fullPathStr) && !fullPathStr.equals(UNASSIGNED_LOCATION)) {
             boolean hasUnassignedNode = false;
             for (int i = 0; i < currentNode.getChildCount(); i++) {
                 DefaultMutableTreeNode child = (DefaultMutableTreeNode) currentNode.getChildAt(i);
@@ -355,6 +343,7 @@ public final class LogChargersTab extends JPanel {
     }
 
     public void refresh() {
+        storageChanges.flush();
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) locationTree.getLastSelectedPathComponent();
         if (node == null) {
             refreshTable(UNASSIGNED_LOCATION, false);
@@ -380,10 +369,97 @@ public final class LogChargersTab extends JPanel {
         updateButtonStates();
     }
 
+    // Records a storage click for the charger in the given table row. The table shows the new count
+    // at once; the database is updated by storageChanges shortly after.
+    public void changeStorageCount(int row, String location, int delta) {
+        String chargerType = (String) tableModel.getValueAt(row, 0);
+        int newCount = ((Number) tableModel.getValueAt(row, 1)).intValue() + delta;
+        storageChanges.add(chargerType, location, delta);
+        tableModel.setValueAt(newCount, row, 1);
+        if (currentChargers != null) {
+            for (int i = 0; i < currentChargers.size(); i++) {
+                if (currentChargers.get(i).chargerType.equals(chargerType)) {
+                    currentChargers.set(i, new ChargersDAO.ChargerEntry(chargerType, newCount));
+                }
+            }
+        }
+    }
+
+    public int getUnsavedStorageChanges() {
+        return storageChanges.getPendingCount();
+    }
+
+    private ActionListener afterSavingStorageChanges(ActionListener action) {
+        return e -> {
+            if (storageChanges.flush()) {
+                action.actionPerformed(e);
+            }
+        };
+    }
+
+    private void storageChangesFlushed(int changeCount, SQLException error) {
+        if (error != null) {
+            statusLabel.setText("Error saving storage changes: " + error.getMessage());
+            JOptionPane.showMessageDialog(this, "Error saving storage changes, they were not saved: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        int selectedRow = chargerTable.getSelectedRow();
+        String selectedType = selectedRow >= 0 ? (String) tableModel.getValueAt(selectedRow, 0) : null;
+        refresh();
+        for (int i = 0; selectedType != null && i < tableModel.getRowCount(); i++) {
+            if (selectedType.equals(tableModel.getValueAt(i, 0))) {
+                chargerTable.setRowSelectionInterval(i, i);
+                break;
+            }
+        }
+        if (error == null) {
+            statusLabel.setText("Saved " + changeCount + " storage change(s)");
+        }
+    }
+
     public void refreshTree() {
         buildTree();
     }
 
+    @Override
+    public String computeChangeToken() throws SQLException {
+        return ChargersDAO.getChangeToken();
+    }
+
+    // Re-reads the locations, which may have been changed by another user, and selects the same
+    // location again if it still exists.
+    @Override
+    public void reload() {
+        storageChanges.flush();
+        TreePath selected = locationTree.getSelectionPath();
+        ChargersDAO.invalidateLocationTree();
+        buildTree();
+        TreePath restored = selected != null ? findPath(selected.getPath()) : null;
+        if (restored != null) {
+            locationTree.setSelectionPath(restored);
+            locationTree.scrollPathToVisible(restored);
+        } else {
+            refresh();
+        }
+    }
+
+    // The node of the rebuilt tree with the same names as the given path, or null.
+    private TreePath findPath(Object[] oldPath) {
+        DefaultMutableTreeNode node = (DefaultMutableTreeNode) locationTree.getModel().getRoot();
+        for (int i = 1; i < oldPath.length && node != null; i++) {
+            Object name = ((DefaultMutableTreeNode) oldPath[i]).getUserObject();
+            DefaultMutableTreeNode match = null;
+            for (int c = 0; c < node.getChildCount(); c++) {
+                DefaultMutableTreeNode child = (DefaultMutableTreeNode) node.getChildAt(c);
+                if (name.equals(child.getUserObject())) {
+                    match = child;
+                    break;
+                }
+            }
+            node = match;
+        }
+        return node != null && oldPath.length > 1 ? new TreePath(node.getPath()) : null;
+    }
+
     public void setStatus(String message) {
         statusLabel.setText(message);
     }
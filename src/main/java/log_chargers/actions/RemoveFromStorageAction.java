@@ -2,15 +2,12 @@ package log_chargers.actions;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
-import javax.swing.JTable;
 import javax.swing.tree.DefaultMutableTreeNode;
 
-import log_chargers.ChargersDAO;
 import log_chargers.LogChargersTab;
 
 public class RemoveFromStorageAction implements ActionListener {
@@ -35,7 +32,6 @@ public class RemoveFromStorageAction implements ActionListener {
         }
 
         String chargerType = (String) tab.getTableModel().getValueAt(selectedRow, 0);
-        final String selectedChargerType = chargerType; // Save for reselection, declared final
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) tab.getLocationTree().getLastSelectedPathComponent();
         if (node == null) {
             tab.setStatus("Error: Select a location first");
@@ -51,36 +47,15 @@ public class RemoveFromStorageAction implements ActionListener {
             location = buildPathFromNode(node);
         }
 
-        try {
-            int chargerId = ChargersDAO.getChargerId(chargerType, location);
-            if (chargerId == -1) {
-                tab.setStatus("Error: Charger type '" + chargerType + "' not found at " + location);
-                JOptionPane.showMessageDialog(null, "Charger not found", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            if (!ChargersDAO.canRemoveCharger(chargerId)) {
-                tab.setStatus("Error: No chargers of type '" + chargerType + "' available to remove at " + location);
-                JOptionPane.showMessageDialog(null, "No chargers available to remove", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            ChargersDAO.removeCharger(chargerId, 1); // Remove 1 charger
-            tab.setStatus("Removed 1 " + chargerType + " from " + location);
-            // Refresh the table and restore selection
-            tab.refresh();
-            if (selectedChargerType != null) {
-                JTable table = tab.getChargerTable();
-                for (int i = 0; i < table.getRowCount(); i++) {
-                    if (selectedChargerType.equals(table.getValueAt(i, 0))) {
-                        table.setRowSelectionInterval(i, i);
-                        break;
-                    }
-                }
-            }
-        } catch (SQLException ex) {
-            LOGGER.log(Level.SEVERE, "Error removing from storage: {0}", ex.getMessage());
-            tab.setStatus("Error removing from storage: " + ex.getMessage());
-            JOptionPane.showMessageDialog(null, "Error removing from storage: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        int count = ((Number) tab.getTableModel().getValueAt(selectedRow, 1)).intValue();
+        if (count <= 0) {
+            tab.setStatus("Error: No chargers of type '" + chargerType + "' available to remove at " + location);
+            JOptionPane.showMessageDialog(null, "No chargers available to remove", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        tab.changeStorageCount(selectedRow, location, -1);
+        tab.setStatus("Removed 1 " + chargerType + " from " + location + " (" + tab.getUnsavedStorageChanges() + " unsaved change(s))");
+        LOGGER.log(Level.INFO, "Removed charger: {0} at {1}", new Object[]{chargerType, location});
     }
 
     private String buildPathFromNode(DefaultMutableTreeNode node) {
@@ -1,6 +1,11 @@
 import java.awt.Component;
 import java.io.IOException;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -15,13 +20,22 @@ import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import accessories_count.AccessoriesDAO;
 import accessories_count.LogAccessoriesTab;
 import database_creator.DatabaseCreatorTab;
+import log_adapters.AdaptersDAO;
 import log_adapters.LogAdaptersTab;
+import log_cables.CablesDAO;
 import log_cables.LogCablesTab;
+import log_chargers.ChargersDAO;
 import log_chargers.LogChargersTab;
 import mass_entry_modifier.MassEntryModifierTab;
+import utils.CachedTab;
 import utils.DatabaseUtils;
+import utils.SchemaCache;
+import utils.SchemaMigrations;
+import utils.StockDeltaBuffer;
+import utils.TabRevalidator;
 import utils.UIComponentUtils;
 import view_inventory_tab.ViewInventoryTab;
 import view_software_list_tab.ViewSoftwareListTab;
@@ -85,117 +99,117 @@ public class mainFile {
             LoadingWindow loadingWindow = new LoadingWindow();
             loadingWindow.appendLog("Selected database file: " + selectedPath[0]);
 
-            // Perform initialization in a background thread
-            new Thread(() -> {
-                try {
-                    loadingWindow.appendLog("Setting database path...");
-                    DatabaseUtils.setDatabasePath(selectedPath[0]);
-                    loadingWindow.appendLog("Testing database connection...");
-                    try {
-                        DatabaseUtils.getConnection();
-                        loadingWindow.appendLog("Database connection successful.");
-                    } catch (SQLException e) {
-                        String message = e.getMessage().contains("UCAExc") ? "Invalid or corrupted Access database file: " + e.getMessage() : "Database error: " + e.getMessage();
-                        LOGGER.log(Level.SEVERE, message);
-                        SwingUtilities.invokeLater(() -> {
-                            JOptionPane.showMessageDialog(null, message, "Database Error", JOptionPane.ERROR_MESSAGE);
-                            loadingWindow.close();
-                            System.exit(1);
-                        });
-                        return;
-                    }
-
-                    loadingWindow.appendLog("Initializing DatabaseCreatorTab...");
-                    DatabaseCreatorTab databaseCreatorTab = new DatabaseCreatorTab();
-
-                    loadingWindow.appendLog("Creating UI components...");
-                    JLabel statusLabel = new JLabel("Ready");
-                    ViewInventoryTab viewInventoryTab = new ViewInventoryTab();
-                    ViewSoftwareListTab viewSoftwareListTab = new ViewSoftwareListTab();
-                    LogAccessoriesTab accessoriesCountTab = new LogAccessoriesTab();
-                    LogCablesTab logCablesTab = new LogCablesTab();
-                    LogAdaptersTab logAdaptersTab = new LogAdaptersTab();
-                    LogChargersTab logChargersTab = new LogChargersTab();
-                    MassEntryModifierTab massEntryModifierTab = new MassEntryModifierTab(statusLabel);
-
-                    loadingWindow.appendLog("Creating main frame...");
-
-                    JFrame frame;
-                    if (DEVELOPER_MODE) {
-                        frame = UIComponentUtils.createMainFrame(
-                                "Aisin Inventory Manager - Work in Progress - Report issues to r-boulds@aisinil.com",
-                                databaseCreatorTab,
-                                viewInventoryTab,
-                                viewSoftwareListTab,
-                                accessoriesCountTab,
-                                logCablesTab,
-                                logAdaptersTab,
-                                logChargersTab,
-                                massEntryModifierTab
-                        );
-                    } else {
-                        frame = UIComponentUtils.createMainFrame(
-                                "Aisin Inventory Manager - Work in Progress - Report issues to r-boulds@aisinil.com",
-                                viewInventoryTab,
-                                viewSoftwareListTab,
-                                accessoriesCountTab,
-                                logCablesTab,
-                                logAdaptersTab,
-                                logChargersTab
-                        );
+            // Startup opens the database on the worker threads and builds the first tab. The other
+            // tabs are built when they are first selected; see LazyTab.
+            StartupPipeline startup = new StartupPipeline(loadingWindow);
+            CompletableFuture<Void> connected = startup.background("Open database connection", () -> {
+                DatabaseUtils.setDatabasePath(selectedPath[0]);
+                try (java.sql.Connection conn = DatabaseUtils.getConnection()) {
+                    if (!conn.isValid(0)) {
+                        throw new SQLException("Database connection is not valid");
                     }
+                    LOGGER.log(Level.INFO, "Database connection successful");
+                }
+            });
+            CompletableFuture<Void> migrated = startup.background("Apply schema migrations", SchemaMigrations::migrate, connected);
 
-                    JTabbedPane tabbedPane = (JTabbedPane) frame.getContentPane().getComponent(0);
-                    tabbedPane.setTitleAt(tabbedPane.indexOfComponent(viewSoftwareListTab), "View Software List");
-                    tabbedPane.setTitleAt(tabbedPane.indexOfComponent(logChargersTab), "Log Chargers");
-                    tabbedPane.addChangeListener(e -> {
-                        Component selected = tabbedPane.getSelectedComponent();
-                        if (selected == viewInventoryTab) {
-                            viewInventoryTab.refreshDataAndTabs();
-                        } else if (selected == viewSoftwareListTab) {
-                            viewSoftwareListTab.refreshDataAndTabs();
-                        } else if (selected == massEntryModifierTab) {
-                            massEntryModifierTab.refresh();
-                        } else if (selected == accessoriesCountTab) {
-                            accessoriesCountTab.refresh();
-                        } else if (selected == logAdaptersTab) {
-                            logAdaptersTab.refresh();
-                        } else if (selected == logChargersTab) {
-                            logChargersTab.refresh();
-                        }
-                    });
-
-                    massEntryModifierTab.addPropertyChangeListener("inventoryUpdated", evt -> {
-                        viewInventoryTab.refreshDataAndTabs();
-                        viewSoftwareListTab.refreshDataAndTabs();
-                    });
-
-                    frame.addWindowListener(new java.awt.event.WindowAdapter() {
-                        @Override
-                        public void windowClosing(java.awt.event.WindowEvent e) {
-                            System.exit(0);
-                        }
-                    });
+            JLabel statusLabel = new JLabel("Ready");
+            List<LazyTab> tabs = new ArrayList<>();
+            if (DEVELOPER_MODE) {
+                tabs.add(new LazyTab("DatabaseCreator", null, DatabaseCreatorTab::new));
+            }
+            tabs.add(new LazyTab("ViewInventory", () -> prefetchTableSchemas("InventoryTables"), ViewInventoryTab::new));
+            tabs.add(new LazyTab("View Software List", () -> prefetchTableSchemas("SoftwareTables"), ViewSoftwareListTab::new));
+            tabs.add(new LazyTab("LogAccessories", AccessoriesDAO::prefetch, LogAccessoriesTab::new));
+            tabs.add(new LazyTab("LogCables", CablesDAO::prefetch, LogCablesTab::new));
+            tabs.add(new LazyTab("LogAdapters", AdaptersDAO::prefetch, LogAdaptersTab::new));
+            tabs.add(new LazyTab("Log Chargers", ChargersDAO::prefetch, LogChargersTab::new));
+            if (DEVELOPER_MODE) {
+                tabs.add(new LazyTab("MassEntryModifier", null, () -> new MassEntryModifierTab(statusLabel)));
+            }
 
-                    loadingWindow.appendLog("Initialization complete.");
-                    try {
-                        Thread.sleep(1500);
-                    } catch (InterruptedException e) {
-                        LOGGER.log(Level.WARNING, "Delay interrupted: {0}", e.getMessage());
+            JFrame frame = UIComponentUtils.createMainFrame(
+                    "Aisin Inventory Manager - Work in Progress - Report issues to r-boulds@aisinil.com");
+            JTabbedPane tabbedPane = (JTabbedPane) frame.getContentPane().getComponent(0);
+            for (LazyTab tab : tabs) {
+                tabbedPane.addTab(tab.getTitle(), tab.getPlaceholder());
+            }
+            tabbedPane.addChangeListener(e -> {
+                // Unsaved +1/-1 clicks of the peripheral tabs are written before leaving them
+                StockDeltaBuffer.flushAll();
+                Component selected = tabbedPane.getSelectedComponent();
+                for (LazyTab tab : tabs) {
+                    if (tab.getPlaceholder() == selected) {
+                        tab.load(tabbedPane);
+                        return;
                     }
-                    SwingUtilities.invokeLater(() -> {
+                }
+                // Already built: show what it has and reload in the background only if needed
+                if (selected instanceof CachedTab) {
+                    TabRevalidator.revalidate((CachedTab) selected);
+                }
+            });
+
+            frame.addWindowListener(new java.awt.event.WindowAdapter() {
+                @Override
+                public void windowClosing(java.awt.event.WindowEvent e) {
+                    StockDeltaBuffer.flushAll();
+                    LOGGER.log(Level.INFO, "Closing database connections: {0}", DatabaseUtils.getConnectionStats());
+                    DatabaseUtils.shutdownConnectionPool();
+                    System.exit(0);
+                }
+            });
+
+            LazyTab firstTab = tabs.get(0);
+            startup.onEdt("Build " + firstTab.getTitle(), firstTab::build,
+                    startup.background("Load " + firstTab.getTitle(), firstTab::prefetch, migrated))
+                    .whenComplete((panel, error) -> SwingUtilities.invokeLater(() -> {
+                        if (error != null) {
+                            // Without the first tab there is nothing to show
+                            exitWithError(loadingWindow, connected.isCompletedExceptionally(), StartupPipeline.unwrap(error));
+                            return;
+                        }
+                        firstTab.install(tabbedPane, panel);
                         loadingWindow.close();
                         frame.setVisible(true);
-                    });
-                } catch (@SuppressWarnings("catchingUnchecked") SQLException e) {
-                    LOGGER.log(Level.SEVERE, "Initialization error: {0}", e.getMessage());
-                    SwingUtilities.invokeLater(() -> {
-                        JOptionPane.showMessageDialog(null, "Error initializing application: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                        loadingWindow.close();
-                        System.exit(1);
-                    });
-                }
-            }).start();
+                    }));
+            startup.start();
         });
     }
+
+    // Loads the column lists of the tables a view tab lists, so selecting one does not wait for
+    // the database metadata.
+    private static void prefetchTableSchemas(String listColumn) throws SQLException {
+        List<String> tableNames = new ArrayList<>();
+        String sql = "SELECT " + listColumn + " FROM TableInformation WHERE " + listColumn + " IS NOT NULL";
+        try (java.sql.Connection conn = DatabaseUtils.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String tableName = rs.getString(1);
+                if (!tableName.trim().isEmpty()) {
+                    tableNames.add(tableName);
+                }
+            }
+        }
+        for (String tableName : tableNames) {
+            SchemaCache.getSchema(tableName);
+        }
+    }
+
+    private static void exitWithError(LoadingWindow loadingWindow, boolean connectionFailed, Throwable error) {
+        String message;
+        String title;
+        if (connectionFailed) {
+            message = error.getMessage() != null && error.getMessage().contains("UCAExc") ? "Invalid or corrupted Access database file: " + error.getMessage() : "Database error: " + error.getMessage();
+            title = "Database Error";
+        } else {
+            message = "Error initializing application: " + error.getMessage();
+            title = "Error";
+        }
+        LOGGER.log(Level.SEVERE, message);
+        JOptionPane.showMessageDialog(null, message, title, JOptionPane.ERROR_MESSAGE);
+        loadingWindow.close();
+        System.exit(1);
+    }
 }
\ No newline at end of file
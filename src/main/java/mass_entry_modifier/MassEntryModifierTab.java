@@ -1,13 +1,12 @@
 package mass_entry_modifier;
 
 import java.awt.Dimension;
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -20,11 +19,13 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 
+import utils.CachedTab;
+import utils.ChangeBus;
 import utils.DatabaseUtils;
 import utils.TablesNotIncludedList;
 import utils.UIComponentUtils;
 
-public class MassEntryModifierTab extends JPanel {
+public class MassEntryModifierTab extends JPanel implements CachedTab {
     private final JLabel statusLabel;
     private JComboBox<String> tableTypeCombo;
     private JComboBox<String> specificTableCombo;
@@ -33,13 +34,15 @@ public class MassEntryModifierTab extends JPanel {
     private JComboBox<String> setColumnCombo;
     private JTextField setValueField;
     private JCheckBox overwriteCheckBox;
-    private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
     private JPanel tableSelectionPanel;
+    // Held here because ChangeBus only keeps weak references to its listeners.
+    private final ChangeBus.Listener changeListener = this::tableChanged;
 
     public MassEntryModifierTab(JLabel statusLabel) {
         this.statusLabel = statusLabel;
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         initComponents();
+        ChangeBus.subscribeOnEdt(changeListener);
     }
 
     private void initComponents() {
@@ -204,8 +207,20 @@ public class MassEntryModifierTab extends JPanel {
     }
 
     @Override
-    public void addPropertyChangeListener(PropertyChangeListener listener) {
-        pcs.addPropertyChangeListener(listener);
+    public void reload() {
+        refresh();
+    }
+
+    // Keeps the column and match value lists current when the selected table is written,
+    // here or in the other tabs.
+    private void tableChanged(ChangeBus.Change change) {
+        if (!change.affects(getSelectedTable())) {
+            return;
+        }
+        String matchColumn = (String) matchColumnCombo.getSelectedItem();
+        if (change.getKind() != ChangeBus.Kind.UPDATE || matchColumn == null || change.affectsColumn(matchColumn)) {
+            refreshComboBoxes();
+        }
     }
 
     private void applyMassUpdate() {
@@ -240,12 +255,11 @@ public class MassEntryModifierTab extends JPanel {
             int updatedRows = updateMatchingEntries(tableName, matchColumn, matchValue, setColumn, setValue, overwriteCheckBox.isSelected());
             statusLabel.setText("Successfully updated " + updatedRows + " entries in " + tableName);
 
-            // Refresh combo boxes after successful update
-            refreshComboBoxes();
-
-            // Notify listeners (e.g., ViewInventoryTab) of the update
-            System.out.println("Firing inventoryUpdated event for table: " + tableName);
-            pcs.firePropertyChange("inventoryUpdated", null, tableName);
+            // The open views, and the combo boxes here, update from the published change
+            if (updatedRows > 0) {
+                ChangeBus.publish(ChangeBus.Change.updated(tableName, matchColumn, Collections.singletonList(matchValue),
+                        Collections.singletonList(setColumn)));
+            }
         } catch (SQLException e) {
             java.util.logging.Logger.getLogger(MassEntryModifierTab.class.getName()).log(
                 java.util.logging.Level.SEVERE,
@@ -0,0 +1,390 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Which of the inventory and software tables registered in TableInformation hold each AssetName,
+// and the row key to read it by. Built on first use with one AssetName scan per table, run in
+// parallel over the connection pool, and then kept current from the ChangeBus: written keys are
+// looked up again on the next call, and tables whose schema or rows changed in ways the writer
+// could not list are rescanned. Lookups never query tables that do not hold the asset.
+public class AssetIndex {
+    private static final Logger LOGGER = Logger.getLogger(AssetIndex.class.getName());
+    private static final int IN_CLAUSE_CHUNK_SIZE = 200;
+    private static final ExecutorService SCAN_EXECUTOR = Executors.newFixedThreadPool(
+            Integer.getInteger("inventory.db.poolSize", 4), r -> {
+                Thread thread = new Thread(r, "asset-index-scan");
+                thread.setDaemon(true);
+                return thread;
+            });
+    // Held here because ChangeBus only keeps weak references to its listeners.
+    private static final ChangeBus.Listener CHANGE_LISTENER = AssetIndex::changed;
+
+    static {
+        ChangeBus.subscribe(CHANGE_LISTENER);
+    }
+
+    public static final class Location {
+        private final String table;
+        private final String keyColumn;
+        private final Object key;
+
+        Location(String table, String keyColumn, Object key) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.key = key;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getKeyColumn() {
+            return keyColumn;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+    }
+
+    private static final class TableEntries {
+        final String table;
+        final String keyColumn;
+        // Normalized row key -> AssetName of that row.
+        final Map<Object, String> assetsByKey = new HashMap<>();
+        // Keys written since the table was scanned, looked up again on the next call.
+        final Set<Object> pendingKeys = new HashSet<>();
+
+        TableEntries(String table, String keyColumn) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+        }
+    }
+
+    // All guarded by the AssetIndex class lock. Tables and assets are keyed upper case, because
+    // UCanAccess compares text case-insensitively.
+    private static final Map<String, String> REGISTERED_TABLES = new HashMap<>();
+    private static final Map<String, TableEntries> TABLES = new HashMap<>();
+    private static final Map<String, Map<String, Location>> LOCATIONS = new HashMap<>();
+    private static final Set<String> STALE_TABLES = new HashSet<>();
+    private static boolean tableListStale = true;
+
+    // Only one refresh runs at a time; changes keep arriving under the class lock meanwhile.
+    private static final Object REFRESH_LOCK = new Object();
+
+    // The tables holding the asset, sorted by table name.
+    public static List<Location> locate(String assetName) throws SQLException {
+        refresh();
+        List<Location> found;
+        synchronized (AssetIndex.class) {
+            Map<String, Location> byTable = LOCATIONS.get(assetName.trim().toUpperCase());
+            found = byTable != null ? new ArrayList<>(byTable.values()) : new ArrayList<>();
+        }
+        found.sort((a, b) -> a.table.compareToIgnoreCase(b.table));
+        return found;
+    }
+
+    // The asset's row in every table that holds it, by table name in the order of locate(), read
+    // over one connection. Values are trimmed strings, as in DatabaseUtils.getDeviceByAssetName.
+    public static Map<String, HashMap<String, String>> loadDevices(String assetName) throws SQLException {
+        Map<String, HashMap<String, String>> devices = new LinkedHashMap<>();
+        List<Location> locations = locate(assetName);
+        if (locations.isEmpty()) {
+            return devices;
+        }
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            for (Location location : locations) {
+                String sql = "SELECT * FROM [" + location.table + "] WHERE [" + location.keyColumn + "] = ?";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setObject(1, location.key);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            HashMap<String, String> device = new HashMap<>();
+                            ResultSetMetaData metaData = rs.getMetaData();
+                            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                                String value = rs.getString(i);
+                                device.put(metaData.getColumnName(i), value != null ? value.trim() : "");
+                            }
+                            device.put("TableName", location.table);
+                            devices.put(location.table, device);
+                        }
+                    }
+                }
+            }
+        }
+        return devices;
+    }
+
+    public static synchronized void invalidateAll() {
+        REGISTERED_TABLES.clear();
+        TABLES.clear();
+        LOCATIONS.clear();
+        STALE_TABLES.clear();
+        tableListStale = true;
+    }
+
+    private static synchronized void changed(ChangeBus.Change change) {
+        if (change.getTable() == null) {
+            invalidateAll();
+            return;
+        }
+        String table = change.getTable().toUpperCase();
+        if (table.equals("TABLEINFORMATION")) {
+            tableListStale = true;
+            return;
+        }
+        if (change.getKind() == ChangeBus.Kind.SCHEMA) {
+            // The table may have been created, renamed, dropped or given an AssetName column.
+            tableListStale = true;
+        }
+        TableEntries entries = TABLES.get(table);
+        if (entries == null) {
+            return;
+        }
+        if (change.getKind() == ChangeBus.Kind.SCHEMA || change.getKeys() == null
+                || !entries.keyColumn.equalsIgnoreCase(change.getKeyColumn())) {
+            STALE_TABLES.add(table);
+        } else if (change.getKind() == ChangeBus.Kind.DELETE) {
+            for (Object key : change.getKeys()) {
+                removeEntry(entries, normalizeKey(key));
+            }
+        } else if (change.getKind() == ChangeBus.Kind.INSERT
+                || change.affectsColumn("AssetName") || change.affectsColumn(entries.keyColumn)) {
+            for (Object key : change.getKeys()) {
+                if (key != null) {
+                    entries.pendingKeys.add(normalizeKey(key));
+                }
+            }
+        }
+    }
+
+    private static void refresh() throws SQLException {
+        synchronized (REFRESH_LOCK) {
+            boolean reloadTableList;
+            synchronized (AssetIndex.class) {
+                reloadTableList = tableListStale;
+                tableListStale = false;
+            }
+            if (reloadTableList) {
+                try {
+                    Map<String, String> registered = registeredTables();
+                    synchronized (AssetIndex.class) {
+                        REGISTERED_TABLES.clear();
+                        REGISTERED_TABLES.putAll(registered);
+                        for (String table : new ArrayList<>(TABLES.keySet())) {
+                            if (!registered.containsKey(table)) {
+                                dropTable(table);
+                            }
+                        }
+                        for (String table : registered.keySet()) {
+                            if (!TABLES.containsKey(table)) {
+                                STALE_TABLES.add(table);
+                            }
+                        }
+                    }
+                } catch (SQLException e) {
+                    synchronized (AssetIndex.class) {
+                        tableListStale = true;
+                    }
+                    throw e;
+                }
+            }
+
+            List<String> toScan;
+            Map<TableEntries, List<Object>> toLookUp = new HashMap<>();
+            synchronized (AssetIndex.class) {
+                toScan = new ArrayList<>(STALE_TABLES);
+                STALE_TABLES.clear();
+                for (TableEntries entries : TABLES.values()) {
+                    if (!entries.pendingKeys.isEmpty() && !toScan.contains(entries.table.toUpperCase())) {
+                        toLookUp.put(entries, new ArrayList<>(entries.pendingKeys));
+                        entries.pendingKeys.clear();
+                    }
+                }
+            }
+            try {
+                if (!toScan.isEmpty()) {
+                    scanTables(toScan);
+                }
+                for (Map.Entry<TableEntries, List<Object>> lookUp : toLookUp.entrySet()) {
+                    lookUpKeys(lookUp.getKey(), lookUp.getValue());
+                }
+            } catch (SQLException e) {
+                synchronized (AssetIndex.class) {
+                    STALE_TABLES.addAll(toScan);
+                    for (TableEntries entries : toLookUp.keySet()) {
+                        STALE_TABLES.add(entries.table.toUpperCase());
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Upper-case name -> actual name of each registered table.
+    private static Map<String, String> registeredTables() throws SQLException {
+        Map<String, String> registered = new HashMap<>();
+        for (String table : DatabaseUtils.getRegisteredTables()) {
+            registered.put(table.toUpperCase(), table);
+        }
+        return registered;
+    }
+
+    private static void scanTables(List<String> tables) throws SQLException {
+        long start = System.currentTimeMillis();
+        List<Callable<TableEntries>> scans = new ArrayList<>();
+        synchronized (AssetIndex.class) {
+            for (String table : tables) {
+                String name = REGISTERED_TABLES.get(table);
+                if (name != null) {
+                    scans.add(() -> scanTable(name));
+                } else {
+                    dropTable(table);
+                }
+            }
+        }
+        List<TableEntries> scanned = new ArrayList<>();
+        try {
+            for (Future<TableEntries> future : SCAN_EXECUTOR.invokeAll(scans)) {
+                scanned.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while indexing AssetNames", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Error indexing AssetNames: " + e.getCause().getMessage(), e.getCause());
+        }
+        int assets = 0;
+        synchronized (AssetIndex.class) {
+            for (TableEntries entries : scanned) {
+                if (entries != null) {
+                    String table = entries.table.toUpperCase();
+                    dropTable(table);
+                    TABLES.put(table, entries);
+                    for (Map.Entry<Object, String> row : entries.assetsByKey.entrySet()) {
+                        addLocation(entries, row.getKey(), row.getValue());
+                    }
+                    assets += entries.assetsByKey.size();
+                }
+            }
+        }
+        LOGGER.log(Level.INFO, "Indexed AssetNames of {0} tables: {1} rows in {2} ms",
+                new Object[]{scans.size(), assets, System.currentTimeMillis() - start});
+    }
+
+    // Null when the table has no AssetName column or no key to read its rows by.
+    private static TableEntries scanTable(String table) throws SQLException {
+        SchemaCache.TableSchema schema = SchemaCache.getSchema(table);
+        String keyColumn = schema.getRowKeyColumn();
+        if (keyColumn == null || !schema.hasColumn("AssetName")) {
+            return null;
+        }
+        TableEntries entries = new TableEntries(table, keyColumn);
+        String sql = "SELECT [" + keyColumn + "], AssetName FROM [" + table + "] WHERE AssetName IS NOT NULL";
+        try (Connection conn = DatabaseUtils.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                Object key = rs.getObject(1);
+                if (key != null) {
+                    entries.assetsByKey.put(normalizeKey(key), rs.getString(2));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void lookUpKeys(TableEntries entries, List<Object> keys) throws SQLException {
+        Map<Object, String> found = new HashMap<>();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            for (int from = 0; from < keys.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<Object> chunk = keys.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, keys.size()));
+                String sql = "SELECT [" + entries.keyColumn + "], AssetName FROM [" + entries.table + "] WHERE ["
+                        + entries.keyColumn + "] IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setObject(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (rs.getObject(1) != null && rs.getString(2) != null) {
+                                found.put(normalizeKey(rs.getObject(1)), rs.getString(2));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        synchronized (AssetIndex.class) {
+            if (TABLES.get(entries.table.toUpperCase()) != entries) {
+                return;
+            }
+            for (Object key : keys) {
+                removeEntry(entries, key);
+                String assetName = found.get(key);
+                if (assetName != null) {
+                    entries.assetsByKey.put(key, assetName);
+                    addLocation(entries, key, assetName);
+                }
+            }
+        }
+    }
+
+    // The following require the class lock.
+
+    private static void addLocation(TableEntries entries, Object key, String assetName) {
+        LOCATIONS.computeIfAbsent(assetName.trim().toUpperCase(), k -> new HashMap<>())
+                .put(entries.table.toUpperCase(), new Location(entries.table, entries.keyColumn, key));
+    }
+
+    private static void removeEntry(TableEntries entries, Object key) {
+        String assetName = entries.assetsByKey.remove(key);
+        if (assetName == null) {
+            return;
+        }
+        String asset = assetName.trim().toUpperCase();
+        Map<String, Location> byTable = LOCATIONS.get(asset);
+        if (byTable != null) {
+            byTable.remove(entries.table.toUpperCase());
+            if (byTable.isEmpty()) {
+                LOCATIONS.remove(asset);
+            }
+        }
+    }
+
+    private static void dropTable(String table) {
+        TableEntries entries = TABLES.remove(table);
+        if (entries != null) {
+            for (Object key : new ArrayList<>(entries.assetsByKey.keySet())) {
+                removeEntry(entries, key);
+            }
+        }
+    }
+
+    private static Object normalizeKey(Object key) {
+        return key instanceof String ? ((String) key).trim().toUpperCase() : key;
+    }
+}
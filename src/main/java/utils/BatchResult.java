@@ -0,0 +1,54 @@
+package utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Outcome of a bulk write: how many rows were inserted/updated and which input rows
+// (by index into the submitted list) failed, with the database error for each.
+public class BatchResult {
+    private int inserted;
+    private int updated;
+    private final Map<Integer, String> failures = new LinkedHashMap<>();
+
+    void addInserted(int count) {
+        inserted += count;
+    }
+
+    void addUpdated(int count) {
+        updated += count;
+    }
+
+    void addFailure(int rowIndex, String message) {
+        failures.put(rowIndex, message);
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getSavedCount() {
+        return inserted + updated;
+    }
+
+    public Map<Integer, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    public boolean isFailed(int rowIndex) {
+        return failures.containsKey(rowIndex);
+    }
+
+    @Override
+    public String toString() {
+        return "inserted=" + inserted + ", updated=" + updated + ", failed=" + failures.size();
+    }
+}
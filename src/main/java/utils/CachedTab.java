@@ -0,0 +1,16 @@
+package utils;
+
+import java.sql.SQLException;
+
+// A tab that keeps its content between selections; TabRevalidator reloads it only when its data
+// changed since it was last loaded.
+public interface CachedTab {
+    // Fingerprint of the data the tab shows, computed off the EDT. Null when the tab has nothing
+    // cheaper to go by than the database file itself.
+    default String computeChangeToken() throws SQLException {
+        return null;
+    }
+
+    // Reloads the content from the database; called on the EDT.
+    void reload();
+}
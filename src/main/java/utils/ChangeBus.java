@@ -0,0 +1,184 @@
+package utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+// Application-wide notification of database writes. Code that changes rows or schema publishes
+// what it touched as a Change (table, key column and keys, columns, kind); caches, table models,
+// trees and combo boxes subscribe and update just the affected part instead of reloading whole
+// tables. Listeners are held weakly so that a closed panel does not stay registered: whoever
+// subscribes must keep the listener in a field for as long as it wants events.
+public class ChangeBus {
+    private static final Logger LOGGER = Logger.getLogger(ChangeBus.class.getName());
+
+    public enum Kind {
+        INSERT, UPDATE, DELETE, SCHEMA
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void changed(Change change);
+    }
+
+    public static final class Change {
+        private final String table;
+        private final String keyColumn;
+        private final List<Object> keys;
+        private final List<String> columns;
+        private final Kind kind;
+        private final Object source;
+
+        private Change(String table, String keyColumn, Collection<?> keys, Collection<String> columns, Kind kind, Object source) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.keys = keys != null ? Collections.unmodifiableList(new ArrayList<Object>(keys)) : null;
+            this.columns = columns != null ? Collections.unmodifiableList(new ArrayList<>(columns)) : null;
+            this.kind = kind;
+            this.source = source;
+        }
+
+        // Rows whose keyColumn holds one of the keys were added.
+        public static Change inserted(String table, String keyColumn, Collection<?> keys) {
+            return new Change(table, keyColumn, keys, null, Kind.INSERT, null);
+        }
+
+        // The given columns of the rows whose keyColumn holds one of the keys were changed.
+        // When a key itself changes, pass both the old and the new value and include keyColumn.
+        public static Change updated(String table, String keyColumn, Collection<?> keys, Collection<String> columns) {
+            return new Change(table, keyColumn, keys, columns, Kind.UPDATE, null);
+        }
+
+        public static Change deleted(String table, String keyColumn, Collection<?> keys) {
+            return new Change(table, keyColumn, keys, null, Kind.DELETE, null);
+        }
+
+        // Rows of the table changed in ways the writer cannot list, e.g. a bulk UPDATE ... WHERE.
+        public static Change rowsChanged(String table) {
+            return new Change(table, null, null, null, Kind.UPDATE, null);
+        }
+
+        // Columns or the table itself were added, dropped or renamed. A null table means all tables.
+        public static Change schemaChanged(String table) {
+            return new Change(table, null, null, null, Kind.SCHEMA, null);
+        }
+
+        // The same change marked with the code that made it, so that a cache which already
+        // applied its own write can ignore the echo.
+        public Change from(Object source) {
+            return new Change(table, keyColumn, keys, columns, kind, source);
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getKeyColumn() {
+            return keyColumn;
+        }
+
+        // Null when the affected rows are not known.
+        public List<Object> getKeys() {
+            return keys;
+        }
+
+        // Null when any column may have changed.
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public Object getSource() {
+            return source;
+        }
+
+        public boolean affects(String tableName) {
+            return table == null || (tableName != null && table.equalsIgnoreCase(tableName));
+        }
+
+        public boolean affectsColumn(String column) {
+            if (columns == null) {
+                return true;
+            }
+            for (String changed : columns) {
+                if (changed.equalsIgnoreCase(column)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + (table != null ? table : "all tables")
+                    + (keys != null ? " " + keyColumn + "=" + keys : "")
+                    + (columns != null ? " columns " + columns : "");
+        }
+    }
+
+    private static final class Subscription {
+        final WeakReference<Listener> listener;
+        final boolean onEdt;
+
+        Subscription(Listener listener, boolean onEdt) {
+            this.listener = new WeakReference<>(listener);
+            this.onEdt = onEdt;
+        }
+    }
+
+    private static final List<Subscription> SUBSCRIPTIONS = new CopyOnWriteArrayList<>();
+
+    // The listener runs on the publishing thread, before publish() returns.
+    public static void subscribe(Listener listener) {
+        SUBSCRIPTIONS.add(new Subscription(listener, false));
+    }
+
+    // The listener runs later on the EDT, for Swing components.
+    public static void subscribeOnEdt(Listener listener) {
+        SUBSCRIPTIONS.add(new Subscription(listener, true));
+    }
+
+    public static void unsubscribe(Listener listener) {
+        SUBSCRIPTIONS.removeIf(s -> {
+            Listener subscribed = s.listener.get();
+            return subscribed == null || subscribed == listener;
+        });
+    }
+
+    // Call after the write is committed.
+    public static void publish(Change change) {
+        LOGGER.log(Level.FINE, "Publishing change: {0}", change);
+        boolean collected = false;
+        for (Subscription subscription : SUBSCRIPTIONS) {
+            Listener listener = subscription.listener.get();
+            if (listener == null) {
+                collected = true;
+            } else if (subscription.onEdt) {
+                SwingUtilities.invokeLater(() -> deliver(listener, change));
+            } else {
+                deliver(listener, change);
+            }
+        }
+        if (collected) {
+            SUBSCRIPTIONS.removeIf(s -> s.listener.get() == null);
+        }
+    }
+
+    private static void deliver(Listener listener, Change change) {
+        try {
+            listener.changed(change);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error handling change {0}: {1}", new Object[]{change, e.getMessage()});
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Removes a column from a table. UCanAccess 5 does not implement ALTER TABLE ... DROP COLUMN, so
+// unless the native statement works the table is rebuilt: a copy is created with the original
+// column types, primary key and indexes minus the column, the rows are copied in batches inside
+// one transaction, and only then is the copy swapped in for the original. Until the swap the
+// original table is not touched, so a failure anywhere before it leaves the table as it was; a
+// failed swap drops the copy and says in its message where the original rows are. Indexes are
+// recreated after the swap, and those that fail are returned rather than failing the removal.
+// Slow on large tables; call it off the EDT.
+public class ColumnRemover {
+    private static final Logger LOGGER = Logger.getLogger(ColumnRemover.class.getName());
+
+    @FunctionalInterface
+    public interface Progress {
+        void update(int copiedRows, int totalRows);
+    }
+
+    private static final class ColumnDefinition {
+        final String name;
+        final String ddlType;
+        final boolean nullable;
+
+        ColumnDefinition(String name, String ddlType, boolean nullable) {
+            this.name = name;
+            this.ddlType = ddlType;
+            this.nullable = nullable;
+        }
+    }
+
+    // Returns the names of the indexes that could not be recreated on the rebuilt table.
+    public static List<String> removeColumn(String tableName, String column, Progress progress) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            if (dropNatively(conn, tableName, column)) {
+                LOGGER.log(Level.INFO, "Dropped column {0} from table {1} with ALTER TABLE", new Object[]{column, tableName});
+                return Collections.emptyList();
+            }
+            List<String> failedIndexes = rebuildWithout(conn, tableName, column, progress);
+            LOGGER.log(Level.INFO, "Removed column {0} from table {1} by rebuilding it in {2} ms",
+                    new Object[]{column, tableName, System.currentTimeMillis() - start});
+            return failedIndexes;
+        } finally {
+            SchemaCache.invalidate(tableName);
+        }
+    }
+
+    private static boolean dropNatively(Connection conn, String tableName, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE [" + tableName + "] DROP COLUMN [" + column + "]");
+            return true;
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage().contains("FeatureNotSupportedException")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static List<String> rebuildWithout(Connection conn, String tableName, String column, Progress progress) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        List<ColumnDefinition> columns = new ArrayList<>();
+        boolean found = false;
+        try (ResultSet rs = metaData.getColumns(null, null, tableName, null)) {
+            while (rs.next()) {
+                String name = rs.getString("COLUMN_NAME");
+                if ("YES".equals(rs.getString("IS_AUTOINCREMENT"))) {
+                    // Explicit values for an AutoNumber column are ignored on insert, so copying
+                    // the rows would renumber them.
+                    throw new SQLException("Table " + tableName + " has the AutoNumber column " + name
+                            + " and cannot be rebuilt without renumbering it");
+                }
+                if (name.equalsIgnoreCase(column)) {
+                    found = true;
+                } else {
+                    columns.add(new ColumnDefinition(name, ddlType(rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"),
+                            rs.getInt("COLUMN_SIZE"), rs.getInt("DECIMAL_DIGITS")),
+                            rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls));
+                }
+            }
+        }
+        if (!found) {
+            throw new SQLException("Column " + column + " does not exist in table " + tableName);
+        }
+        if (columns.isEmpty()) {
+            throw new SQLException("Cannot remove the only column of table " + tableName);
+        }
+        List<String> primaryKey = new ArrayList<>();
+        try (ResultSet rs = metaData.getPrimaryKeys(null, null, tableName)) {
+            while (rs.next()) {
+                primaryKey.add(rs.getString("COLUMN_NAME"));
+            }
+        }
+        if (containsIgnoreCase(primaryKey, column)) {
+            primaryKey.clear();
+        }
+        Map<String, List<String>> indexColumns = new LinkedHashMap<>();
+        Map<String, Boolean> indexUnique = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, tableName, false, false)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                // SYS_IDX_ indexes belong to constraints and are recreated with them.
+                if (indexName == null || indexName.startsWith("SYS_IDX_") || rs.getString("COLUMN_NAME") == null) {
+                    continue;
+                }
+                indexColumns.computeIfAbsent(indexName, k -> new ArrayList<>()).add(rs.getString("COLUMN_NAME"));
+                indexUnique.put(indexName, !rs.getBoolean("NON_UNIQUE"));
+            }
+        }
+        indexColumns.values().removeIf(indexed -> containsIgnoreCase(indexed, column));
+
+        String suffix = UUID.randomUUID().toString().replace("-", "");
+        String copyTable = "Temp_" + suffix;
+        String backupTable = "Old_" + suffix;
+        StringBuilder createSql = new StringBuilder("CREATE TABLE [" + copyTable + "] (");
+        StringBuilder columnList = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnDefinition definition = columns.get(i);
+            createSql.append(i > 0 ? ", " : "").append("[").append(definition.name).append("] ").append(definition.ddlType);
+            if (!definition.nullable) {
+                createSql.append(" NOT NULL");
+            }
+            columnList.append(i > 0 ? ", " : "").append("[").append(definition.name).append("]");
+        }
+        if (!primaryKey.isEmpty()) {
+            createSql.append(", PRIMARY KEY (").append(bracketed(primaryKey)).append(")");
+        }
+        createSql.append(")");
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(createSql.toString());
+        }
+        try {
+            copyRows(conn, tableName, copyTable, columnList.toString(), columns.size(), progress);
+        } catch (SQLException | RuntimeException e) {
+            dropQuietly(conn, copyTable);
+            throw e;
+        }
+
+        swap(conn, tableName, copyTable, backupTable);
+
+        // Index names are unique per database, so they can only be reused once the old table is gone.
+        // The column is already removed at this point, so a failed index is reported, not thrown.
+        List<String> failedIndexes = new ArrayList<>();
+        for (Map.Entry<String, List<String>> index : indexColumns.entrySet()) {
+            String sql = "CREATE " + (indexUnique.get(index.getKey()) ? "UNIQUE " : "") + "INDEX [" + index.getKey()
+                    + "] ON [" + tableName + "] (" + bracketed(index.getValue()) + ")";
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(sql);
+            } catch (SQLException e) {
+                failedIndexes.add(index.getKey());
+                LOGGER.log(Level.WARNING, "Could not recreate index {0} on table {1}: {2}",
+                        new Object[]{index.getKey(), tableName, e.getMessage()});
+            }
+        }
+        return failedIndexes;
+    }
+
+    // Replaces tableName by copyTable. If a rename fails the copy is dropped, and the exception
+    // states which table now holds the original rows.
+    private static void swap(Connection conn, String tableName, String copyTable, String backupTable) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            try {
+                stmt.executeUpdate("ALTER TABLE [" + tableName + "] RENAME TO [" + backupTable + "]");
+            } catch (SQLException e) {
+                throw swapFailed(conn, copyTable, "Could not rename table " + tableName + "; it is unchanged", e);
+            }
+            try {
+                stmt.executeUpdate("ALTER TABLE [" + copyTable + "] RENAME TO [" + tableName + "]");
+            } catch (SQLException e) {
+                try {
+                    stmt.executeUpdate("ALTER TABLE [" + backupTable + "] RENAME TO [" + tableName + "]");
+                } catch (SQLException restoreError) {
+                    e.addSuppressed(restoreError);
+                    throw swapFailed(conn, copyTable, "Could not swap in the rebuilt table nor rename the original back; table "
+                            + tableName + " is left with all its rows as " + backupTable + " and must be renamed back", e);
+                }
+                throw swapFailed(conn, copyTable, "Could not swap in the rebuilt table; table " + tableName + " is unchanged", e);
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP TABLE [" + backupTable + "]");
+        } catch (SQLException e) {
+            throw new SQLException("Column removed, but the original table was left as " + backupTable
+                    + " and could not be dropped, so the indexes of " + tableName + " were not recreated: " + e.getMessage(), e);
+        }
+    }
+
+    private static SQLException swapFailed(Connection conn, String copyTable, String state, SQLException cause) {
+        String message = state + (dropQuietly(conn, copyTable) ? "" : "; the copy " + copyTable + " could not be dropped either");
+        LOGGER.log(Level.SEVERE, "{0}: {1}", new Object[]{message, cause.getMessage()});
+        return new SQLException(message + ": " + cause.getMessage(), cause);
+    }
+
+    private static void copyRows(Connection conn, String fromTable, String toTable, String columnList, int columnCount, Progress progress) throws SQLException {
+        int total;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM [" + fromTable + "]")) {
+            rs.next();
+            total = rs.getInt(1);
+        }
+        progress.update(0, total);
+        int batchSize = DatabaseUtils.getBatchSize();
+        String insertSql = "INSERT INTO [" + toTable + "] (" + columnList + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columnCount, "?")) + ")";
+        int copied = 0;
+        conn.setAutoCommit(false);
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT " + columnList + " FROM [" + fromTable + "]");
+             PreparedStatement insert = conn.prepareStatement(insertSql)) {
+            int[] sqlTypes = new int[columnCount + 1];
+            for (int i = 1; i <= columnCount; i++) {
+                sqlTypes[i] = rs.getMetaData().getColumnType(i);
+            }
+            int pending = 0;
+            while (rs.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    Object value = rs.getObject(i);
+                    // UCanAccess cannot bind a null through setObject.
+                    if (value == null) {
+                        insert.setNull(i, sqlTypes[i]);
+                    } else {
+                        insert.setObject(i, value);
+                    }
+                }
+                insert.addBatch();
+                if (++pending == batchSize) {
+                    insert.executeBatch();
+                    copied += pending;
+                    pending = 0;
+                    progress.update(copied, total);
+                }
+            }
+            if (pending > 0) {
+                insert.executeBatch();
+                copied += pending;
+                progress.update(copied, total);
+            }
+            if (copied != total) {
+                throw new SQLException("Copied " + copied + " of " + total + " rows of table " + fromTable);
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Maps the JDBC type UCanAccess reports back to the Access type that produces it.
+    private static String ddlType(int sqlType, String typeName, int size, int decimalDigits) {
+        switch (sqlType) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.NVARCHAR:
+            case Types.NCHAR:
+                return size > 0 && size <= 255 ? "VARCHAR(" + size + ")" : "MEMO";
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+                return "MEMO";
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return "SMALLINT";
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return "LONG";
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return "DOUBLE";
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                if (sqlType == Types.DECIMAL && decimalDigits == 4 && size > 28) {
+                    return "CURRENCY";
+                }
+                if (size > 28) {
+                    return decimalDigits == 7 ? "SINGLE" : "DOUBLE";
+                }
+                return "NUMERIC(" + size + "," + decimalDigits + ")";
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return "YESNO";
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return "DATETIME";
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return "OLE";
+            default:
+                return typeName;
+        }
+    }
+
+    private static String bracketed(List<String> names) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            sb.append(sb.length() > 0 ? ", " : "").append("[").append(name).append("]");
+        }
+        return sb.toString();
+    }
+
+    private static boolean containsIgnoreCase(List<String> names, String name) {
+        for (String candidate : names) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean dropQuietly(Connection conn, String tableName) {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP TABLE [" + tableName + "]");
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not drop table {0}: {1}", new Object[]{tableName, e.getMessage()});
+            return false;
+        }
+    }
+}
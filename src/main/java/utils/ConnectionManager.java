@@ -0,0 +1,330 @@
+package utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Keeps a small bounded pool of long-lived UCanAccess sessions for one database file.
+// Callers get a lease that looks like a normal Connection; closing the lease hands the
+// physical connection back to the pool instead of closing it, so existing
+// try-with-resources call sites keep working unchanged.
+public class ConnectionManager {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionManager.class.getName());
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long VALIDATE_AFTER_IDLE_MS = 30_000L;
+
+    private final String url;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private volatile boolean shutdown = false;
+
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+
+    public ConnectionManager(String url, int maxSize, long borrowTimeoutMs) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+        if (!permits.tryAcquire()) {
+            waits.incrementAndGet();
+            long start = System.currentTimeMillis();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            totalWaitMs.addAndGet(System.currentTimeMillis() - start);
+            if (!acquired) {
+                throw new SQLException("Timed out after " + borrowTimeoutMs + " ms waiting for a database connection ("
+                        + maxSize + " in use)");
+            }
+        }
+        try {
+            PooledConnection pooled = takeValidConnection();
+            borrows.incrementAndGet();
+            activeCount.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidConnection() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return open();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - pooled.lastReturned > VALIDATE_AFTER_IDLE_MS) {
+                return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Pooled connection failed validation: {0}", e.getMessage());
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        long start = System.currentTimeMillis();
+        Connection physical = DriverManager.getConnection(url);
+        opened.incrementAndGet();
+        openCount.incrementAndGet();
+        LOGGER.log(Level.INFO, "Opened pooled connection to {0} in {1} ms ({2} open)",
+                new Object[]{url, System.currentTimeMillis() - start, openCount.get()});
+        return new PooledConnection(physical);
+    }
+
+    private void discard(PooledConnection pooled) {
+        discarded.incrementAndGet();
+        openCount.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error closing discarded connection: {0}", e.getMessage());
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        activeCount.decrementAndGet();
+        try {
+            boolean healthy = !pooled.broken && !pooled.physical.isClosed();
+            if (healthy && !pooled.physical.getAutoCommit()) {
+                // A caller left a transaction open; never leak it into the next lease.
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (healthy && !shutdown) {
+                pooled.physical.clearWarnings();
+                pooled.lastReturned = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                discard(pooled);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Discarding connection that failed to reset: {0}", e.getMessage());
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+        LOGGER.log(Level.INFO, "Connection pool shut down: {0}", getStats());
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    public Stats getStats() {
+        return new Stats(openCount.get(), activeCount.get(), idle.size(), opened.get(), discarded.get(),
+                borrows.get(), waits.get(), totalWaitMs.get());
+    }
+
+    private static boolean isClosedQuietly(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    public static class Stats {
+        private final int open;
+        private final int active;
+        private final int idle;
+        private final long opened;
+        private final long discarded;
+        private final long borrows;
+        private final long waits;
+        private final long totalWaitMs;
+
+        Stats(int open, int active, int idle, long opened, long discarded, long borrows, long waits, long totalWaitMs) {
+            this.open = open;
+            this.active = active;
+            this.idle = idle;
+            this.opened = opened;
+            this.discarded = discarded;
+            this.borrows = borrows;
+            this.waits = waits;
+            this.totalWaitMs = totalWaitMs;
+        }
+
+        public int getOpen() {
+            return open;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public long getOpened() {
+            return opened;
+        }
+
+        public long getDiscarded() {
+            return discarded;
+        }
+
+        public long getBorrows() {
+            return borrows;
+        }
+
+        public long getWaits() {
+            return waits;
+        }
+
+        public long getTotalWaitMs() {
+            return totalWaitMs;
+        }
+
+        @Override
+        public String toString() {
+            return "open=" + open + ", active=" + active + ", idle=" + idle + ", opened=" + opened
+                    + ", discarded=" + discarded + ", borrows=" + borrows + ", waits=" + waits
+                    + ", totalWaitMs=" + totalWaitMs;
+        }
+    }
+
+    private class PooledConnection {
+        private final Connection physical;
+        private volatile long lastReturned = System.currentTimeMillis();
+        private volatile boolean broken = false;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(ConnectionManager.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new LeaseHandler(this));
+        }
+    }
+
+    // Routes calls to the physical connection until the lease is closed. Statements created
+    // through the lease are tracked so that callers which forget to close them (previously
+    // harmless because closing the connection closed them) do not pile up on the pooled session.
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean released = false;
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (released ? ", released" : "") + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                Object result = method.invoke(pooled.physical, args);
+                if (result instanceof Statement) {
+                    if (statements.size() >= 64) {
+                        statements.removeIf(ConnectionManager::isClosedQuietly);
+                    }
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && pooled.physical.isClosed()) {
+                    pooled.broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        private void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (Statement statement : statements) {
+                try {
+                    if (!statement.isClosed()) {
+                        statement.close();
+                    }
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Error closing leaked statement: {0}", e.getMessage());
+                }
+            }
+            statements.clear();
+            release(pooled);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Streaming RFC 4180 CSV reader. Fields may be quoted, quoted fields may contain the delimiter,
+// line breaks and doubled quotes, and records end with CRLF, LF or CR. The file is read through
+// a fixed char buffer and each record is handed to a RowHandler as a String[].
+// The first record is the header; spaces in header names become underscores like the Excel
+// reader, and later records are padded or cut to the header width instead of being dropped.
+public class CsvStreamReader {
+    private static final Logger LOGGER = Logger.getLogger(CsvStreamReader.class.getName());
+    public static final char DEFAULT_DELIMITER = ',';
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_SIZE = 64 * 1024;
+
+    public static void read(File file, RowHandler handler) throws IOException {
+        read(file, DEFAULT_DELIMITER, null, handler);
+    }
+
+    // A null charset means detect it: a byte order mark wins, otherwise UTF-8 if the start of
+    // the file decodes cleanly, otherwise the platform default (what FileReader used to assume).
+    public static void read(File file, char delimiter, Charset charset, RowHandler handler) throws IOException {
+        if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("Invalid CSV delimiter: " + delimiter);
+        }
+        long start = System.currentTimeMillis();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            Charset detected = charset != null ? charset : detectCharset(in);
+            try (Reader reader = new InputStreamReader(in, detected)) {
+                Tokenizer tokenizer = new Tokenizer(reader, delimiter, handler);
+                tokenizer.run();
+                if (tokenizer.raggedRows > 0) {
+                    LOGGER.log(Level.WARNING, "{0}: {1} rows did not match the header width and were padded or truncated",
+                            new Object[]{file.getName(), tokenizer.raggedRows});
+                }
+                LOGGER.log(Level.INFO, "Streamed {0} ({1}) in {2} ms",
+                        new Object[]{file.getName(), detected.name(), System.currentTimeMillis() - start});
+            }
+        }
+    }
+
+    // Consumes a byte order mark if there is one and leaves the stream positioned after it.
+    private static Charset detectCharset(InputStream in) throws IOException {
+        in.mark(SNIFF_SIZE);
+        byte[] head = new byte[SNIFF_SIZE];
+        int length = 0;
+        int n;
+        while (length < head.length && (n = in.read(head, length, head.length - length)) > 0) {
+            length += n;
+        }
+        in.reset();
+        if (length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            skip(in, 3);
+            return StandardCharsets.UTF_8;
+        }
+        if (length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE) {
+            skip(in, 2);
+            return StandardCharsets.UTF_16LE;
+        }
+        if (length >= 2 && (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF) {
+            skip(in, 2);
+            return StandardCharsets.UTF_16BE;
+        }
+        // When the sniff window is full the file continues, so a multi-byte sequence cut off at the
+        // end of the window is not an error; at end of file leftover bytes are.
+        boolean wholeFile = length < SNIFF_SIZE;
+        ByteBuffer bytes = ByteBuffer.wrap(head, 0, length);
+        CoderResult result = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(bytes, CharBuffer.allocate(length), wholeFile);
+        boolean utf8 = !result.isError() && !(wholeFile && bytes.hasRemaining());
+        return utf8 ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+    }
+
+    private static void skip(InputStream in, int count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                return;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static class Tokenizer {
+        private final Reader reader;
+        private final char delimiter;
+        private final RowHandler handler;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> record = new ArrayList<>();
+        private int position;
+        private int limit;
+        private int columnCount = -1;
+        private int raggedRows;
+
+        Tokenizer(Reader reader, char delimiter, RowHandler handler) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+            this.handler = handler;
+        }
+
+        void run() throws IOException {
+            boolean inQuotes = false;
+            boolean quoted = false;
+            boolean recordStarted = false;
+            int c;
+            while ((c = next()) != -1) {
+                char ch = (char) c;
+                if (inQuotes) {
+                    if (ch == '"') {
+                        int peek = peek();
+                        if (peek == '"') {
+                            position++;
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                        }
+                    } else {
+                        field.append(ch);
+                    }
+                } else if (ch == '"' && !quoted && field.toString().trim().isEmpty()) {
+                    // Opening quote; leading blanks before it are not part of the value.
+                    field.setLength(0);
+                    inQuotes = true;
+                    quoted = true;
+                    recordStarted = true;
+                } else if (ch == delimiter) {
+                    endField();
+                    quoted = false;
+                    recordStarted = true;
+                } else if (ch == '\r' || ch == '\n') {
+                    if (ch == '\r' && peek() == '\n') {
+                        position++;
+                    }
+                    if (recordStarted || field.length() > 0) {
+                        endField();
+                        if (!endRecord()) {
+                            return;
+                        }
+                    }
+                    quoted = false;
+                    recordStarted = false;
+                } else {
+                    // Text after a closing quote is kept as-is rather than rejected.
+                    field.append(ch);
+                    recordStarted = true;
+                }
+            }
+            if (recordStarted || field.length() > 0) {
+                endField();
+                endRecord();
+            }
+        }
+
+        private int next() throws IOException {
+            if (position >= limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++];
+        }
+
+        private int peek() throws IOException {
+            if (position >= limit && !fill()) {
+                return -1;
+            }
+            return buffer[position];
+        }
+
+        private boolean fill() throws IOException {
+            int n = reader.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = n;
+            return true;
+        }
+
+        private void endField() {
+            record.add(field.toString().trim());
+            field.setLength(0);
+        }
+
+        private boolean endRecord() {
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                // Whitespace-only line
+                record.clear();
+                return true;
+            }
+            String[] values;
+            if (columnCount < 0) {
+                columnCount = record.size();
+                values = new String[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = record.get(i).replace(" ", "_");
+                }
+            } else {
+                if (record.size() != columnCount) {
+                    raggedRows++;
+                }
+                values = new String[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = i < record.size() ? record.get(i) : "";
+                }
+            }
+            record.clear();
+            return handler.handleRow(values);
+        }
+    }
+}
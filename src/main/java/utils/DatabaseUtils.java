@@ -2,16 +2,20 @@ package utils;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -22,10 +26,25 @@ public class DatabaseUtils {
 
     private static String DB_URL = null;
     private static final Logger LOGGER = Logger.getLogger(DatabaseUtils.class.getName());
+    private static final int POOL_SIZE = Integer.getInteger("inventory.db.poolSize", 4);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("inventory.db.borrowTimeoutMs", 30_000L);
+    private static ConnectionManager connectionManager = null;
+    private static boolean shutdownHookRegistered = false;
+    private static final int IN_CLAUSE_CHUNK_SIZE = 200;
+    private static volatile int batchSize = Integer.getInteger("inventory.db.batchSize", 500);
 
-    public static void setDatabasePath(String path) {
+    public static synchronized void setDatabasePath(String path) {
         DB_URL = "jdbc:ucanaccess://" + path.replace("\\", "/");
         LOGGER.log(Level.INFO, "Database path set to: {0}", DB_URL);
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
+        connectionManager = new ConnectionManager(DB_URL, POOL_SIZE, BORROW_TIMEOUT_MS);
+        SchemaCache.invalidateAll();
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(DatabaseUtils::shutdownConnectionPool, "db-pool-shutdown"));
+            shutdownHookRegistered = true;
+        }
     }
 
     public static String getDatabasePath() {
@@ -36,12 +55,26 @@ public class DatabaseUtils {
     }
 
     public static Connection getConnection() throws SQLException {
-        if (DB_URL == null || DB_URL.isEmpty()) {
+        ConnectionManager manager;
+        synchronized (DatabaseUtils.class) {
+            manager = connectionManager;
+        }
+        if (DB_URL == null || DB_URL.isEmpty() || manager == null) {
             LOGGER.log(Level.SEVERE, "Database path not set");
             throw new SQLException("Database path not set. Please select a database file.");
         }
-        LOGGER.log(Level.INFO, "Connecting to database: {0}", DB_URL);
-        return DriverManager.getConnection(DB_URL);
+        LOGGER.log(Level.FINE, "Borrowing connection to database: {0}", DB_URL);
+        return manager.getConnection();
+    }
+
+    public static synchronized ConnectionManager.Stats getConnectionStats() {
+        return connectionManager != null ? connectionManager.getStats() : null;
+    }
+
+    public static synchronized void shutdownConnectionPool() {
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
     }
 
     public static List<String> getTableNames() throws SQLException {
@@ -64,11 +97,38 @@ public class DatabaseUtils {
         return tableNames;
     }
 
+    // The inventory and software tables registered in TableInformation that exist, in their
+    // actual case, without duplicates.
+    public static List<String> getRegisteredTables() throws SQLException {
+        Map<String, String> existing = new HashMap<>();
+        for (String tableName : getTableNames()) {
+            existing.put(tableName.toUpperCase(), tableName);
+        }
+        Map<String, String> registered = new LinkedHashMap<>();
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT InventoryTables, SoftwareTables FROM TableInformation")) {
+            while (rs.next()) {
+                for (int i = 1; i <= 2; i++) {
+                    String tableName = rs.getString(i);
+                    if (tableName != null && existing.containsKey(tableName.trim().toUpperCase())) {
+                        registered.putIfAbsent(tableName.trim().toUpperCase(), existing.get(tableName.trim().toUpperCase()));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving registered tables: {0}", e.getMessage());
+            throw e;
+        }
+        return new ArrayList<>(registered.values());
+    }
+
     public static void createTable(String tableName) throws SQLException {
         String sql = "CREATE TABLE [" + tableName + "] ([AssetName] VARCHAR(255) PRIMARY KEY)";
         try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             LOGGER.log(Level.INFO, "Executing CREATE TABLE SQL: {0}", sql);
             stmt.executeUpdate();
+            SchemaCache.invalidate(tableName);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error creating table {0}: {1}", new Object[]{tableName, e.getMessage()});
             throw e;
@@ -87,71 +147,57 @@ public class DatabaseUtils {
                         LOGGER.log(Level.INFO, "Adding column {0} to table {1}", new Object[]{sanitizedColumnName, tableName});
                         stmt.executeUpdate();
                     }
+                    SchemaCache.invalidate(tableName);
                 } else if (exists) {
                     LOGGER.log(Level.INFO, "Column {0} already exists in table {1}, skipping", new Object[]{sanitizedColumnName, tableName});
                 }
             }
         } catch (SQLException e) {
+            SchemaCache.invalidate(tableName);
             LOGGER.log(Level.SEVERE, "Error adding columns to table {0}: {1}", new Object[]{tableName, e.getMessage()});
             throw e;
         }
     }
 
     public static ArrayList<String> getInventoryColumnNames(String tableName) throws SQLException {
-        ArrayList<String> columns = new ArrayList<>();
-        try (Connection conn = getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            try (ResultSet rs = metaData.getColumns(null, null, tableName, null)) {
-                while (rs.next()) {
-                    String columnName = rs.getString("COLUMN_NAME");
-                    columns.add(columnName);
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving columns for table {0}: {1}", new Object[]{tableName, e.getMessage()});
-            throw e;
-        }
-        LOGGER.log(Level.INFO, "Retrieved columns for table {0}: {1}", new Object[]{tableName, columns});
+        ArrayList<String> columns = new ArrayList<>(SchemaCache.getSchema(tableName).getColumnNames());
+        LOGGER.log(Level.FINE, "Retrieved columns for table {0}: {1}", new Object[]{tableName, columns});
         return columns;
     }
 
     public static HashMap<String, String> getInventoryColumnTypes(String tableName) throws SQLException {
+        SchemaCache.TableSchema schema = SchemaCache.getSchema(tableName);
+        if (schema.getColumnNames().isEmpty()) {
+            LOGGER.log(Level.SEVERE, "Error retrieving column types for table {0}: table not found", tableName);
+            throw new SQLException("Table not found: " + tableName);
+        }
         HashMap<String, String> columnTypes = new HashMap<>();
-        try (Connection conn = getConnection(); ResultSet rs = conn.createStatement().executeQuery("SELECT * FROM [" + tableName + "] WHERE 1=0")) {
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = metaData.getColumnName(i);
-                int sqlType = metaData.getColumnType(i);
-                String typeName;
-                switch (sqlType) {
-                    case Types.VARCHAR:
-                        typeName = "VARCHAR(255)";
-                        break;
-                    case Types.INTEGER:
-                        typeName = "INTEGER";
-                        break;
-                    case Types.DOUBLE:
-                        typeName = "DOUBLE";
-                        break;
-                    case Types.DATE:
-                    case Types.TIMESTAMP:
-                        typeName = "DATE";
-                        break;
-                    case Types.BOOLEAN:
-                        typeName = "BOOLEAN";
-                        break;
-                    default:
-                        typeName = "VARCHAR(255)";
-                        break;
-                }
-                columnTypes.put(columnName, typeName);
+        for (SchemaCache.Column column : schema.getColumns().values()) {
+            String typeName;
+            switch (column.getSqlType()) {
+                case Types.VARCHAR:
+                    typeName = "VARCHAR(255)";
+                    break;
+                case Types.INTEGER:
+                    typeName = "INTEGER";
+                    break;
+                case Types.DOUBLE:
+                    typeName = "DOUBLE";
+                    break;
+                case Types.DATE:
+                case Types.TIMESTAMP:
+                    typeName = "DATE";
+                    break;
+                case Types.BOOLEAN:
+                    typeName = "BOOLEAN";
+                    break;
+                default:
+                    typeName = "VARCHAR(255)";
+                    break;
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving column types for table {0}: {1}", new Object[]{tableName, e.getMessage()});
-            throw e;
+            columnTypes.put(column.getName(), typeName);
         }
-        LOGGER.log(Level.INFO, "Retrieved column types for table {0}: {1}", new Object[]{tableName, columnTypes});
+        LOGGER.log(Level.FINE, "Retrieved column types for table {0}: {1}", new Object[]{tableName, columnTypes});
         return columnTypes;
     }
 
@@ -161,37 +207,7 @@ public class DatabaseUtils {
             Map<String, String> columnTypes = getInventoryColumnTypes(tableName);
             int index = 1;
             for (Map.Entry<String, String> entry : device.entrySet()) {
-                String column = entry.getKey();
-                String value = entry.getValue();
-                String sqlType = columnTypes.getOrDefault(column, "VARCHAR(255)");
-                if (sqlType.equals("DATE")
-                        || column.equals("Warranty_Expiry_Date") || column.equals("Last_Maintenance")
-                        || column.equals("Maintenance_Due") || column.equals("Date_Of_Purchase")) {
-                    if (value == null || value.trim().isEmpty()) {
-                        stmt.setNull(index++, Types.DATE);
-                    } else {
-                        try {
-                            String[] formats = {"MM/dd/yyyy", "yyyy-MM-dd", "MM-dd-yyyy"};
-                            java.util.Date date = null;
-                            for (String format : formats) {
-                                try {
-                                    date = new SimpleDateFormat(format).parse(value);
-                                    break;
-                                } catch (java.text.ParseException ignored) {
-                                }
-                            }
-                            if (date == null) {
-                                throw new java.text.ParseException("Unparseable date: " + value, 0);
-                            }
-                            stmt.setDate(index++, new java.sql.Date(date.getTime()));
-                        } catch (java.text.ParseException e) {
-                            LOGGER.log(Level.SEVERE, "Failed to parse date for column {0}: {1}", new Object[]{column, value});
-                            stmt.setNull(index++, Types.DATE);
-                        }
-                    }
-                } else {
-                    stmt.setString(index++, value != null ? value : "");
-                }
+                setParameter(stmt, index++, entry.getKey(), entry.getValue(), columnTypes);
             }
             LOGGER.log(Level.INFO, "Executing INSERT SQL: {0}", sql);
             stmt.executeUpdate();
@@ -199,6 +215,7 @@ public class DatabaseUtils {
             LOGGER.log(Level.SEVERE, "Error inserting device into table {0}: {1}", new Object[]{tableName, e.getMessage()});
             throw e;
         }
+        ChangeBus.publish(ChangeBus.Change.inserted(tableName, "AssetName", Collections.singletonList(device.get("AssetName"))));
     }
 
     public static void updateDevice(String tableName, Map<String, String> device) throws SQLException {
@@ -208,9 +225,11 @@ public class DatabaseUtils {
 
         StringBuilder sql = new StringBuilder("UPDATE [" + tableName + "] SET ");
         List<String> columns = new ArrayList<>();
+        List<String> changedColumns = new ArrayList<>();
         for (String column : device.keySet()) {
             if (!column.equals("AssetName") && !column.equals("TableName")) {
                 columns.add("[" + column + "] = ?");
+                changedColumns.add(column);
             }
         }
         if (columns.isEmpty()) {
@@ -226,45 +245,589 @@ public class DatabaseUtils {
             for (Map.Entry<String, String> entry : device.entrySet()) {
                 String column = entry.getKey();
                 if (!column.equals("AssetName") && !column.equals("TableName")) {
-                    String value = entry.getValue();
-                    String sqlType = columnTypes.getOrDefault(column, "VARCHAR(255)");
-                    if (sqlType.equals("DATE")
-                            || column.equals("Warranty_Expiry_Date") || column.equals("Last_Maintenance")
-                            || column.equals("Maintenance_Due") || column.equals("Date_Of_Purchase")) {
-                        if (value == null || value.trim().isEmpty()) {
-                            stmt.setNull(index++, Types.DATE);
-                        } else {
-                            try {
-                                String[] formats = {"MM/dd/yyyy", "yyyy-MM-dd", "MM-dd-yyyy"};
-                                java.util.Date date = null;
-                                for (String format : formats) {
-                                    try {
-                                        date = new SimpleDateFormat(format).parse(value);
-                                        break;
-                                    } catch (java.text.ParseException ignored) {
-                                    }
+                    setParameter(stmt, index++, column, entry.getValue(), columnTypes);
+                }
+            }
+            stmt.setString(index, device.get("AssetName"));
+            LOGGER.log(Level.INFO, "Executing UPDATE SQL: {0}", debugSql);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating device in table {0}: {1}", new Object[]{tableName, e.getMessage()});
+            throw e;
+        }
+        ChangeBus.publish(ChangeBus.Change.updated(tableName, "AssetName", Collections.singletonList(device.get("AssetName")), changedColumns));
+    }
+
+    private static void setParameter(PreparedStatement stmt, int index, String column, String value, Map<String, String> columnTypes) throws SQLException {
+        String sqlType = columnTypes.getOrDefault(column, "VARCHAR(255)");
+        if (sqlType.equals("DATE")
+                || column.equals("Warranty_Expiry_Date") || column.equals("Last_Maintenance")
+                || column.equals("Maintenance_Due") || column.equals("Date_Of_Purchase")) {
+            if (value == null || value.trim().isEmpty()) {
+                stmt.setNull(index, Types.DATE);
+                return;
+            }
+            String[] formats = {"MM/dd/yyyy", "yyyy-MM-dd", "MM-dd-yyyy"};
+            for (String format : formats) {
+                try {
+                    java.util.Date date = new SimpleDateFormat(format).parse(value);
+                    stmt.setDate(index, new java.sql.Date(date.getTime()));
+                    return;
+                } catch (java.text.ParseException ignored) {
+                }
+            }
+            LOGGER.log(Level.SEVERE, "Failed to parse date for column {0}: {1}", new Object[]{column, value});
+            stmt.setNull(index, Types.DATE);
+        } else {
+            stmt.setString(index, value != null ? value : "");
+        }
+    }
+
+    // Sets one column of every listed device with one UPDATE per chunk of AssetNames, all in one
+    // transaction. Fails without changing anything if one of the devices no longer exists.
+    public static int updateDeviceColumn(String tableName, String column, String value, Collection<String> assetNames) throws SQLException {
+        // UCanAccess compares text case-insensitively, so AssetNames differing only in case are one device.
+        Map<String, String> distinctByKey = new LinkedHashMap<>();
+        for (String assetName : assetNames) {
+            distinctByKey.putIfAbsent(assetName.toUpperCase(), assetName);
+        }
+        List<String> distinct = new ArrayList<>(distinctByKey.values());
+        if (distinct.isEmpty()) {
+            return 0;
+        }
+        Map<String, String> columnTypes = getInventoryColumnTypes(tableName);
+        int updated = 0;
+        long start = System.currentTimeMillis();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Counted by AssetName rather than by updated rows, since an AssetName may be on several rows.
+                Set<String> found = new HashSet<>();
+                for (String assetName : findExistingAssetNames(conn, tableName, distinct)) {
+                    found.add(assetName.toUpperCase());
+                }
+                if (found.size() < distinct.size()) {
+                    throw new SQLException((distinct.size() - found.size()) + " of the " + distinct.size()
+                            + " devices no longer exist in table " + tableName);
+                }
+                for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                    List<String> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinct.size()));
+                    String sql = "UPDATE [" + tableName + "] SET [" + column + "] = ? WHERE AssetName IN ("
+                            + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        setParameter(stmt, 1, column, value, columnTypes);
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setString(i + 2, chunk.get(i));
+                        }
+                        updated += stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error setting {0} on {1} devices in table {2}: {3}",
+                    new Object[]{column, distinct.size(), tableName, e.getMessage()});
+            throw e;
+        }
+        LOGGER.log(Level.INFO, "Set {0} on {1} rows in table {2} in {3} ms",
+                new Object[]{column, updated, tableName, System.currentTimeMillis() - start});
+        List<Object> changedKeys = new ArrayList<>(distinct);
+        if (column.equals("AssetName")) {
+            changedKeys.add(value);
+        }
+        ChangeBus.publish(ChangeBus.Change.updated(tableName, "AssetName", changedKeys, Collections.singletonList(column)));
+        return updated;
+    }
+
+    // Writes the columns whose edited text differs from the row as it was loaded. The row is
+    // addressed by the schema's row key, and the changed columns must still hold their loaded
+    // values, so an edit made meanwhile by someone else is reported instead of overwritten.
+    // Tables without a key fall back to matching every loaded value and must match exactly one row.
+    // Returns the columns that were written.
+    public static List<String> updateRow(String tableName, Map<String, Object> original, Map<String, String> edited) throws SQLException {
+        List<String> changedColumns = new ArrayList<>();
+        for (Map.Entry<String, String> entry : edited.entrySet()) {
+            Object oldValue = original.get(entry.getKey());
+            if (!entry.getValue().equals(oldValue != null ? oldValue.toString() : "")) {
+                changedColumns.add(entry.getKey());
+            }
+        }
+        if (changedColumns.isEmpty()) {
+            return changedColumns;
+        }
+        String keyColumn = SchemaCache.getSchema(tableName).getRowKeyColumn();
+        Object keyValue = keyColumn != null ? original.get(keyColumn) : null;
+        List<String> checkedColumns = new ArrayList<>();
+        if (keyValue != null) {
+            checkedColumns.add(keyColumn);
+            for (String column : changedColumns) {
+                if (!column.equalsIgnoreCase(keyColumn)) {
+                    checkedColumns.add(column);
+                }
+            }
+        } else {
+            checkedColumns.addAll(original.keySet());
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE [" + tableName + "] SET ");
+        for (int i = 0; i < changedColumns.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append("[").append(changedColumns.get(i)).append("] = ?");
+        }
+        sql.append(" WHERE ");
+        for (int i = 0; i < checkedColumns.size(); i++) {
+            String column = checkedColumns.get(i);
+            sql.append(i > 0 ? " AND " : "").append("[").append(column)
+                    .append(original.get(column) == null ? "] IS NULL" : "] = ?");
+        }
+
+        Map<String, String> columnTypes = getInventoryColumnTypes(tableName);
+        int updated;
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (String column : changedColumns) {
+                    setParameter(stmt, index++, column, edited.get(column), columnTypes);
+                }
+                for (String column : checkedColumns) {
+                    if (original.get(column) != null) {
+                        stmt.setObject(index++, original.get(column));
+                    }
+                }
+                updated = stmt.executeUpdate();
+                if (updated == 0) {
+                    throw new SQLException("The row was changed or deleted since it was loaded; reload the table and try again");
+                }
+                if (updated > 1) {
+                    throw new SQLException("The row cannot be told apart from " + (updated - 1) + " identical row(s) in table " + tableName);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating row in table {0}: {1}", new Object[]{tableName, e.getMessage()});
+            throw e;
+        }
+        LOGGER.log(Level.INFO, "Updated {0} in table {1} by {2}",
+                new Object[]{changedColumns, tableName, keyValue != null ? keyColumn : "all columns"});
+        if (keyValue != null) {
+            List<Object> changedKeys = new ArrayList<>();
+            changedKeys.add(keyValue);
+            if (changedColumns.contains(keyColumn)) {
+                changedKeys.add(edited.get(keyColumn));
+            }
+            ChangeBus.publish(ChangeBus.Change.updated(tableName, keyColumn, changedKeys, changedColumns));
+        } else {
+            ChangeBus.publish(ChangeBus.Change.rowsChanged(tableName));
+        }
+        return changedColumns;
+    }
+
+    // Deletes the listed devices with one DELETE per chunk of AssetNames, all in one transaction.
+    // The rows are read first and returned so that the delete can be undone with restoreDevices.
+    public static DeletedDevices deleteDevices(String tableName, Collection<String> assetNames) throws SQLException {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(assetNames));
+        DeletedDevices deleted = null;
+        long start = System.currentTimeMillis();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                    List<String> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinct.size()));
+                    String in = " WHERE AssetName IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                    try (PreparedStatement select = conn.prepareStatement("SELECT * FROM [" + tableName + "]" + in);
+                         PreparedStatement delete = conn.prepareStatement("DELETE FROM [" + tableName + "]" + in)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            select.setString(i + 1, chunk.get(i));
+                            delete.setString(i + 1, chunk.get(i));
+                        }
+                        try (ResultSet rs = select.executeQuery()) {
+                            ResultSetMetaData metaData = rs.getMetaData();
+                            if (deleted == null) {
+                                List<String> columns = new ArrayList<>();
+                                int[] sqlTypes = new int[metaData.getColumnCount()];
+                                boolean[] autoNumber = new boolean[metaData.getColumnCount()];
+                                Set<String> autoNumberColumns = findAutoNumberColumns(conn, tableName);
+                                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                                    columns.add(metaData.getColumnName(i));
+                                    sqlTypes[i - 1] = metaData.getColumnType(i);
+                                    autoNumber[i - 1] = autoNumberColumns.contains(metaData.getColumnName(i).toUpperCase());
                                 }
-                                if (date == null) {
-                                    throw new java.text.ParseException("Unparseable date: " + value, 0);
+                                deleted = new DeletedDevices(tableName, columns, sqlTypes, autoNumber);
+                            }
+                            while (rs.next()) {
+                                Object[] row = new Object[metaData.getColumnCount()];
+                                for (int i = 0; i < row.length; i++) {
+                                    row[i] = rs.getObject(i + 1);
                                 }
-                                stmt.setDate(index++, new java.sql.Date(date.getTime()));
-                            } catch (java.text.ParseException e) {
-                                LOGGER.log(Level.SEVERE, "Failed to parse date for column {0}: {1}", new Object[]{column, value});
-                                stmt.setNull(index++, Types.DATE);
+                                deleted.addRow(row);
                             }
                         }
+                        delete.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error deleting {0} devices from table {1}: {2}", new Object[]{distinct.size(), tableName, e.getMessage()});
+            throw e;
+        }
+        if (deleted == null) {
+            return new DeletedDevices(tableName, Collections.<String>emptyList(), new int[0], new boolean[0]);
+        }
+        LOGGER.log(Level.INFO, "Deleted {0} devices from table {1} in {2} ms",
+                new Object[]{deleted.size(), tableName, System.currentTimeMillis() - start});
+        if (deleted.size() > 0) {
+            ChangeBus.publish(ChangeBus.Change.deleted(tableName, "AssetName", deleted.getAssetNames()));
+        }
+        return deleted;
+    }
+
+    private static Set<String> findAutoNumberColumns(Connection conn, String tableName) throws SQLException {
+        Set<String> autoNumberColumns = new HashSet<>();
+        try (ResultSet rs = conn.getMetaData().getColumns(null, null, tableName, null)) {
+            while (rs.next()) {
+                if ("YES".equals(rs.getString("IS_AUTOINCREMENT"))) {
+                    autoNumberColumns.add(rs.getString("COLUMN_NAME").toUpperCase());
+                }
+            }
+        }
+        return autoNumberColumns;
+    }
+
+    // Inserts rows removed by deleteDevices again, with their stored values, in one transaction.
+    // Explicit values for an AutoNumber column are ignored on insert, so such a column is left
+    // out and the restored rows get new numbers.
+    public static void restoreDevices(DeletedDevices deleted) throws SQLException {
+        if (deleted.size() == 0) {
+            return;
+        }
+        String tableName = deleted.getTableName();
+        List<String> columns = deleted.getColumns();
+        List<Integer> restored = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (deleted.isAutoNumber(i)) {
+                LOGGER.log(Level.INFO, "Not restoring AutoNumber column {0} of table {1}", new Object[]{columns.get(i), tableName});
+            } else {
+                restored.add(i);
+            }
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO [" + tableName + "] (");
+        for (int i = 0; i < restored.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append("[").append(columns.get(restored.get(i))).append("]");
+        }
+        sql.append(") VALUES (").append(String.join(", ", Collections.nCopies(restored.size(), "?"))).append(")");
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                int pending = 0;
+                for (Object[] row : deleted.getRows()) {
+                    for (int i = 0; i < restored.size(); i++) {
+                        int column = restored.get(i);
+                        // UCanAccess cannot bind a null through setObject.
+                        if (row[column] == null) {
+                            stmt.setNull(i + 1, deleted.getSqlType(column));
+                        } else {
+                            stmt.setObject(i + 1, row[column]);
+                        }
+                    }
+                    stmt.addBatch();
+                    if (++pending == batchSize) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error restoring {0} devices to table {1}: {2}", new Object[]{deleted.size(), tableName, e.getMessage()});
+            throw e;
+        }
+        LOGGER.log(Level.INFO, "Restored {0} devices to table {1}", new Object[]{deleted.size(), tableName});
+        ChangeBus.publish(ChangeBus.Change.inserted(tableName, "AssetName", deleted.getAssetNames()));
+    }
+
+    public static int getBatchSize() {
+        return batchSize;
+    }
+
+    public static void setBatchSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        batchSize = size;
+    }
+
+    // Inserts every device in one transaction. Rows are grouped by column set so each distinct
+    // INSERT shape is prepared once; rows that fail are reported in the result, the rest are kept.
+    public static BatchResult saveDevices(String tableName, List<? extends Map<String, String>> devices) throws SQLException {
+        return writeDevices(tableName, devices, false);
+    }
+
+    // Like saveDevices, but rows whose AssetName already exists are updated instead of inserted.
+    public static BatchResult upsertDevices(String tableName, List<? extends Map<String, String>> devices) throws SQLException {
+        return writeDevices(tableName, devices, true);
+    }
+
+    private static BatchResult writeDevices(String tableName, List<? extends Map<String, String>> devices, boolean upsert) throws SQLException {
+        if (devices == null || devices.isEmpty()) {
+            return new BatchResult();
+        }
+        Map<String, String> columnTypes = getInventoryColumnTypes(tableName);
+        long start = System.currentTimeMillis();
+        Map<List<String>, List<Integer>> insertGroups = new LinkedHashMap<>();
+        Map<List<String>, List<Integer>> updateGroups = new LinkedHashMap<>();
+        Map<Integer, String> skipped = new LinkedHashMap<>();
+        BatchResult result;
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Set<String> existing = new HashSet<>();
+                if (upsert) {
+                    List<String> assetNames = new ArrayList<>();
+                    for (Map<String, String> device : devices) {
+                        String assetName = device.get("AssetName");
+                        if (assetName != null && !assetName.trim().isEmpty()) {
+                            assetNames.add(assetName);
+                        }
+                    }
+                    // UCanAccess compares text case-insensitively, so match existing keys the same way.
+                    for (String assetName : findExistingAssetNames(conn, tableName, assetNames)) {
+                        existing.add(assetName.toUpperCase());
+                    }
+                }
+
+                for (int i = 0; i < devices.size(); i++) {
+                    Map<String, String> device = devices.get(i);
+                    List<String> columns = new ArrayList<>();
+                    for (String column : device.keySet()) {
+                        if (!column.equals("TableName")) {
+                            columns.add(column);
+                        }
+                    }
+                    Collections.sort(columns);
+                    String assetName = device.get("AssetName");
+                    if (upsert && assetName != null && existing.contains(assetName.toUpperCase())) {
+                        columns.remove("AssetName");
+                        if (columns.isEmpty()) {
+                            skipped.put(i, "No columns to update for device with AssetName: " + assetName);
+                            continue;
+                        }
+                        updateGroups.computeIfAbsent(columns, k -> new ArrayList<>()).add(i);
                     } else {
-                        stmt.setString(index++, value != null ? value : "");
+                        insertGroups.computeIfAbsent(columns, k -> new ArrayList<>()).add(i);
+                        if (upsert && assetName != null) {
+                            // A repeated AssetName later in the list updates the row inserted here.
+                            existing.add(assetName.toUpperCase());
+                        }
                     }
                 }
+
+                try {
+                    result = writeGroups(conn, tableName, insertGroups, updateGroups, devices, columnTypes, skipped, true);
+                } catch (SQLException e) {
+                    // UCanAccess cannot undo part of a batch: rolling back to a savepoint leaves the
+                    // rows the batch already wrote queued for the file, and the failed statement stays
+                    // in batch mode. Start the transaction over and write the rows one at a time.
+                    LOGGER.log(Level.WARNING, "Batched write to table {0} failed, retrying row by row: {1}",
+                            new Object[]{tableName, e.getMessage()});
+                    conn.rollback();
+                    result = writeGroups(conn, tableName, insertGroups, updateGroups, devices, columnTypes, skipped, false);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            stmt.setString(index, device.get("AssetName"));
-            LOGGER.log(Level.INFO, "Executing UPDATE SQL: {0}", debugSql);
-            stmt.executeUpdate();
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error updating device in table {0}: {1}", new Object[]{tableName, e.getMessage()});
+            LOGGER.log(Level.SEVERE, "Error writing {0} devices to table {1}: {2}", new Object[]{devices.size(), tableName, e.getMessage()});
             throw e;
         }
+        LOGGER.log(Level.INFO, "Bulk write to table {0} finished in {1} ms: {2}",
+                new Object[]{tableName, System.currentTimeMillis() - start, result});
+        List<String> inserted = writtenAssetNames(devices, insertGroups.values(), result);
+        List<String> updated = writtenAssetNames(devices, updateGroups.values(), result);
+        if (inserted == null) {
+            ChangeBus.publish(ChangeBus.Change.rowsChanged(tableName));
+        } else if (!inserted.isEmpty()) {
+            ChangeBus.publish(ChangeBus.Change.inserted(tableName, "AssetName", inserted));
+        }
+        if (updated != null && !updated.isEmpty()) {
+            Set<String> updatedColumns = new LinkedHashSet<>();
+            for (List<String> columns : updateGroups.keySet()) {
+                updatedColumns.addAll(columns);
+            }
+            ChangeBus.publish(ChangeBus.Change.updated(tableName, "AssetName", updated, updatedColumns));
+        }
+        return result;
+    }
+
+    // AssetNames of the rows that were written, or null if one of them has none to identify it by.
+    private static List<String> writtenAssetNames(List<? extends Map<String, String>> devices,
+                                                  Collection<List<Integer>> groups, BatchResult result) {
+        List<String> written = new ArrayList<>();
+        for (List<Integer> rowIndexes : groups) {
+            for (int i : rowIndexes) {
+                if (result.isFailed(i)) {
+                    continue;
+                }
+                String assetName = devices.get(i).get("AssetName");
+                if (assetName == null) {
+                    return null;
+                }
+                written.add(assetName);
+            }
+        }
+        return written;
+    }
+
+    private static BatchResult writeGroups(Connection conn, String tableName, Map<List<String>, List<Integer>> insertGroups,
+                                           Map<List<String>, List<Integer>> updateGroups, List<? extends Map<String, String>> devices,
+                                           Map<String, String> columnTypes, Map<Integer, String> skipped, boolean batched) throws SQLException {
+        BatchResult result = new BatchResult();
+        for (Map.Entry<Integer, String> failure : skipped.entrySet()) {
+            result.addFailure(failure.getKey(), failure.getValue());
+        }
+        for (Map.Entry<List<String>, List<Integer>> group : insertGroups.entrySet()) {
+            executeGroup(conn, tableName, group.getKey(), group.getValue(), devices, columnTypes, false, batched, result);
+        }
+        for (Map.Entry<List<String>, List<Integer>> group : updateGroups.entrySet()) {
+            executeGroup(conn, tableName, group.getKey(), group.getValue(), devices, columnTypes, true, batched, result);
+        }
+        return result;
+    }
+
+    // Batched, a failing batch throws and the caller starts over row by row. Row by row, each
+    // row's error is recorded and the other rows are still written.
+    private static void executeGroup(Connection conn, String tableName, List<String> columns, List<Integer> rowIndexes,
+                                     List<? extends Map<String, String>> devices, Map<String, String> columnTypes,
+                                     boolean update, boolean batched, BatchResult result) throws SQLException {
+        String sql;
+        if (update) {
+            List<String> assignments = new ArrayList<>();
+            for (String column : columns) {
+                assignments.add("[" + column + "] = ?");
+            }
+            sql = "UPDATE [" + tableName + "] SET " + String.join(", ", assignments) + " WHERE AssetName = ?";
+        } else {
+            List<String> quoted = new ArrayList<>();
+            for (String column : columns) {
+                quoted.add("[" + column + "]");
+            }
+            sql = "INSERT INTO [" + tableName + "] (" + String.join(", ", quoted) + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        }
+        LOGGER.log(Level.INFO, "Executing {0} SQL for {1} rows: {2}",
+                new Object[]{batched ? "batched" : "row by row", rowIndexes.size(), sql});
+        PreparedStatement prepared;
+        try {
+            prepared = conn.prepareStatement(sql);
+        } catch (SQLException e) {
+            // The shape itself is invalid (e.g. an unknown column), so every row in the group fails.
+            LOGGER.log(Level.SEVERE, "Error preparing SQL for table {0}: {1}", new Object[]{tableName, e.getMessage()});
+            for (int rowIndex : rowIndexes) {
+                result.addFailure(rowIndex, e.getMessage());
+            }
+            return;
+        }
+        try (PreparedStatement stmt = prepared) {
+            if (!batched) {
+                for (int rowIndex : rowIndexes) {
+                    try {
+                        bindRow(stmt, columns, devices.get(rowIndex), columnTypes, update);
+                        recordCount(result, rowIndex, stmt.executeUpdate(), update);
+                    } catch (SQLException rowError) {
+                        LOGGER.log(Level.SEVERE, "Error writing row {0} (AssetName {1}) to table {2}: {3}",
+                                new Object[]{rowIndex, devices.get(rowIndex).get("AssetName"), tableName, rowError.getMessage()});
+                        result.addFailure(rowIndex, rowError.getMessage());
+                    }
+                }
+                return;
+            }
+            for (int from = 0; from < rowIndexes.size(); from += batchSize) {
+                List<Integer> chunk = rowIndexes.subList(from, Math.min(from + batchSize, rowIndexes.size()));
+                for (int rowIndex : chunk) {
+                    bindRow(stmt, columns, devices.get(rowIndex), columnTypes, update);
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                for (int i = 0; i < chunk.size(); i++) {
+                    recordCount(result, chunk.get(i), i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO, update);
+                }
+            }
+        }
+    }
+
+    private static void bindRow(PreparedStatement stmt, List<String> columns, Map<String, String> device,
+                                Map<String, String> columnTypes, boolean update) throws SQLException {
+        int index = 1;
+        for (String column : columns) {
+            setParameter(stmt, index++, column, device.get(column), columnTypes);
+        }
+        if (update) {
+            stmt.setString(index, device.get("AssetName"));
+        }
+    }
+
+    private static void recordCount(BatchResult result, int rowIndex, int count, boolean update) {
+        if (update && count == 0) {
+            result.addFailure(rowIndex, "No row found to update");
+        } else if (update) {
+            result.addUpdated(1);
+        } else {
+            result.addInserted(1);
+        }
+    }
+
+    public static Set<String> getExistingAssetNames(String tableName, Collection<String> assetNames) throws SQLException {
+        try (Connection conn = getConnection()) {
+            return findExistingAssetNames(conn, tableName, assetNames);
+        }
+    }
+
+    private static Set<String> findExistingAssetNames(Connection conn, String tableName, Collection<String> assetNames) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(assetNames));
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<String> chunk = distinct.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinct.size()));
+            String sql = "SELECT AssetName FROM [" + tableName + "] WHERE AssetName IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString("AssetName"));
+                    }
+                }
+            }
+        }
+        return existing;
     }
 
     public static void updatePeripheral(String peripheralType, int countDelta, String category) throws SQLException {
@@ -311,6 +874,8 @@ public class DatabaseUtils {
                             updateStmt.executeUpdate();
                             LOGGER.log(Level.INFO, "Updated {0} count to {1} in table {2}", new Object[]{peripheralType, newCount, table});
                         }
+                        ChangeBus.publish(ChangeBus.Change.updated(table, typeColumn, Collections.singletonList(peripheralType),
+                                Collections.singletonList("Count")));
                     } else {
                         // Insert new peripheral
                         if (countDelta < 0) {
@@ -322,6 +887,7 @@ public class DatabaseUtils {
                             insertStmt.executeUpdate();
                             LOGGER.log(Level.INFO, "Inserted new {0} with count {1} in table {2}", new Object[]{peripheralType, countDelta, table});
                         }
+                        ChangeBus.publish(ChangeBus.Change.inserted(table, typeColumn, Collections.singletonList(peripheralType)));
                     }
                 }
             }
@@ -336,6 +902,7 @@ public class DatabaseUtils {
         try (Connection conn = getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             LOGGER.log(Level.INFO, "Executing ALTER TABLE SQL: {0}", sql);
             stmt.executeUpdate();
+            SchemaCache.invalidate(tableName);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error adding new field {0} to table {1}: {2}", new Object[]{fieldName, tableName, e.getMessage()});
             throw e;
@@ -368,6 +935,7 @@ public class DatabaseUtils {
             }
             LOGGER.log(Level.INFO, "Executing INSERT template SQL: {0}", sql);
             stmt.executeUpdate();
+            ChangeBus.publish(ChangeBus.Change.inserted("Templates", "Template_Name", Collections.singletonList(templateName)));
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error saving template {0}: {1}", new Object[]{templateName, e.getMessage()});
             throw e;
@@ -489,7 +1057,7 @@ public class DatabaseUtils {
     }
 
     public static HashMap<String, String> getDeviceByAssetName(String tableName, String assetName) throws SQLException {
-        if (!getInventoryColumnNames(tableName).contains("AssetName")) {
+        if (!SchemaCache.getSchema(tableName).hasColumn("AssetName")) {
             LOGGER.log(Level.WARNING, "Table {0} does not contain AssetName, skipping query", tableName);
             return null;
         }
@@ -0,0 +1,64 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Rows removed by DatabaseUtils.deleteDevices, as they were stored, so that
+// DatabaseUtils.restoreDevices can put them back.
+public class DeletedDevices {
+    private final String tableName;
+    private final List<String> columns;
+    // java.sql.Types of each column, for binding NULLs, and whether it is an AutoNumber column.
+    private final int[] sqlTypes;
+    private final boolean[] autoNumber;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    DeletedDevices(String tableName, List<String> columns, int[] sqlTypes, boolean[] autoNumber) {
+        this.tableName = tableName;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.sqlTypes = sqlTypes.clone();
+        this.autoNumber = autoNumber.clone();
+    }
+
+    void addRow(Object[] row) {
+        rows.add(row);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    int getSqlType(int column) {
+        return sqlTypes[column];
+    }
+
+    boolean isAutoNumber(int column) {
+        return autoNumber[column];
+    }
+
+    List<Object[]> getRows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public List<String> getAssetNames() {
+        List<String> assetNames = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).equalsIgnoreCase("AssetName")) {
+                for (Object[] row : rows) {
+                    assetNames.add((String) row[i]);
+                }
+                break;
+            }
+        }
+        return assetNames;
+    }
+}
@@ -0,0 +1,209 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+// Classifies imported rows against the rows already in a table:
+//   red    - exact duplicate of an existing row
+//   yellow - existing row with conflicting non-empty values
+//   green  - existing row that the import only adds data to
+//   white  - AssetName not in the table yet
+// Existing rows are fetched for all imported AssetNames at once (chunked IN queries, or one
+// table scan for large imports) and kept as a snapshot until the table changes, so re-colouring
+// the grid after a save or duplicate removal does not go back to the database.
+public class DuplicateClassifier {
+    private static final Logger LOGGER = Logger.getLogger(DuplicateClassifier.class.getName());
+    private static final int IN_CLAUSE_CHUNK_SIZE = 200;
+    private static final int FULL_SCAN_THRESHOLD = 2000;
+
+    public interface ValueNormalizer {
+        String normalize(String value, String field);
+    }
+
+    private String tableName;
+    // Keyed by upper-cased AssetName, matching the case-insensitive comparisons UCanAccess does.
+    private final Map<String, Map<String, String>> existingRows = new ConcurrentHashMap<>();
+    private final Set<String> knownKeys = ConcurrentHashMap.newKeySet();
+
+    public synchronized void invalidate() {
+        existingRows.clear();
+        knownKeys.clear();
+    }
+
+    public synchronized void invalidate(Collection<String> assetNames) {
+        for (String assetName : assetNames) {
+            if (assetName != null) {
+                existingRows.remove(key(assetName));
+                knownKeys.remove(key(assetName));
+            }
+        }
+    }
+
+    public Map<Integer, String> classifyAll(String tableName, List<DataEntry> entries, ValueNormalizer normalizer) throws SQLException {
+        List<String> assetNames = new ArrayList<>();
+        for (DataEntry entry : entries) {
+            String assetName = entry.getData().get("AssetName");
+            if (assetName != null && !assetName.trim().isEmpty()) {
+                assetNames.add(assetName);
+            }
+        }
+        long start = System.currentTimeMillis();
+        ensureLoaded(tableName, assetNames);
+        Map<Integer, String> statuses = new ConcurrentHashMap<>();
+        // Each entry only touches its own data map, so the comparison is safe to run in parallel.
+        IntStream.range(0, entries.size()).parallel()
+                .forEach(i -> statuses.put(i, classify(entries.get(i), normalizer)));
+        LOGGER.log(Level.INFO, "Classified {0} rows against table {1} in {2} ms",
+                new Object[]{entries.size(), tableName, System.currentTimeMillis() - start});
+        return new HashMap<>(statuses);
+    }
+
+    public String classify(String tableName, DataEntry entry, ValueNormalizer normalizer) throws SQLException {
+        String assetName = entry.getData().get("AssetName");
+        if (assetName != null && !assetName.trim().isEmpty()) {
+            ensureLoaded(tableName, Collections.singletonList(assetName));
+        }
+        return classify(entry, normalizer);
+    }
+
+    private String classify(DataEntry entry, ValueNormalizer normalizer) {
+        String assetName = entry.getData().get("AssetName");
+        String status = "white"; // Default to white (new entry)
+        Map<String, String> existingDevice = assetName == null || assetName.trim().isEmpty() ? null : existingRows.get(key(assetName));
+        if (existingDevice != null) {
+            boolean isExactMatch = true;
+            boolean hasNewData = false;
+            boolean hasConflict = false;
+            for (Map.Entry<String, String> field : entry.getData().entrySet()) {
+                String fieldName = field.getKey();
+                String newValue = field.getValue();
+                String oldValue = existingDevice.get(fieldName);
+                String newVal = (newValue == null || newValue.trim().isEmpty()) ? "" : newValue;
+                String oldVal = normalizer.normalize(oldValue != null ? oldValue : "", fieldName);
+                if (!newVal.equals(oldVal)) {
+                    isExactMatch = false;
+                    if (newVal.isEmpty()) {
+                        field.setValue(oldVal);
+                    } else if (oldVal.isEmpty()) {
+                        hasNewData = true;
+                    } else {
+                        hasConflict = true;
+                    }
+                }
+            }
+            if (isExactMatch) {
+                status = "red"; // Exact duplicate, no new data
+            } else if (hasConflict) {
+                status = "yellow"; // Conflict in non-empty fields
+            } else if (hasNewData) {
+                status = "green"; // New data to overwrite
+            }
+        }
+        if (entry.isResolved()) {
+            status = status.equals("red") ? "red" : "green"; // Green unless exact match
+        }
+        return status;
+    }
+
+    private synchronized void ensureLoaded(String tableName, Collection<String> assetNames) throws SQLException {
+        if (!tableName.equals(this.tableName)) {
+            invalidate();
+            this.tableName = tableName;
+        }
+        Set<String> missing = new HashSet<>();
+        for (String assetName : assetNames) {
+            if (!knownKeys.contains(key(assetName))) {
+                missing.add(assetName);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        if (!SchemaCache.getSchema(tableName).hasColumn("AssetName")) {
+            LOGGER.log(Level.WARNING, "Table {0} does not contain AssetName, treating all rows as new", tableName);
+            for (String assetName : missing) {
+                knownKeys.add(key(assetName));
+            }
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            if (missing.size() > FULL_SCAN_THRESHOLD) {
+                Set<String> wanted = new HashSet<>();
+                for (String assetName : missing) {
+                    wanted.add(key(assetName));
+                }
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM [" + tableName + "]")) {
+                    readRows(stmt, wanted);
+                }
+            } else {
+                List<String> names = new ArrayList<>(missing);
+                for (int from = 0; from < names.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                    List<String> chunk = names.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, names.size()));
+                    String sql = "SELECT * FROM [" + tableName + "] WHERE AssetName IN ("
+                            + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            stmt.setString(i + 1, chunk.get(i));
+                        }
+                        readRows(stmt, null);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading existing rows from table {0}: {1}", new Object[]{tableName, e.getMessage()});
+            throw e;
+        }
+        for (String assetName : missing) {
+            knownKeys.add(key(assetName));
+        }
+        LOGGER.log(Level.INFO, "Loaded existing rows for {0} AssetNames from table {1} in {2} ms",
+                new Object[]{missing.size(), tableName, System.currentTimeMillis() - start});
+    }
+
+    private void readRows(PreparedStatement stmt, Set<String> wanted) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            String[] columns = new String[columnCount];
+            int assetColumn = -1;
+            for (int i = 1; i <= columnCount; i++) {
+                columns[i - 1] = metaData.getColumnName(i);
+                if (columns[i - 1].equalsIgnoreCase("AssetName")) {
+                    assetColumn = i;
+                }
+            }
+            while (rs.next()) {
+                String assetName = rs.getString(assetColumn);
+                if (assetName == null || (wanted != null && !wanted.contains(key(assetName.trim())))) {
+                    continue;
+                }
+                Map<String, String> device = new HashMap<>();
+                for (int i = 1; i <= columnCount; i++) {
+                    String value = rs.getString(i);
+                    device.put(columns[i - 1], value != null ? value.trim() : "");
+                }
+                existingRows.put(key(assetName.trim()), device);
+            }
+        }
+    }
+
+    private static String key(String assetName) {
+        return assetName.trim().toUpperCase();
+    }
+}
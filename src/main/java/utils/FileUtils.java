@@ -1,9 +1,5 @@
 package utils;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -13,27 +9,6 @@ import java.util.logging.Logger;
 public class FileUtils {
     private static final Logger LOGGER = Logger.getLogger(FileUtils.class.getName());
 
-    public static ArrayList<HashMap<String, String>> readCSVFile(File file) throws IOException {
-        ArrayList<HashMap<String, String>> data = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String headerLine = br.readLine();
-            if (headerLine == null) throw new IOException("Empty CSV file");
-            String[] headers = headerLine.split(",");
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(",");
-                if (values.length == headers.length) {
-                    HashMap<String, String> row = new HashMap<>();
-                    for (int i = 0; i < headers.length; i++) {
-                        row.put(headers[i].trim(), values[i].trim());
-                    }
-                    data.add(row);
-                }
-            }
-        }
-        return data;
-    }
-
     public static ArrayList<HashMap<String, String>> loadCables() throws SQLException {
         ArrayList<HashMap<String, String>> cables = DatabaseUtils.loadPeripherals("Cable");
         LOGGER.log(Level.INFO, "loadCables: Retrieved {0} cables", cables.size());
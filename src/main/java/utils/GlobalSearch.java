@@ -0,0 +1,190 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Searches every table registered in TableInformation for rows containing a text. Tables are
+// searched concurrently on a pool sized like the connection pool, each through its
+// TableSearchIndex when it has one and with LIKE otherwise, and each table's result is handed to
+// the listener as soon as it is ready. Indexed tables answer from memory, including the matching
+// rows, so only tables without an index are queried.
+public class GlobalSearch {
+    private static final Logger LOGGER = Logger.getLogger(GlobalSearch.class.getName());
+    private static final int MAX_ROWS_PER_TABLE = 100;
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newFixedThreadPool(
+            Integer.getInteger("inventory.db.poolSize", 4), r -> {
+                Thread thread = new Thread(r, "global-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private static final AtomicBoolean preparing = new AtomicBoolean();
+
+    public static final class TableResult {
+        private final String tableName;
+        private final int matchCount;
+        private final List<Map<String, String>> rows;
+
+        TableResult(String tableName, int matchCount, List<Map<String, String>> rows) {
+            this.tableName = tableName;
+            this.matchCount = matchCount;
+            this.rows = rows;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        // All matching rows, of which getRows() holds at most the first hundred.
+        public int getMatchCount() {
+            return matchCount;
+        }
+
+        // Column name -> value, in column order.
+        public List<Map<String, String>> getRows() {
+            return rows;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        // Called on the searching thread, once per table with matches, in the order they finish.
+        void tableSearched(TableResult result);
+    }
+
+    // Builds the search indexes of the registered tables in the background, so that the first
+    // search does not wait for the table scans. Does nothing while a previous call is still running.
+    public static void prepare() {
+        if (!preparing.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                List<Future<?>> builds = new ArrayList<>();
+                for (String table : DatabaseUtils.getRegisteredTables()) {
+                    builds.add(SEARCH_EXECUTOR.submit(() -> {
+                        TableSearchIndex.get(table);
+                        return null;
+                    }));
+                }
+                for (Future<?> build : builds) {
+                    build.get();
+                }
+                LOGGER.log(Level.INFO, "Prepared search indexes of {0} tables in {1} ms",
+                        new Object[]{builds.size(), System.currentTimeMillis() - start});
+            } catch (SQLException | ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                LOGGER.log(Level.WARNING, "Error preparing search indexes: {0}", cause.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                preparing.set(false);
+            }
+        }, "global-search-prepare");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Blocks until every table has been searched. Tables that fail are logged and skipped.
+    // Returns the number of tables searched.
+    public static int search(String text, Listener listener) throws SQLException {
+        long start = System.currentTimeMillis();
+        List<String> tables = DatabaseUtils.getRegisteredTables();
+        CompletionService<TableResult> completion = new ExecutorCompletionService<>(SEARCH_EXECUTOR);
+        List<Future<TableResult>> futures = new ArrayList<>();
+        for (String table : tables) {
+            futures.add(completion.submit(() -> searchTable(table, text)));
+        }
+        int matches = 0;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    TableResult result = completion.take().get();
+                    if (result.matchCount > 0) {
+                        matches += result.matchCount;
+                        listener.tableSearched(result);
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Error searching a table for ''{0}'': {1}",
+                            new Object[]{text, e.getCause().getMessage()});
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<TableResult> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        LOGGER.log(Level.INFO, "Searched {0} tables for ''{1}'': {2} matches in {3} ms",
+                new Object[]{tables.size(), text, matches, System.currentTimeMillis() - start});
+        return tables.size();
+    }
+
+    private static TableResult searchTable(String tableName, String text) throws SQLException {
+        TableSearchIndex searchIndex = TableSearchIndex.get(tableName);
+        if (searchIndex != null) {
+            Set<Object> keys = searchIndex.matchingKeys(text);
+            List<Map<String, String>> rows = new ArrayList<>();
+            for (Object key : keys) {
+                if (rows.size() == MAX_ROWS_PER_TABLE) {
+                    break;
+                }
+                Map<String, String> row = searchIndex.getRow(key);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            return new TableResult(tableName, keys.size(), rows);
+        }
+
+        List<String> columns = SchemaCache.getSchema(tableName).getColumnNames();
+        StringBuilder sql = new StringBuilder("SELECT * FROM [" + tableName + "] WHERE ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i > 0 ? " OR " : "").append("[").append(columns.get(i)).append("] LIKE ?");
+        }
+        List<Map<String, String>> rows = new ArrayList<>();
+        int matchCount = 0;
+        try (Connection conn = DatabaseUtils.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < columns.size(); i++) {
+                stmt.setString(i + 1, "%" + text + "%");
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (++matchCount <= MAX_ROWS_PER_TABLE) {
+                        rows.add(readRow(rs));
+                    }
+                }
+            }
+        }
+        return new TableResult(tableName, matchCount, rows);
+    }
+
+    private static Map<String, String> readRow(ResultSet rs) throws SQLException {
+        Map<String, String> row = new LinkedHashMap<>();
+        ResultSetMetaData metaData = rs.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String value = rs.getString(i);
+            row.put(metaData.getColumnName(i), value != null ? value.trim() : "");
+        }
+        return row;
+    }
+}
@@ -4,41 +4,65 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+// Peripheral lists loaded on first use. A list is dropped when its table changes and re-read on
+// the next call.
 public class InventoryData {
-    private static ArrayList<HashMap<String, String>> cables;
-    private static ArrayList<HashMap<String, String>> accessories;
-    private static ArrayList<HashMap<String, String>> chargers;
+    private static volatile ArrayList<HashMap<String, String>> cables;
+    private static volatile ArrayList<HashMap<String, String>> accessories;
+    private static volatile ArrayList<HashMap<String, String>> chargers;
+    // Held here because ChangeBus only keeps weak references to its listeners.
+    private static final ChangeBus.Listener CHANGE_LISTENER = change -> {
+        if (change.affects("Cables")) {
+            cables = null;
+        }
+        if (change.affects("Accessories")) {
+            accessories = null;
+        }
+        if (change.affects("Chargers")) {
+            chargers = null;
+        }
+    };
+
+    static {
+        ChangeBus.subscribe(CHANGE_LISTENER);
+    }
 
     public static ArrayList<HashMap<String, String>> getCables() {
-        if (cables == null) {
+        ArrayList<HashMap<String, String>> loaded = cables;
+        if (loaded == null) {
             try {
-                cables = DatabaseUtils.loadPeripherals("Cable");
+                loaded = DatabaseUtils.loadPeripherals("Cable");
             } catch (SQLException e) {
-                cables = new ArrayList<>();
+                loaded = new ArrayList<>();
             }
+            cables = loaded;
         }
-        return cables;
+        return loaded;
     }
 
     public static ArrayList<HashMap<String, String>> getAccessories() {
-        if (accessories == null) {
+        ArrayList<HashMap<String, String>> loaded = accessories;
+        if (loaded == null) {
             try {
-                accessories = DatabaseUtils.loadPeripherals("Accessory");
+                loaded = DatabaseUtils.loadPeripherals("Accessory");
             } catch (SQLException e) {
-                accessories = new ArrayList<>();
+                loaded = new ArrayList<>();
             }
+            accessories = loaded;
         }
-        return accessories;
+        return loaded;
     }
 
     public static ArrayList<HashMap<String, String>> getChargers() {
-        if (chargers == null) {
+        ArrayList<HashMap<String, String>> loaded = chargers;
+        if (loaded == null) {
             try {
-                chargers = DatabaseUtils.loadPeripherals("Charger");
+                loaded = DatabaseUtils.loadPeripherals("Charger");
             } catch (SQLException e) {
-                chargers = new ArrayList<>();
+                loaded = new ArrayList<>();
             }
+            chargers = loaded;
         }
-        return chargers;
+        return loaded;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,261 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Everything the License Key Tracker shows about a table, read in one pass: how often each
+// license key is used, the rows using it and the rows without a key. The rows are kept, so any
+// key's installations can be shown without going back to the database. Keys are grouped the way
+// UCanAccess compares text, ignoring case and surrounding blanks. A snapshot never changes; after
+// the table is written to, load a new one or, when the written rows are known, derive one with
+// withRowsReread.
+public final class LicenseKeyAnalytics {
+    private static final Logger LOGGER = Logger.getLogger(LicenseKeyAnalytics.class.getName());
+    private static final int IN_CLAUSE_CHUNK_SIZE = 200;
+
+    private final String tableName;
+    private final String licenseKeyColumn;
+    private final String[] columns;
+    private String rowKeyColumn;
+    // Normalized key -> the spelling seen first, and the rows using the key in table order.
+    private final Map<String, String> keyNames = new HashMap<>();
+    private final Map<String, List<Object[]>> rowsByKey = new HashMap<>();
+    private final List<Object[]> undocumentedRows = new ArrayList<>();
+
+    private LicenseKeyAnalytics(String tableName, String licenseKeyColumn, String[] columns) {
+        this.tableName = tableName;
+        this.licenseKeyColumn = licenseKeyColumn;
+        this.columns = columns;
+    }
+
+    public static LicenseKeyAnalytics load(String tableName, String licenseKeyColumn) throws SQLException {
+        long start = System.currentTimeMillis();
+        String candidateKey = SchemaCache.getSchema(tableName).getRowKeyColumn();
+        LicenseKeyAnalytics analytics;
+        try (Connection conn = DatabaseUtils.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM [" + tableName + "]")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            String[] columns = new String[metaData.getColumnCount()];
+            int licenseIndex = -1;
+            int keyIndex = -1;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = metaData.getColumnName(i + 1);
+                if (columns[i].equalsIgnoreCase(licenseKeyColumn)) {
+                    licenseIndex = i;
+                }
+                if (columns[i].equalsIgnoreCase(candidateKey)) {
+                    keyIndex = i;
+                }
+            }
+            if (licenseIndex < 0) {
+                throw new SQLException("Column " + licenseKeyColumn + " does not exist in table " + tableName);
+            }
+            analytics = new LicenseKeyAnalytics(tableName, columns[licenseIndex], columns);
+            // Rows can only be addressed by key if every row has a distinct one.
+            Set<Object> rowKeys = keyIndex >= 0 ? new HashSet<>() : null;
+            while (rs.next()) {
+                Object[] row = new Object[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                if (rowKeys != null && (row[keyIndex] == null || !rowKeys.add(normalize(row[keyIndex])))) {
+                    rowKeys = null;
+                }
+                analytics.add(row, row[licenseIndex]);
+            }
+            analytics.rowKeyColumn = rowKeys != null ? columns[keyIndex] : null;
+        }
+        LOGGER.log(Level.INFO, "Read {0} license keys and {1} undocumented rows of table ''{2}'' in {3} ms",
+                new Object[]{analytics.rowsByKey.size(), analytics.undocumentedRows.size(), tableName,
+                        System.currentTimeMillis() - start});
+        return analytics;
+    }
+
+    // A copy of this snapshot with the rows whose row key column holds one of rowKeys read again:
+    // rows that no longer exist are dropped and new ones added. Returns null when the rows cannot
+    // be patched this way (no row key column, or the columns changed); load the table instead.
+    public LicenseKeyAnalytics withRowsReread(Collection<?> rowKeys) throws SQLException {
+        if (rowKeyColumn == null) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        int keyIndex = indexOf(rowKeyColumn);
+        int licenseIndex = indexOf(licenseKeyColumn);
+        Set<Object> changed = new HashSet<>();
+        List<Object> pending = new ArrayList<>();
+        for (Object rowKey : rowKeys) {
+            if (rowKey != null && changed.add(normalize(rowKey))) {
+                pending.add(rowKey);
+            }
+        }
+        LicenseKeyAnalytics patched = new LicenseKeyAnalytics(tableName, licenseKeyColumn, columns);
+        patched.rowKeyColumn = rowKeyColumn;
+        Set<Object> seenKeys = new HashSet<>();
+        for (List<Object[]> rows : rowsByKey.values()) {
+            for (Object[] row : rows) {
+                if (!changed.contains(normalize(row[keyIndex]))) {
+                    seenKeys.add(normalize(row[keyIndex]));
+                    patched.add(row, row[licenseIndex]);
+                }
+            }
+        }
+        for (Object[] row : undocumentedRows) {
+            if (!changed.contains(normalize(row[keyIndex]))) {
+                seenKeys.add(normalize(row[keyIndex]));
+                patched.add(row, row[licenseIndex]);
+            }
+        }
+        int reread = 0;
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<Object> chunk = pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size()));
+                String sql = "SELECT * FROM [" + tableName + "] WHERE [" + rowKeyColumn + "] IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setObject(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        ResultSetMetaData metaData = rs.getMetaData();
+                        if (metaData.getColumnCount() != columns.length) {
+                            return null;
+                        }
+                        for (int i = 0; i < columns.length; i++) {
+                            if (!columns[i].equalsIgnoreCase(metaData.getColumnName(i + 1))) {
+                                return null;
+                            }
+                        }
+                        while (rs.next()) {
+                            Object[] row = new Object[columns.length];
+                            for (int i = 0; i < columns.length; i++) {
+                                row[i] = rs.getObject(i + 1);
+                            }
+                            if (row[keyIndex] == null || !seenKeys.add(normalize(row[keyIndex]))) {
+                                return null;
+                            }
+                            patched.add(row, row[licenseIndex]);
+                            reread++;
+                        }
+                    }
+                }
+            }
+        }
+        LOGGER.log(Level.INFO, "Re-read {0} of {1} changed rows of table ''{2}'' in {3} ms",
+                new Object[]{reread, pending.size(), tableName, System.currentTimeMillis() - start});
+        return patched;
+    }
+
+    private int indexOf(String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void add(Object[] row, Object licenseKey) {
+        String key = licenseKey != null ? licenseKey.toString().trim() : "";
+        if (key.isEmpty()) {
+            undocumentedRows.add(row);
+            return;
+        }
+        String normalized = key.toUpperCase();
+        keyNames.putIfAbsent(normalized, key);
+        rowsByKey.computeIfAbsent(normalized, k -> new ArrayList<>()).add(row);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getLicenseKeyColumn() {
+        return licenseKeyColumn;
+    }
+
+    // The columns of the rows, in table order.
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    // The column identifying each row, or null when the table has none with distinct values.
+    public String getRowKeyColumn() {
+        return rowKeyColumn;
+    }
+
+    // Key -> number of rows using it, most used first, then by key.
+    public Map<String, Integer> getUsageCounts() {
+        List<String> keys = new ArrayList<>(rowsByKey.keySet());
+        keys.sort((a, b) -> {
+            int byCount = Integer.compare(rowsByKey.get(b).size(), rowsByKey.get(a).size());
+            return byCount != 0 ? byCount : keyNames.get(a).compareTo(keyNames.get(b));
+        });
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String key : keys) {
+            counts.put(keyNames.get(key), rowsByKey.get(key).size());
+        }
+        return counts;
+    }
+
+    public int getUsageCount(String licenseKey) {
+        return getRows(licenseKey).size();
+    }
+
+    public List<Object[]> getRows(String licenseKey) {
+        List<Object[]> rows = licenseKey != null ? rowsByKey.get(normalize(licenseKey)) : null;
+        return rows != null ? Collections.unmodifiableList(rows) : Collections.<Object[]>emptyList();
+    }
+
+    // Rows whose license key is null or blank.
+    public List<Object[]> getUndocumentedRows() {
+        return Collections.unmodifiableList(undocumentedRows);
+    }
+
+    // The same rows as getRows, as a condition for queries that have to go back to the table.
+    public String keyCondition(String licenseKey) {
+        return " WHERE Trim([" + licenseKeyColumn + "]) = '" + licenseKey.trim().replace("'", "''") + "'";
+    }
+
+    // The same rows as getUndocumentedRows, as a condition.
+    public String undocumentedCondition() {
+        return " WHERE ([" + licenseKeyColumn + "] IS NULL OR Trim([" + licenseKeyColumn + "]) = '')";
+    }
+
+    // The rows with a value containing text, ignoring case, like a table search.
+    public static List<Object[]> search(List<Object[]> rows, String text) {
+        String wanted = text != null ? text.trim().toUpperCase() : "";
+        if (wanted.isEmpty()) {
+            return rows;
+        }
+        List<Object[]> matches = new ArrayList<>();
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                if (value != null && value.toString().toUpperCase().contains(wanted)) {
+                    matches.add(row);
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static Object normalize(Object value) {
+        return value instanceof String ? ((String) value).trim().toUpperCase() : value;
+    }
+}
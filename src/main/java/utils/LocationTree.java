@@ -0,0 +1,189 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// In-memory trie of the locations of one peripheral tab (adapters, cables, chargers or
+// accessories), keyed by path segment. Every node holds the item counts stored directly at that
+// location plus the per-type totals of its whole subtree, so the summary of a location, its
+// sub-locations and whether it exists are answered by walking one path instead of by a LIKE
+// query. The DAOs load it once with one query on Locations and one on the item table, and then
+// update it after each write. Segments are compared case-insensitively, as the database compares
+// locations.
+public class LocationTree {
+    private final Pattern separator;
+    private final Node root = new Node("");
+
+    private static class Node {
+        private final String name;
+        private final Map<String, Node> children = new HashMap<>();
+        private final Map<String, Integer> items = new HashMap<>();
+        private final Map<String, Integer> totals = new HashMap<>();
+        // The location as stored, set once the node is a location of its own rather than only
+        // the prefix of a deeper one.
+        private String path;
+        private boolean inLocationsTable;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        boolean exists() {
+            return inLocationsTable || !items.isEmpty();
+        }
+    }
+
+    public LocationTree(String separator) {
+        this.separator = Pattern.compile(Pattern.quote(separator));
+    }
+
+    // A row of the Locations table.
+    public synchronized void addLocation(String location) {
+        if (location == null || location.isEmpty()) {
+            return;
+        }
+        Node node = getOrCreate(location);
+        node.inLocationsTable = true;
+    }
+
+    // Adds count (which may be negative) items of a type at a location; a row of the item table.
+    public synchronized void addItems(String location, String itemType, int count) {
+        if (location == null || location.isEmpty()) {
+            return;
+        }
+        List<Node> path = walk(location, true);
+        path.get(path.size() - 1).items.merge(itemType, count, Integer::sum);
+        for (Node node : path) {
+            addTotal(node, itemType, count);
+        }
+    }
+
+    // The item table row for a type at a location was deleted.
+    public synchronized void removeItems(String location, String itemType) {
+        List<Node> path = location == null ? null : walk(location, false);
+        if (path == null) {
+            return;
+        }
+        Integer count = path.get(path.size() - 1).items.remove(itemType);
+        if (count == null) {
+            return;
+        }
+        for (Node node : path) {
+            addTotal(node, itemType, -count);
+        }
+        prune(path);
+    }
+
+    // All locations in sorted order, like the DAOs' getAllLocations().
+    public synchronized List<String> getLocations() {
+        List<String> result = new ArrayList<>();
+        collectLocations(root, result);
+        Collections.sort(result);
+        return result;
+    }
+
+    public synchronized boolean exists(String location) {
+        Node node = find(location);
+        return node != null && node != root && node.exists();
+    }
+
+    public synchronized boolean hasDirectItems(String location) {
+        Node node = find(location);
+        return node != null && !node.items.isEmpty();
+    }
+
+    public synchronized boolean hasSubLocations(String location) {
+        Node node = find(location);
+        return node != null && !node.children.isEmpty();
+    }
+
+    // Names of the next path segments below the location (top-level locations for null), sorted.
+    public synchronized List<String> getSubLocations(String location) {
+        Node node = location == null ? root : find(location);
+        List<String> result = new ArrayList<>();
+        if (node != null) {
+            for (Node child : node.children.values()) {
+                result.add(child.name);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    // Item counts by type for the location and everything below it.
+    public synchronized Map<String, Integer> getSubtreeTotals(String location) {
+        Node node = find(location);
+        return node != null ? new LinkedHashMap<>(node.totals) : Collections.<String, Integer>emptyMap();
+    }
+
+    private Node getOrCreate(String location) {
+        List<Node> path = walk(location, true);
+        return path.get(path.size() - 1);
+    }
+
+    private Node find(String location) {
+        if (location == null || location.isEmpty()) {
+            return null;
+        }
+        List<Node> path = walk(location, false);
+        return path != null ? path.get(path.size() - 1) : null;
+    }
+
+    // Nodes from the root to the location, or null if it is not in the tree and create is false.
+    private List<Node> walk(String location, boolean create) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        for (String segment : separator.split(location)) {
+            String key = segment.toUpperCase();
+            Node child = node.children.get(key);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node(segment);
+                node.children.put(key, child);
+            }
+            node = child;
+            path.add(node);
+        }
+        if (create && node.path == null) {
+            node.path = location;
+        }
+        return path;
+    }
+
+    private static void addTotal(Node node, String itemType, int count) {
+        int total = node.totals.getOrDefault(itemType, 0) + count;
+        if (total == 0) {
+            node.totals.remove(itemType);
+        } else {
+            node.totals.put(itemType, total);
+        }
+    }
+
+    // Drops nodes on the path that are no longer a location and have nothing below them.
+    private static void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.exists() || !node.children.isEmpty()) {
+                return;
+            }
+            path.get(i - 1).children.remove(node.name.toUpperCase());
+        }
+    }
+
+    private static void collectLocations(Node node, List<String> result) {
+        if (node.path != null && node.exists()) {
+            result.add(node.path);
+        }
+        for (Node child : node.children.values()) {
+            collectLocations(child, result);
+        }
+    }
+}
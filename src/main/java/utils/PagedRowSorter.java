@@ -0,0 +1,119 @@
+package utils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+
+// RowSorter for PagedTableModel. The model already returns rows in sorted order, so view and
+// model indices are the same; changing the sort keys re-runs the model's query with ORDER BY.
+// Header clicks toggle the clicked column and keep earlier columns as secondary keys, like
+// TableRowSorter does.
+public class PagedRowSorter extends RowSorter<PagedTableModel> {
+    private static final Logger LOGGER = Logger.getLogger(PagedRowSorter.class.getName());
+    private static final int MAX_SORT_KEYS = 3;
+
+    private final PagedTableModel model;
+    private final int firstSortableColumn;
+
+    public PagedRowSorter(PagedTableModel model, int firstSortableColumn) {
+        this.model = model;
+        this.firstSortableColumn = firstSortableColumn;
+    }
+
+    @Override
+    public PagedTableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        if (column < firstSortableColumn) {
+            return;
+        }
+        List<SortKey> keys = new ArrayList<>(getSortKeys());
+        SortOrder order = SortOrder.ASCENDING;
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).getColumn() == column) {
+                if (i == 0) {
+                    order = keys.get(i).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+                }
+                keys.remove(i);
+                break;
+            }
+        }
+        keys.add(0, new SortKey(column, order));
+        while (keys.size() > MAX_SORT_KEYS) {
+            keys.remove(keys.size() - 1);
+        }
+        setSortKeys(keys);
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> old = new ArrayList<>(getSortKeys());
+        try {
+            model.setSortKeys(keys);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error sorting table: {0}", e.getMessage());
+            return;
+        }
+        if (!old.equals(getSortKeys())) {
+            fireSortOrderChanged();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<? extends SortKey> getSortKeys() {
+        return (List<SortKey>) model.getSortKeys();
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        return index;
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        return index;
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+    }
+
+    @Override
+    public void allRowsChanged() {
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+    }
+}
@@ -0,0 +1,643 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.AbstractTableModel;
+
+// Table model that only keeps the row keys of a query in memory and fetches full rows a page at
+// a time when the table asks for them (i.e. as the viewport scrolls). Refreshing runs a key-only
+// query with the current filter and sort order; pages are then loaded with one IN query each and
+// kept in a small LRU cache. Sorting is pushed down to the database through setSortKeys, which is
+// what PagedRowSorter calls when a header is clicked.
+// Tables whose key column is missing, nullable or not unique are loaded in full instead, still
+// as plain Object[] rows rather than Vectors.
+public class PagedTableModel extends AbstractTableModel {
+    private static final Logger LOGGER = Logger.getLogger(PagedTableModel.class.getName());
+    public static final String EDIT_COLUMN = "Edit";
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_CACHED_PAGES = 64;
+    // Above this many runs of added or removed rows a reload is announced as a whole-table change.
+    private static final int MAX_ROW_EVENTS = 50;
+
+    private final boolean editColumn;
+    private String tableName;
+    private String whereClause = "";
+    private String searchText = "";
+    private String[] columns = new String[0];
+    private List<? extends RowSorter.SortKey> sortKeys = Collections.emptyList();
+    private String keyColumn;
+    private List<Object> keys = Collections.emptyList();
+    // Only used when the table has no usable key column.
+    private List<Object[]> allRows;
+    private final Map<Integer, Object[][]> pages = new LinkedHashMap<Integer, Object[][]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    // With editColumn set, model column 0 is a constant "Edit" column and the table columns follow.
+    public PagedTableModel(boolean editColumn) {
+        this.editColumn = editColumn;
+    }
+
+    public void setColumns(String tableName, String[] columns) {
+        this.tableName = tableName;
+        this.columns = columns != null ? columns.clone() : new String[0];
+        this.sortKeys = Collections.emptyList();
+        clearRows();
+        fireTableStructureChanged();
+    }
+
+    public void clear() {
+        tableName = null;
+        columns = new String[0];
+        sortKeys = Collections.emptyList();
+        clearRows();
+        fireTableStructureChanged();
+    }
+
+    public void setWhereClause(String whereClause) {
+        this.whereClause = whereClause != null ? whereClause : "";
+    }
+
+    // Case-insensitive substring match against every column, applied on top of the where clause.
+    // Answered from the table's TableSearchIndex when it has one, otherwise with LIKE in SQL.
+    public void setSearchText(String searchText) {
+        this.searchText = searchText != null ? searchText.trim() : "";
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    public List<? extends RowSorter.SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    // Re-sorts in the database. Sort key columns are model indices.
+    public void setSortKeys(List<? extends RowSorter.SortKey> sortKeys) throws SQLException {
+        List<? extends RowSorter.SortKey> previous = this.sortKeys;
+        this.sortKeys = sortKeys != null ? new ArrayList<>(sortKeys) : Collections.<RowSorter.SortKey>emptyList();
+        try {
+            reload();
+        } catch (SQLException e) {
+            this.sortKeys = previous;
+            throw e;
+        }
+    }
+
+    public void reload() throws SQLException {
+        apply(prepareReload().run());
+    }
+
+    // Captures the current table, filter and sort order. The returned query only touches the
+    // database and may be run on a background thread; hand its result to apply() on the EDT.
+    public Query prepareReload() {
+        return new Query(tableName, columns.clone(), whereClause, searchText, new ArrayList<>(sortKeys), editColumn ? 1 : 0);
+    }
+
+    // Installs a query result unless the table, filter or sort order changed while it was running.
+    public boolean apply(Snapshot snapshot) {
+        return apply(snapshot, false);
+    }
+
+    // When the rows present before and after are still in the same order, only the added and
+    // removed rows are announced, so the table keeps its selection and scroll position. With
+    // keepLoadedRows the rows already loaded are not re-read; use it when the rows that changed
+    // have been re-read through rowsUpdated().
+    public boolean apply(Snapshot snapshot, boolean keepLoadedRows) {
+        Query query = snapshot.query;
+        if (!Objects.equals(query.tableName, tableName) || !Arrays.equals(query.columns, columns)
+                || !query.whereClause.equals(whereClause) || !query.searchText.equals(searchText)
+                || !query.sortKeys.equals(sortKeys)) {
+            LOGGER.log(Level.INFO, "Discarding stale rows loaded for table ''{0}''", query.tableName);
+            return false;
+        }
+        if (allRows == null && snapshot.allRows == null && keyColumn != null && !keys.isEmpty()
+                && keyColumn.equalsIgnoreCase(snapshot.keyColumn) && applyKeys(snapshot.keys, keepLoadedRows)) {
+            return true;
+        }
+        keyColumn = snapshot.keyColumn;
+        keys = snapshot.keys;
+        allRows = snapshot.allRows;
+        pages.clear();
+        fireTableDataChanged();
+        return true;
+    }
+
+    // Re-reads the rows with the given keys that have been loaded, in one query, and repaints them.
+    // Returns false when rows are not identified by keyColumn here; the caller then reloads.
+    public boolean rowsUpdated(String changedKeyColumn, Collection<?> changedKeys) {
+        if (allRows != null || keyColumn == null || changedKeys == null || !keyColumn.equalsIgnoreCase(changedKeyColumn)) {
+            return false;
+        }
+        Set<Object> wanted = normalizedKeys(changedKeys);
+        List<Integer> positions = new ArrayList<>();
+        List<Object> loadedKeys = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (wanted.contains(normalizeKey(keys.get(i)))) {
+                positions.add(i);
+                if (pages.containsKey(i / PAGE_SIZE)) {
+                    loadedKeys.add(keys.get(i));
+                }
+            }
+        }
+        if (!loadedKeys.isEmpty()) {
+            try {
+                Map<Object, Object[]> rows = new HashMap<>();
+                for (int from = 0; from < loadedKeys.size(); from += PAGE_SIZE) {
+                    rows.putAll(loadRows(loadedKeys.subList(from, Math.min(from + PAGE_SIZE, loadedKeys.size()))));
+                }
+                for (int i : positions) {
+                    Object[][] page = pages.get(i / PAGE_SIZE);
+                    if (page != null) {
+                        Object[] row = rows.get(normalizeKey(keys.get(i)));
+                        page[i % PAGE_SIZE] = row != null ? row : keyOnlyRow(keys.get(i));
+                    }
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error re-reading changed rows of table ''{0}'': {1}", new Object[]{tableName, e.getMessage()});
+                for (int i : positions) {
+                    pages.remove(i / PAGE_SIZE);
+                }
+            }
+        }
+        for (int i : positions) {
+            fireTableRowsUpdated(i, i);
+        }
+        return true;
+    }
+
+    // Removes the rows with the given keys without going back to the database. Returns false when
+    // rows are not identified by keyColumn here.
+    public boolean rowsDeleted(String changedKeyColumn, Collection<?> deletedKeys) {
+        if (allRows != null || keyColumn == null || deletedKeys == null || !keyColumn.equalsIgnoreCase(changedKeyColumn)) {
+            return false;
+        }
+        Set<Object> deleted = normalizedKeys(deletedKeys);
+        List<Object> remaining = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            if (!deleted.contains(normalizeKey(key))) {
+                remaining.add(key);
+            }
+        }
+        if (remaining.size() < keys.size() && !applyKeys(remaining, true)) {
+            // Too scattered for row events; nothing needs re-reading either way
+            keys = remaining;
+            pages.clear();
+            fireTableDataChanged();
+        }
+        return true;
+    }
+
+    // Moves from the current keys to newKeys with one insert or delete event per run of added or
+    // removed rows. Returns false without changing anything if the surviving rows were reordered
+    // or there are too many runs for events to be worth it.
+    private boolean applyKeys(List<Object> newKeys, boolean keepLoadedRows) {
+        Set<Object> oldSet = normalizedKeys(keys);
+        Set<Object> newSet = normalizedKeys(newKeys);
+        List<int[]> deletedRuns = new ArrayList<>();
+        List<int[]> insertedRuns = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < keys.size() || j < newKeys.size()) {
+            int runStart = i;
+            while (i < keys.size() && !newSet.contains(normalizeKey(keys.get(i)))) {
+                i++;
+            }
+            if (i > runStart) {
+                deletedRuns.add(new int[]{runStart, i - 1});
+            }
+            runStart = j;
+            while (j < newKeys.size() && !oldSet.contains(normalizeKey(newKeys.get(j)))) {
+                j++;
+            }
+            if (j > runStart) {
+                insertedRuns.add(new int[]{runStart, j - 1});
+            }
+            if (i < keys.size() && j < newKeys.size()) {
+                if (!normalizeKey(keys.get(i)).equals(normalizeKey(newKeys.get(j)))) {
+                    return false;
+                }
+                i++;
+                j++;
+            } else if (i < keys.size() || j < newKeys.size()) {
+                return false; // Only possible with duplicate keys
+            }
+        }
+        if (deletedRuns.size() + insertedRuns.size() > MAX_ROW_EVENTS) {
+            return false;
+        }
+
+        Map<Object, Object[]> cachedRows = new HashMap<>();
+        if (keepLoadedRows) {
+            for (Map.Entry<Integer, Object[][]> page : pages.entrySet()) {
+                Object[][] rows = page.getValue();
+                for (int r = 0; r < rows.length; r++) {
+                    cachedRows.put(normalizeKey(keys.get(page.getKey() * PAGE_SIZE + r)), rows[r]);
+                }
+            }
+        }
+
+        // The table is told about each run while the key list is in the matching state.
+        List<Object> working = new ArrayList<>(keys);
+        keys = working;
+        pages.clear();
+        for (int r = deletedRuns.size() - 1; r >= 0; r--) {
+            int[] run = deletedRuns.get(r);
+            working.subList(run[0], run[1] + 1).clear();
+            fireTableRowsDeleted(run[0], run[1]);
+        }
+        for (int[] run : insertedRuns) {
+            working.addAll(run[0], newKeys.subList(run[0], run[1] + 1));
+            fireTableRowsInserted(run[0], run[1]);
+        }
+        keys = newKeys;
+
+        // Pages whose rows were all loaded before are rebuilt from them.
+        for (int page = 0; page * PAGE_SIZE < keys.size() && !cachedRows.isEmpty(); page++) {
+            int from = page * PAGE_SIZE;
+            Object[][] rows = new Object[Math.min(PAGE_SIZE, keys.size() - from)][];
+            boolean complete = true;
+            for (int r = 0; r < rows.length && complete; r++) {
+                rows[r] = cachedRows.get(normalizeKey(keys.get(from + r)));
+                complete = rows[r] != null;
+            }
+            if (complete) {
+                pages.put(page, rows);
+            }
+        }
+        if (!keepLoadedRows && !keys.isEmpty()) {
+            fireTableRowsUpdated(0, keys.size() - 1);
+        }
+        LOGGER.log(Level.FINE, "Applied {0} removed and {1} added row runs to table ''{2}''",
+                new Object[]{deletedRuns.size(), insertedRuns.size(), tableName});
+        return true;
+    }
+
+    public static class Query {
+        private final String tableName;
+        private final String[] columns;
+        private final String whereClause;
+        private final String searchText;
+        private final List<? extends RowSorter.SortKey> sortKeys;
+        private final int columnOffset;
+        private String sqlWhere;
+        private Predicate<Object> keyFilter;
+
+        Query(String tableName, String[] columns, String whereClause, String searchText,
+              List<? extends RowSorter.SortKey> sortKeys, int columnOffset) {
+            this.tableName = tableName;
+            this.columns = columns;
+            this.whereClause = whereClause;
+            this.searchText = searchText;
+            this.sortKeys = sortKeys;
+            this.columnOffset = columnOffset;
+        }
+
+        public Snapshot run() throws SQLException {
+            if (tableName == null || columns.length == 0) {
+                return new Snapshot(this, null, Collections.emptyList(), null);
+            }
+            long start = System.currentTimeMillis();
+            String candidateKey = SchemaCache.getSchema(tableName).getRowKeyColumn();
+            if (candidateKey != null && indexOfColumn(columns, candidateKey) < 0) {
+                candidateKey = null;
+            }
+            sqlWhere = whereClause;
+            keyFilter = null;
+            if (!searchText.isEmpty()) {
+                TableSearchIndex searchIndex = candidateKey != null ? TableSearchIndex.get(tableName) : null;
+                if (searchIndex != null && searchIndex.getKeyColumn().equalsIgnoreCase(candidateKey)) {
+                    keyFilter = searchIndex.matcher(searchText);
+                } else {
+                    sqlWhere = appendCondition(whereClause, likeCondition());
+                }
+            }
+            Snapshot snapshot;
+            try (Connection conn = DatabaseUtils.getConnection()) {
+                List<Object> keys = candidateKey != null ? loadKeys(conn, candidateKey) : null;
+                if (keys != null) {
+                    snapshot = new Snapshot(this, candidateKey, keys, null);
+                } else {
+                    snapshot = new Snapshot(this, null, Collections.emptyList(), loadAllRows(conn));
+                }
+            }
+            LOGGER.log(Level.INFO, "Loaded {0} {1} for table ''{2}'' in {3} ms", new Object[]{
+                    snapshot.getRowCount(), snapshot.keyColumn != null ? "row keys" : "rows", tableName, System.currentTimeMillis() - start});
+            return snapshot;
+        }
+
+        // Returns null when the column cannot address rows one by one (null or duplicate values).
+        private List<Object> loadKeys(Connection conn, String column) throws SQLException {
+            String sql = "SELECT [" + column + "] FROM [" + tableName + "]" + sqlWhere + orderBy();
+            List<Object> keys = new ArrayList<>();
+            Set<Object> seen = new HashSet<>();
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    Object key = rs.getObject(1);
+                    if (key == null || !seen.add(normalizeKey(key))) {
+                        LOGGER.log(Level.INFO, "Column {0} of table ''{1}'' is not a unique row key, loading all rows",
+                                new Object[]{column, tableName});
+                        return null;
+                    }
+                    if (keyFilter == null || keyFilter.test(key)) {
+                        keys.add(key);
+                    }
+                }
+            }
+            return keys;
+        }
+
+        private List<Object[]> loadAllRows(Connection conn) throws SQLException {
+            List<Object[]> rows = new ArrayList<>();
+            if (keyFilter != null) {
+                // The index only identifies rows by key, so without usable keys search in SQL.
+                keyFilter = null;
+                sqlWhere = appendCondition(whereClause, likeCondition());
+            }
+            String sql = "SELECT " + selectList(columns) + " FROM [" + tableName + "]" + sqlWhere + orderBy();
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    rows.add(readRow(rs, columns.length));
+                }
+            }
+            return rows;
+        }
+
+        private String likeCondition() {
+            String pattern = searchText.replace("'", "''");
+            StringBuilder condition = new StringBuilder("(");
+            for (String column : columns) {
+                if (condition.length() > 1) {
+                    condition.append(" OR ");
+                }
+                condition.append("[").append(column).append("] LIKE '%").append(pattern).append("%'");
+            }
+            return condition.append(")").toString();
+        }
+
+        private static String appendCondition(String where, String condition) {
+            return where.isEmpty() ? " WHERE " + condition : where + " AND " + condition;
+        }
+
+        private String orderBy() {
+            StringBuilder order = new StringBuilder();
+            for (RowSorter.SortKey sortKey : sortKeys) {
+                int column = sortKey.getColumn() - columnOffset;
+                if (column < 0 || column >= columns.length || sortKey.getSortOrder() == SortOrder.UNSORTED) {
+                    continue;
+                }
+                order.append(order.length() == 0 ? " ORDER BY " : ", ");
+                order.append("[").append(columns[column]).append("]");
+                order.append(sortKey.getSortOrder() == SortOrder.DESCENDING ? " DESC" : " ASC");
+            }
+            return order.toString();
+        }
+    }
+
+    public static class Snapshot {
+        private final Query query;
+        private final String keyColumn;
+        private final List<Object> keys;
+        private final List<Object[]> allRows;
+
+        Snapshot(Query query, String keyColumn, List<Object> keys, List<Object[]> allRows) {
+            this.query = query;
+            this.keyColumn = keyColumn;
+            this.keys = keys;
+            this.allRows = allRows;
+        }
+
+        public int getRowCount() {
+            return allRows != null ? allRows.size() : keys.size();
+        }
+    }
+
+    // Shows rows the caller already holds, sorted here by the current sort keys, without a query.
+    // The rows must have this model's columns, and whereClause and searchText must select the same
+    // rows, since sorting and change handling reload through them. With rowKeyColumn null the rows
+    // are kept like those of a table without a usable key.
+    public void showRows(String whereClause, String searchText, String rowKeyColumn, List<Object[]> rows) {
+        setWhereClause(whereClause);
+        setSearchText(searchText);
+        List<Object[]> sorted = new ArrayList<>(rows);
+        sorted.sort(rowOrder());
+        clearRows();
+        int keyIndex = rowKeyColumn != null ? indexOfColumn(columns, rowKeyColumn) : -1;
+        if (keyIndex < 0) {
+            allRows = sorted;
+        } else {
+            keyColumn = columns[keyIndex];
+            keys = new ArrayList<>(sorted.size());
+            for (Object[] row : sorted) {
+                keys.add(row[keyIndex]);
+            }
+            // Pages past the cache size are read back by key if the table scrolls that far.
+            for (int page = 0; page * PAGE_SIZE < sorted.size() && page < MAX_CACHED_PAGES; page++) {
+                List<Object[]> pageRows = sorted.subList(page * PAGE_SIZE, Math.min((page + 1) * PAGE_SIZE, sorted.size()));
+                pages.put(page, pageRows.toArray(new Object[0][]));
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    private Comparator<Object[]> rowOrder() {
+        Comparator<Object[]> order = (a, b) -> 0;
+        for (RowSorter.SortKey sortKey : sortKeys) {
+            int column = sortKey.getColumn() - (editColumn ? 1 : 0);
+            if (column < 0 || column >= columns.length || sortKey.getSortOrder() == SortOrder.UNSORTED) {
+                continue;
+            }
+            Comparator<Object[]> byColumn = (a, b) -> compareValues(a[column], b[column]);
+            order = order.thenComparing(sortKey.getSortOrder() == SortOrder.DESCENDING ? byColumn.reversed() : byColumn);
+        }
+        return order;
+    }
+
+    // Orders like UCanAccess does: nulls first and text ignoring case.
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof String && b instanceof String) {
+            return ((String) a).compareToIgnoreCase((String) b);
+        }
+        if (a instanceof Comparable && a.getClass().isInstance(b)) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return a.toString().compareToIgnoreCase(b.toString());
+    }
+
+    private Object[][] loadPage(int page) throws SQLException {
+        int from = page * PAGE_SIZE;
+        int to = Math.min(from + PAGE_SIZE, keys.size());
+        Object[][] rows = new Object[to - from][];
+        if (from >= to) {
+            return rows;
+        }
+        List<Object> pageKeys = keys.subList(from, to);
+        Map<Object, Object[]> byKey = loadRows(pageKeys);
+        for (int i = 0; i < rows.length; i++) {
+            Object[] row = byKey.get(normalizeKey(pageKeys.get(i)));
+            rows[i] = row != null ? row : keyOnlyRow(pageKeys.get(i));
+        }
+        return rows;
+    }
+
+    // Reads the rows with the given keys (at most a page of them), by normalized key.
+    private Map<Object, Object[]> loadRows(List<Object> rowKeys) throws SQLException {
+        Map<Object, Object[]> byKey = new HashMap<>();
+        int keyIndex = indexOfColumn(columns, keyColumn);
+        String sql = "SELECT " + selectList(columns) + " FROM [" + tableName + "] WHERE [" + keyColumn + "] IN ("
+                + String.join(", ", Collections.nCopies(rowKeys.size(), "?")) + ")";
+        try (Connection conn = DatabaseUtils.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < rowKeys.size(); i++) {
+                stmt.setObject(i + 1, rowKeys.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Object[] row = readRow(rs, columns.length);
+                    byKey.put(normalizeKey(row[keyIndex]), row);
+                }
+            }
+        }
+        return byKey;
+    }
+
+    // Placeholder for a row deleted since the keys were read, or whose page failed to load.
+    private Object[] keyOnlyRow(Object key) {
+        Object[] row = new Object[columns.length];
+        int keyIndex = indexOfColumn(columns, keyColumn);
+        if (keyIndex >= 0) {
+            row[keyIndex] = key;
+        }
+        return row;
+    }
+
+    private static Object[] readRow(ResultSet rs, int columnCount) throws SQLException {
+        Object[] row = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            row[i] = rs.getObject(i + 1);
+        }
+        return row;
+    }
+
+    private static String selectList(String[] columns) {
+        StringBuilder select = new StringBuilder();
+        for (String column : columns) {
+            if (select.length() > 0) {
+                select.append(", ");
+            }
+            select.append("[").append(column).append("]");
+        }
+        return select.toString();
+    }
+
+    private static int indexOfColumn(String[] columns, String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Text comparisons in UCanAccess are case-insensitive, so keys are matched the same way.
+    private static Object normalizeKey(Object key) {
+        return key instanceof String ? ((String) key).trim().toUpperCase() : key;
+    }
+
+    private static Set<Object> normalizedKeys(Collection<?> rowKeys) {
+        Set<Object> normalized = new HashSet<>();
+        for (Object key : rowKeys) {
+            normalized.add(normalizeKey(key));
+        }
+        return normalized;
+    }
+
+    private void clearRows() {
+        keyColumn = null;
+        keys = Collections.emptyList();
+        allRows = null;
+        pages.clear();
+    }
+
+    private Object[] getRow(int rowIndex) {
+        if (allRows != null) {
+            return allRows.get(rowIndex);
+        }
+        int page = rowIndex / PAGE_SIZE;
+        Object[][] rows = pages.get(page);
+        if (rows == null) {
+            try {
+                rows = loadPage(page);
+            } catch (SQLException e) {
+                // Not cached, so the next repaint tries again.
+                LOGGER.log(Level.SEVERE, "Error loading page {0} of table ''{1}'': {2}",
+                        new Object[]{page, tableName, e.getMessage()});
+                return keyOnlyRow(keys.get(rowIndex));
+            }
+            pages.put(page, rows);
+        }
+        return rows[rowIndex % PAGE_SIZE];
+    }
+
+    @Override
+    public int getRowCount() {
+        return allRows != null ? allRows.size() : keys.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length + (editColumn ? 1 : 0);
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (editColumn) {
+            return column == 0 ? EDIT_COLUMN : columns[column - 1];
+        }
+        return columns[column];
+    }
+
+    // The Edit column's button is a cell editor, so it only works if the cell is editable.
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return editColumn && columnIndex == 0;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (editColumn) {
+            if (columnIndex == 0) {
+                return EDIT_COLUMN;
+            }
+            columnIndex--;
+        }
+        return getRow(rowIndex)[columnIndex];
+    }
+}
@@ -0,0 +1,8 @@
+package utils;
+
+// Receives rows from the streaming file readers one at a time.
+// Return false to stop reading early (e.g. once a preview has enough rows).
+@FunctionalInterface
+public interface RowHandler {
+    boolean handleRow(String[] values);
+}
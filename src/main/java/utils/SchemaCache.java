@@ -0,0 +1,168 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Per-table cache of column names, JDBC types and primary key columns.
+// Schemas are loaded on first use and stay cached until invalidate() is called,
+// so every code path that runs DDL against a table must invalidate it afterwards.
+// Invalidating also publishes a SCHEMA change, which drops the table's TableSearchIndex and
+// lets open views pick up the new columns.
+public class SchemaCache {
+    private static final Logger LOGGER = Logger.getLogger(SchemaCache.class.getName());
+    private static final Map<String, TableSchema> CACHE = new ConcurrentHashMap<>();
+
+    public static TableSchema getSchema(String tableName) throws SQLException {
+        TableSchema schema = CACHE.get(key(tableName));
+        if (schema != null) {
+            return schema;
+        }
+        schema = load(tableName);
+        // A missing table is not cached so that creating it later is picked up without an explicit invalidate.
+        if (!schema.getColumnNames().isEmpty()) {
+            CACHE.put(key(tableName), schema);
+        }
+        return schema;
+    }
+
+    public static void invalidate(String tableName) {
+        if (tableName == null) {
+            return;
+        }
+        if (CACHE.remove(key(tableName)) != null) {
+            LOGGER.log(Level.INFO, "Invalidated cached schema for table {0}", tableName);
+        }
+        ChangeBus.publish(ChangeBus.Change.schemaChanged(tableName));
+    }
+
+    public static void invalidateAll() {
+        CACHE.clear();
+        LOGGER.log(Level.INFO, "Invalidated all cached table schemas");
+        ChangeBus.publish(ChangeBus.Change.schemaChanged(null));
+    }
+
+    private static String key(String tableName) {
+        return tableName.toUpperCase();
+    }
+
+    private static TableSchema load(String tableName) throws SQLException {
+        Map<String, Column> columns = new LinkedHashMap<>();
+        List<String> primaryKey = new ArrayList<>();
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            DatabaseMetaData metaData = conn.getMetaData();
+            try (ResultSet rs = metaData.getColumns(null, null, tableName, null)) {
+                while (rs.next()) {
+                    String name = rs.getString("COLUMN_NAME");
+                    columns.put(name, new Column(name, rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"),
+                            rs.getInt("COLUMN_SIZE"), rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls));
+                }
+            }
+            if (!columns.isEmpty()) {
+                try (ResultSet rs = metaData.getPrimaryKeys(null, null, tableName)) {
+                    while (rs.next()) {
+                        primaryKey.add(rs.getString("COLUMN_NAME"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading schema for table {0}: {1}", new Object[]{tableName, e.getMessage()});
+            throw e;
+        }
+        LOGGER.log(Level.INFO, "Loaded schema for table {0}: columns={1}, primaryKey={2}",
+                new Object[]{tableName, columns.keySet(), primaryKey});
+        return new TableSchema(tableName, columns, primaryKey);
+    }
+
+    public static class Column {
+        private final String name;
+        private final int sqlType;
+        private final String typeName;
+        private final int size;
+        private final boolean nullable;
+
+        Column(String name, int sqlType, String typeName, int size, boolean nullable) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.typeName = typeName;
+            this.size = size;
+            this.nullable = nullable;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public boolean isNullable() {
+            return nullable;
+        }
+    }
+
+    public static class TableSchema {
+        private final String tableName;
+        private final Map<String, Column> columns;
+        private final List<String> columnNames;
+        private final List<String> primaryKey;
+
+        TableSchema(String tableName, Map<String, Column> columns, List<String> primaryKey) {
+            this.tableName = tableName;
+            this.columns = Collections.unmodifiableMap(columns);
+            this.columnNames = Collections.unmodifiableList(new ArrayList<>(columns.keySet()));
+            this.primaryKey = Collections.unmodifiableList(primaryKey);
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public List<String> getColumnNames() {
+            return columnNames;
+        }
+
+        public Map<String, Column> getColumns() {
+            return columns;
+        }
+
+        public Column getColumn(String columnName) {
+            return columns.get(columnName);
+        }
+
+        public boolean hasColumn(String columnName) {
+            return columns.containsKey(columnName);
+        }
+
+        public List<String> getPrimaryKey() {
+            return primaryKey;
+        }
+
+        // The key used to address single rows: the declared primary key when it is a single
+        // column, otherwise AssetName, which every inventory and software table carries.
+        public String getRowKeyColumn() {
+            if (primaryKey.size() == 1) {
+                return primaryKey.get(0);
+            }
+            return hasColumn("AssetName") ? "AssetName" : null;
+        }
+    }
+}
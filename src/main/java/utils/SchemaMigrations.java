@@ -0,0 +1,328 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Numbered schema migrations, applied once per database file and recorded in the SchemaVersion
+// table. Startup used to probe the metadata of every fixed table from each tab that needs it;
+// now migrate() reads the version once and only runs the migrations the file has not seen, and
+// later calls for the same database return without touching it. Migrations stay idempotent, so
+// one that fails part way is simply run again on the next start. Add new ones at the end of
+// MIGRATIONS with the next number; never renumber or change one that has shipped.
+public class SchemaMigrations {
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrations.class.getName());
+    private static final String VERSION_TABLE = "SchemaVersion";
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+            new Migration(1, "Create default tables", SchemaMigrations::createDefaultTables),
+            new Migration(2, "Clean up peripheral tables", SchemaMigrations::cleanUpPeripheralTables),
+            new Migration(3, "Add RequiresLicenseKey to TableInformation", SchemaMigrations::addRequiresLicenseKeyColumn),
+            new Migration(4, "Add UNIQUE(type, Location) to peripheral tables", SchemaMigrations::addPeripheralUniqueIndexes)
+    );
+
+    // Database path for which the migrations are known to be applied.
+    private static String migratedPath;
+
+    public static synchronized void migrate() throws SQLException {
+        String path = DatabaseUtils.getDatabasePath();
+        if (path != null && path.equals(migratedPath)) {
+            return;
+        }
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            int current = readVersion(conn);
+            int applied = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= current) {
+                    continue;
+                }
+                long start = System.currentTimeMillis();
+                try {
+                    migration.step.apply(conn);
+                } finally {
+                    SchemaCache.invalidateAll();
+                }
+                recordVersion(conn, migration);
+                applied++;
+                LOGGER.log(Level.INFO, "Applied schema migration {0} ({1}) in {2} ms",
+                        new Object[]{migration.version, migration.description, System.currentTimeMillis() - start});
+            }
+            LOGGER.log(Level.INFO, "Database schema at version {0}, {1} migrations applied",
+                    new Object[]{Math.max(current, latestVersion()), applied});
+        }
+        migratedPath = path;
+    }
+
+    // Creates whichever of the default tables are missing. Also used by the Create Tables button
+    // of the database creator, which checks again regardless of the recorded version.
+    public static void createDefaultTables() throws SQLException {
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            createDefaultTables(conn);
+        } finally {
+            SchemaCache.invalidateAll();
+        }
+    }
+
+    private static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private static int readVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(Version) FROM " + VERSION_TABLE)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            if (tableExists(conn.getMetaData(), VERSION_TABLE)) {
+                throw e;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE " + VERSION_TABLE
+                    + " (Version INTEGER PRIMARY KEY, Description VARCHAR(255), Applied_On DATETIME)");
+        }
+        LOGGER.log(Level.INFO, "Created {0} table", VERSION_TABLE);
+        return 0;
+    }
+
+    private static void recordVersion(Connection conn, Migration migration) throws SQLException {
+        String sql = "INSERT INTO " + VERSION_TABLE + " (Version, Description, Applied_On) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            stmt.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(DatabaseMetaData metaData, String tableName) throws SQLException {
+        try (ResultSet rs = metaData.getTables(null, null, tableName, null)) {
+            return rs.next();
+        }
+    }
+
+    private static void createTableIfMissing(Connection conn, DatabaseMetaData metaData, String tableName, String createSql) throws SQLException {
+        if (!tableExists(metaData, tableName)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(createSql);
+            }
+            LOGGER.log(Level.INFO, "Created {0} table", tableName);
+        }
+    }
+
+    private static final String[][] PERIPHERAL_TABLES = {
+            {"Accessories", "Accessory_Type"}, {"Cables", "Cable_Type"}, {"Chargers", "Charger_Type"}, {"Adapters", "Adapter_Type"}};
+
+    // Migration 1
+    private static void createDefaultTables(Connection conn) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        for (String[] peripheral : PERIPHERAL_TABLES) {
+            createTableIfMissing(conn, metaData, peripheral[0],
+                    "CREATE TABLE " + peripheral[0] + " ("
+                    + "ID AUTOINCREMENT PRIMARY KEY, "
+                    + peripheral[1] + " VARCHAR(255), "
+                    + "[Count] INTEGER, "
+                    + "Location VARCHAR(255), "
+                    + "Previous_Location VARCHAR(255), "
+                    + "UNIQUE(" + peripheral[1] + ", Location))");
+        }
+        createTableIfMissing(conn, metaData, "Templates",
+                "CREATE TABLE Templates ("
+                + "Template_Name TEXT PRIMARY KEY)");
+        createTableIfMissing(conn, metaData, "TableInformation",
+                "CREATE TABLE TableInformation ("
+                + "ID INTEGER PRIMARY KEY, "
+                + "InventoryTables TEXT, "
+                + "SoftwareTables TEXT)");
+        createTableIfMissing(conn, metaData, "LicenseKeyRules",
+                "CREATE TABLE LicenseKeyRules ("
+                + "TableName VARCHAR(255) PRIMARY KEY, "
+                + "UsageLimit INTEGER)");
+        createTableIfMissing(conn, metaData, "Locations",
+                "CREATE TABLE Locations ("
+                + "ID AUTOINCREMENT PRIMARY KEY, "
+                + "Datatype VARCHAR(255), "
+                + "Location VARCHAR(255))");
+    }
+
+    // Migration 2: what the peripheral DAOs used to check on every start.
+    private static void cleanUpPeripheralTables(Connection conn) throws SQLException {
+        cleanUpPeripheralTable(conn, "Accessories", "Accessory_Type", "Accessory");
+        cleanUpPeripheralTable(conn, "Cables", "Cable_Type", "Cable");
+        cleanUpPeripheralTable(conn, "Chargers", "Charger_Type", "Charger");
+        cleanUpPeripheralTable(conn, "Adapters", "Adapter_Type", "Adapter");
+    }
+
+    private static void cleanUpPeripheralTable(Connection conn, String tableName, String typeColumn, String datatype) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        try (ResultSet rs = metaData.getColumns(null, null, tableName, "Parent_Location")) {
+            if (rs.next()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("ALTER TABLE " + tableName + " DROP COLUMN Parent_Location");
+                }
+                LOGGER.log(Level.INFO, "Dropped Parent_Location column from {0} table", tableName);
+            }
+        }
+
+        // Empty locations used to be stored as placeholder rows; they now live in Locations.
+        String selectOldPlaceholders = "SELECT DISTINCT Location FROM " + tableName + " WHERE " + typeColumn + " LIKE 'Placeholder_%'";
+        try (PreparedStatement selStmt = conn.prepareStatement(selectOldPlaceholders);
+             PreparedStatement insStmt = conn.prepareStatement("INSERT INTO Locations (Datatype, Location) VALUES (?, ?)");
+             PreparedStatement delStmt = conn.prepareStatement("DELETE FROM " + tableName + " WHERE " + typeColumn + " LIKE 'Placeholder_%' AND Location = ?")) {
+            try (ResultSet rs = selStmt.executeQuery()) {
+                while (rs.next()) {
+                    String loc = rs.getString("Location");
+                    insStmt.setString(1, datatype);
+                    insStmt.setString(2, loc);
+                    insStmt.executeUpdate();
+                    delStmt.setString(1, loc);
+                    delStmt.executeUpdate();
+                    LOGGER.log(Level.INFO, "Migrated placeholder location {0} of {1}", new Object[]{loc, tableName});
+                }
+            }
+        }
+
+        String indexName = "idx_" + tableName.toLowerCase() + "_location";
+        try (ResultSet rs = metaData.getIndexInfo(null, null, tableName, false, false)) {
+            while (rs.next()) {
+                if (indexName.equals(rs.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX " + indexName + " ON " + tableName + "(Location)");
+            LOGGER.log(Level.INFO, "Created index {0} on {1} table", new Object[]{indexName, tableName});
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to create index {0}: {1}", new Object[]{indexName, e.getMessage()});
+        }
+    }
+
+    // Migration 3: what both TableListPanels used to check on every start.
+    private static void addRequiresLicenseKeyColumn(Connection conn) throws SQLException {
+        try (ResultSet columns = conn.getMetaData().getColumns(null, null, "TableInformation", "RequiresLicenseKey")) {
+            if (columns.next()) {
+                return;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE TableInformation ADD RequiresLicenseKey BOOLEAN");
+        }
+        LOGGER.log(Level.INFO, "Added RequiresLicenseKey BOOLEAN column to TableInformation");
+    }
+
+    // Migration 4: the peripheral DAOs and StockDeltaBuffer merge stock per (type, Location) and
+    // rely on the table keeping one row per pair. Tables created by migration 1 before it had the
+    // constraint lack it, so merge any duplicate rows into the oldest one and add the index.
+    private static void addPeripheralUniqueIndexes(Connection conn) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        for (String[] peripheral : PERIPHERAL_TABLES) {
+            String tableName = peripheral[0];
+            String typeColumn = peripheral[1];
+            if (!tableExists(metaData, tableName) || hasUniqueIndex(metaData, tableName, typeColumn, "Location")) {
+                continue;
+            }
+            mergeDuplicateRows(conn, tableName, typeColumn);
+            String indexName = "uq_" + tableName.toLowerCase() + "_type_location";
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE UNIQUE INDEX " + indexName + " ON " + tableName + " (" + typeColumn + ", Location)");
+            }
+            LOGGER.log(Level.INFO, "Created unique index {0} on {1} table", new Object[]{indexName, tableName});
+        }
+    }
+
+    private static boolean hasUniqueIndex(DatabaseMetaData metaData, String tableName, String... columns) throws SQLException {
+        Set<String> wanted = new HashSet<>();
+        for (String column : columns) {
+            wanted.add(column.toUpperCase());
+        }
+        Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, tableName, true, false)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (indexName != null && column != null) {
+                    uniqueIndexes.computeIfAbsent(indexName, k -> new HashSet<>()).add(column.toUpperCase());
+                }
+            }
+        }
+        return uniqueIndexes.containsValue(wanted);
+    }
+
+    // Text comparison is case-insensitive, so rows differing only in case count as duplicates.
+    private static void mergeDuplicateRows(Connection conn, String tableName, String typeColumn) throws SQLException {
+        Map<String, Integer> keptIds = new HashMap<>();
+        Map<Integer, Integer> addedCounts = new HashMap<>();
+        Set<Integer> duplicateIds = new HashSet<>();
+        String selectSql = "SELECT ID, " + typeColumn + ", Location, [Count] FROM " + tableName + " ORDER BY ID";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(selectSql)) {
+            while (rs.next()) {
+                String type = rs.getString(2);
+                String location = rs.getString(3);
+                if (type == null || location == null) {
+                    continue;
+                }
+                int id = rs.getInt(1);
+                Integer keptId = keptIds.putIfAbsent(type.toUpperCase() + '\0' + location.toUpperCase(), id);
+                if (keptId != null) {
+                    addedCounts.merge(keptId, rs.getInt(4), Integer::sum);
+                    duplicateIds.add(id);
+                }
+            }
+        }
+        if (duplicateIds.isEmpty()) {
+            return;
+        }
+        // One transaction, so a failed run never leaves counts added without the duplicates removed.
+        conn.setAutoCommit(false);
+        try (PreparedStatement updStmt = conn.prepareStatement("UPDATE " + tableName + " SET [Count] = [Count] + ? WHERE ID = ?");
+             PreparedStatement delStmt = conn.prepareStatement("DELETE FROM " + tableName + " WHERE ID = ?")) {
+            for (Map.Entry<Integer, Integer> entry : addedCounts.entrySet()) {
+                updStmt.setInt(1, entry.getValue());
+                updStmt.setInt(2, entry.getKey());
+                updStmt.executeUpdate();
+            }
+            for (Integer id : duplicateIds) {
+                delStmt.setInt(1, id);
+                delStmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        LOGGER.log(Level.INFO, "Merged {0} duplicate (type, Location) rows of {1} table",
+                new Object[]{duplicateIds.size(), tableName});
+    }
+}
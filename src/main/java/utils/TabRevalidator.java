@@ -0,0 +1,106 @@
+package utils;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingWorker;
+
+// Stale-while-revalidate for the main tabs: a tab shows its cached content as soon as it is
+// selected, and the check for changes runs in the background. If the database file has not been
+// written since the tab was loaded nothing is queried at all; otherwise the tab's own change
+// token decides whether it has to reload. Used on the EDT only.
+public class TabRevalidator {
+    private static final Logger LOGGER = Logger.getLogger(TabRevalidator.class.getName());
+    private static final Map<CachedTab, Tokens> LOADED = new WeakHashMap<>();
+
+    private static final class Tokens {
+        final String fileStamp;
+        final String token;
+
+        Tokens(String fileStamp, String token) {
+            this.fileStamp = fileStamp;
+            this.token = token;
+        }
+    }
+
+    // Records that the tab was loaded; fileStamp must be taken before its data was read, so that
+    // a write made during the load still counts as a change.
+    public static void loaded(CachedTab tab, String fileStamp) {
+        LOADED.put(tab, new Tokens(fileStamp, null));
+    }
+
+    public static void revalidate(CachedTab tab) {
+        Tokens last = LOADED.get(tab);
+        new SwingWorker<Tokens, Void>() {
+            @Override
+            protected Tokens doInBackground() throws SQLException {
+                String fileStamp = databaseFileStamp();
+                if (last != null && fileStamp.equals(last.fileStamp)) {
+                    return last;
+                }
+                return new Tokens(fileStamp, tab.computeChangeToken());
+            }
+
+            @Override
+            protected void done() {
+                Tokens current;
+                try {
+                    current = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Could not check {0} for changes, reloading: {1}",
+                            new Object[]{tab.getClass().getSimpleName(), e.getMessage()});
+                    LOADED.remove(tab);
+                    tab.reload();
+                    return;
+                }
+                if (current == last) {
+                    LOGGER.log(Level.FINE, "Database file unchanged, keeping {0}", tab.getClass().getSimpleName());
+                    return;
+                }
+                LOADED.put(tab, current);
+                if (last != null && current.token != null && current.token.equals(last.token)) {
+                    LOGGER.log(Level.INFO, "No changes for {0}, keeping its content", tab.getClass().getSimpleName());
+                    return;
+                }
+                LOGGER.log(Level.INFO, "Data of {0} changed, reloading", tab.getClass().getSimpleName());
+                tab.reload();
+            }
+        }.execute();
+    }
+
+    // Modification time and size of the database file, which change with every committed write
+    // from this or any other copy of the application.
+    public static String databaseFileStamp() {
+        String path = DatabaseUtils.getDatabasePath();
+        if (path == null) {
+            return "";
+        }
+        // getDatabasePath() gives the path with Windows separators
+        File file = new File(path.replace('\\', File.separatorChar));
+        return file.lastModified() + ":" + file.length();
+    }
+
+    // Joins the first row of a query, e.g. "SELECT COUNT(*), SUM([Count]) FROM Adapters", into a token.
+    public static String queryToken(String sql) throws SQLException {
+        try (Connection conn = DatabaseUtils.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            StringBuilder token = new StringBuilder();
+            if (rs.next()) {
+                for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                    token.append(Objects.toString(rs.getObject(i))).append(';');
+                }
+            }
+            return token.toString();
+        }
+    }
+}
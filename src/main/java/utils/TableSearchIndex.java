@@ -0,0 +1,302 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// In-memory full-text index of one inventory/software table, used instead of a
+// LIKE '%text%' OR-chain over every column. The index is built with one table scan the first
+// time the table is searched and is then kept current from the ChangeBus: written rows are
+// re-read by key, while schema changes and writes that cannot name their rows drop the index.
+// The Refresh button also drops it, so that it is rebuilt on the next search.
+public class TableSearchIndex {
+    private static final Logger LOGGER = Logger.getLogger(TableSearchIndex.class.getName());
+    private static final int IN_CLAUSE_CHUNK_SIZE = 200;
+    private static final Map<String, TableSearchIndex> INDEXES = new ConcurrentHashMap<>();
+    // Tables found to have duplicate or null keys, so that they are not rescanned on every search.
+    private static final Set<String> UNINDEXABLE = ConcurrentHashMap.newKeySet();
+    private static final Map<String, Object> BUILD_LOCKS = new ConcurrentHashMap<>();
+    // Held here because ChangeBus only keeps weak references to its listeners.
+    private static final ChangeBus.Listener CHANGE_LISTENER = TableSearchIndex::changed;
+
+    static {
+        ChangeBus.subscribe(CHANGE_LISTENER);
+    }
+
+    private final String tableName;
+    private final String keyColumn;
+    private final TextSearchIndex index = new TextSearchIndex();
+    private final Map<Object, Integer> idsByKey = new HashMap<>();
+    private final List<Object> keysById = new ArrayList<>();
+    // The row values as read, so that matches can be shown without reading them again.
+    private final List<String[]> valuesById = new ArrayList<>();
+    private String[] columnNames = new String[0];
+
+    private TableSearchIndex(String tableName, String keyColumn) {
+        this.tableName = tableName;
+        this.keyColumn = keyColumn;
+    }
+
+    // Returns the index for the table, building it if needed, or null when the table has no
+    // unique non-null key column to identify rows by.
+    public static TableSearchIndex get(String tableName) throws SQLException {
+        TableSearchIndex existing = INDEXES.get(key(tableName));
+        if (existing != null || UNINDEXABLE.contains(key(tableName))) {
+            return existing;
+        }
+        // Locked per table, so that different tables can be indexed at the same time.
+        synchronized (BUILD_LOCKS.computeIfAbsent(key(tableName), k -> new Object())) {
+            existing = INDEXES.get(key(tableName));
+            if (existing != null || UNINDEXABLE.contains(key(tableName))) {
+                return existing;
+            }
+            TableSearchIndex built = build(tableName);
+            if (built != null) {
+                INDEXES.put(key(tableName), built);
+            } else {
+                UNINDEXABLE.add(key(tableName));
+            }
+            return built;
+        }
+    }
+
+    public static void invalidate(String tableName) {
+        if (tableName == null) {
+            return;
+        }
+        UNINDEXABLE.remove(key(tableName));
+        if (INDEXES.remove(key(tableName)) != null) {
+            LOGGER.log(Level.INFO, "Dropped search index for table {0}", tableName);
+        }
+    }
+
+    public static void invalidateAll() {
+        INDEXES.clear();
+        UNINDEXABLE.clear();
+    }
+
+    private static void changed(ChangeBus.Change change) {
+        if (change.getTable() == null) {
+            invalidateAll();
+        } else if (change.getKind() == ChangeBus.Kind.SCHEMA || change.getKeys() == null) {
+            invalidate(change.getTable());
+        } else if (change.getKind() == ChangeBus.Kind.DELETE) {
+            rowsDeleted(change.getTable(), change.getKeyColumn(), change.getKeys());
+        } else {
+            rowsChanged(change.getTable(), change.getKeyColumn(), change.getKeys());
+        }
+    }
+
+    // Re-reads the rows with the given values in keyColumn so that inserts, updates and deletes
+    // are reflected. Keys that no longer exist are removed. Does nothing if the table has not
+    // been indexed yet.
+    private static void rowsChanged(String tableName, String keyColumn, Collection<?> rowKeys) {
+        TableSearchIndex existing = tableName == null ? null : INDEXES.get(key(tableName));
+        if (existing == null || rowKeys == null || rowKeys.isEmpty()) {
+            return;
+        }
+        if (!existing.keyColumn.equalsIgnoreCase(keyColumn)) {
+            // Rows were identified by some other column; rebuild rather than guess.
+            invalidate(tableName);
+            return;
+        }
+        try {
+            existing.refresh(rowKeys);
+            if (existing.index.needsCompaction()) {
+                invalidate(tableName);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error updating search index for table {0}, dropping it: {1}",
+                    new Object[]{tableName, e.getMessage()});
+            invalidate(tableName);
+        }
+    }
+
+    // Drops deleted rows without going back to the database.
+    private static void rowsDeleted(String tableName, String keyColumn, Collection<?> rowKeys) {
+        TableSearchIndex existing = INDEXES.get(key(tableName));
+        if (existing == null) {
+            return;
+        }
+        if (!existing.keyColumn.equalsIgnoreCase(keyColumn)) {
+            invalidate(tableName);
+            return;
+        }
+        synchronized (existing) {
+            for (Object rowKey : rowKeys) {
+                existing.removeRow(rowKey);
+            }
+        }
+        if (existing.index.needsCompaction()) {
+            invalidate(tableName);
+        }
+    }
+
+    // Predicate over row keys (as returned by the database) that accepts the rows containing the text.
+    public Predicate<Object> matcher(String text) {
+        Set<Object> matches = matchingKeys(text);
+        return rowKey -> rowKey != null && matches.contains(normalizeKey(rowKey));
+    }
+
+    // Keys of the rows containing the text, trimmed and upper case for text keys.
+    public Set<Object> matchingKeys(String text) {
+        long start = System.nanoTime();
+        Set<Object> matches = new HashSet<>();
+        synchronized (this) {
+            BitSet ids = index.search(text);
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                matches.add(keysById.get(id));
+            }
+        }
+        LOGGER.log(Level.INFO, "Index search of table {0} for ''{1}'': {2} rows in {3} us",
+                new Object[]{tableName, text, matches.size(), (System.nanoTime() - start) / 1000});
+        return matches;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    // Column name -> trimmed value of the row with the key as returned by matchingKeys(), or
+    // null if there is no such row.
+    public synchronized Map<String, String> getRow(Object rowKey) {
+        Integer id = rowKey == null ? null : idsByKey.get(normalizeKey(rowKey));
+        if (id == null) {
+            return null;
+        }
+        String[] values = valuesById.get(id);
+        Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < columnNames.length; i++) {
+            row.put(columnNames[i], values[i] != null ? values[i].trim() : "");
+        }
+        return row;
+    }
+
+    private static TableSearchIndex build(String tableName) throws SQLException {
+        String keyColumn = SchemaCache.getSchema(tableName).getRowKeyColumn();
+        if (keyColumn == null) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        TableSearchIndex built = new TableSearchIndex(tableName, keyColumn);
+        try (Connection conn = DatabaseUtils.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM [" + tableName + "]")) {
+            int keyIndex = findColumn(rs, keyColumn);
+            if (keyIndex < 0) {
+                return null;
+            }
+            while (rs.next()) {
+                if (!built.addRow(rs, keyIndex)) {
+                    LOGGER.log(Level.INFO, "Column {0} of table {1} is not a unique row key, not indexing",
+                            new Object[]{keyColumn, tableName});
+                    return null;
+                }
+            }
+        }
+        LOGGER.log(Level.INFO, "Built search index for table {0}: {1} rows in {2} ms",
+                new Object[]{tableName, built.index.size(), System.currentTimeMillis() - start});
+        return built;
+    }
+
+    private synchronized void refresh(Collection<?> rowKeys) throws SQLException {
+        List<Object> pending = new ArrayList<>();
+        for (Object rowKey : rowKeys) {
+            if (rowKey != null) {
+                removeRow(rowKey);
+                pending.add(rowKey);
+            }
+        }
+        try (Connection conn = DatabaseUtils.getConnection()) {
+            for (int from = 0; from < pending.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<Object> chunk = pending.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, pending.size()));
+                String sql = "SELECT * FROM [" + tableName + "] WHERE [" + keyColumn + "] IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setObject(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        int keyIndex = findColumn(rs, keyColumn);
+                        while (rs.next()) {
+                            removeRow(rs.getObject(keyIndex));
+                            if (!addRow(rs, keyIndex)) {
+                                throw new SQLException("Duplicate or null " + keyColumn + " in table " + tableName);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean addRow(ResultSet rs, int keyIndex) throws SQLException {
+        Object rowKey = rs.getObject(keyIndex);
+        if (rowKey == null || idsByKey.containsKey(normalizeKey(rowKey))) {
+            return false;
+        }
+        int columnCount = rs.getMetaData().getColumnCount();
+        if (columnNames.length != columnCount) {
+            columnNames = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columnNames[i] = rs.getMetaData().getColumnName(i + 1);
+            }
+        }
+        String[] values = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            values[i] = rs.getString(i + 1);
+        }
+        int id = index.add((Object[]) values);
+        idsByKey.put(normalizeKey(rowKey), id);
+        while (keysById.size() <= id) {
+            keysById.add(null);
+            valuesById.add(null);
+        }
+        keysById.set(id, normalizeKey(rowKey));
+        valuesById.set(id, values);
+        return true;
+    }
+
+    private void removeRow(Object rowKey) {
+        Integer id = rowKey == null ? null : idsByKey.remove(normalizeKey(rowKey));
+        if (id != null) {
+            index.remove(id);
+            keysById.set(id, null);
+            valuesById.set(id, null);
+        }
+    }
+
+    private static int findColumn(ResultSet rs, String column) throws SQLException {
+        for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+            if (rs.getMetaData().getColumnName(i).equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Text comparisons in UCanAccess are case-insensitive, so keys are matched the same way.
+    private static Object normalizeKey(Object rowKey) {
+        return rowKey instanceof String ? ((String) rowKey).trim().toUpperCase() : rowKey;
+    }
+
+    private static String key(String tableName) {
+        return tableName.toUpperCase();
+    }
+}
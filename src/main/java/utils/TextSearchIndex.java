@@ -0,0 +1,146 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Case-insensitive substring index over rows of text. Every row is split into character
+// trigrams and each trigram maps to a sorted int posting list of row ids. A search intersects
+// the posting lists of the query's trigrams and confirms the few candidates with contains(),
+// so a query never scans rows that cannot match. Queries shorter than three characters fall
+// back to scanning the stored text, which is still only one String per row.
+// Values of a row are indexed separately, so a match never spans two cells.
+public class TextSearchIndex {
+    private static final char VALUE_SEPARATOR = '\n';
+
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final List<String> texts = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private int liveCount;
+
+    // Returns the id of the new row. Ids are never reused.
+    public synchronized int add(Object... values) {
+        int id = texts.size();
+        StringBuilder text = new StringBuilder();
+        for (Object value : values) {
+            if (value != null) {
+                text.append(value.toString().toLowerCase()).append(VALUE_SEPARATOR);
+            }
+        }
+        String rowText = text.toString();
+        texts.add(rowText);
+        live.set(id);
+        liveCount++;
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i + 3 <= rowText.length(); i++) {
+            long trigram = trigram(rowText, i);
+            if (trigram >= 0 && seen.add(trigram)) {
+                postings.computeIfAbsent(trigram, k -> new IntList()).add(id);
+            }
+        }
+        return id;
+    }
+
+    // Removed ids stay in the posting lists and are masked out by the live set until compact().
+    public synchronized void remove(int id) {
+        if (id >= 0 && id < texts.size() && live.get(id)) {
+            live.clear(id);
+            texts.set(id, null);
+            liveCount--;
+        }
+    }
+
+    public synchronized int size() {
+        return liveCount;
+    }
+
+    public synchronized boolean needsCompaction() {
+        return texts.size() > 1024 && liveCount < texts.size() / 2;
+    }
+
+    // Returns the ids of the rows containing the text; an empty query matches every row.
+    public synchronized BitSet search(String query) {
+        String q = query == null ? "" : query.toLowerCase();
+        BitSet result = new BitSet();
+        if (q.isEmpty()) {
+            result.or(live);
+            return result;
+        }
+        if (q.length() < 3 || q.indexOf(VALUE_SEPARATOR) >= 0) {
+            for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+                if (texts.get(id).contains(q)) {
+                    result.set(id);
+                }
+            }
+            return result;
+        }
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            trigrams.add(trigram(q, i));
+        }
+        List<IntList> lists = new ArrayList<>();
+        for (Long trigram : trigrams) {
+            IntList list = postings.get(trigram);
+            if (list == null) {
+                return result;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] candidates = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = intersect(candidates, count, lists.get(i));
+        }
+        for (int i = 0; i < count; i++) {
+            int id = candidates[i];
+            if (live.get(id) && texts.get(id).contains(q)) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    // Intersects the first count entries of target with a sorted posting list, in place.
+    private static int intersect(int[] target, int count, IntList list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            int value = target[i];
+            while (j < list.size && list.values[j] < value) {
+                j++;
+            }
+            if (j < list.size && list.values[j] == value) {
+                target[kept++] = value;
+            }
+        }
+        return kept;
+    }
+
+    private static long trigram(String text, int offset) {
+        char a = text.charAt(offset);
+        char b = text.charAt(offset + 1);
+        char c = text.charAt(offset + 2);
+        if (a == VALUE_SEPARATOR || b == VALUE_SEPARATOR || c == VALUE_SEPARATOR) {
+            return -1;
+        }
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
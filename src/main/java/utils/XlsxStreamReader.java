@@ -0,0 +1,249 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+// Reads the first sheet of an .xlsx file with a SAX parser over the sheet XML instead of
+// building an XSSFWorkbook, so memory stays bounded by the shared strings table plus the
+// rows the caller keeps. Cell values are converted the same way the import pipeline always
+// has: dates as yyyy-MM-dd, other numbers as Java doubles, booleans as true/false.
+public class XlsxStreamReader {
+    private static final Logger LOGGER = Logger.getLogger(XlsxStreamReader.class.getName());
+
+    public static void read(File file, RowHandler handler) throws IOException {
+        long start = System.currentTimeMillis();
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = isDate1904(reader);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(sharedStrings, styles, date1904, handler));
+                parser.parse(new InputSource(sheet));
+            } catch (StopReading e) {
+                // Handler asked for no more rows
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid .xlsx file: " + e.getMessage(), e);
+        }
+        LOGGER.log(Level.INFO, "Streamed {0} in {1} ms", new Object[]{file.getName(), System.currentTimeMillis() - start});
+    }
+
+    private static boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        final boolean[] date1904 = {false};
+        try (InputStream workbook = reader.getWorkbookData()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+                    if ("workbookPr".equals(localName)) {
+                        String value = attributes.getValue("date1904");
+                        date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                        throw new StopReading();
+                    } else if ("sheets".equals(localName)) {
+                        throw new StopReading();
+                    }
+                }
+            });
+            parser.parse(new InputSource(workbook));
+        } catch (StopReading e) {
+            // Found what we needed
+        }
+        return date1904[0];
+    }
+
+    private static class StopReading extends SAXException {
+        StopReading() {
+            super("Stop reading");
+        }
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler handler;
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        private final StringBuilder text = new StringBuilder();
+        private final List<String> currentRow = new ArrayList<>();
+        private int columnCount = -1;
+        private boolean inValue;
+        private boolean inInlineText;
+        private String cellType;
+        private String cellStyle;
+        private int cellColumn;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904, RowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    currentRow.clear();
+                    break;
+                case "c":
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    String ref = attributes.getValue("r");
+                    cellColumn = ref != null ? columnIndex(ref) : currentRow.size();
+                    text.setLength(0);
+                    break;
+                case "v":
+                    inValue = true;
+                    text.setLength(0);
+                    break;
+                case "t":
+                    if ("inlineStr".equals(cellType)) {
+                        inInlineText = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue || inInlineText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                    inValue = false;
+                    break;
+                case "t":
+                    inInlineText = false;
+                    break;
+                case "c":
+                    while (currentRow.size() < cellColumn) {
+                        currentRow.add("");
+                    }
+                    String value = convert(text.toString());
+                    if (currentRow.size() == cellColumn) {
+                        currentRow.add(value);
+                    } else {
+                        currentRow.set(cellColumn, value);
+                    }
+                    break;
+                case "row":
+                    if (!emitRow()) {
+                        throw new StopReading();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private boolean emitRow() {
+            if (columnCount < 0) {
+                // The header row fixes the width of every row that follows.
+                columnCount = currentRow.size();
+                String[] headers = new String[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    headers[i] = currentRow.get(i).replace(" ", "_");
+                }
+                return handler.handleRow(headers);
+            }
+            String[] values = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                values[i] = i < currentRow.size() ? currentRow.get(i) : "";
+            }
+            return handler.handleRow(values);
+        }
+
+        private String convert(String raw) {
+            if (cellType == null || "n".equals(cellType)) {
+                if (raw.isEmpty()) {
+                    return "";
+                }
+                try {
+                    double number = Double.parseDouble(raw);
+                    if (isDateStyle() && DateUtil.isValidExcelDate(number)) {
+                        return dateFormat.format(DateUtil.getJavaDate(number, date1904));
+                    }
+                    return String.valueOf(number);
+                } catch (NumberFormatException e) {
+                    return raw;
+                }
+            }
+            switch (cellType) {
+                case "s":
+                    try {
+                        return sharedStrings.getItemAt(Integer.parseInt(raw.trim())).getString();
+                    } catch (NumberFormatException e) {
+                        return "";
+                    }
+                case "inlineStr":
+                case "str":
+                    return raw;
+                case "b":
+                    return String.valueOf("1".equals(raw) || "true".equalsIgnoreCase(raw));
+                default:
+                    return "";
+            }
+        }
+
+        private boolean isDateStyle() {
+            if (cellStyle == null || styles == null) {
+                return false;
+            }
+            try {
+                XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(cellStyle));
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private static int columnIndex(String ref) {
+            int column = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char c = ref.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 
 import utils.DatabaseUtils;
+import utils.ChangeBus;
 import utils.UIComponentUtils;
 import view_inventory_tab.TableManager;
 
@@ -187,12 +188,14 @@ public class ModifyRowEntry extends JDialog {
                     ps.executeUpdate();
                 }
             }
+            List<String> changedColumns = new ArrayList<>(Arrays.asList(columnNames));
+            if (newAssetName.equals(primaryKey)) {
+                changedColumns.remove("AssetName");
+            }
+            ChangeBus.publish(ChangeBus.Change.updated(tableName, "AssetName", Arrays.asList(primaryKey, newAssetName), changedColumns));
 
             JOptionPane.showMessageDialog(this, "Row updated successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-            SwingUtilities.invokeLater(() -> {
-                tableManager.refreshDataAndTabs();
-                dispose();
-            });
+            SwingUtilities.invokeLater(this::dispose);
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this, "Error updating row: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             LOGGER.log(Level.SEVERE, "SQLException updating row in table '{0}': {1}", new Object[]{tableName, e.getMessage()});
@@ -1,31 +1,41 @@
 package view_inventory_tab;
 
+import java.awt.BorderLayout;
+import java.awt.Dialog;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
+import utils.ColumnRemover;
 import utils.DatabaseUtils;
+import utils.GlobalSearch;
+import utils.SchemaCache;
+import utils.TableSearchIndex;
 import utils.UIComponentUtils;
 import view_inventory_tab.Add_And_Edit_Entries.AddRowEntry;
 
@@ -39,6 +49,7 @@ public class FilterPanel {
     private final JLabel searchLabel;
     private final JLabel statusLabel;
     private final JLabel deptLabel;
+    private final JButton searchAllButton;
     private final JButton refreshButton;
     private final JButton addRowButton;
     private final JButton addColumnButton;
@@ -49,6 +60,9 @@ public class FilterPanel {
     private final Runnable refreshAction;
     private final TableManager tableManager;
     private final ViewInventoryTab parentTab;
+    // Typing restarts this timer, so the filter only runs once the user pauses.
+    private final Timer searchTimer;
+    private static final int SEARCH_DEBOUNCE_MS = 300;
     private static final Logger LOGGER = Logger.getLogger(FilterPanel.class.getName());
 
     public FilterPanel(TriConsumer<String, String, String> filterAction, Runnable refreshAction, TableManager tableManager, TableListPanel tableListPanel, ViewInventoryTab parentTab) {
@@ -63,12 +77,15 @@ public class FilterPanel {
         this.statusFilter = new JComboBox<>(new String[]{"All", "Active", "Inactive"});
         this.deptLabel = UIComponentUtils.createAlignedLabel("Department:");
         this.deptFilter = new JComboBox<>(new String[]{"All"});
+        this.searchAllButton = new JButton("Search All Tables");
         this.refreshButton = new JButton("Refresh");
         this.addRowButton = new JButton("Add Row");
         this.addColumnButton = new JButton("Add Column");
         this.deleteColumnButton = new JButton("Delete Column");
         this.importDataButton = new JButton("Import Data");
         this.licenseKeyTrackerButton = new JButton("License Key Tracker");
+        this.searchTimer = new Timer(SEARCH_DEBOUNCE_MS, e -> applyFilter());
+        this.searchTimer.setRepeats(false);
         initializeUI();
         checkDepartmentColumn();
     }
@@ -78,24 +95,40 @@ public class FilterPanel {
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                applyFilter();
+                searchTimer.restart();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                applyFilter();
+                searchTimer.restart();
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                applyFilter();
+                searchTimer.restart();
+            }
+        });
+
+        searchField.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusGained(FocusEvent e) {
+                // Indexes every registered table ahead of a Search All Tables.
+                GlobalSearch.prepare();
             }
         });
 
         statusFilter.addActionListener(e -> applyFilter());
         deptFilter.addActionListener(e -> applyFilter());
 
+        searchAllButton.addActionListener(e -> {
+            parentTab.showGlobalSearch(searchField.getText());
+            LOGGER.log(Level.INFO, "Navigated to GlobalSearchPanel from FilterPanel");
+        });
+
         refreshButton.addActionListener(e -> {
+            searchTimer.stop();
+            // Rebuilt on the next search, picking up changes made outside this tab.
+            TableSearchIndex.invalidate(tableManager.getTableName());
             filterAction.accept("", "All", "All");
             refreshAction.run();
             LOGGER.log(Level.INFO, "Refresh button clicked for table '{0}'", tableManager.getTableName());
@@ -127,6 +160,7 @@ public class FilterPanel {
 
         filterPanel.add(searchLabel);
         filterPanel.add(searchField);
+        filterPanel.add(searchAllButton);
         filterPanel.add(statusLabel);
         filterPanel.add(statusFilter);
         if (hasDepartmentColumn) {
@@ -147,13 +181,10 @@ public class FilterPanel {
             hasDepartmentColumn = false;
             return;
         }
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            DatabaseMetaData meta = conn.getMetaData();
-            try (ResultSet rs = meta.getColumns(null, null, tableName, "Department")) {
-                hasDepartmentColumn = rs.next();
-                if (hasDepartmentColumn) {
-                    updateDepartmentFilter();
-                }
+        try {
+            hasDepartmentColumn = SchemaCache.getSchema(tableName).hasColumn("Department");
+            if (hasDepartmentColumn) {
+                updateDepartmentFilter();
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error checking Department column for table '{0}': {1}", new Object[]{tableName, e.getMessage()});
@@ -177,6 +208,7 @@ public class FilterPanel {
     }
 
     private void applyFilter() {
+        searchTimer.stop();
         String searchText = searchField.getText();
         String status = (String) statusFilter.getSelectedItem();
         String dept = hasDepartmentColumn ? (String) deptFilter.getSelectedItem() : "All";
@@ -200,12 +232,11 @@ public class FilterPanel {
             try (Statement stmt = conn.createStatement()) {
                 String sql = "ALTER TABLE [" + tableName + "] ADD [" + finalColumnName + "] VARCHAR(255)";
                 stmt.executeUpdate(sql);
+                SchemaCache.invalidate(tableName);
                 LOGGER.log(Level.INFO, "Added column '{0}' to table '{1}'", new Object[]{finalColumnName, tableName});
             }
             JOptionPane.showMessageDialog(filterPanel, "Column '" + finalColumnName + "' added successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
             SwingUtilities.invokeLater(() -> {
-                tableManager.initializeColumns();
-                tableManager.refreshDataAndTabs();
                 checkDepartmentColumn();
                 LOGGER.log(Level.INFO, "Refreshed table '{0}' after adding column '{1}'", new Object[]{tableName, finalColumnName});
             });
@@ -240,55 +271,57 @@ public class FilterPanel {
         if (columnToDelete == null || columnToDelete.equals("AssetName")) {
             return;
         }
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            String tempTableName = "Temp_" + UUID.randomUUID().toString().replace("-", "");
-            List<String> remainingColumns = new ArrayList<>(Arrays.asList(columns));
-            remainingColumns.remove(columnToDelete);
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Preparing...");
+        JPanel progressPanel = new JPanel(new BorderLayout(5, 5));
+        progressPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        progressPanel.add(new JLabel("Deleting column '" + columnToDelete + "' from table '" + tableName + "'"), BorderLayout.NORTH);
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        // Modal so that the table cannot be edited while it is being rebuilt.
+        JDialog progressDialog = new JDialog(SwingUtilities.getWindowAncestor(filterPanel), "Delete Column", Dialog.ModalityType.APPLICATION_MODAL);
+        progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        progressDialog.setContentPane(progressPanel);
+        progressDialog.pack();
+        progressDialog.setLocationRelativeTo(filterPanel);
 
-            StringBuilder createSql = new StringBuilder("CREATE TABLE [" + tempTableName + "] (");
-            for (int i = 0; i < remainingColumns.size(); i++) {
-                createSql.append("[").append(remainingColumns.get(i)).append("] VARCHAR(255)");
-                if (remainingColumns.get(i).equals("AssetName")) {
-                    createSql.append(" PRIMARY KEY");
-                }
-                if (i < remainingColumns.size() - 1) {
-                    createSql.append(", ");
-                }
+        new SwingWorker<List<String>, int[]>() {
+            @Override
+            protected List<String> doInBackground() throws Exception {
+                return ColumnRemover.removeColumn(tableName, columnToDelete, (copied, total) -> publish(new int[]{copied, total}));
             }
-            createSql.append(")");
-            conn.createStatement().executeUpdate(createSql.toString());
 
-            StringBuilder selectColumns = new StringBuilder();
-            for (int i = 0; i < remainingColumns.size(); i++) {
-                selectColumns.append("[").append(remainingColumns.get(i)).append("]");
-                if (i < remainingColumns.size() - 1) {
-                    selectColumns.append(", ");
-                }
+            @Override
+            protected void process(List<int[]> chunks) {
+                int[] latest = chunks.get(chunks.size() - 1);
+                progressBar.setIndeterminate(false);
+                progressBar.setMaximum(Math.max(latest[1], 1));
+                progressBar.setValue(latest[0]);
+                progressBar.setString("Copied " + latest[0] + " of " + latest[1] + " rows");
             }
-            String insertSql = "INSERT INTO [" + tempTableName + "] (" + selectColumns + ") SELECT " + selectColumns + " FROM [" + tableName + "]";
-            conn.createStatement().executeUpdate(insertSql);
-
-            conn.createStatement().executeUpdate("DROP TABLE [" + tableName + "]");
 
-            String renameSql = "ALTER TABLE [" + tempTableName + "] RENAME TO [" + tableName + "]";
-            conn.createStatement().executeUpdate(renameSql);
-
-            JOptionPane.showMessageDialog(filterPanel, "Column '" + columnToDelete + "' deleted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-            SwingUtilities.invokeLater(() -> {
-                tableManager.setTableName(tableName);
-                tableManager.initializeColumns();
-                tableManager.refreshDataAndTabs();
-                checkDepartmentColumn();
-                LOGGER.log(Level.INFO, "deleteColumnAction: Deleted column '{0}' from table '{1}' and refreshed UI", new Object[]{columnToDelete, tableName});
-            });
-        } catch (SQLException e) {
-            String errorMessage = e.getMessage();
-            if (errorMessage.contains("FeatureNotSupportedException")) {
-                errorMessage = "This version of UCanAccess does not support dropping columns directly. Please contact the administrator or update the database driver.";
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    List<String> failedIndexes = get();
+                    if (failedIndexes.isEmpty()) {
+                        JOptionPane.showMessageDialog(filterPanel, "Column '" + columnToDelete + "' deleted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(filterPanel, "Column '" + columnToDelete + "' deleted, but these indexes could not be recreated: "
+                                + String.join(", ", failedIndexes), "Warning", JOptionPane.WARNING_MESSAGE);
+                    }
+                    checkDepartmentColumn();
+                    LOGGER.log(Level.INFO, "deleteColumnAction: Deleted column '{0}' from table '{1}' and refreshed UI", new Object[]{columnToDelete, tableName});
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(filterPanel, "Error deleting column: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    LOGGER.log(Level.SEVERE, "Error deleting column '{0}' in table '{1}': {2}", new Object[]{columnToDelete, tableName, cause.getMessage()});
+                }
             }
-            JOptionPane.showMessageDialog(filterPanel, "Error deleting column: " + errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
-            LOGGER.log(Level.SEVERE, "SQLException deleting column '{0}' in table '{1}': {2}", new Object[]{columnToDelete, tableName, errorMessage});
-        }
+        }.execute();
+        progressDialog.setVisible(true);
     }
 
     public ViewInventoryTab getViewInventoryTab() {
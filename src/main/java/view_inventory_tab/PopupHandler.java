@@ -3,11 +3,12 @@ package view_inventory_tab;
 import java.awt.Component;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,6 +24,7 @@ import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 import utils.DatabaseUtils;
+import utils.DeletedDevices;
 import view_inventory_tab.Add_And_Edit_Entries.AddRowEntry;
 import view_inventory_tab.Add_And_Edit_Entries.ModifyRowEntry;
 import view_inventory_tab.Add_And_Edit_Entries.MultiRenameDialog;
@@ -64,21 +66,31 @@ public class PopupHandler {
                 JOptionPane.YES_NO_OPTION
             );
             if (confirm == JOptionPane.YES_OPTION) {
-                try (Connection conn = DatabaseUtils.getConnection()) {
-                    String tableName = tableManager.getTableName();
-                    String sql = "DELETE FROM [" + tableName + "] WHERE [AssetName] = ?";
-                    try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                        for (int row : selectedRows) {
-                            String assetName = (String) table.getValueAt(row, table.getColumn("AssetName").getModelIndex());
-                            ps.setString(1, assetName);
-                            ps.executeUpdate();
-                        }
-                    }
-                    tableManager.refreshDataAndTabs();
-                    JOptionPane.showMessageDialog(table, "Row(s) deleted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+                String tableName = tableManager.getTableName();
+                int assetColumn = table.getColumn("AssetName").getModelIndex();
+                List<String> assetNames = new ArrayList<>();
+                for (int row : selectedRows) {
+                    assetNames.add((String) table.getModel().getValueAt(table.convertRowIndexToModel(row), assetColumn));
+                }
+                DeletedDevices deleted;
+                try {
+                    // Removed from the table through the published change, without a reload
+                    deleted = DatabaseUtils.deleteDevices(tableName, assetNames);
                 } catch (SQLException ex) {
                     JOptionPane.showMessageDialog(table, "Error deleting row(s): " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                     LOGGER.log(Level.SEVERE, "SQLException deleting rows: {0}", ex.getMessage());
+                    return;
+                }
+                Object[] options = {"OK", "Undo"};
+                int choice = JOptionPane.showOptionDialog(table, deleted.size() + " row(s) deleted successfully", "Success",
+                        JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+                if (choice == 1) {
+                    try {
+                        DatabaseUtils.restoreDevices(deleted);
+                    } catch (SQLException ex) {
+                        JOptionPane.showMessageDialog(table, "Error restoring row(s): " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        LOGGER.log(Level.SEVERE, "SQLException restoring rows: {0}", ex.getMessage());
+                    }
                 }
             }
         });
@@ -292,33 +304,14 @@ public class PopupHandler {
 
                 int result = JOptionPane.showConfirmDialog(button, panel, "Edit Row", JOptionPane.OK_CANCEL_OPTION);
                 if (result == JOptionPane.OK_OPTION) {
-                    try (Connection conn = DatabaseUtils.getConnection()) {
-                        if (conn == null) {
-                            LOGGER.log(Level.SEVERE, "Failed to establish database connection");
-                            JOptionPane.showMessageDialog(button, "Failed to connect to the database", "Database Error", JOptionPane.ERROR_MESSAGE);
-                            return label;
-                        }
-                        StringBuilder updateSql = new StringBuilder("UPDATE [" + tableName + "] SET ");
-                        for (int i = 0; i < columns.length; i++) {
-                            updateSql.append("[").append(columns[i]).append("] = ?");
-                            if (i < columns.length - 1) updateSql.append(", ");
-                        }
-                        updateSql.append(" WHERE ");
-                        for (int i = 0; i < columns.length; i++) {
-                            updateSql.append("[").append(columns[i]).append("] = ?");
-                            if (i < columns.length - 1) updateSql.append(" AND ");
-                        }
-                        try (PreparedStatement pstmt = conn.prepareStatement(updateSql.toString())) {
-                            for (int i = 0; i < columns.length; i++) {
-                                pstmt.setString(i + 1, fields[i].getText());
-                            }
-                            for (int i = 0; i < columns.length; i++) {
-                                pstmt.setString(columns.length + i + 1, rowData[i] != null ? rowData[i].toString() : null);
-                            }
-                            pstmt.executeUpdate();
-                            LOGGER.log(Level.INFO, "Updated row in table '{0}'", tableName);
-                            tableManager.refreshDataAndTabs();
-                        }
+                    Map<String, Object> original = new LinkedHashMap<>();
+                    Map<String, String> edited = new LinkedHashMap<>();
+                    for (int i = 0; i < columns.length; i++) {
+                        original.put(columns[i], rowData[i]);
+                        edited.put(columns[i], fields[i].getText());
+                    }
+                    try {
+                        DatabaseUtils.updateRow(tableName, original, edited);
                     } catch (SQLException e) {
                         LOGGER.log(Level.SEVERE, "Error updating row in table '{0}': {1}", new Object[]{tableName, e.getMessage()});
                         JOptionPane.showMessageDialog(button, String.format("Error updating row: %s", e.getMessage()), "Database Error", JOptionPane.ERROR_MESSAGE);
@@ -23,7 +23,10 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.ListSelectionModel;
 
+import utils.ChangeBus;
 import utils.DatabaseUtils;
+import utils.SchemaCache;
+import utils.SchemaMigrations;
 
 public class TableListPanel extends JPanel {
 
@@ -92,30 +95,8 @@ public class TableListPanel extends JPanel {
     }
 
     private void ensureTableInformationSchema() {
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            DatabaseMetaData meta = conn.getMetaData();
-            try (ResultSet rs = meta.getTables(null, null, "TableInformation", null)) {
-                if (!rs.next()) {
-                    // Create table if it doesn't exist
-                    try (Statement stmt = conn.createStatement()) {
-                        String sql = "CREATE TABLE TableInformation (ID INTEGER PRIMARY KEY, InventoryTables VARCHAR(255), RequiresLicenseKey BOOLEAN)";
-                        stmt.executeUpdate(sql);
-                        LOGGER.log(Level.INFO, "Created TableInformation table with BOOLEAN RequiresLicenseKey");
-                    }
-                } else {
-                    // Check if RequiresLicenseKey column exists
-                    try (ResultSet columns = meta.getColumns(null, null, "TableInformation", "RequiresLicenseKey")) {
-                        if (!columns.next()) {
-                            // Add RequiresLicenseKey column if missing
-                            try (Statement stmt = conn.createStatement()) {
-                                String sql = "ALTER TABLE TableInformation ADD RequiresLicenseKey BOOLEAN";
-                                stmt.executeUpdate(sql);
-                                LOGGER.log(Level.INFO, "Added RequiresLicenseKey BOOLEAN column to TableInformation");
-                            }
-                        }
-                    }
-                }
-            }
+        try {
+            SchemaMigrations.migrate();
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error ensuring TableInformation table schema: {0}", e.getMessage());
         }
@@ -156,6 +137,7 @@ public class TableListPanel extends JPanel {
             String createSql = "CREATE TABLE [" + newTableName + "] (AssetName VARCHAR(255) PRIMARY KEY)";
             try (Statement stmt = conn.createStatement()) {
                 stmt.executeUpdate(createSql);
+                SchemaCache.invalidate(newTableName);
                 LOGGER.log(Level.INFO, "Created new table '{0}'", newTableName);
             }
 
@@ -169,6 +151,7 @@ public class TableListPanel extends JPanel {
                 ps.executeUpdate();
                 LOGGER.log(Level.INFO, "Added table '{0}' to TableInformation with ID {1}", new Object[]{newTableName, nextId});
             }
+            ChangeBus.publish(ChangeBus.Change.rowsChanged("TableInformation"));
 
             updateTableList();
             viewInventoryTab.getTableManager().setTableName(newTableName);
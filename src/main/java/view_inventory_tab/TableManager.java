@@ -7,10 +7,14 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -19,11 +23,13 @@ import javax.swing.JTable;
 import javax.swing.RowSorter;
 import javax.swing.SortOrder;
 import javax.swing.SwingUtilities;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableColumn;
-import javax.swing.table.TableRowSorter;
 
+import utils.ChangeBus;
 import utils.DatabaseUtils;
+import utils.PagedRowSorter;
+import utils.PagedTableModel;
+import utils.SchemaCache;
 import view_inventory_tab.Add_And_Edit_Entries.RowEditButtonEditor;
 import view_inventory_tab.Add_And_Edit_Entries.RowEditButtonRenderer;
 import view_inventory_tab.license_key_tracker.LicenseKeyTracker;
@@ -31,15 +37,31 @@ import view_inventory_tab.license_key_tracker.LicenseKeyTracker;
 public final class TableManager {
 
     private final JTable table;
-    protected DefaultTableModel model;
+    // Rows are fetched a page at a time as the table scrolls; see PagedTableModel.
+    protected PagedTableModel model;
     private String[] columns;
     private final Map<String, Integer> columnTypes;
-    private TableRowSorter<DefaultTableModel> sorter = null;
+    private PagedRowSorter sorter = null;
     private final List<Integer> sortColumnIndices = new ArrayList<>();
     private final List<SortOrder> sortOrders = new ArrayList<>();
     private String tableName;
     private String whereClause;
+    private String searchText = "";
     private boolean isInitialized = false;
+    private static final int WIDTH_SAMPLE_ROWS = 100;
+    // Filter queries run here so that searching never blocks the EDT. One thread is enough:
+    // only the newest query's result is ever shown.
+    private static final ExecutorService QUERY_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "TableManager-query");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong queryGeneration = new AtomicLong();
+    // Set when a reload must also re-read the rows already shown, rather than only the rows that
+    // changed; cleared when a reload is applied.
+    private boolean rereadRows;
+    // Held here because ChangeBus only keeps weak references to its listeners.
+    private final ChangeBus.Listener changeListener = this::tableChanged;
     private static final Logger LOGGER = Logger.getLogger(TableManager.class.getName());
 
     public TableManager(JTable table, String tableName) {
@@ -48,6 +70,7 @@ public final class TableManager {
         this.whereClause = "";
         this.columnTypes = new HashMap<>();
         createNewModel();
+        ChangeBus.subscribeOnEdt(changeListener);
         if (table != null) {
             table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
             if (this.tableName != null && !this.tableName.isEmpty()) {
@@ -61,10 +84,12 @@ public final class TableManager {
     }
 
     private void createNewModel() {
-        model = new DefaultTableModel();
+        model = new PagedTableModel(true);
+        sortColumnIndices.clear();
+        sortOrders.clear();
         if (table != null) {
             table.setModel(model);
-            sorter = new TableRowSorter<>(model);
+            sorter = new PagedRowSorter(model, 1);
             table.setRowSorter(sorter);
         }
     }
@@ -95,15 +120,8 @@ public final class TableManager {
 
     public void setWhereClause(String searchText, String statusFilter, String deptFilter) {
         StringBuilder where = new StringBuilder();
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            where.append(" WHERE (");
-            for (String column : columns) {
-                where.append("[").append(column).append("] LIKE '%").append(searchText.replace("'", "''")).append("%'");
-                where.append(" OR ");
-            }
-            where.setLength(where.length() - 4); // Remove last " OR "
-            where.append(")");
-        }
+        // The search text is matched by the model, from the table's search index when possible.
+        this.searchText = searchText != null ? searchText.trim() : "";
         if (statusFilter != null && !statusFilter.equals("All")) {
             if (where.length() > 0) {
                 where.append(" AND ");
@@ -121,49 +139,32 @@ public final class TableManager {
             where.append("[Department] = '").append(deptFilter.replace("'", "''")).append("'");
         }
         this.whereClause = where.toString();
-        LOGGER.log(Level.INFO, "Set whereClause for table '{0}': {1}", new Object[]{tableName, whereClause});
+        LOGGER.log(Level.INFO, "Set whereClause for table '{0}': {1}, search='{2}'", new Object[]{tableName, whereClause, this.searchText});
     }
 
     public void refreshDataAndTabs() {
+        // Supersedes any background refresh still in flight.
+        queryGeneration.incrementAndGet();
         if (tableName == null || tableName.isEmpty()) {
             LOGGER.log(Level.WARNING, "No table name set for refreshDataAndTabs");
-            model.setRowCount(0);
-            model.setColumnCount(0);
+            model.clear();
             if (table != null) {
                 table.revalidate();
                 table.repaint();
             }
             return;
         }
-        if (!isInitialized) {
-            initializeColumns();
-        }
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            String sql = "SELECT * FROM [" + tableName + "]" + whereClause;
-            try (Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-                 ResultSet rs = stmt.executeQuery(sql)) {
-                String[] newColumns = getColumnsFromResultSet(rs);
-                if (!columnsMatch(newColumns)) {
-                    initializeColumns();
-                }
-                model.setRowCount(0);
-                Object[] row = new Object[columns.length + 1];
-                int rowCount = 0;
-                while (rs.next()) {
-                    row[0] = "Edit";
-                    for (int i = 0; i < columns.length; i++) {
-                        row[i + 1] = rs.getObject(i + 1);
-                    }
-                    model.addRow(row);
-                    rowCount++;
-                }
-                LOGGER.log(Level.INFO, "Loaded {0} rows for table '{1}'", new Object[]{rowCount, tableName});
-                if (rowCount > 0 && !model.getDataVector().isEmpty()) {
-                    LOGGER.log(Level.INFO, "Sample row data for '{0}': {1}", new Object[]{tableName, model.getDataVector().get(0)});
-                }
+        try {
+            if (!isInitialized || !columnsMatch(SchemaCache.getSchema(tableName).getColumnNames())) {
+                initializeColumns();
             }
+            model.setWhereClause(whereClause);
+            model.setSearchText(searchText);
+            model.reload();
+            rereadRows = false;
+            LOGGER.log(Level.INFO, "Loaded {0} rows for table '{1}'", new Object[]{model.getRowCount(), tableName});
             if (table != null) {
-                table.setModel(model);
+                adjustColumnWidths();
                 table.revalidate();
                 table.repaint();
                 LOGGER.log(Level.INFO, "Table UI refreshed for '{0}'", tableName);
@@ -176,18 +177,156 @@ public final class TableManager {
         }
     }
 
+    // Like refreshDataAndTabs, but runs the filter query on a background thread and publishes the
+    // rows on the EDT. Calling it again before the query finishes supersedes the earlier call.
+    public void refreshDataAsync() {
+        rereadRows = true;
+        reloadKeysAsync();
+    }
+
+    // Reloads the row keys on a background thread and applies them as a diff: added and removed
+    // rows are inserted and deleted in place, and rows already loaded are re-read only if
+    // rereadRows is set.
+    private void reloadKeysAsync() {
+        if (tableName == null || tableName.isEmpty() || !isInitialized) {
+            refreshDataAndTabs();
+            return;
+        }
+        model.setWhereClause(whereClause);
+        model.setSearchText(searchText);
+        PagedTableModel.Query query = model.prepareReload();
+        long generation = queryGeneration.incrementAndGet();
+        String queryTable = tableName;
+        QUERY_EXECUTOR.execute(() -> {
+            if (generation != queryGeneration.get()) {
+                return; // Superseded before it started
+            }
+            try {
+                PagedTableModel.Snapshot snapshot = query.run();
+                SwingUtilities.invokeLater(() -> {
+                    if (generation != queryGeneration.get() || !model.apply(snapshot, !rereadRows)) {
+                        return;
+                    }
+                    rereadRows = false;
+                    LOGGER.log(Level.INFO, "Loaded {0} rows for table '{1}'", new Object[]{model.getRowCount(), queryTable});
+                    if (table != null) {
+                        table.revalidate();
+                        table.repaint();
+                    }
+                });
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error refreshing data for table '{0}': {1}", new Object[]{queryTable, e.getMessage()});
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == queryGeneration.get()) {
+                        JOptionPane.showMessageDialog(table, "Error loading data: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
+            }
+        });
+    }
+
+    // Applies writes made anywhere in the application to the rows on screen without losing the
+    // selection or scroll position. Updated rows are re-read by key; only inserts and updates that
+    // can move rows in or out of the filter or reorder them reload the key list, which is then
+    // applied as a diff.
+    private void tableChanged(ChangeBus.Change change) {
+        if (!isInitialized || tableName == null || !change.affects(tableName)) {
+            return;
+        }
+        if (change.getKind() == ChangeBus.Kind.SCHEMA) {
+            try {
+                if (SchemaCache.getSchema(tableName).getColumnNames().isEmpty()) {
+                    LOGGER.log(Level.INFO, "Table '{0}' no longer exists, keeping the rows shown", tableName);
+                    return;
+                }
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error reading schema of table '{0}': {1}", new Object[]{tableName, e.getMessage()});
+                return;
+            }
+            refreshDataAndTabs();
+            return;
+        }
+        if (change.getKind() == ChangeBus.Kind.DELETE && model.rowsDeleted(change.getKeyColumn(), change.getKeys())) {
+            return;
+        }
+        if (change.getKind() == ChangeBus.Kind.INSERT || (change.getKind() == ChangeBus.Kind.UPDATE
+                && model.rowsUpdated(change.getKeyColumn(), change.getKeys()))) {
+            // The changed rows themselves are already re-read or not loaded yet
+            if (change.getKind() == ChangeBus.Kind.INSERT || changesRowSet(change)) {
+                reloadKeysAsync();
+            }
+            return;
+        }
+        refreshDataAsync();
+    }
+
+    private boolean changesRowSet(ChangeBus.Change change) {
+        if (!searchText.isEmpty() || change.getColumns() == null || change.affectsColumn(change.getKeyColumn())) {
+            return true;
+        }
+        String where = whereClause.toUpperCase();
+        for (String column : columns) {
+            if (change.affectsColumn(column) && where.contains("[" + column.toUpperCase() + "]")) {
+                return true;
+            }
+        }
+        for (RowSorter.SortKey key : model.getSortKeys()) {
+            if (change.affectsColumn(model.getColumnName(key.getColumn()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Shows the rows matching whereClause and searchText without replacing the filter set through
+    // setWhereClause; the next refreshDataAndTabs goes back to that filter.
+    public void loadRows(String whereClause, String searchText) throws SQLException {
+        queryGeneration.incrementAndGet();
+        if (!isInitialized) {
+            initializeColumns();
+        }
+        model.setWhereClause(whereClause);
+        model.setSearchText(searchText);
+        model.reload();
+        LOGGER.log(Level.INFO, "Loaded {0} rows for table '{1}'", new Object[]{model.getRowCount(), tableName});
+        if (table != null) {
+            adjustColumnWidths();
+            table.revalidate();
+            table.repaint();
+        }
+    }
+
+    // Shows rows already held in memory, e.g. by LicenseKeyAnalytics, instead of querying for them;
+    // see PagedTableModel.showRows. Returns false without changing anything when the rows were read
+    // with other columns than the table shows; the caller then falls back to loadRows.
+    public boolean showRows(String whereClause, String searchText, String[] rowColumns, String rowKeyColumn, List<Object[]> rows) {
+        if (!isInitialized || !Arrays.equals(columns, rowColumns)) {
+            return false;
+        }
+        queryGeneration.incrementAndGet();
+        model.showRows(whereClause, searchText, rowKeyColumn, rows);
+        LOGGER.log(Level.INFO, "Showing {0} rows of table '{1}' from memory", new Object[]{model.getRowCount(), tableName});
+        if (table != null) {
+            adjustColumnWidths();
+            table.revalidate();
+            table.repaint();
+        }
+        return true;
+    }
+
     public void initializeColumns() {
         try (Connection conn = DatabaseUtils.getConnection()) {
             String sql = "SELECT * FROM [" + tableName + "] WHERE 1=0";
             try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
                 String[] newColumns = getColumnsFromResultSet(rs);
-                model.setColumnIdentifiers(new Object[]{"Edit"});
                 columnTypes.clear();
                 for (String column : newColumns) {
-                    model.addColumn(column);
                     columnTypes.put(column, Types.VARCHAR);
                 }
                 columns = newColumns;
+                sortColumnIndices.clear();
+                sortOrders.clear();
+                model.setColumns(tableName, newColumns);
                 TableColumn editColumn = table.getColumnModel().getColumn(0);
                 editColumn.setCellRenderer(new RowEditButtonRenderer());
                 editColumn.setCellEditor(new RowEditButtonEditor(table, this));
@@ -207,16 +346,8 @@ public final class TableManager {
         }
     }
 
-    private boolean columnsMatch(String[] newColumns) {
-        if (columns == null || newColumns.length != columns.length + 1) {
-            return false;
-        }
-        for (int i = 0; i < columns.length; i++) {
-            if (!columns[i].equals(newColumns[i + 1])) {
-                return false;
-            }
-        }
-        return true;
+    private boolean columnsMatch(List<String> newColumns) {
+        return columns != null && Arrays.asList(columns).equals(newColumns);
     }
 
     private String[] getColumnsFromResultSet(ResultSet rs) throws SQLException {
@@ -232,10 +363,12 @@ public final class TableManager {
             return;
         }
         FontMetrics fm = table.getFontMetrics(table.getFont());
+        // Size from the first rows only so that sizing does not page in the whole table.
+        int sampleRows = Math.min(table.getRowCount(), WIDTH_SAMPLE_ROWS);
         for (int col = 0; col < table.getColumnCount(); col++) {
             TableColumn column = table.getColumnModel().getColumn(col);
             int maxWidth = fm.stringWidth(column.getHeaderValue().toString()) + 20;
-            for (int row = 0; row < table.getRowCount(); row++) {
+            for (int row = 0; row < sampleRows; row++) {
                 Object value = table.getValueAt(row, col);
                 if (value != null) {
                     maxWidth = Math.max(maxWidth, fm.stringWidth(value.toString()) + 20);
@@ -267,7 +400,6 @@ public final class TableManager {
             sortKeys.add(new RowSorter.SortKey(sortColumnIndices.get(i) + 1, sortOrders.get(i)));
         }
         sorter.setSortKeys(sortKeys);
-        sorter.sort();
         LOGGER.log(Level.INFO, "Sorted table '{0}' on column index {1}", new Object[]{tableName, columnIndex + 1});
     }
 
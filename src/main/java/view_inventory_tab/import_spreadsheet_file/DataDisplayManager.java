@@ -3,6 +3,7 @@ package view_inventory_tab.import_spreadsheet_file;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,7 +19,7 @@ public class DataDisplayManager {
     private final List<utils.DataEntry> originalData;
     private final Map<String, String> fieldTypes;
     private final HashMap<Integer, String> rowStatus;
-    private static final SimpleDateFormat dbDateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    private final utils.DuplicateClassifier duplicateClassifier = new utils.DuplicateClassifier();
     private static final Logger LOGGER = Logger.getLogger(DataDisplayManager.class.getName());
 
     public DataDisplayManager(ImportDataTab parent, javax.swing.JLabel statusLabel) {
@@ -48,10 +49,8 @@ public class DataDisplayManager {
         originalData.clear();
         originalData.addAll(new DataProcessor().processData(importedData, columnMappings, deviceTypeMappings, 
                                                            parent.getTableColumns(), fieldTypes));
-        for (int i = 0; i < originalData.size(); i++) {
-            rowStatus.put(i, computeRowStatus(i, originalData.get(i)));
-            LOGGER.log(Level.INFO, "Row {0} status computed as: {1}", new Object[]{i, rowStatus.get(i)});
-        }
+        duplicateClassifier.invalidate();
+        recomputeRowStatuses();
         updateTableDisplay();
 
         statusLabel.setText("Data displayed for review with " + originalData.size() + " rows.");
@@ -74,7 +73,7 @@ public class DataDisplayManager {
                     new SimpleDateFormat("dd-MM-yyyy")
                 }) {
                     try {
-                        return dbDateFormat.format(df.parse(value));
+                        return new SimpleDateFormat("yyyy-MM-dd").format(df.parse(value));
                     } catch (java.text.ParseException e) {
                         // Try next format
                     }
@@ -87,53 +86,31 @@ public class DataDisplayManager {
     }
 
     public String computeRowStatus(int rowIndex, utils.DataEntry entry) {
-        String assetName = entry.getData().get("AssetName");
-        String status = "white"; // Default to white (new entry)
-        if (assetName != null && !assetName.trim().isEmpty()) {
-            try {
-                HashMap<String, String> existingDevice = parent.getDatabaseHandler().getDeviceByAssetNameFromDB(
-                    parent.getSelectedTable().replace(" ", "_"), assetName);
-                LOGGER.log(Level.FINE, "Checking duplicate for AssetName {0} in table {1}: {2}", 
-                           new Object[]{assetName, parent.getSelectedTable().replace(" ", "_"), 
-                                        existingDevice != null ? "Found" : "Not found"});
-                if (existingDevice != null) {
-                    boolean isExactMatch = true;
-                    boolean hasNewData = false;
-                    boolean hasConflict = false;
-                    for (Map.Entry<String, String> field : entry.getData().entrySet()) {
-                        String key = field.getKey();
-                        String newValue = field.getValue();
-                        String oldValue = existingDevice.get(key);
-                        String newVal = (newValue == null || newValue.trim().isEmpty()) ? "" : newValue;
-                        String oldVal = normalizeDateValue(oldValue != null ? oldValue : "", key);
-                        if (!newVal.equals(oldVal)) {
-                            isExactMatch = false;
-                            if (newVal.isEmpty()) {
-                                entry.getData().put(key, oldVal);
-                            } else if (oldVal.isEmpty()) {
-                                hasNewData = true;
-                            } else {
-                                hasConflict = true;
-                            }
-                        }
-                    }
-                    if (isExactMatch) {
-                        status = "red"; // Exact duplicate, no new data
-                    } else if (hasConflict) {
-                        status = "yellow"; // Conflict in non-empty fields
-                    } else if (hasNewData) {
-                        status = "green"; // New data to overwrite
-                    }
-                }
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error checking row status for AssetName {0} in table {1}: {2}", 
-                           new Object[]{assetName, parent.getSelectedTable().replace(" ", "_"), e.getMessage()});
-            }
+        String tableName = parent.getSelectedTable().replace(" ", "_");
+        try {
+            return duplicateClassifier.classify(tableName, entry, this::normalizeDateValue);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking row status for AssetName {0} in table {1}: {2}",
+                       new Object[]{entry.getData().get("AssetName"), tableName, e.getMessage()});
+            return entry.isResolved() ? "green" : "white";
         }
-        if (entry.isResolved()) {
-            status = status.equals("red") ? "red" : "green"; // Green unless exact match
+    }
+
+    public void recomputeRowStatuses() {
+        String tableName = parent.getSelectedTable().replace(" ", "_");
+        rowStatus.clear();
+        try {
+            rowStatus.putAll(duplicateClassifier.classifyAll(tableName, originalData, this::normalizeDateValue));
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking row statuses in table {0}: {1}", new Object[]{tableName, e.getMessage()});
+            for (int i = 0; i < originalData.size(); i++) {
+                rowStatus.put(i, originalData.get(i).isResolved() ? "green" : "white");
+            }
         }
-        return status;
+    }
+
+    public void invalidateExistingRows(Collection<String> assetNames) {
+        duplicateClassifier.invalidate(assetNames);
     }
 
     public void updateTableDisplay() {
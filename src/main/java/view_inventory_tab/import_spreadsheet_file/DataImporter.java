@@ -100,12 +100,7 @@ public class DataImporter {
             parent.getRowStatus().clear();
             parent.getFieldTypes().clear();
             parent.getFieldTypes().putAll(DatabaseUtils.getInventoryColumnTypes(selectedTable));
-            parent.getOriginalData().addAll(new DataProcessor().processData(
-                    importedData, columnMappings, deviceTypeMappings, parent.getTableColumns(), parent.getFieldTypes()));
-            for (int i = 0; i < parent.getOriginalData().size(); i++) {
-                String status = parent.dataDisplayManager.computeRowStatus(i, parent.getOriginalData().get(i));
-                parent.getRowStatus().put(i, status);
-            }
+            // displayData processes the rows and classifies them against the table in one pass.
             parent.dataDisplayManager.displayData(columnMappings, deviceTypeMappings, importedData, selectedTable);
             statusLabel.setText("Data displayed for review.");
         } catch (SQLException e) {
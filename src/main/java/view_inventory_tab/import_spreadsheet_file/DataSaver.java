@@ -3,8 +3,10 @@ package view_inventory_tab.import_spreadsheet_file;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -53,73 +55,52 @@ public class DataSaver {
 
         String tableName = parent.getSelectedTable().replace(" ", "_");
         if (allGreenOrWhite) {
-            int savedCount = 0;
-            List<utils.DataEntry> dataToRemove = new ArrayList<>();
-            for (utils.DataEntry entry : whiteRows) {
-                try {
+            List<utils.DataEntry> entriesToSave = new ArrayList<>();
+            List<HashMap<String, String>> devicesToSave = new ArrayList<>();
+            List<utils.DataEntry> unchangedEntries = new ArrayList<>();
+            try {
+                List<String> whiteAssetNames = new ArrayList<>();
+                for (utils.DataEntry entry : whiteRows) {
+                    whiteAssetNames.add(entry.getData().get("AssetName"));
+                }
+                Set<String> existingAssetNames = new HashSet<>();
+                for (String existing : utils.DatabaseUtils.getExistingAssetNames(tableName, whiteAssetNames)) {
+                    existingAssetNames.add(existing.toUpperCase());
+                }
+                for (utils.DataEntry entry : whiteRows) {
                     HashMap<String, String> cleanedDevice = cleanDeviceData(entry.getData());
                     String assetName = cleanedDevice.get("AssetName");
-                    HashMap<String, String> existingDevice = parent.getDatabaseHandler().getDeviceByAssetNameFromDB(tableName, assetName);
-                    if (existingDevice != null) {
-                        // Duplicate found: update existing record instead of inserting
+                    if (assetName != null && existingAssetNames.contains(assetName.toUpperCase())) {
+                        // Duplicate found: update existing record with the non-empty imported fields only
+                        HashMap<String, String> changes = new HashMap<>();
                         for (Map.Entry<String, String> field : cleanedDevice.entrySet()) {
-                            String key = field.getKey();
                             String newValue = field.getValue();
                             if (newValue != null && !newValue.trim().isEmpty()) {
-                                existingDevice.put(key, newValue);
+                                changes.put(field.getKey(), newValue);
                             }
                         }
-                        utils.DatabaseUtils.updateDevice(tableName, existingDevice);
-                        savedCount++;
-                        dataToRemove.add(entry);
-                        LOGGER.log(Level.INFO, "Updated existing device for AssetName {0} in table {1}.", 
-                                   new Object[]{assetName, tableName});
+                        if (changes.size() <= 1) {
+                            unchangedEntries.add(entry);
+                            continue;
+                        }
+                        devicesToSave.add(changes);
                     } else {
-                        utils.DatabaseUtils.saveDevice(tableName, cleanedDevice);
-                        savedCount++;
-                        dataToRemove.add(entry);
-                        LOGGER.log(Level.INFO, "Inserted new device for AssetName {0} into table {1}.", 
-                                   new Object[]{assetName, tableName});
+                        devicesToSave.add(cleanedDevice);
                     }
-                } catch (SQLException e) {
-                    LOGGER.log(Level.SEVERE, "Error saving new device for AssetName {0} to table {1}: {2}", 
-                               new Object[]{entry.getData().get("AssetName"), tableName, e.getMessage()});
-                    String errorMessage = "Error saving new device for AssetName " + entry.getData().get("AssetName") + ": " + e.getMessage();
-                    statusLabel.setText(errorMessage);
-                    JOptionPane.showMessageDialog(parent, errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
+                    entriesToSave.add(entry);
                 }
-            }
-            for (utils.DataEntry entry : greenRows) {
-                try {
-                    HashMap<String, String> cleanedDevice = cleanDeviceData(entry.getData());
-                    utils.DatabaseUtils.updateDevice(tableName, cleanedDevice);
-                    savedCount++;
-                    dataToRemove.add(entry);
-                    LOGGER.log(Level.INFO, "Updated device for AssetName {0} in table {1}.", 
-                               new Object[]{entry.getData().get("AssetName"), tableName});
-                } catch (SQLException e) {
-                    LOGGER.log(Level.SEVERE, "Error updating device for AssetName {0} in table {1}: {2}", 
-                               new Object[]{entry.getData().get("AssetName"), tableName, e.getMessage()});
-                    String errorMessage = "Error updating device for AssetName " + entry.getData().get("AssetName") + ": " + e.getMessage();
-                    statusLabel.setText(errorMessage);
-                    JOptionPane.showMessageDialog(parent, errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
+                for (utils.DataEntry entry : greenRows) {
+                    devicesToSave.add(cleanDeviceData(entry.getData()));
+                    entriesToSave.add(entry);
                 }
+                utils.BatchResult result = utils.DatabaseUtils.upsertDevices(tableName, devicesToSave);
+                finishSave(tableName, entriesToSave, unchangedEntries, result, "");
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error saving devices to table {0}: {1}", new Object[]{tableName, e.getMessage()});
+                String errorMessage = "Error saving devices to table " + tableName + ": " + e.getMessage();
+                statusLabel.setText(errorMessage);
+                JOptionPane.showMessageDialog(parent, errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
             }
-            parent.getOriginalData().removeAll(dataToRemove);
-            parent.getRowStatus().clear();
-            for (int i = 0; i < parent.getOriginalData().size(); i++) {
-                String status = parent.dataDisplayManager.computeRowStatus(i, parent.getOriginalData().get(i));
-                parent.getRowStatus().put(i, status);
-            }
-            parent.dataDisplayManager.updateTableDisplay();
-            // parent.getDataImporter().clearImportedData(); // Clear importedData to skip confirmation dialog
-
-            String message = "Successfully saved " + savedCount + " devices to table " + tableName + ".";
-            statusLabel.setText(message);
-            LOGGER.log(Level.INFO, message);
-            JOptionPane.showMessageDialog(parent, message, "Success", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
 
@@ -175,47 +156,18 @@ public class DataSaver {
                     return;
             }
 
-            int savedCount = 0;
-            List<utils.DataEntry> dataToRemove = new ArrayList<>();
+            List<utils.DataEntry> entriesToSave = new ArrayList<>();
+            List<HashMap<String, String>> devicesToSave = new ArrayList<>();
             for (utils.DataEntry entry : dataToSave) {
-                HashMap<String, String> device = entry.getData();
-                String assetName = device.get("AssetName");
+                String assetName = entry.getData().get("AssetName");
                 if (assetName != null && !assetName.trim().isEmpty()) {
-                    HashMap<String, String> existingDevice = parent.getDatabaseHandler().getDeviceByAssetNameFromDB(tableName, assetName);
-                    try {
-                        if (existingDevice != null) {
-                            HashMap<String, String> cleanedDevice = cleanDeviceData(device);
-                            utils.DatabaseUtils.updateDevice(tableName, cleanedDevice);
-                            LOGGER.log(Level.INFO, "Updated existing device for AssetName {0} in table {1}.", 
-                                       new Object[]{assetName, tableName});
-                        } else {
-                            HashMap<String, String> cleanedDevice = cleanDeviceData(device);
-                            utils.DatabaseUtils.saveDevice(tableName, cleanedDevice);
-                            LOGGER.log(Level.INFO, "Inserted new device for AssetName {0} into table {1}.", 
-                                       new Object[]{assetName, tableName});
-                        }
-                        savedCount++;
-                        dataToRemove.add(entry);
-                    } catch (SQLException e) {
-                        LOGGER.log(Level.SEVERE, "Error saving/updating device for AssetName {0} in table {1}: {2}", 
-                                   new Object[]{assetName, tableName, e.getMessage()});
-                        throw e;
-                    }
+                    devicesToSave.add(cleanDeviceData(entry.getData()));
+                    entriesToSave.add(entry);
                 }
             }
-            parent.getOriginalData().removeAll(dataToRemove);
-            parent.getRowStatus().clear();
-            for (int i = 0; i < parent.getOriginalData().size(); i++) {
-                String status = parent.dataDisplayManager.computeRowStatus(i, parent.getOriginalData().get(i));
-                parent.getRowStatus().put(i, status);
-            }
-            parent.dataDisplayManager.updateTableDisplay();
+            utils.BatchResult result = utils.DatabaseUtils.upsertDevices(tableName, devicesToSave);
             parent.getDataImporter().getImportedData(); // Clear importedData to skip confirmation dialog
-
-            String successMsg = "Successfully saved " + savedCount + " devices to table " + tableName + " after conflict resolution.";
-            statusLabel.setText(successMsg);
-            LOGGER.log(Level.INFO, successMsg);
-            JOptionPane.showMessageDialog(parent, successMsg, "Success", JOptionPane.INFORMATION_MESSAGE);
+            finishSave(tableName, entriesToSave, new ArrayList<>(), result, " after conflict resolution");
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error saving to table {0}: {1}", new Object[]{tableName, e.getMessage()});
             String errorMessage = "Error saving to table " + tableName + ": " + e.getMessage();
@@ -224,6 +176,46 @@ public class DataSaver {
         }
     }
 
+    private void finishSave(String tableName, List<utils.DataEntry> savedEntries, List<utils.DataEntry> unchangedEntries,
+                            utils.BatchResult result, String suffix) {
+        List<utils.DataEntry> dataToRemove = new ArrayList<>(unchangedEntries);
+        List<String> savedAssetNames = new ArrayList<>();
+        for (int i = 0; i < savedEntries.size(); i++) {
+            if (!result.isFailed(i)) {
+                dataToRemove.add(savedEntries.get(i));
+                savedAssetNames.add(savedEntries.get(i).getData().get("AssetName"));
+            }
+        }
+        parent.getOriginalData().removeAll(dataToRemove);
+        // Only the rows just written changed in the table; the rest of the snapshot is still current.
+        parent.dataDisplayManager.invalidateExistingRows(savedAssetNames);
+        parent.dataDisplayManager.recomputeRowStatuses();
+        parent.dataDisplayManager.updateTableDisplay();
+
+        int savedCount = result.getSavedCount() + unchangedEntries.size();
+        String message = "Successfully saved " + savedCount + " devices to table " + tableName + suffix + ".";
+        if (!result.hasFailures()) {
+            statusLabel.setText(message);
+            LOGGER.log(Level.INFO, message);
+            JOptionPane.showMessageDialog(parent, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        StringBuilder details = new StringBuilder(message).append("\n")
+                .append(result.getFailures().size()).append(" rows could not be saved and were left in the grid:\n");
+        int shown = 0;
+        for (Map.Entry<Integer, String> failure : result.getFailures().entrySet()) {
+            if (shown++ == 10) {
+                details.append("...\n");
+                break;
+            }
+            details.append("- ").append(savedEntries.get(failure.getKey()).getData().get("AssetName"))
+                    .append(": ").append(failure.getValue()).append("\n");
+        }
+        statusLabel.setText(message + " " + result.getFailures().size() + " rows failed.");
+        LOGGER.log(Level.WARNING, details.toString());
+        JOptionPane.showMessageDialog(parent, details.toString(), "Saved With Errors", JOptionPane.WARNING_MESSAGE);
+    }
+
     private HashMap<String, String> cleanDeviceData(HashMap<String, String> device) {
         HashMap<String, String> cleanedDevice = new HashMap<>();
         for (Map.Entry<String, String> entry : device.entrySet()) {
@@ -3,16 +3,12 @@ package view_inventory_tab.view_software_details;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,8 +21,9 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
 
-import utils.DatabaseUtils;
+import utils.AssetIndex;
 import utils.UIComponentUtils;
 import view_inventory_tab.ViewInventoryTab;
 
@@ -39,6 +36,8 @@ public class DeviceDetailsPanel extends JPanel {
     private static final Logger LOGGER = Logger.getLogger(DeviceDetailsPanel.class.getName());
     private JList<String> tableList;
     private JPanel dataListPanel;
+    // The asset's row in each table that holds it, loaded once when the panel opens.
+    private Map<String, HashMap<String, String>> devices = new LinkedHashMap<>();
 
     public DeviceDetailsPanel(String assetName, ViewInventoryTab parentTab) {
         this.assetName = assetName;
@@ -69,7 +68,7 @@ public class DeviceDetailsPanel extends JPanel {
         tableList.addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
                 String selectedTable = tableList.getSelectedValue();
-                if (selectedTable != null && !selectedTable.startsWith("Error") && !selectedTable.equals("No tables available")) {
+                if (selectedTable != null && devices.containsKey(selectedTable)) {
                     updateDataList(selectedTable);
                 }
             }
@@ -94,52 +93,43 @@ public class DeviceDetailsPanel extends JPanel {
     }
 
     private void loadTableList() {
-        DefaultListModel<String> listModel = new DefaultListModel<>();
-        try {
-            List<String> tableNames = DatabaseUtils.getTableNames();
-            List<String> includedTables = getIncludedInventoryTables();
-            List<String> validTables = new ArrayList<>();
-            for (String table : tableNames) {
-                if (includedTables.contains(table) && !isExcludedTable(table)) {
-                    validTables.add(table);
-                }
-            }
-            validTables.sort(String::compareToIgnoreCase);
-            for (String table : validTables) {
-                listModel.addElement(table);
+        DefaultListModel<String> loadingModel = new DefaultListModel<>();
+        loadingModel.addElement("Loading...");
+        tableList.setModel(loadingModel);
+        new SwingWorker<Map<String, HashMap<String, String>>, Void>() {
+            @Override
+            protected Map<String, HashMap<String, String>> doInBackground() throws Exception {
+                return AssetIndex.loadDevices(assetName);
             }
-            if (listModel.isEmpty()) {
-                listModel.addElement("No tables available");
+
+            @Override
+            protected void done() {
+                DefaultListModel<String> listModel = new DefaultListModel<>();
+                try {
+                    devices = get();
+                    for (String table : devices.keySet()) {
+                        listModel.addElement(table);
+                    }
+                    if (listModel.isEmpty()) {
+                        listModel.addElement("No tables contain " + assetName);
+                    }
+                    LOGGER.log(Level.INFO, "AssetName {0} found in tables {1}", new Object[]{assetName, devices.keySet()});
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    LOGGER.log(Level.SEVERE, "Error finding tables for AssetName {0}: {1}", new Object[]{assetName, cause.getMessage()});
+                    listModel.addElement("Error: " + cause.getMessage());
+                }
+                tableList.setModel(listModel);
+                if (!devices.isEmpty()) {
+                    tableList.setSelectedIndex(0);
+                }
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error fetching table names: {0}", e.getMessage());
-            listModel.addElement("Error: " + e.getMessage());
-        }
-        tableList.setModel(listModel);
+        }.execute();
     }
 
     private void updateDataList(String tableName) {
         dataListPanel.removeAll();
-        HashMap<String, String> entry;
-        try {
-            entry = DatabaseUtils.getDeviceByAssetName(tableName, assetName);
-            LOGGER.log(Level.INFO, "Table {0} entry for AssetName {1}: {2}", new Object[]{tableName, assetName, entry});
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error querying table {0}: {1}", new Object[]{tableName, e.getMessage()});
-            JLabel errorLabel = new JLabel("Error loading data: " + e.getMessage());
-            dataListPanel.add(errorLabel);
-            dataListPanel.revalidate();
-            dataListPanel.repaint();
-            return;
-        }
-
-        if (entry == null || entry.isEmpty()) {
-            JLabel messageLabel = new JLabel("No entry found in table " + tableName + " for AssetName: " + assetName);
-            dataListPanel.add(messageLabel);
-            dataListPanel.revalidate();
-            dataListPanel.repaint();
-            return;
-        }
+        HashMap<String, String> entry = devices.get(tableName);
 
         Set<String> columns = new HashSet<>();
         for (String column : entry.keySet()) {
@@ -164,45 +154,4 @@ public class DeviceDetailsPanel extends JPanel {
         dataListPanel.revalidate();
         dataListPanel.repaint();
     }
-
-    private boolean isExcludedTable(String tableName) {
-        return tableName.equalsIgnoreCase("TableInformation") ||
-               tableName.equalsIgnoreCase("LicenseKeyRules") ||
-               tableName.equalsIgnoreCase("Templates");
-    }
-
-    private List<String> getIncludedInventoryTables() {
-        List<String> tables = new ArrayList<>();
-        try (Connection conn = DatabaseUtils.getConnection()) {
-            if (!tableExists("TableInformation", conn)) {
-                createTableInformationTable(conn);
-            }
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT DISTINCT InventoryTables FROM TableInformation WHERE InventoryTables IS NOT NULL")) {
-                while (rs.next()) {
-                    String tableName = rs.getString("InventoryTables");
-                    if (tableName != null && !tableName.trim().isEmpty()) {
-                        tables.add(tableName);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error fetching included inventory tables: {0}", e.getMessage());
-        }
-        return tables;
-    }
-
-    private boolean tableExists(String tableName, Connection conn) throws SQLException {
-        DatabaseMetaData meta = conn.getMetaData();
-        try (ResultSet rs = meta.getTables(null, null, tableName, new String[]{"TABLE"})) {
-            return rs.next();
-        }
-    }
-
-    private void createTableInformationTable(Connection conn) throws SQLException {
-        String createSql = "CREATE TABLE TableInformation (ID INTEGER PRIMARY KEY, InventoryTables VARCHAR(255))";
-        try (Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate(createSql);
-        }
-    }
 }
\ No newline at end of file
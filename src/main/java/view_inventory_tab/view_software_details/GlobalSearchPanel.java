@@ -0,0 +1,196 @@
+package view_inventory_tab.view_software_details;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.JTree;
+import javax.swing.SwingWorker;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+
+import utils.GlobalSearch;
+import utils.UIComponentUtils;
+import view_inventory_tab.ViewInventoryTab;
+
+// Results of searching every registered table, grouped by table. Tables are added as their
+// searches finish; double-clicking a row opens its Device Details.
+public class GlobalSearchPanel extends JPanel {
+    private final ViewInventoryTab parentTab;
+    private final JTextField searchField;
+    private final JLabel statusLabel;
+    private final DefaultMutableTreeNode root = new DefaultMutableTreeNode("Results");
+    private final DefaultTreeModel treeModel = new DefaultTreeModel(root);
+    private final JTree resultTree = new JTree(treeModel);
+    private SwingWorker<Integer, GlobalSearch.TableResult> worker;
+    private static final Logger LOGGER = Logger.getLogger(GlobalSearchPanel.class.getName());
+
+    private static final class RowNode {
+        final String assetName;
+        final String label;
+
+        RowNode(String assetName, String label) {
+            this.assetName = assetName;
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public GlobalSearchPanel(String searchText, ViewInventoryTab parentTab) {
+        this.parentTab = parentTab;
+        this.searchField = UIComponentUtils.createFormattedTextField();
+        this.statusLabel = UIComponentUtils.createAlignedLabel("");
+        setLayout(new BorderLayout(10, 10));
+        initializeComponents();
+        searchField.setText(searchText);
+        search();
+    }
+
+    private void initializeComponents() {
+        JLabel titleLabel = UIComponentUtils.createAlignedLabel("Search All Tables");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+
+        JButton backButton = UIComponentUtils.createFormattedButton("Back");
+        backButton.addActionListener(e -> {
+            cancelSearch();
+            parentTab.showMainView();
+        });
+        JButton searchButton = UIComponentUtils.createFormattedButton("Search");
+        searchButton.addActionListener(e -> search());
+        searchField.setPreferredSize(new Dimension(200, 30));
+        searchField.addActionListener(e -> search());
+
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(titleLabel);
+        searchPanel.add(searchField);
+        searchPanel.add(searchButton);
+        searchPanel.add(statusLabel);
+
+        JPanel topPanel = new JPanel(new BorderLayout(10, 10));
+        topPanel.add(backButton, BorderLayout.WEST);
+        topPanel.add(searchPanel, BorderLayout.CENTER);
+        add(topPanel, BorderLayout.NORTH);
+
+        resultTree.setRootVisible(false);
+        resultTree.setShowsRootHandles(true);
+        resultTree.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() != 2) {
+                    return;
+                }
+                TreePath path = resultTree.getPathForLocation(e.getX(), e.getY());
+                if (path == null) {
+                    return;
+                }
+                Object userObject = ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
+                if (userObject instanceof RowNode && ((RowNode) userObject).assetName != null) {
+                    cancelSearch();
+                    parentTab.showDeviceDetails(((RowNode) userObject).assetName);
+                }
+            }
+        });
+        add(new JScrollPane(resultTree), BorderLayout.CENTER);
+    }
+
+    private void search() {
+        String text = searchField.getText().trim();
+        cancelSearch();
+        root.removeAllChildren();
+        treeModel.reload();
+        if (text.isEmpty()) {
+            statusLabel.setText("Enter text to search for");
+            return;
+        }
+        statusLabel.setText("Searching...");
+        long start = System.currentTimeMillis();
+        worker = new SwingWorker<Integer, GlobalSearch.TableResult>() {
+            private int matchCount;
+            private int tableCount;
+
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return GlobalSearch.search(text, this::publish);
+            }
+
+            @Override
+            protected void process(List<GlobalSearch.TableResult> results) {
+                if (isCancelled()) {
+                    return;
+                }
+                for (GlobalSearch.TableResult result : results) {
+                    addTable(result);
+                    matchCount += result.getMatchCount();
+                    tableCount++;
+                }
+                statusLabel.setText("Searching... " + matchCount + " matches in " + tableCount + " tables");
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    int searched = get();
+                    statusLabel.setText(matchCount + " matches in " + tableCount + " of " + searched + " tables ("
+                            + (System.currentTimeMillis() - start) + " ms)");
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    LOGGER.log(Level.SEVERE, "Error searching all tables for ''{0}'': {1}", new Object[]{text, cause.getMessage()});
+                    statusLabel.setText("Error: " + cause.getMessage());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void addTable(GlobalSearch.TableResult result) {
+        String text = searchField.getText().trim().toLowerCase();
+        DefaultMutableTreeNode tableNode = new DefaultMutableTreeNode(
+                result.getTableName() + " (" + result.getMatchCount() + ")");
+        for (Map<String, String> row : result.getRows()) {
+            String assetName = row.get("AssetName");
+            StringBuilder label = new StringBuilder(assetName != null ? assetName : "");
+            // Show the cells that matched, since the AssetName often is not one of them.
+            for (Map.Entry<String, String> cell : row.entrySet()) {
+                if (!cell.getKey().equals("AssetName") && cell.getValue().toLowerCase().contains(text)) {
+                    label.append(label.length() > 0 ? "  |  " : "").append(cell.getKey()).append(": ").append(cell.getValue());
+                }
+            }
+            tableNode.add(new DefaultMutableTreeNode(new RowNode(assetName, label.toString())));
+        }
+        if (result.getMatchCount() > result.getRows().size()) {
+            tableNode.add(new DefaultMutableTreeNode(
+                    "... and " + (result.getMatchCount() - result.getRows().size()) + " more; open the table to see all"));
+        }
+        treeModel.insertNodeInto(tableNode, root, root.getChildCount());
+        if (root.getChildCount() == 1) {
+            resultTree.expandPath(new TreePath(tableNode.getPath()));
+        }
+    }
+
+    private void cancelSearch() {
+        if (worker != null && !worker.isDone()) {
+            worker.cancel(true);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,8 @@ import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 
 import utils.DatabaseUtils;
+import utils.SchemaCache;
+import utils.ChangeBus;
 import utils.UIComponentUtils;
 import view_software_list_tab.TableManager;
 
@@ -193,18 +196,19 @@ public class AddRowEntry extends JDialog {
 
                 // Commit transaction
                 conn.commit();
+                ChangeBus.publish(ChangeBus.Change.inserted(tableName, "AssetName", Collections.singletonList(values.get("AssetName"))));
                 JOptionPane.showMessageDialog(this, "Row and columns added successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
                 LOGGER.log(Level.INFO, "Saved new row to table '{0}' with {1} new columns", new Object[]{tableName, pendingColumns.size()});
-                SwingUtilities.invokeLater(() -> {
-                    tableManager.setTableName(tableName); // Force schema reload
-                    tableManager.refreshDataAndTabs();
-                    dispose();
-                });
+                // New columns reach the table through the schema change published below
+                SwingUtilities.invokeLater(this::dispose);
             } catch (SQLException e) {
                 conn.rollback(); // Roll back on error
                 throw e;
             } finally {
                 conn.setAutoCommit(true);
+                if (!pendingColumns.isEmpty()) {
+                    SchemaCache.invalidate(tableName);
+                }
             }
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this, "Error adding row or columns: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -5,8 +5,9 @@ import java.awt.FlowLayout;
 import java.awt.Frame;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -19,7 +20,6 @@ import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.JTextField;
 
-import utils.DataUtils;
 import utils.DatabaseUtils;
 import utils.UIComponentUtils;
 import view_software_list_tab.TableManager;
@@ -101,32 +101,18 @@ public class MultiRenameDialog extends JDialog {
         }
 
         try {
-            for (int i = 0; i < originalAssetNames.size(); i++) {
-                String originalAssetName = originalAssetNames.get(i);
-                HashMap<String, String> device = DatabaseUtils.getDeviceByAssetName(tableName, originalAssetName);
-                if (device == null) {
-                    LOGGER.log(Level.SEVERE, "MultiRenameDialog: Device not found for AssetName=''{0}'' in table ''{1}''", new Object[]{originalAssetName, tableName});
-                    statusLabel.setText("Error: Device not found for AssetName: " + originalAssetName);
+            if (columnName.equals("AssetName")) {
+                String validationError = validateAssetNameChange(tableName, newValue);
+                if (validationError != null) {
+                    LOGGER.log(Level.SEVERE, "MultiRenameDialog: Validation error: {0}", validationError);
+                    statusLabel.setText("Error: " + validationError);
                     return;
                 }
-                LOGGER.log(Level.INFO, "MultiRenameDialog: Device found, updating {0} from ''{1}'' to ''{2}'' for AssetName=''{3}'' in table ''{4}''", new Object[]{columnName, originalCellValues.get(i), newValue, originalAssetName, tableName});
-
-                device.put(columnName, newValue);
-                if (columnName.equals("AssetName")) {
-                    String validationError = DataUtils.validateDevice(device, originalAssetName);
-                    if (validationError != null) {
-                        LOGGER.log(Level.SEVERE, "MultiRenameDialog: Validation error for ''{0}'': {1}", new Object[]{originalAssetName, validationError});
-                        statusLabel.setText("Error for " + originalAssetName + ": " + validationError);
-                        return;
-                    }
-                }
-
-                DatabaseUtils.updateDevice(tableName, device);
             }
+            // One UPDATE per chunk of rows; the table re-reads just these rows from the published change
+            int updated = DatabaseUtils.updateDeviceColumn(tableName, columnName, newValue, originalAssetNames);
+            LOGGER.log(Level.INFO, "MultiRenameDialog: Set {0} to ''{1}'' on {2} rows in table ''{3}''", new Object[]{columnName, newValue, updated, tableName});
             statusLabel.setText(columnName + " values updated successfully");
-            if (tableManager != null) {
-                tableManager.refreshDataAndTabs();
-            }
             dispose();
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "MultiRenameDialog: SQLException in table ''{0}'': {1}", new Object[]{tableName, e.getMessage()});
@@ -134,6 +120,24 @@ public class MultiRenameDialog extends JDialog {
         }
     }
 
+    // Checked once against the selection and the existing AssetNames rather than once per device.
+    private String validateAssetNameChange(String tableName, String newValue) throws SQLException {
+        Set<String> selected = new HashSet<>();
+        for (String assetName : originalAssetNames) {
+            selected.add(assetName.toUpperCase());
+        }
+        if (selected.size() > 1) {
+            return "Cannot give " + selected.size() + " devices the same Asset Name";
+        }
+        if (selected.contains(newValue.toUpperCase())) {
+            return null;
+        }
+        if (!DatabaseUtils.getExistingAssetNames(tableName, Collections.singletonList(newValue)).isEmpty()) {
+            return "AssetName '" + newValue + "' already exists in table '" + tableName + "'";
+        }
+        return null;
+    }
+
     public static void showRenameDialog(Frame parent, JTable table, ArrayList<String> cellValues, String columnName, ArrayList<String> assetNames, TableManager tableManager) {
         MultiRenameDialog dialog = new MultiRenameDialog(parent, cellValues, columnName, assetNames, table, tableManager);
         dialog.setVisible(true);
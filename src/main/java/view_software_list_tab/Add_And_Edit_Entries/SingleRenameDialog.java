@@ -114,9 +114,6 @@ public class SingleRenameDialog extends JDialog {
 
             DatabaseUtils.updateDevice(tableName, device);
             statusLabel.setText(columnName + " updated successfully");
-            if (tableManager != null) {
-                tableManager.refreshDataAndTabs();
-            }
             dispose();
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "SingleRenameDialog: SQLException in table ''{0}'': {1}", new Object[]{tableName, e.getMessage()});
@@ -16,11 +16,13 @@ import javax.swing.ListSelectionModel;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.table.DefaultTableModel;
 
+import utils.CachedTab;
 import view_software_list_tab.import_spreadsheet_file.ImportDataTab;
 import view_software_list_tab.license_key_tracker.LicenseKeyTracker;
 import view_software_list_tab.view_software_details.DeviceDetailsPanel;
+import view_software_list_tab.view_software_details.GlobalSearchPanel;
 
-public class ViewSoftwareListTab extends JPanel {
+public class ViewSoftwareListTab extends JPanel implements CachedTab {
 
     private JTable table;
     private TableManager tableManager;
@@ -80,7 +82,7 @@ public class ViewSoftwareListTab extends JPanel {
         filterPanel = new FilterPanel(
             (search, status, dept) -> {
                 tableManager.setWhereClause(search, status, dept);
-                tableManager.refreshDataAndTabs();
+                tableManager.refreshDataAsync();
             },
             () -> {
                 isRefreshing = true;
@@ -150,6 +152,13 @@ public class ViewSoftwareListTab extends JPanel {
         }
     }
 
+    // The inventory tables carry no modification marker, so TabRevalidator reloads whenever the
+    // database file changed.
+    @Override
+    public void reload() {
+        refreshDataAndTabs();
+    }
+
     public void showMainView() {
         // Remove existing listener to prevent recursive calls
         if (tableListListener != null) {
@@ -262,6 +271,14 @@ public class ViewSoftwareListTab extends JPanel {
         return tableListPanel;
     }
 
+    public void showGlobalSearch(String searchText) {
+        remove(currentView);
+        currentView = new GlobalSearchPanel(searchText, this);
+        add(currentView, BorderLayout.CENTER);
+        revalidate();
+        repaint();
+    }
+
     public void showDeviceDetails(String assetName) {
         remove(currentView);
         currentView = new DeviceDetailsPanel(assetName, this);
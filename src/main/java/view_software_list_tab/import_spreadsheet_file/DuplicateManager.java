@@ -42,11 +42,8 @@ public class DuplicateManager {
 
         parent.getOriginalData().clear();
         parent.getOriginalData().addAll(nonDuplicates);
-        parent.getRowStatus().clear();
-        for (int i = 0; i < parent.getOriginalData().size(); i++) {
-            String status = parent.dataDisplayManager.computeRowStatus(i, parent.getOriginalData().get(i));
-            parent.getRowStatus().put(i, status);
-        }
+        // Removing rows from the import list does not change the table, so the cached snapshot is reused.
+        parent.dataDisplayManager.recomputeRowStatuses();
         updateTableDisplay();
         statusLabel.setText("Exact duplicates removed from import list.");
         LOGGER.log(Level.INFO, "Removed {0} duplicates from {1} total rows, retained {2} unique entries.", 
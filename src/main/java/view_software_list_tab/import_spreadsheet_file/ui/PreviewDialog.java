@@ -8,7 +8,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
@@ -16,6 +15,7 @@ import java.util.logging.Logger;
 
 import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -29,13 +29,17 @@ import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
-import view_software_list_tab.import_spreadsheet_file.ImportDataTab;
-import utils.FileUtils;
+import utils.CsvStreamReader;
+import utils.RowHandler;
 import utils.UIComponentUtils;
+import utils.XlsxStreamReader;
+import view_software_list_tab.import_spreadsheet_file.ImportDataTab;
 
 public class PreviewDialog {
+    // Only the first rows are read to build the preview; the full file is streamed after the
+    // user confirms, keeping just the selected columns.
+    private static final int PREVIEW_ROW_LIMIT = 200;
     private final ImportDataTab parent;
     private List<String[]> data;
     private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
@@ -53,23 +57,38 @@ public class PreviewDialog {
 
         if (result == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
-            data = readFile(file);
+            data = readFile(file, PREVIEW_ROW_LIMIT + 1, null);
             if (data != null) {
-                showPreviewDialog(file.getName());
+                boolean truncated = data.size() > PREVIEW_ROW_LIMIT;
+                int[] selectedColumns = showPreviewDialog(file.getName(), truncated);
+                if (data != null) {
+                    data = readFile(file, 0, selectedColumns);
+                }
                 return data;
             }
         }
         return null;
     }
 
-    private List<String[]> readFile(File file) {
+    // Reads at most maxRows rows including the header (maxRows <= 0 reads the whole file),
+    // keeping only the given columns when columns is not null.
+    private List<String[]> readFile(File file, int maxRows, int[] columns) {
         String fileName = file.getName().toLowerCase();
+        List<String[]> rows = new ArrayList<>();
+        RowHandler handler = values -> {
+            rows.add(project(values, columns));
+            return maxRows <= 0 || rows.size() < maxRows;
+        };
         try {
             if (fileName.endsWith(".csv")) {
-                ArrayList<HashMap<String, String>> csvData = FileUtils.readCSVFile(file);
-                return convertCsvToArrayList(csvData);
-            } else if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) {
-                return readExcelFile(file);
+                CsvStreamReader.read(file, handler);
+                return rows;
+            } else if (fileName.endsWith(".xlsx")) {
+                XlsxStreamReader.read(file, handler);
+                return rows;
+            } else if (fileName.endsWith(".xls")) {
+                readExcelFile(file, handler);
+                return rows;
             }
         } catch (IOException e) {
             String errorMessage = "Error reading file " + fileName + ": " + e.getMessage();
@@ -79,31 +98,25 @@ public class PreviewDialog {
         return null;
     }
 
-    private List<String[]> convertCsvToArrayList(ArrayList<HashMap<String, String>> csvData) {
-        List<String[]> result = new ArrayList<>();
-        if (csvData.isEmpty()) return result;
-
-        HashMap<String, String> firstRow = csvData.get(0);
-        String[] headers = firstRow.keySet().stream().map(h -> h.replace(" ", "_")).toArray(String[]::new);
-        result.add(headers);
-
-        for (HashMap<String, String> row : csvData) {
-            String[] rowData = new String[headers.length];
-            for (int i = 0; i < headers.length; i++) {
-                rowData[i] = row.getOrDefault(headers[i].replace("_", " "), "");
-            }
-            result.add(rowData);
+    private static String[] project(String[] row, int[] columns) {
+        if (columns == null) {
+            return row;
+        }
+        String[] projected = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            projected[i] = columns[i] < row.length ? row[columns[i]] : "";
         }
-        return result;
+        return projected;
     }
 
-    private List<String[]> readExcelFile(File file) throws IOException {
-        List<String[]> excelData = new ArrayList<>();
+    // Legacy .xls files are capped at 65,536 rows, so the HSSF user model is still used for them;
+    // .xlsx goes through XlsxStreamReader.
+    private void readExcelFile(File file, RowHandler handler) throws IOException {
         try (FileInputStream fis = new FileInputStream(file);
-             Workbook workbook = file.getName().endsWith(".xlsx") ? new XSSFWorkbook(fis) : new HSSFWorkbook(fis)) {
+             Workbook workbook = new HSSFWorkbook(fis)) {
             Sheet sheet = workbook.getSheetAt(0);
             Iterator<Row> rowIterator = sheet.iterator();
-            if (!rowIterator.hasNext()) return excelData;
+            if (!rowIterator.hasNext()) return;
 
             Row headerRow = rowIterator.next();
             int colCount = headerRow.getPhysicalNumberOfCells();
@@ -111,7 +124,7 @@ public class PreviewDialog {
             for (int i = 0; i < colCount; i++) {
                 headers[i] = getCellValue(headerRow.getCell(i)).replace(" ", "_");
             }
-            excelData.add(headers);
+            if (!handler.handleRow(headers)) return;
 
             while (rowIterator.hasNext()) {
                 Row row = rowIterator.next();
@@ -119,10 +132,9 @@ public class PreviewDialog {
                 for (int i = 0; i < colCount; i++) {
                     rowData[i] = getCellValue(row.getCell(i));
                 }
-                excelData.add(rowData);
+                if (!handler.handleRow(rowData)) return;
             }
         }
-        return excelData;
     }
 
     private String getCellValue(Cell cell) {
@@ -142,14 +154,16 @@ public class PreviewDialog {
         }
     }
 
-    private void showPreviewDialog(String fileName) {
+    // Returns the indices of the selected columns, or null when all of them are kept.
+    // Sets data to null when the dialog is cancelled.
+    private int[] showPreviewDialog(String fileName, boolean truncated) {
         if (data.isEmpty()) {
             JOptionPane.showMessageDialog(parent, "The file is empty.", "Error", JOptionPane.ERROR_MESSAGE);
-            return;
+            return null;
         }
 
         String[] csvColumns = data.get(0);
-        List<String[]> dataRows = data.subList(1, data.size());
+        List<String[]> dataRows = data.subList(1, Math.min(data.size(), PREVIEW_ROW_LIMIT + 1));
         String[] displayColumns = new String[csvColumns.length];
         for (int i = 0; i < csvColumns.length; i++) {
             displayColumns[i] = csvColumns[i].replace("_", " ");
@@ -183,6 +197,9 @@ public class PreviewDialog {
         checkboxScrollPane.setPreferredSize(new Dimension(200, 400));
 
         JPanel dialogPanel = new JPanel(new BorderLayout());
+        if (truncated) {
+            dialogPanel.add(new JLabel("Showing the first " + PREVIEW_ROW_LIMIT + " rows. All rows will be imported."), BorderLayout.NORTH);
+        }
         dialogPanel.add(previewScrollPane, BorderLayout.CENTER);
         dialogPanel.add(checkboxScrollPane, BorderLayout.EAST);
 
@@ -199,24 +216,11 @@ public class PreviewDialog {
             if (selectedIndices.isEmpty()) {
                 JOptionPane.showMessageDialog(parent, "No columns selected.", "Error", JOptionPane.ERROR_MESSAGE);
             } else if (selectedIndices.size() < csvColumns.length) {
-                List<String[]> filteredData = new ArrayList<>();
-                String[] headers = new String[selectedIndices.size()];
-                for (int i = 0; i < selectedIndices.size(); i++) {
-                    headers[i] = csvColumns[selectedIndices.get(i)];
-                }
-                filteredData.add(headers);
-                for (int i = 1; i < data.size(); i++) {
-                    String[] row = data.get(i);
-                    String[] filteredRow = new String[selectedIndices.size()];
-                    for (int j = 0; j < selectedIndices.size(); j++) {
-                        filteredRow[j] = row[selectedIndices.get(j)];
-                    }
-                    filteredData.add(filteredRow);
-                }
-                data = filteredData;
+                return selectedIndices.stream().mapToInt(Integer::intValue).toArray();
             }
         } else {
             data = null;
         }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -2,10 +2,9 @@ package view_software_list_tab.license_key_tracker;
 
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,45 +14,47 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
-import javax.swing.RowFilter;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
 
-import utils.DatabaseUtils;
+import utils.LicenseKeyAnalytics;
 import view_software_list_tab.PopupHandler;
 import view_software_list_tab.TableManager;
 import view_software_list_tab.ViewSoftwareListTab;
 
 @SuppressWarnings({"unused", "OverridableMethodCallInConstructor"})
 public class KeyDetailsTable extends JPanel {
-    private final String licenseKey;
+
     private final TableManager tableManager;
     private final LicenseKeyTracker licenseKeyTracker;
     private final ViewSoftwareListTab parentTab;
     private final JTable table;
     private final JTextField searchField;
+    private final JLabel titleLabel;
+    private static final String NO_ROWS = " WHERE 1=0";
+    private String licenseKey;
+    private LicenseKeyAnalytics analytics;
+    private String keyCondition = NO_ROWS;
     private static final Logger LOGGER = Logger.getLogger(KeyDetailsTable.class.getName());
 
-    public KeyDetailsTable(String licenseKey, TableManager tableManager, LicenseKeyTracker licenseKeyTracker, ViewSoftwareListTab parentTab) {
-        this.licenseKey = licenseKey;
+    // Built once per tracker; showKey switches between keys without rebuilding it.
+    public KeyDetailsTable(TableManager tableManager, LicenseKeyTracker licenseKeyTracker, ViewSoftwareListTab parentTab) {
         this.parentTab = parentTab;
         this.licenseKeyTracker = licenseKeyTracker;
         this.tableManager = tableManager;
         this.table = tableManager.getTable();
         this.searchField = new JTextField(20);
+        this.titleLabel = new JLabel();
         this.tableManager.setLicenseKeyTracker(licenseKeyTracker);
         setLayout(new BorderLayout());
-        LOGGER.log(Level.INFO, "KeyDetailsTable initialized for licenseKey='{0}', tableName='{1}'", 
-            new Object[]{licenseKey, tableManager.getTableName()});
+        LOGGER.log(Level.INFO, "KeyDetailsTable initialized for tableName='{0}'", tableManager.getTableName());
         initializeUI();
-        loadData();
+        showKey(null, null);
+        tableManager.sortTable(1);
     }
 
     private void initializeUI() {
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JLabel titleLabel = new JLabel("Entries for License Key: " + (licenseKey != null ? licenseKey : "None"));
         topPanel.add(titleLabel);
         JLabel searchLabel = new JLabel("Search:");
         topPanel.add(searchLabel);
@@ -85,104 +86,43 @@ public class KeyDetailsTable extends JPanel {
         LOGGER.log(Level.INFO, "UI initialized for KeyDetailsTable, tableName='{0}'", tableManager.getTableName());
     }
 
-    public void loadData() {
-    String tableName = tableManager.getTableName();
-    String licenseKeyColumn = findLicenseKeyColumn();
-    if (licenseKeyColumn == null) {
-        LOGGER.log(Level.WARNING, "No License_Key column found in table '{0}', keeping table empty", tableName);
-        DefaultTableModel model = (DefaultTableModel) table.getModel();
-        model.setRowCount(0);
-        return;
-    }
-
-    DefaultTableModel model = (DefaultTableModel) table.getModel();
-    model.setRowCount(0);
-
-    LOGGER.log(Level.INFO, "Table columns: {0}, column count: {1}", 
-        new Object[]{String.join(", ", tableManager.getColumns()), model.getColumnCount()});
-
-    if (licenseKey == null) {
-        LOGGER.log(Level.INFO, "No licenseKey provided, keeping table empty");
-        return;
-    }
-
-    String query = "SELECT * FROM [" + tableName + "] WHERE [" + licenseKeyColumn + "] = ?";
-    LOGGER.log(Level.INFO, "Executing query: {0} with licenseKey='{1}'", new Object[]{query, licenseKey});
-    try (Connection conn = DatabaseUtils.getConnection();
-         PreparedStatement stmt = conn.prepareStatement(query)) {
-        stmt.setString(1, licenseKey);
-        try (ResultSet rs = stmt.executeQuery()) {
-            int rowCount = 0;
-            while (rs.next()) {
-                Object[] row = new Object[model.getColumnCount()];
-                for (int i = 0; i < model.getColumnCount(); i++) {
-                    if (i == 0) {
-                        row[i] = "Edit";
-                    } else {
-                        row[i] = rs.getString(model.getColumnName(i));
-                    }
-                }
-                model.addRow(row);
-                rowCount++;
-            }
-            LOGGER.log(Level.INFO, "Loaded {0} rows for licenseKey='{1}' in table '{2}'", 
-                new Object[]{rowCount, licenseKey, tableName});
-        }
-    } catch (SQLException e) {
-        LOGGER.log(Level.SEVERE, "Error fetching entries for key '{0}' in table '{1}': {2}", 
-            new Object[]{licenseKey, tableName, e.getMessage()});
-        JOptionPane.showMessageDialog(this, "Error fetching data: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
+    // Shows the rows using licenseKey, taken from the analytics snapshot rather than queried.
+    // A null key shows no rows.
+    public void showKey(String licenseKey, LicenseKeyAnalytics analytics) {
+        this.licenseKey = licenseKey;
+        this.analytics = analytics;
+        titleLabel.setText("Entries for License Key: " + (licenseKey != null ? licenseKey : "None"));
+        keyCondition = licenseKey != null && analytics != null ? analytics.keyCondition(licenseKey) : NO_ROWS;
+        showRows();
+        LOGGER.log(Level.INFO, "Showing {0} rows for licenseKey='{1}' in table '{2}'",
+                new Object[]{table.getModel().getRowCount(), licenseKey, tableManager.getTableName()});
     }
 
-    tableManager.sortTable(1);
-}
-
-    private String findLicenseKeyColumn() {
-        String[] columns = tableManager.getColumns();
-        String licenseKeyColumn = null;
-        boolean warningIssued = false;
-        for (String column : columns) {
-            if (column.equalsIgnoreCase("License_Key") || column.equalsIgnoreCase("Licence_Key")) {
-                if (licenseKeyColumn == null) {
-                    licenseKeyColumn = column;
-                } else {
-                    if (!warningIssued) {
-                        LOGGER.log(Level.WARNING, "Multiple License_Key-like columns found in table '{0}': {1}, {2}. Using '{1}'", 
-                            new Object[]{tableManager.getTableName(), licenseKeyColumn, column});
-                        JOptionPane.showMessageDialog(this, 
-                            "Warning: Multiple License_Key-like columns found (" + licenseKeyColumn + ", " + column + "). Using '" + licenseKeyColumn + "'.", 
-                            "Column Ambiguity", JOptionPane.WARNING_MESSAGE);
-                        warningIssued = true;
-                    }
-                }
-            }
+    private void showRows() {
+        String searchText = searchField.getText();
+        boolean noRows = keyCondition.equals(NO_ROWS);
+        List<Object[]> rows = noRows ? Collections.<Object[]>emptyList()
+                : LicenseKeyAnalytics.search(analytics.getRows(licenseKey), searchText);
+        String[] rowColumns = noRows ? tableManager.getColumns() : analytics.getColumns();
+        String rowKeyColumn = noRows ? null : analytics.getRowKeyColumn();
+        if (tableManager.showRows(keyCondition, searchText, rowColumns, rowKeyColumn, rows)) {
+            return;
         }
-        if (licenseKeyColumn == null) {
-            LOGGER.log(Level.WARNING, "No License_Key column found in table '{0}'", tableManager.getTableName());
+        // The table's columns changed since the snapshot was read
+        try {
+            tableManager.loadRows(keyCondition, searchText);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching entries for key '{0}' in table '{1}': {2}",
+                    new Object[]{licenseKey, tableManager.getTableName(), e.getMessage()});
+            JOptionPane.showMessageDialog(this, "Error fetching data: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
         }
-        return licenseKeyColumn;
     }
 
+    // Searches the key's rows in memory, the same way the table's search would.
     private void applyFilter() {
-        String text = searchField.getText().toLowerCase();
-        TableRowSorter<DefaultTableModel> sorter = (TableRowSorter<DefaultTableModel>) table.getRowSorter();
-        if (sorter != null) {
-            RowFilter<DefaultTableModel, Integer> filter = null;
-            if (!text.isEmpty()) {
-                filter = new RowFilter<DefaultTableModel, Integer>() {
-                    @Override
-                    public boolean include(Entry<? extends DefaultTableModel, ? extends Integer> entry) {
-                        for (int i = 1; i < entry.getModel().getColumnCount(); i++) {
-                            Object value = entry.getValue(i);
-                            if (value != null && value.toString().toLowerCase().contains(text)) {
-                                return true;
-                            }
-                        }
-                        return false;
-                    }
-                };
-            }
-            sorter.setRowFilter(filter);
+        if (keyCondition.equals(NO_ROWS)) {
+            return;
         }
+        showRows();
     }
-}
\ No newline at end of file
+}
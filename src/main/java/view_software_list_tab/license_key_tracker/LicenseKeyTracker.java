@@ -6,17 +6,17 @@ import java.awt.Component;
 import java.awt.FlowLayout;
 import java.awt.Font;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,8 +31,13 @@ import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingWorker;
 
+import utils.ChangeBus;
 import utils.DatabaseUtils;
+import utils.LicenseKeyAnalytics;
+import utils.SchemaCache;
+import utils.SchemaMigrations;
 import view_software_list_tab.TableManager;
 import view_software_list_tab.ViewSoftwareListTab;
 
@@ -52,6 +57,15 @@ public class LicenseKeyTracker extends JPanel {
     private KeyDetailsTable keyDetailsTable;
     private String lastSelectedKey;
     private boolean showingUndocumented = false;
+    // Read once per load and shared by the key list, the key details and the undocumented view.
+    private LicenseKeyAnalytics analytics;
+    // One snapshot load runs at a time. Changes arriving meanwhile are collected here and
+    // handled by a single follow-up load: keyed ones as rows to re-read, others as a full read.
+    private SwingWorker<LicenseKeyAnalytics, Void> loader;
+    private boolean reloadPending;
+    private final Set<Object> changedRowKeys = new LinkedHashSet<>();
+    // Held here because ChangeBus only keeps weak references to its listeners.
+    private final ChangeBus.Listener changeListener = this::tableChanged;
     private static final Logger LOGGER = Logger.getLogger(LicenseKeyTracker.class.getName());
 
     public LicenseKeyTracker(ViewSoftwareListTab parentTab, TableManager tableManager) {
@@ -73,6 +87,7 @@ public class LicenseKeyTracker extends JPanel {
     createLicenseKeyRulesTableIfNotExists();
     loadLicenseKeyRules();
     loadLicenseKeys();
+    ChangeBus.subscribeOnEdt(changeListener);
 }
 
     private boolean checkAndHandleLicenseKeyColumn() {
@@ -104,6 +119,7 @@ public class LicenseKeyTracker extends JPanel {
     if (confirm == JOptionPane.YES_OPTION) {
         try (Connection conn = DatabaseUtils.getConnection(); Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("ALTER TABLE [" + tableName + "] ADD [License_Key] VARCHAR(255)");
+            SchemaCache.invalidate(tableName);
             LOGGER.log(Level.INFO, "Added License_Key column to table '{0}'", tableName);
             tableManager.initializeColumns();
             JOptionPane.showMessageDialog(this, "License_Key column has been successfully created.", "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -210,7 +226,7 @@ public class LicenseKeyTracker extends JPanel {
         listScrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
 
         detailsContainer = new JPanel(new BorderLayout());
-        keyDetailsTable = new KeyDetailsTable(null, tableManager, this, parentTab);
+        keyDetailsTable = new KeyDetailsTable(tableManager, this, parentTab);
         detailsContainer.add(keyDetailsTable, BorderLayout.CENTER);
 
         JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, true, listScrollPane, detailsContainer);
@@ -240,7 +256,7 @@ public class LicenseKeyTracker extends JPanel {
             showEmptyDetails();
             showingUndocumented = false;
             toggleUndocumentedButton.setText("View Undocumented Installations");
-            loadLicenseKeys();
+            updateKeyList();
         }
         LOGGER.log(Level.INFO, "Toggled to {0} for table '{1}'",
                 new Object[] { showingUndocumented ? "undocumented installations" : "license keys", tableManager.getTableName() });
@@ -248,7 +264,7 @@ public class LicenseKeyTracker extends JPanel {
 
     private void showUndocumentedInstallations() {
         detailsContainer.removeAll();
-        undocumentedPanel = new UndocumentedInstallationsPanel(parentTab, tableManager.getTableName(), this);
+        undocumentedPanel = new UndocumentedInstallationsPanel(parentTab, analytics, this);
         detailsContainer.add(undocumentedPanel, BorderLayout.CENTER);
         detailsContainer.revalidate();
         detailsContainer.repaint();
@@ -256,34 +272,48 @@ public class LicenseKeyTracker extends JPanel {
     }
 
     private void showKeyDetails(String licenseKey) {
-        detailsContainer.removeAll();
-        keyDetailsTable = new KeyDetailsTable(licenseKey, tableManager, this, parentTab);
-        detailsContainer.add(keyDetailsTable, BorderLayout.CENTER);
-        detailsContainer.revalidate();
-        detailsContainer.repaint();
+        showDetailsTable();
+        keyDetailsTable.showKey(licenseKey, analytics);
         LOGGER.log(Level.INFO, "Displayed details for license key '{0}' in table '{1}'",
                 new Object[] { licenseKey, tableManager.getTableName() });
     }
 
     private void showEmptyDetails() {
+        showDetailsTable();
+        keyDetailsTable.showKey(null, null);
+        LOGGER.log(Level.INFO, "Displayed empty details for table '{0}'", tableManager.getTableName());
+    }
+
+    // Puts the key details table back in place of the undocumented installations, if needed.
+    private void showDetailsTable() {
+        if (keyDetailsTable.getParent() == detailsContainer) {
+            return;
+        }
         detailsContainer.removeAll();
-        keyDetailsTable = new KeyDetailsTable(null, tableManager, this, parentTab);
         detailsContainer.add(keyDetailsTable, BorderLayout.CENTER);
         detailsContainer.revalidate();
         detailsContainer.repaint();
-        LOGGER.log(Level.INFO, "Displayed empty details for table '{0}'", tableManager.getTableName());
+    }
+
+    // Writes to the table make the snapshot stale while the tracker is shown. Changes naming their
+    // rows by the snapshot's row key only re-read those rows; anything else reads the table again.
+    private void tableChanged(ChangeBus.Change change) {
+        if ((analytics == null && loader == null) || !isShowing() || !change.affects(tableManager.getTableName())) {
+            return;
+        }
+        String rowKeyColumn = analytics != null ? analytics.getRowKeyColumn() : null;
+        if (change.getKind() != ChangeBus.Kind.SCHEMA && change.getKeys() != null
+                && rowKeyColumn != null && rowKeyColumn.equalsIgnoreCase(change.getKeyColumn())) {
+            changedRowKeys.addAll(change.getKeys());
+        } else {
+            reloadPending = true;
+        }
+        startLoad();
     }
 
     private void createLicenseKeyRulesTableIfNotExists() {
-        try (Connection conn = DatabaseUtils.getConnection(); Statement stmt = conn.createStatement()) {
-            DatabaseMetaData meta = conn.getMetaData();
-            try (ResultSet rs = meta.getTables(null, null, "LicenseKeyRules", null)) {
-                if (!rs.next()) {
-                    String sql = "CREATE TABLE LicenseKeyRules (TableName VARCHAR(255) PRIMARY KEY, UsageLimit INTEGER)";
-                    stmt.executeUpdate(sql);
-                    LOGGER.log(Level.INFO, "Created LicenseKeyRules table");
-                }
-            }
+        try {
+            SchemaMigrations.migrate();
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error creating LicenseKeyRules table: {0}", e.getMessage());
             JOptionPane.showMessageDialog(this, String.format("Error creating LicenseKeyRules table: %s", e.getMessage()),
@@ -313,48 +343,84 @@ public class LicenseKeyTracker extends JPanel {
         }
     }
 
+    // Reads the table into a new analytics snapshot in the background and lists its keys.
     public void loadLicenseKeys() {
-        keyListModel.clear();
-        keyUsageCounts.clear();
-        String tableName = tableManager.getTableName();
+        reloadPending = true;
+        startLoad();
+    }
 
-        String licenseKeyColumn = null;
-        String[] columns = tableManager.getColumns();
-        for (String column : columns) {
-            if (column.equalsIgnoreCase("License_Key")) {
-                licenseKeyColumn = column;
-                break;
-            }
+    private void startLoad() {
+        if (loader != null) {
+            return; // The running load starts another one for what changed meanwhile
         }
-
+        String tableName = tableManager.getTableName();
+        String licenseKeyColumn = findLicenseKeyColumn();
         if (licenseKeyColumn == null) {
+            analytics = null;
+            reloadPending = false;
+            changedRowKeys.clear();
+            keyListModel.clear();
+            keyUsageCounts.clear();
             keyListModel.addElement("No license keys stored for this application");
+            updateUndocumentedButtonState();
             showEmptyDetails();
             return;
         }
+        LicenseKeyAnalytics base = reloadPending ? null : analytics;
+        List<Object> rowKeys = new ArrayList<>(changedRowKeys);
+        reloadPending = false;
+        changedRowKeys.clear();
+        if (analytics == null) {
+            keyListModel.clear();
+            keyUsageCounts.clear();
+            keyListModel.addElement("Loading license keys...");
+        }
 
-        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
-        try (Connection conn = DatabaseUtils.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT [" + licenseKeyColumn + "], COUNT(*) as usage_count FROM [" + tableName + "] WHERE [" + licenseKeyColumn + "] IS NOT NULL AND [" + licenseKeyColumn + "] != '' GROUP BY [" + licenseKeyColumn + "]")) {
-            while (rs.next()) {
-                String licenseKey = rs.getString(licenseKeyColumn);
-                int count = rs.getInt("usage_count");
-                keyUsageCounts.put(licenseKey, count);
-                entries.add(new AbstractMap.SimpleEntry<>(licenseKey, count));
+        loader = new SwingWorker<LicenseKeyAnalytics, Void>() {
+            @Override
+            protected LicenseKeyAnalytics doInBackground() throws Exception {
+                LicenseKeyAnalytics patched = base != null ? base.withRowsReread(rowKeys) : null;
+                return patched != null ? patched : LicenseKeyAnalytics.load(tableName, licenseKeyColumn);
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error fetching license keys from table '{0}': {1}", new Object[] { tableName, e.getMessage() });
-            keyListModel.addElement("Error: " + e.getMessage());
-            JOptionPane.showMessageDialog(this, String.format("Error fetching license keys: %s", e.getMessage()), "Database Error", JOptionPane.ERROR_MESSAGE);
-            showEmptyDetails();
+
+            @Override
+            protected void done() {
+                loader = null;
+                try {
+                    analytics = get();
+                    updateKeyList();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    LOGGER.log(Level.SEVERE, "Error fetching license keys from table '{0}': {1}", new Object[] { tableName, cause.getMessage() });
+                    analytics = null;
+                    keyListModel.clear();
+                    keyUsageCounts.clear();
+                    keyListModel.addElement("Error: " + cause.getMessage());
+                    JOptionPane.showMessageDialog(LicenseKeyTracker.this, String.format("Error fetching license keys: %s", cause.getMessage()), "Database Error", JOptionPane.ERROR_MESSAGE);
+                    updateUndocumentedButtonState();
+                    showEmptyDetails();
+                }
+                if (reloadPending || !changedRowKeys.isEmpty()) {
+                    startLoad();
+                }
+            }
+        };
+        loader.execute();
+    }
+
+    // Lists the keys of the current snapshot and shows the selected key's rows again.
+    private void updateKeyList() {
+        if (analytics == null) {
             return;
         }
+        // Clearing the list clears the selection, which forgets the selected key.
+        String selectedKey = lastSelectedKey;
+        keyListModel.clear();
+        keyUsageCounts.clear();
+        Map<String, Integer> usageCounts = analytics.getUsageCounts();
+        keyUsageCounts.putAll(usageCounts);
 
-        entries.sort(Comparator.comparingInt(Map.Entry<String, Integer>::getValue).reversed()
-                .thenComparing(Map.Entry::getKey));
-
-        for (Map.Entry<String, Integer> entry : entries) {
+        for (Map.Entry<String, Integer> entry : usageCounts.entrySet()) {
             String licenseKey = entry.getKey();
             int count = entry.getValue();
             String label = getKeyLabel(licenseKey);
@@ -371,17 +437,20 @@ public class LicenseKeyTracker extends JPanel {
             keyListModel.addElement("No license keys found for current filter");
         }
 
-        if (lastSelectedKey != null) {
-            String formattedEntry = String.format("%-30s NumOfUses: %d%s", lastSelectedKey,
-                    keyUsageCounts.getOrDefault(lastSelectedKey, 0), getKeyLabel(lastSelectedKey));
+        updateUndocumentedButtonState();
+        if (selectedKey != null && keyUsageCounts.containsKey(selectedKey)) {
+            // The selection listener shows the key's rows from the new snapshot
+            String formattedEntry = String.format("%-30s NumOfUses: %d%s", selectedKey,
+                    keyUsageCounts.get(selectedKey), getKeyLabel(selectedKey));
             keyList.setSelectedValue(formattedEntry, true);
         } else {
             keyList.clearSelection();
+            if (!showingUndocumented) {
+                showEmptyDetails();
+            }
         }
 
         LOGGER.log(Level.INFO, "Loaded {0} license keys for table '{1}'", new Object[] { keyListModel.getSize(), tableManager.getTableName() });
-        updateUndocumentedButtonState();
-        showEmptyDetails();
     }
 
     private String getKeyLabel(String licenseKey) {
@@ -399,34 +468,20 @@ public class LicenseKeyTracker extends JPanel {
         LicenseKeySettingsDialog settingsDialog = new LicenseKeySettingsDialog(null, tableManager, usageLimit);
         settingsDialog.showDialog();
         loadLicenseKeyRules();
-        loadLicenseKeys();
+        updateKeyList();
     }
 
     private void updateUndocumentedButtonState() {
-        String licenseKeyColumn = null;
-        String[] columns = tableManager.getColumns();
-        for (String column : columns) {
+        toggleUndocumentedButton.setEnabled(showingUndocumented
+                || (analytics != null && !analytics.getUndocumentedRows().isEmpty()));
+    }
+
+    private String findLicenseKeyColumn() {
+        for (String column : tableManager.getColumns()) {
             if (column.equalsIgnoreCase("License_Key")) {
-                licenseKeyColumn = column;
-                break;
+                return column;
             }
         }
-
-        if (licenseKeyColumn == null) {
-            toggleUndocumentedButton.setEnabled(false);
-            return;
-        }
-
-        try (Connection conn = DatabaseUtils.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM [" + tableManager.getTableName() + "] WHERE [" + licenseKeyColumn + "] IS NULL OR [" + licenseKeyColumn + "] = ''")) {
-            rs.next();
-            int count = rs.getInt(1);
-            toggleUndocumentedButton.setEnabled(count > 0);
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error checking undocumented installations for table '{0}': {1}",
-                    new Object[] { tableManager.getTableName(), e.getMessage() });
-            toggleUndocumentedButton.setEnabled(false);
-        }
+        return null;
     }
-}
\ No newline at end of file
+}
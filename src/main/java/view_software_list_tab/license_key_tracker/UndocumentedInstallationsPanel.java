@@ -2,10 +2,8 @@ package view_software_list_tab.license_key_tracker;
 
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
-import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,13 +13,10 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
-import javax.swing.RowFilter;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
 
-import utils.DatabaseUtils;
+import utils.LicenseKeyAnalytics;
 import view_software_list_tab.PopupHandler;
 import view_software_list_tab.TableManager;
 import view_software_list_tab.ViewSoftwareListTab;
@@ -32,11 +27,15 @@ public final class UndocumentedInstallationsPanel extends JPanel {
     private final ViewSoftwareListTab parentTab;
     private final String tableName;
     private final JTextField searchField;
+    private final LicenseKeyAnalytics analytics;
+    private String undocumentedCondition;
     private static final Logger LOGGER = Logger.getLogger(UndocumentedInstallationsPanel.class.getName());
 
-    public UndocumentedInstallationsPanel(ViewSoftwareListTab parentTab, String tableName, LicenseKeyTracker licenseKeyTracker) {
+    // The rows shown are the snapshot's undocumented rows; only the columns are read from the table.
+    public UndocumentedInstallationsPanel(ViewSoftwareListTab parentTab, LicenseKeyAnalytics analytics, LicenseKeyTracker licenseKeyTracker) {
         this.parentTab = parentTab;
-        this.tableName = tableName;
+        this.analytics = analytics;
+        this.tableName = analytics.getTableName();
         this.tableManager = new TableManager(new JTable(), tableName);
         this.table = tableManager.getTable();
         this.tableManager.setLicenseKeyTracker(licenseKeyTracker);
@@ -80,89 +79,33 @@ public final class UndocumentedInstallationsPanel extends JPanel {
     }
 
     public void loadData() {
-    String licenseKeyColumn = findLicenseKeyColumn();
-    if (licenseKeyColumn == null) {
-        LOGGER.log(Level.WARNING, "No License_Key column found in table '{0}', keeping table empty", tableName);
-        DefaultTableModel model = (DefaultTableModel) table.getModel();
-        model.setRowCount(0);
-        return;
+        undocumentedCondition = analytics.undocumentedCondition();
+        showRows();
+        LOGGER.log(Level.INFO, "Loaded {0} rows for undocumented installations in table '{1}'",
+                new Object[]{table.getModel().getRowCount(), tableName});
     }
 
-    tableManager.initializeColumns();
-    DefaultTableModel model = (DefaultTableModel) table.getModel();
-    model.setRowCount(0);
-
-    try (Connection conn = DatabaseUtils.getConnection();
-         Statement stmt = conn.createStatement();
-         ResultSet rs = stmt.executeQuery("SELECT * FROM [" + tableName + "] WHERE [" + licenseKeyColumn + "] IS NULL OR [" + licenseKeyColumn + "] = ''")) {
-        int rowCount = 0;
-        while (rs.next()) {
-            Object[] row = new Object[model.getColumnCount()];
-            for (int i = 0; i < model.getColumnCount(); i++) {
-                if (i == 0) {
-                    row[i] = "Edit";
-                } else {
-                    row[i] = rs.getString(model.getColumnName(i));
-                }
-            }
-            model.addRow(row);
-            rowCount++;
+    private void showRows() {
+        String searchText = searchField.getText();
+        List<Object[]> rows = LicenseKeyAnalytics.search(analytics.getUndocumentedRows(), searchText);
+        if (tableManager.showRows(undocumentedCondition, searchText, analytics.getColumns(), analytics.getRowKeyColumn(), rows)) {
+            return;
         }
-        LOGGER.log(Level.INFO, "Loaded {0} rows for undocumented installations in table '{1}'", 
-            new Object[]{rowCount, tableName});
-    } catch (SQLException e) {
-        LOGGER.log(Level.SEVERE, "Error fetching undocumented installations for table '{0}': {1}", 
-            new Object[]{tableName, e.getMessage()});
-        JOptionPane.showMessageDialog(this, "Error fetching data: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
-    }
-}
-
-    private String findLicenseKeyColumn() {
-        String[] columns = tableManager.getColumns();
-        String licenseKeyColumn = null;
-        boolean warningIssued = false;
-        for (String column : columns) {
-            if (column.equalsIgnoreCase("License_Key") || column.equalsIgnoreCase("Licence_Key")) {
-                if (licenseKeyColumn == null) {
-                    licenseKeyColumn = column;
-                } else {
-                    if (!warningIssued) {
-                        LOGGER.log(Level.WARNING, "Multiple License_Key-like columns found in table '{0}': {1}, {2}. Using '{1}'", 
-                            new Object[]{tableName, licenseKeyColumn, column});
-                        JOptionPane.showMessageDialog(this, 
-                            "Warning: Multiple License_Key-like columns found (" + licenseKeyColumn + ", " + column + "). Using '" + licenseKeyColumn + "'.", 
-                            "Column Ambiguity", JOptionPane.WARNING_MESSAGE);
-                        warningIssued = true;
-                    }
-                }
-            }
-        }
-        if (licenseKeyColumn == null) {
-            LOGGER.log(Level.WARNING, "No License_Key column found in table '{0}'", tableName);
+        // The table's columns changed since the snapshot was read
+        try {
+            tableManager.loadRows(undocumentedCondition, searchText);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching undocumented installations for table '{0}': {1}",
+                    new Object[]{tableName, e.getMessage()});
+            JOptionPane.showMessageDialog(this, "Error fetching data: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
         }
-        return licenseKeyColumn;
     }
 
+    // Searches the undocumented rows in memory, the same way the table's search would.
     private void applyFilter() {
-        String text = searchField.getText().toLowerCase();
-        TableRowSorter<DefaultTableModel> sorter = (TableRowSorter<DefaultTableModel>) table.getRowSorter();
-        if (sorter != null) {
-            RowFilter<DefaultTableModel, Integer> filter = null;
-            if (!text.isEmpty()) {
-                filter = new RowFilter<DefaultTableModel, Integer>() {
-                    @Override
-                    public boolean include(Entry<? extends DefaultTableModel, ? extends Integer> entry) {
-                        for (int i = 1; i < entry.getModel().getColumnCount(); i++) {
-                            Object value = entry.getValue(i);
-                            if (value != null && value.toString().toLowerCase().contains(text)) {
-                                return true;
-                            }
-                        }
-                        return false;
-                    }
-                };
-            }
-            sorter.setRowFilter(filter);
+        if (undocumentedCondition == null) {
+            return;
         }
+        showRows();
     }
-}
\ No newline at end of file
+}